@@ -0,0 +1,72 @@
+package com.github.dimitryivaniuta.searchanalytics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Deterministic sample data shared by all benchmarks.
+ */
+public final class BenchmarkEvents {
+
+    /**
+     * Power of two, so benchmarks can cycle with {@code index & (SIZE - 1)}.
+     */
+    public static final int SIZE = 1024;
+
+    private static final String[] QUERIES = {
+            "java streams", "spring kafka consumer group", "postgres upsert", "laptop 16gb",
+            "iphone 15 case", "virtual threads", "kafka consumer lag", "jdbc batch insert"
+    };
+    private static final String[] COUNTRIES = {"PL", "DE", "US", "GB", "FR"};
+    private static final String[] DEVICES = {"desktop", "mobile", "tablet"};
+    private static final String[] PLATFORMS = {"web", "ios", "android"};
+
+    private BenchmarkEvents() {
+    }
+
+    /**
+     * Same configuration as Spring Boot's auto-configured mapper (ISO dates, lenient reads).
+     */
+    public static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    public static SearchEventPayload[] events() {
+        Random random = new Random(42);
+        Instant base = Instant.parse("2025-12-07T00:00:00Z");
+        SearchEventPayload[] events = new SearchEventPayload[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            Instant occurredAt = base.plusMillis(random.nextInt(86_400_000)).plusNanos(random.nextInt(1_000) * 1_000L);
+            SearchEventPayload event = SearchEventPayload.builder()
+                    .eventId(new UUID(random.nextLong(), random.nextLong()).toString())
+                    .userId("user-" + random.nextInt(100_000))
+                    .sessionId("sess-" + random.nextInt(1_000_000))
+                    .query(QUERIES[random.nextInt(QUERIES.length)])
+                    .country(COUNTRIES[random.nextInt(COUNTRIES.length)])
+                    .locale("pl-PL")
+                    .deviceType(DEVICES[random.nextInt(DEVICES.length)])
+                    .platform(PLATFORMS[random.nextInt(PLATFORMS.length)])
+                    .source("search-bar")
+                    .occurredAt(occurredAt)
+                    .sentAt(occurredAt.plusMillis(15))
+                    .build();
+            if (i % 2 == 0) {
+                event.setFilters(SearchEventPayload.Filters.builder()
+                        .category("electronics")
+                        .subCategory("laptop")
+                        .page(0)
+                        .pageSize(20)
+                        .sortBy("relevance")
+                        .sortDirection("desc")
+                        .build());
+            }
+            events[i] = event;
+        }
+        return events;
+    }
+}
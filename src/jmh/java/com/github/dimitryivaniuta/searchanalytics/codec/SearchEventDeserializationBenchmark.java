@@ -0,0 +1,89 @@
+package com.github.dimitryivaniuta.searchanalytics.codec;
+
+import com.github.dimitryivaniuta.searchanalytics.BenchmarkEvents;
+import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consumer-side cost of turning a search-events record value into a SearchEventPayload:
+ * our negotiating deserializer per wire format vs. the previous spring-kafka JsonDeserializer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchEventDeserializationBenchmark {
+
+    @Benchmark
+    public SearchEventPayload searchEventDeserializer(Negotiating state) {
+        int i = state.index++ & (BenchmarkEvents.SIZE - 1);
+        return state.deserializer.deserialize("search-events", state.headers[i], state.values[i]);
+    }
+
+    /**
+     * Baseline: the JsonDeserializer previously configured in application.yml (JSON only).
+     */
+    @Benchmark
+    public SearchEventPayload springJsonDeserializer(SpringJson state) {
+        int i = state.index++ & (BenchmarkEvents.SIZE - 1);
+        return state.deserializer.deserialize("search-events", state.values[i]);
+    }
+
+    @State(Scope.Thread)
+    public static class Negotiating {
+
+        @Param({"JSON", "BINARY"})
+        public WireFormat format;
+
+        SearchEventDeserializer deserializer;
+        byte[][] values;
+        RecordHeaders[] headers;
+        int index;
+
+        @Setup
+        public void setUp() {
+            SearchEventSerializer serializer = new SearchEventSerializer(format, BenchmarkEvents.objectMapper());
+            SearchEventPayload[] events = BenchmarkEvents.events();
+            values = new byte[events.length][];
+            headers = new RecordHeaders[events.length];
+            for (int i = 0; i < events.length; i++) {
+                headers[i] = new RecordHeaders();
+                values[i] = serializer.serialize("search-events", headers[i], events[i]);
+            }
+            deserializer = new SearchEventDeserializer(BenchmarkEvents.objectMapper());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class SpringJson {
+
+        JsonDeserializer<SearchEventPayload> deserializer;
+        byte[][] values;
+        int index;
+
+        @Setup
+        public void setUp() throws Exception {
+            SearchEventPayload[] events = BenchmarkEvents.events();
+            values = new byte[events.length][];
+            for (int i = 0; i < events.length; i++) {
+                values[i] = BenchmarkEvents.objectMapper().writeValueAsBytes(events[i]);
+            }
+            deserializer = new JsonDeserializer<>(SearchEventPayload.class, BenchmarkEvents.objectMapper(), false);
+        }
+    }
+}
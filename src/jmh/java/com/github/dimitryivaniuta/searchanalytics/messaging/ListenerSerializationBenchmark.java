@@ -0,0 +1,69 @@
+package com.github.dimitryivaniuta.searchanalytics.messaging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.searchanalytics.BenchmarkEvents;
+import com.github.dimitryivaniuta.searchanalytics.config.KafkaTopicsProperties;
+import com.github.dimitryivaniuta.searchanalytics.model.DltEnvelope;
+import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON work done by the listener per record: re-serializing the payload for raw_search_events
+ * (SearchEventsListener.safeToJson) and, on failures, building + serializing the DLT envelope.
+ * Both are measured through the production code; the DeadLetterProducer's KafkaTemplate is not
+ * needed for building / serializing an envelope and is left null.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListenerSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private DeadLetterProducer deadLetterProducer;
+    private SearchEventPayload[] events;
+    private RuntimeException failure;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        objectMapper = BenchmarkEvents.objectMapper();
+        deadLetterProducer = new DeadLetterProducer(null, new KafkaTopicsProperties(), objectMapper);
+        events = BenchmarkEvents.events();
+        failure = new IllegalStateException("duplicate key value violates unique constraint");
+    }
+
+    @Benchmark
+    public String safeToJson() {
+        return SearchEventsListener.safeToJson(objectMapper, next());
+    }
+
+    @Benchmark
+    public DltEnvelope dltEnvelopeBuild() {
+        return deadLetterProducer.buildEnvelope("user-1", next(), "search-events", 3, 1_000_000L,
+                42L, 7L, failure);
+    }
+
+    @Benchmark
+    public String dltEnvelopeBuildAndSerialize() throws JsonProcessingException {
+        return deadLetterProducer.toJson(dltEnvelopeBuild());
+    }
+
+    private SearchEventPayload next() {
+        return events[index++ & (BenchmarkEvents.SIZE - 1)];
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.dimitryivaniuta.searchanalytics.repository;
+
+import com.github.dimitryivaniuta.searchanalytics.BenchmarkEvents;
+import com.github.dimitryivaniuta.searchanalytics.model.RawSearchEvent;
+import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
+import com.github.dimitryivaniuta.searchanalytics.service.RawSearchEventService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-record cost of preparing a raw_search_events insert: building the RawSearchEvent
+ * (RawSearchEventService.receivedEvent) and binding its 12 parameters
+ * (RawSearchEventRepository.bindInsert) into a PreparedStatement that only records values.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RawSearchEventRowBenchmark {
+
+    private SearchEventPayload[] events;
+    private String[] rawJson;
+    private PreparedStatement statement;
+    private final Object[] bound = new Object[13];
+    private int index;
+
+    @Setup
+    public void setUp() throws Exception {
+        events = BenchmarkEvents.events();
+        rawJson = new String[events.length];
+        for (int i = 0; i < events.length; i++) {
+            rawJson[i] = BenchmarkEvents.objectMapper().writeValueAsString(events[i]);
+        }
+        statement = (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("set") && args != null && args.length == 2) {
+                        bound[(Integer) args[0]] = args[1];
+                    }
+                    return null;
+                });
+    }
+
+    @Benchmark
+    public RawSearchEvent buildRow() {
+        int i = index++ & (BenchmarkEvents.SIZE - 1);
+        return toRawEvent(i);
+    }
+
+    @Benchmark
+    public void buildAndBindRow(Blackhole blackhole) throws SQLException {
+        int i = index++ & (BenchmarkEvents.SIZE - 1);
+        RawSearchEventRepository.bindInsert(statement, toRawEvent(i));
+        blackhole.consume(bound);
+    }
+
+    private RawSearchEvent toRawEvent(int i) {
+        SearchEventPayload payload = events[i];
+        return RawSearchEventService.receivedEvent(payload.getUserId(), "search-events", 0, i, payload, rawJson[i]);
+    }
+}
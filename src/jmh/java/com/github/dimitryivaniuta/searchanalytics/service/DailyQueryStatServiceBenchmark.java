@@ -0,0 +1,81 @@
+package com.github.dimitryivaniuta.searchanalytics.service;
+
+import com.github.dimitryivaniuta.searchanalytics.BenchmarkEvents;
+import com.github.dimitryivaniuta.searchanalytics.config.StatsProperties;
+import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
+import com.github.dimitryivaniuta.searchanalytics.repository.DailyQueryStatRepository;
+import com.github.dimitryivaniuta.searchanalytics.wal.StatsWal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * CPU cost of DailyQueryStatService.incrementFromEvent without a database:
+ *  - DIRECT:    day bucketing + call into an in-memory repository,
+ *  - COALESCED: day bucketing + DailyQueryStatBuffer.add (flush not measured).
+ *
+ * State is shared, so {@code -t 4} measures contention on the store / buffer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DailyQueryStatServiceBenchmark {
+
+    @Param({"DIRECT", "COALESCED"})
+    private StatsProperties.WriteMode writeMode;
+
+    private DailyQueryStatService service;
+    private SearchEventPayload[] events;
+    private final AtomicInteger index = new AtomicInteger();
+
+    @Setup
+    public void setUp() {
+        StatsProperties properties = new StatsProperties();
+        properties.setWriteMode(writeMode);
+        InMemoryDailyQueryStatRepository repository = new InMemoryDailyQueryStatRepository();
+        // flush() is never called here, so no outbox service / transaction manager / bulkheads are needed;
+        // the WAL is never opened (app.stats.wal.enabled=false)
+        DailyQueryStatBuffer buffer = new DailyQueryStatBuffer(repository, null, properties, null, null,
+                new StatsWal(properties, null));
+        service = new DailyQueryStatService(repository, buffer, properties, new HotKeyDetector(properties));
+        events = BenchmarkEvents.events();
+    }
+
+    @Benchmark
+    public void incrementFromEvent() {
+        service.incrementFromEvent(events[index.getAndIncrement() & (BenchmarkEvents.SIZE - 1)]);
+    }
+
+    /**
+     * Stands in for the JDBC upsert: one concurrent map merge per increment.
+     */
+    static final class InMemoryDailyQueryStatRepository extends DailyQueryStatRepository {
+
+        private final ConcurrentHashMap<String, Long> counts = new ConcurrentHashMap<>();
+
+        InMemoryDailyQueryStatRepository() {
+            super(null, null);
+        }
+
+        @Override
+        public void incrementCount(LocalDate day, String query) {
+            counts.merge(day + "|" + query, 1L, Long::sum);
+        }
+    }
+}
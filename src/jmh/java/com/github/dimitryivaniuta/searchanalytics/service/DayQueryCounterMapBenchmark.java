@@ -0,0 +1,127 @@
+package com.github.dimitryivaniuta.searchanalytics.service;
+
+import com.github.dimitryivaniuta.searchanalytics.model.DayQueryKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One (day, query) increment in the in-memory stats combiner, per map implementation:
+ *  - hashMap:           HashMap<DayQueryKey, Long>.merge (the former PartitionedStatsAggregator state),
+ *  - concurrentHashMap: ConcurrentHashMap<DayQueryKey, LongAdder> (the former DailyQueryStatBuffer),
+ *  - counterMap:        DayQueryCounterMap.
+ *
+ * Every {@code window} increments the map is drained into the Map the repository takes and reset,
+ * like a flush. Run with {@code -prof gc} and compare gc.alloc.rate.norm (bytes per increment).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DayQueryCounterMapBenchmark {
+
+    /**
+     * Power of two, so increments can cycle with {@code index & (EVENTS - 1)}.
+     */
+    private static final int EVENTS = 1 << 16;
+    private static final LocalDate DAY = LocalDate.of(2025, 12, 7);
+
+    @Param({"1000", "50000"})
+    private int distinctKeys;
+
+    @Param({"50000"})
+    private int window;
+
+    private LocalDate[] days;
+    private String[] queries;
+    private int index;
+    private int inWindow;
+
+    private Map<DayQueryKey, Long> hashMap;
+    private ConcurrentHashMap<DayQueryKey, LongAdder> concurrentHashMap;
+    private DayQueryCounterMap counterMap;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        days = new LocalDate[EVENTS];
+        queries = new String[EVENTS];
+        for (int i = 0; i < EVENTS; i++) {
+            int key = random.nextInt(distinctKeys);
+            // events around midnight: a tenth of them still belong to the previous day
+            days[i] = random.nextInt(10) == 0 ? DAY.minusDays(1) : DAY;
+            // a new String per event, as the deserializer hands them over
+            queries[i] = new String("query number " + key);
+        }
+        hashMap = new HashMap<>();
+        concurrentHashMap = new ConcurrentHashMap<>();
+        counterMap = new DayQueryCounterMap();
+    }
+
+    @Benchmark
+    public Object hashMap() {
+        int i = next();
+        hashMap.merge(new DayQueryKey(days[i], queries[i]), 1L, Long::sum);
+        if (windowFull()) {
+            Map<DayQueryKey, Long> drained = hashMap;
+            hashMap = new HashMap<>();
+            return drained;
+        }
+        return null;
+    }
+
+    @Benchmark
+    public Object concurrentHashMap() {
+        int i = next();
+        concurrentHashMap.computeIfAbsent(new DayQueryKey(days[i], queries[i]), k -> new LongAdder()).increment();
+        if (windowFull()) {
+            Map<DayQueryKey, Long> drained = new HashMap<>(concurrentHashMap.size() * 2);
+            concurrentHashMap.forEach((key, adder) -> drained.put(key, adder.sum()));
+            concurrentHashMap = new ConcurrentHashMap<>();
+            return drained;
+        }
+        return null;
+    }
+
+    @Benchmark
+    public Object counterMap() {
+        int i = next();
+        counterMap.add(days[i], queries[i], 1L);
+        if (windowFull()) {
+            Map<DayQueryKey, Long> drained = counterMap.toMap();
+            counterMap.clear();
+            return drained;
+        }
+        return null;
+    }
+
+    private int next() {
+        return index++ & (EVENTS - 1);
+    }
+
+    private boolean windowFull() {
+        if (++inWindow < window) {
+            return false;
+        }
+        inWindow = 0;
+        return true;
+    }
+}
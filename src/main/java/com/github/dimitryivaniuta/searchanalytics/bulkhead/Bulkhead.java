@@ -0,0 +1,190 @@
+package com.github.dimitryivaniuta.searchanalytics.bulkhead;
+
+import com.github.dimitryivaniuta.searchanalytics.config.BulkheadProperties.Budget;
+
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Execution + connection budget of one {@link Workload}.
+ *
+ * Flow:
+ *  - call(): take an execution slot (wait up to max-wait, else {@link BulkheadFullException}),
+ *    mark the thread as running in this bulkhead, run the action, release.
+ *  - BulkheadDataSource, on getConnection() from a marked thread: take a connection slot
+ *    (wait up to connection-wait), apply the statement timeout, release the slot on close().
+ *
+ * Nested call() on the same bulkhead re-uses the outer slot, so a flush inside a listener
+ * call never deadlocks on its own budget.
+ */
+public class Bulkhead {
+
+    private static final ThreadLocal<Bulkhead> CURRENT = new ThreadLocal<>();
+
+    private final Workload workload;
+    private final boolean enabled;
+    private final int maxConcurrent;
+    private final Duration maxWait;
+    private final int maxConnections;
+    private final Duration connectionWait;
+    private final int statementTimeoutSeconds;
+    private final Duration retryAfter;
+
+    private final Semaphore executionPermits;
+    private final Semaphore connectionPermits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder rejectedCalls = new LongAdder();
+    private final LongAdder rejectedConnections = new LongAdder();
+
+    public Bulkhead(Workload workload, Budget budget, boolean enabled) {
+        this.workload = workload;
+        this.enabled = enabled;
+        this.maxConcurrent = budget.getMaxConcurrent();
+        this.maxWait = budget.getMaxWait();
+        this.maxConnections = budget.getMaxConnections();
+        this.connectionWait = budget.getConnectionWait();
+        this.statementTimeoutSeconds = (int) budget.getStatementTimeout().toSeconds();
+        this.retryAfter = budget.getRetryAfter();
+        this.executionPermits = new Semaphore(maxConcurrent, true);
+        this.connectionPermits = new Semaphore(maxConnections, true);
+    }
+
+    /**
+     * Bulkhead the current thread is running in, or null outside any bulkhead.
+     */
+    public static Bulkhead current() {
+        return CURRENT.get();
+    }
+
+    public <T> T call(Supplier<T> action) {
+        Bulkhead previous = CURRENT.get();
+        if (!enabled || previous == this) {
+            return action.get();
+        }
+        acquireExecution();
+        CURRENT.set(this);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+            executionPermits.release();
+        }
+    }
+
+    public void run(Runnable action) {
+        call(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Takes a connection slot for a checkout made inside this bulkhead.
+     */
+    void acquireConnection() throws SQLTransientConnectionException {
+        if (connectionPermits.tryAcquire()) {
+            return;
+        }
+        try {
+            if (!connectionPermits.tryAcquire(connectionWait.toMillis(), TimeUnit.MILLISECONDS)) {
+                rejectedConnections.increment();
+                throw new SQLTransientConnectionException("Bulkhead '" + workload.tag() + "' holds "
+                        + maxConnections + " connections, none released within " + connectionWait.toMillis() + "ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a bulkhead connection slot", e);
+        }
+    }
+
+    void releaseConnection() {
+        connectionPermits.release();
+    }
+
+    public Workload getWorkload() {
+        return workload;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Statement query timeout in seconds, 0 = none.
+     */
+    public int getStatementTimeoutSeconds() {
+        return statementTimeoutSeconds;
+    }
+
+    public int activeCalls() {
+        return maxConcurrent - executionPermits.availablePermits();
+    }
+
+    public int activeConnections() {
+        return maxConnections - connectionPermits.availablePermits();
+    }
+
+    public int waiting() {
+        return waiting.get();
+    }
+
+    /**
+     * Calls admitted so far (with or without waiting).
+     */
+    public long calls() {
+        return calls.sum();
+    }
+
+    /**
+     * Total time admitted calls spent waiting for an execution slot.
+     */
+    public double totalWaitNanos() {
+        return totalWaitNanos.sum();
+    }
+
+    public long rejectedCalls() {
+        return rejectedCalls.sum();
+    }
+
+    public long rejectedConnections() {
+        return rejectedConnections.sum();
+    }
+
+    private void acquireExecution() {
+        if (executionPermits.tryAcquire()) {
+            calls.increment();
+            return;
+        }
+        waiting.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            if (!executionPermits.tryAcquire(maxWait.toMillis(), TimeUnit.MILLISECONDS)) {
+                rejectedCalls.increment();
+                throw new BulkheadFullException(workload, maxConcurrent, retryAfter);
+            }
+            calls.increment();
+            totalWaitNanos.add(System.nanoTime() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejectedCalls.increment();
+            throw new BulkheadFullException(workload, maxConcurrent, retryAfter);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+}
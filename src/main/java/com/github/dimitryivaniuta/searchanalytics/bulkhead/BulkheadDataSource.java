@@ -0,0 +1,128 @@
+package com.github.dimitryivaniuta.searchanalytics.bulkhead;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Applies the connection budget and statement timeout of the caller's {@link Bulkhead}.
+ *
+ * Checkouts from threads outside any bulkhead (Flyway, JPA, schedulers) pass straight through.
+ * The timeout is set per statement via {@link Statement#setQueryTimeout} (pgjdbc cancels the query
+ * server-side when it fires), so nothing is left behind on the pooled session for the next borrower.
+ * JdbcTemplate only overrides it when a transaction timeout is active.
+ */
+public class BulkheadDataSource extends DelegatingDataSource {
+
+    public BulkheadDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Bulkhead bulkhead = Bulkhead.current();
+        if (bulkhead == null) {
+            return super.getConnection();
+        }
+        bulkhead.acquireConnection();
+        try {
+            return budgeted(super.getConnection(), bulkhead);
+        } catch (SQLException | RuntimeException ex) {
+            bulkhead.releaseConnection();
+            throw ex;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Bulkhead bulkhead = Bulkhead.current();
+        if (bulkhead == null) {
+            return super.getConnection(username, password);
+        }
+        bulkhead.acquireConnection();
+        try {
+            return budgeted(super.getConnection(username, password), bulkhead);
+        } catch (SQLException | RuntimeException ex) {
+            bulkhead.releaseConnection();
+            throw ex;
+        }
+    }
+
+    private Connection budgeted(Connection connection, Bulkhead bulkhead) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new BudgetedConnectionHandler(connection, bulkhead));
+    }
+
+    private static final class BudgetedConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+        private final Bulkhead bulkhead;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private BudgetedConnectionHandler(Connection target, Bulkhead bulkhead) {
+            this.target = target;
+            this.bulkhead = bulkhead;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    try {
+                        target.close();
+                    } finally {
+                        if (released.compareAndSet(false, true)) {
+                            bulkhead.releaseConnection();
+                        }
+                    }
+                    return null;
+                }
+                case "createStatement", "prepareStatement", "prepareCall" -> {
+                    Object statement = invokeTarget(method, args);
+                    if (bulkhead.getStatementTimeoutSeconds() > 0) {
+                        ((Statement) statement).setQueryTimeout(bulkhead.getStatementTimeoutSeconds());
+                    }
+                    return statement;
+                }
+                case "unwrap" -> {
+                    Class<?> iface = (Class<?>) args[0];
+                    return iface.isInstance(proxy) ? proxy : target.unwrap(iface);
+                }
+                case "isWrapperFor" -> {
+                    Class<?> iface = (Class<?>) args[0];
+                    return iface.isInstance(proxy) || target.isWrapperFor(iface);
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Bulkhead[" + bulkhead.getWorkload().tag() + ", " + target + "]";
+                }
+                default -> {
+                    return invokeTarget(method, args);
+                }
+            }
+        }
+
+        private Object invokeTarget(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getTargetException();
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.dimitryivaniuta.searchanalytics.bulkhead;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a bulkhead has no free execution slot within its max-wait;
+ * mapped to HTTP 503 + Retry-After for REST callers.
+ */
+@Getter
+public class BulkheadFullException extends RuntimeException {
+
+    private final Workload workload;
+    private final Duration retryAfter;
+
+    public BulkheadFullException(Workload workload, int maxConcurrent, Duration retryAfter) {
+        super("Bulkhead '" + workload.tag() + "' is full (" + maxConcurrent + " concurrent calls), retry later");
+        this.workload = workload;
+        this.retryAfter = retryAfter;
+    }
+}
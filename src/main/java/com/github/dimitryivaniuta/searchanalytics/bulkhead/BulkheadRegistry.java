@@ -0,0 +1,109 @@
+package com.github.dimitryivaniuta.searchanalytics.bulkhead;
+
+import com.github.dimitryivaniuta.searchanalytics.config.BulkheadProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The three {@link Bulkhead}s (ingest, query, maintenance) built from app.bulkhead.*,
+ * plus their saturation meters, all tagged bulkhead=ingest|query|maintenance:
+ *  - app.bulkhead.calls.active / app.bulkhead.calls.saturation (active / max-concurrent)
+ *  - app.bulkhead.connections.active / app.bulkhead.connections.saturation
+ *  - app.bulkhead.waiting, app.bulkhead.wait (time to get an execution slot)
+ *  - app.bulkhead.rejected{resource=execution|connection}
+ */
+@Slf4j
+@EnableConfigurationProperties(BulkheadProperties.class)
+@Component
+public class BulkheadRegistry implements MeterBinder {
+
+    private final Map<Workload, Bulkhead> bulkheads;
+
+    public BulkheadRegistry(BulkheadProperties properties) {
+        Map<Workload, Bulkhead> map = new EnumMap<>(Workload.class);
+        map.put(Workload.INGEST, new Bulkhead(Workload.INGEST, properties.getIngest(), properties.isEnabled()));
+        map.put(Workload.QUERY, new Bulkhead(Workload.QUERY, properties.getQuery(), properties.isEnabled()));
+        map.put(Workload.MAINTENANCE,
+                new Bulkhead(Workload.MAINTENANCE, properties.getMaintenance(), properties.isEnabled()));
+        this.bulkheads = Collections.unmodifiableMap(map);
+        if (properties.isEnabled()) {
+            bulkheads.values().forEach(b -> log.info("Bulkhead '{}': {} calls, {} connections, statement timeout {}s",
+                    b.getWorkload().tag(), b.getMaxConcurrent(), b.getMaxConnections(), b.getStatementTimeoutSeconds()));
+        }
+    }
+
+    public Bulkhead get(Workload workload) {
+        return bulkheads.get(workload);
+    }
+
+    public Bulkhead ingest() {
+        return get(Workload.INGEST);
+    }
+
+    public Bulkhead query() {
+        return get(Workload.QUERY);
+    }
+
+    public Bulkhead maintenance() {
+        return get(Workload.MAINTENANCE);
+    }
+
+    public Collection<Bulkhead> all() {
+        return bulkheads.values();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Bulkhead bulkhead : bulkheads.values()) {
+            Tags tags = Tags.of("bulkhead", bulkhead.getWorkload().tag());
+            Gauge.builder("app.bulkhead.calls.active", bulkhead, Bulkhead::activeCalls)
+                    .description("Calls currently running inside the bulkhead")
+                    .tags(tags)
+                    .register(registry);
+            Gauge.builder("app.bulkhead.calls.saturation", bulkhead,
+                            b -> (double) b.activeCalls() / b.getMaxConcurrent())
+                    .description("Share of execution slots in use (1 = full)")
+                    .tags(tags)
+                    .register(registry);
+            Gauge.builder("app.bulkhead.connections.active", bulkhead, Bulkhead::activeConnections)
+                    .description("JDBC connections currently held by the workload")
+                    .tags(tags)
+                    .register(registry);
+            Gauge.builder("app.bulkhead.connections.saturation", bulkhead,
+                            b -> (double) b.activeConnections() / b.getMaxConnections())
+                    .description("Share of the workload's connection budget in use (1 = full)")
+                    .tags(tags)
+                    .register(registry);
+            Gauge.builder("app.bulkhead.waiting", bulkhead, Bulkhead::waiting)
+                    .description("Calls queued for an execution slot")
+                    .tags(tags)
+                    .register(registry);
+            FunctionTimer.builder("app.bulkhead.wait", bulkhead,
+                            Bulkhead::calls, Bulkhead::totalWaitNanos, TimeUnit.NANOSECONDS)
+                    .description("Time admitted calls waited for an execution slot")
+                    .tags(tags)
+                    .register(registry);
+            FunctionCounter.builder("app.bulkhead.rejected", bulkhead, Bulkhead::rejectedCalls)
+                    .description("Calls or connection checkouts rejected because the budget was exhausted")
+                    .tags(tags.and("resource", "execution"))
+                    .register(registry);
+            FunctionCounter.builder("app.bulkhead.rejected", bulkhead, Bulkhead::rejectedConnections)
+                    .description("Calls or connection checkouts rejected because the budget was exhausted")
+                    .tags(tags.and("resource", "connection"))
+                    .register(registry);
+        }
+    }
+}
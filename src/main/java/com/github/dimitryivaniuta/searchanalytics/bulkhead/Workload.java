@@ -0,0 +1,31 @@
+package com.github.dimitryivaniuta.searchanalytics.bulkhead;
+
+import java.util.Locale;
+
+/**
+ * Workload classes that get their own {@link Bulkhead}.
+ */
+public enum Workload {
+
+    /**
+     * Kafka listener and the coalesced stats flush – drives consumer lag.
+     */
+    INGEST,
+
+    /**
+     * Interactive reads from the REST API (StatsQueryController).
+     */
+    QUERY,
+
+    /**
+     * Background jobs: outbox relay, DLT retries.
+     */
+    MAINTENANCE;
+
+    /**
+     * Lower-case name used as the bulkhead meter tag.
+     */
+    public String tag() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,350 @@
+package com.github.dimitryivaniuta.searchanalytics.codec;
+
+import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of {@link SearchEventPayload} (format version 1).
+ *
+ * Layout:
+ *  - 1 byte   version (0x01) – never a valid first byte of JSON
+ *  - varint   presence bitmap, one bit per field (absent fields cost nothing)
+ *  - fields in declaration order:
+ *      strings      varint length + UTF-8
+ *      eventId      16 raw bytes when it is a canonical UUID (FLAG_EVENT_ID_UUID), string otherwise
+ *      dictionary   varint (index + 1) into a fixed table, or 0 + string for values not in the table
+ *                   (country, deviceType, platform, source, filters.sortDirection)
+ *      timestamps   zig-zag varint of epoch microseconds
+ *      filters      nested presence bitmap + fields, page/pageSize as zig-zag varints
+ *
+ * The dictionaries are part of the version: entries may only be appended together with a new
+ * version byte, because older readers cannot decode unknown indexes.
+ */
+public final class SearchEventBinaryCodec {
+
+    public static final byte VERSION_1 = 0x01;
+
+    private static final int F_EVENT_ID = 1;
+    private static final int F_EVENT_ID_UUID = 1 << 1;
+    private static final int F_USER_ID = 1 << 2;
+    private static final int F_ANONYMOUS_ID = 1 << 3;
+    private static final int F_SESSION_ID = 1 << 4;
+    private static final int F_QUERY = 1 << 5;
+    private static final int F_COUNTRY = 1 << 6;
+    private static final int F_LOCALE = 1 << 7;
+    private static final int F_DEVICE_TYPE = 1 << 8;
+    private static final int F_PLATFORM = 1 << 9;
+    private static final int F_SOURCE = 1 << 10;
+    private static final int F_IP_ADDRESS = 1 << 11;
+    private static final int F_OCCURRED_AT = 1 << 12;
+    private static final int F_SENT_AT = 1 << 13;
+    private static final int F_FILTERS = 1 << 14;
+
+    private static final int FF_CATEGORY = 1;
+    private static final int FF_SUB_CATEGORY = 1 << 1;
+    private static final int FF_PAGE = 1 << 2;
+    private static final int FF_PAGE_SIZE = 1 << 3;
+    private static final int FF_SORT_BY = 1 << 4;
+    private static final int FF_SORT_DIRECTION = 1 << 5;
+    private static final int FF_EXTRA_JSON = 1 << 6;
+
+    private static final Dictionary COUNTRIES = new Dictionary(
+            "US", "GB", "DE", "FR", "PL", "NL", "ES", "IT", "SE", "NO", "DK", "FI", "IE", "PT", "AT",
+            "CH", "BE", "CZ", "SK", "HU", "RO", "BG", "GR", "UA", "LT", "LV", "EE", "CA", "MX", "BR",
+            "AR", "IN", "CN", "JP", "KR", "AU", "NZ", "SG", "IL", "TR", "ZA");
+    private static final Dictionary DEVICE_TYPES = new Dictionary("desktop", "mobile", "tablet");
+    private static final Dictionary PLATFORMS = new Dictionary("web", "ios", "android", "backend");
+    private static final Dictionary SOURCES = new Dictionary("search-bar", "filters-panel", "homepage");
+    private static final Dictionary SORT_DIRECTIONS = new Dictionary("asc", "desc");
+
+    private SearchEventBinaryCodec() {
+    }
+
+    public static byte[] encode(SearchEventPayload event) {
+        Writer out = new Writer(128);
+        out.writeByte(VERSION_1);
+
+        UUID uuid = parseUuid(event.getEventId());
+        int presence = 0;
+        if (event.getEventId() != null) presence |= F_EVENT_ID;
+        if (uuid != null) presence |= F_EVENT_ID_UUID;
+        if (event.getUserId() != null) presence |= F_USER_ID;
+        if (event.getAnonymousId() != null) presence |= F_ANONYMOUS_ID;
+        if (event.getSessionId() != null) presence |= F_SESSION_ID;
+        if (event.getQuery() != null) presence |= F_QUERY;
+        if (event.getCountry() != null) presence |= F_COUNTRY;
+        if (event.getLocale() != null) presence |= F_LOCALE;
+        if (event.getDeviceType() != null) presence |= F_DEVICE_TYPE;
+        if (event.getPlatform() != null) presence |= F_PLATFORM;
+        if (event.getSource() != null) presence |= F_SOURCE;
+        if (event.getIpAddress() != null) presence |= F_IP_ADDRESS;
+        if (event.getOccurredAt() != null) presence |= F_OCCURRED_AT;
+        if (event.getSentAt() != null) presence |= F_SENT_AT;
+        if (event.getFilters() != null) presence |= F_FILTERS;
+        out.writeVarLong(presence);
+
+        if (uuid != null) {
+            out.writeLongBE(uuid.getMostSignificantBits());
+            out.writeLongBE(uuid.getLeastSignificantBits());
+        } else if (event.getEventId() != null) {
+            out.writeString(event.getEventId());
+        }
+        if (event.getUserId() != null) out.writeString(event.getUserId());
+        if (event.getAnonymousId() != null) out.writeString(event.getAnonymousId());
+        if (event.getSessionId() != null) out.writeString(event.getSessionId());
+        if (event.getQuery() != null) out.writeString(event.getQuery());
+        if (event.getCountry() != null) out.writeCoded(COUNTRIES, event.getCountry());
+        if (event.getLocale() != null) out.writeString(event.getLocale());
+        if (event.getDeviceType() != null) out.writeCoded(DEVICE_TYPES, event.getDeviceType());
+        if (event.getPlatform() != null) out.writeCoded(PLATFORMS, event.getPlatform());
+        if (event.getSource() != null) out.writeCoded(SOURCES, event.getSource());
+        if (event.getIpAddress() != null) out.writeString(event.getIpAddress());
+        if (event.getOccurredAt() != null) out.writeZigZag(toEpochMicros(event.getOccurredAt()));
+        if (event.getSentAt() != null) out.writeZigZag(toEpochMicros(event.getSentAt()));
+        if (event.getFilters() != null) writeFilters(out, event.getFilters());
+
+        return out.toByteArray();
+    }
+
+    public static SearchEventPayload decode(byte[] data) {
+        Reader in = new Reader(data);
+        byte version = in.readByte();
+        if (version != VERSION_1) {
+            throw new IllegalArgumentException("Unsupported search event binary version: " + version);
+        }
+
+        long presence = in.readVarLong();
+        SearchEventPayload event = new SearchEventPayload();
+        if ((presence & F_EVENT_ID_UUID) != 0) {
+            event.setEventId(new UUID(in.readLongBE(), in.readLongBE()).toString());
+        } else if ((presence & F_EVENT_ID) != 0) {
+            event.setEventId(in.readString());
+        }
+        if ((presence & F_USER_ID) != 0) event.setUserId(in.readString());
+        if ((presence & F_ANONYMOUS_ID) != 0) event.setAnonymousId(in.readString());
+        if ((presence & F_SESSION_ID) != 0) event.setSessionId(in.readString());
+        if ((presence & F_QUERY) != 0) event.setQuery(in.readString());
+        if ((presence & F_COUNTRY) != 0) event.setCountry(in.readCoded(COUNTRIES));
+        if ((presence & F_LOCALE) != 0) event.setLocale(in.readString());
+        if ((presence & F_DEVICE_TYPE) != 0) event.setDeviceType(in.readCoded(DEVICE_TYPES));
+        if ((presence & F_PLATFORM) != 0) event.setPlatform(in.readCoded(PLATFORMS));
+        if ((presence & F_SOURCE) != 0) event.setSource(in.readCoded(SOURCES));
+        if ((presence & F_IP_ADDRESS) != 0) event.setIpAddress(in.readString());
+        if ((presence & F_OCCURRED_AT) != 0) event.setOccurredAt(fromEpochMicros(in.readZigZag()));
+        if ((presence & F_SENT_AT) != 0) event.setSentAt(fromEpochMicros(in.readZigZag()));
+        if ((presence & F_FILTERS) != 0) event.setFilters(readFilters(in));
+        return event;
+    }
+
+    private static void writeFilters(Writer out, SearchEventPayload.Filters filters) {
+        int presence = 0;
+        if (filters.getCategory() != null) presence |= FF_CATEGORY;
+        if (filters.getSubCategory() != null) presence |= FF_SUB_CATEGORY;
+        if (filters.getPage() != null) presence |= FF_PAGE;
+        if (filters.getPageSize() != null) presence |= FF_PAGE_SIZE;
+        if (filters.getSortBy() != null) presence |= FF_SORT_BY;
+        if (filters.getSortDirection() != null) presence |= FF_SORT_DIRECTION;
+        if (filters.getExtraJson() != null) presence |= FF_EXTRA_JSON;
+        out.writeVarLong(presence);
+
+        if (filters.getCategory() != null) out.writeString(filters.getCategory());
+        if (filters.getSubCategory() != null) out.writeString(filters.getSubCategory());
+        if (filters.getPage() != null) out.writeZigZag(filters.getPage());
+        if (filters.getPageSize() != null) out.writeZigZag(filters.getPageSize());
+        if (filters.getSortBy() != null) out.writeString(filters.getSortBy());
+        if (filters.getSortDirection() != null) out.writeCoded(SORT_DIRECTIONS, filters.getSortDirection());
+        if (filters.getExtraJson() != null) out.writeString(filters.getExtraJson());
+    }
+
+    private static SearchEventPayload.Filters readFilters(Reader in) {
+        long presence = in.readVarLong();
+        SearchEventPayload.Filters filters = new SearchEventPayload.Filters();
+        if ((presence & FF_CATEGORY) != 0) filters.setCategory(in.readString());
+        if ((presence & FF_SUB_CATEGORY) != 0) filters.setSubCategory(in.readString());
+        if ((presence & FF_PAGE) != 0) filters.setPage((int) in.readZigZag());
+        if ((presence & FF_PAGE_SIZE) != 0) filters.setPageSize((int) in.readZigZag());
+        if ((presence & FF_SORT_BY) != 0) filters.setSortBy(in.readString());
+        if ((presence & FF_SORT_DIRECTION) != 0) filters.setSortDirection(in.readCoded(SORT_DIRECTIONS));
+        if ((presence & FF_EXTRA_JSON) != 0) filters.setExtraJson(in.readString());
+        return filters;
+    }
+
+    private static long toEpochMicros(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000);
+    }
+
+    private static Instant fromEpochMicros(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L);
+    }
+
+    /**
+     * Only canonical lower-case UUIDs are packed, so decode(encode(x)) always returns x unchanged.
+     */
+    private static UUID parseUuid(String value) {
+        if (value == null || value.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(value);
+            return uuid.toString().equals(value) ? uuid : null;
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private static final class Dictionary {
+
+        private final String[] values;
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        private Dictionary(String... values) {
+            this.values = values;
+            for (int i = 0; i < values.length; i++) {
+                codes.put(values[i], i + 1);
+            }
+        }
+
+        /**
+         * @return 1-based code, or 0 if the value must be written literally
+         */
+        int code(String value) {
+            return codes.getOrDefault(value, 0);
+        }
+
+        String value(int code) {
+            if (code < 1 || code > values.length) {
+                throw new IllegalArgumentException("Unknown dictionary code " + code);
+            }
+            return values[code - 1];
+        }
+    }
+
+    private static final class Writer {
+
+        private byte[] buf;
+        private int pos;
+
+        private Writer(int initialCapacity) {
+            this.buf = new byte[initialCapacity];
+        }
+
+        void writeByte(int b) {
+            ensure(1);
+            buf[pos++] = (byte) b;
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[pos++] = (byte) value;
+        }
+
+        void writeZigZag(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeLongBE(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buf[pos++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        void writeCoded(Dictionary dictionary, String value) {
+            int code = dictionary.code(value);
+            writeVarLong(code);
+            if (code == 0) {
+                writeString(value);
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+
+        private void ensure(int extra) {
+            if (pos + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+            }
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] buf;
+        private int pos;
+
+        private Reader(byte[] buf) {
+            this.buf = buf;
+        }
+
+        byte readByte() {
+            require(1);
+            return buf[pos++];
+        }
+
+        long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint at offset " + pos);
+        }
+
+        long readZigZag() {
+            long raw = readVarLong();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        long readLongBE() {
+            require(8);
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (buf[pos++] & 0xFF);
+            }
+            return value;
+        }
+
+        String readString() {
+            long length = readVarLong();
+            if (length < 0 || length > buf.length - pos) {
+                throw new IllegalArgumentException("String length " + length + " exceeds remaining bytes at offset " + pos);
+            }
+            String value = new String(buf, pos, (int) length, StandardCharsets.UTF_8);
+            pos += (int) length;
+            return value;
+        }
+
+        String readCoded(Dictionary dictionary) {
+            int code = (int) readVarLong();
+            return code == 0 ? readString() : dictionary.value(code);
+        }
+
+        private void require(int n) {
+            if (pos + n > buf.length) {
+                throw new IllegalArgumentException("Truncated search event at offset " + pos);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.dimitryivaniuta.searchanalytics.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.JacksonUtils;
+
+/**
+ * Kafka deserializer for SearchEventPayload that accepts both JSON and
+ * {@link SearchEventBinaryCodec} records, so producers can switch formats one by one.
+ *
+ * The format is taken from the {@value WireFormat#HEADER} header; records without it
+ * (older producers, JsonSerializer) are recognized by their first byte –
+ * {@link SearchEventBinaryCodec#VERSION_1} for binary, anything else is parsed as JSON.
+ */
+public class SearchEventDeserializer implements Deserializer<SearchEventPayload> {
+
+    private final ObjectReader jsonReader;
+
+    public SearchEventDeserializer() {
+        this(JacksonUtils.enhancedObjectMapper());
+    }
+
+    public SearchEventDeserializer(ObjectMapper objectMapper) {
+        this.jsonReader = objectMapper.readerFor(SearchEventPayload.class);
+    }
+
+    @Override
+    public SearchEventPayload deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        Header header = headers != null ? headers.lastHeader(WireFormat.HEADER) : null;
+        WireFormat format = WireFormat.fromHeader(header != null ? header.value() : null);
+        return decode(format != null ? format : sniff(data), data);
+    }
+
+    @Override
+    public SearchEventPayload deserialize(String topic, byte[] data) {
+        return data == null ? null : decode(sniff(data), data);
+    }
+
+    private static WireFormat sniff(byte[] data) {
+        return data.length > 0 && data[0] == SearchEventBinaryCodec.VERSION_1 ? WireFormat.BINARY : WireFormat.JSON;
+    }
+
+    private SearchEventPayload decode(WireFormat format, byte[] data) {
+        try {
+            if (format == WireFormat.BINARY) {
+                return SearchEventBinaryCodec.decode(data);
+            }
+            return jsonReader.readValue(data);
+        } catch (Exception ex) {
+            throw new SerializationException("Can't deserialize search event as " + format, ex);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.dimitryivaniuta.searchanalytics.codec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.JacksonUtils;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Kafka serializer for SearchEventPayload that writes either JSON or the
+ * {@link SearchEventBinaryCodec} format and announces it in the {@value WireFormat#HEADER} header.
+ *
+ * The format comes from the constructor, or from the {@value #WIRE_FORMAT_CONFIG} producer
+ * property when instantiated by class name (default JSON).
+ */
+public class SearchEventSerializer implements Serializer<SearchEventPayload> {
+
+    public static final String WIRE_FORMAT_CONFIG = "search-events.wire-format";
+
+    private final ObjectWriter jsonWriter;
+    private WireFormat format;
+
+    public SearchEventSerializer() {
+        this(null, JacksonUtils.enhancedObjectMapper());
+    }
+
+    public SearchEventSerializer(WireFormat format, ObjectMapper objectMapper) {
+        this.format = format;
+        this.jsonWriter = objectMapper.writerFor(SearchEventPayload.class);
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        if (format == null && configs.get(WIRE_FORMAT_CONFIG) != null) {
+            format = WireFormat.valueOf(configs.get(WIRE_FORMAT_CONFIG).toString().trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, SearchEventPayload data) {
+        if (data == null) {
+            return null;
+        }
+        WireFormat effective = effectiveFormat();
+        headers.remove(WireFormat.HEADER);
+        headers.add(WireFormat.HEADER, effective.headerValue());
+        return encode(effective, data);
+    }
+
+    /**
+     * Without headers there is nothing to negotiate with, so the consumer sniffs the first byte.
+     */
+    @Override
+    public byte[] serialize(String topic, SearchEventPayload data) {
+        return data == null ? null : encode(effectiveFormat(), data);
+    }
+
+    private WireFormat effectiveFormat() {
+        return format != null ? format : WireFormat.JSON;
+    }
+
+    private byte[] encode(WireFormat wireFormat, SearchEventPayload data) {
+        if (wireFormat == WireFormat.BINARY) {
+            return SearchEventBinaryCodec.encode(data);
+        }
+        try {
+            return jsonWriter.writeValueAsBytes(data);
+        } catch (JsonProcessingException ex) {
+            throw new SerializationException("Can't serialize search event " + data.getEventId(), ex);
+        }
+    }
+}
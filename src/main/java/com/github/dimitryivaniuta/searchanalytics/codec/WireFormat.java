@@ -0,0 +1,47 @@
+package com.github.dimitryivaniuta.searchanalytics.codec;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodings of SearchEventPayload on the search-events topic, announced per record
+ * in the {@value #HEADER} header so JSON and binary producers can coexist.
+ */
+public enum WireFormat {
+
+    JSON("application/json"),
+    BINARY("application/vnd.search-event.v1+binary");
+
+    public static final String HEADER = "content-type";
+
+    private final String contentType;
+    private final byte[] headerValue;
+
+    WireFormat(String contentType) {
+        this.contentType = contentType;
+        this.headerValue = contentType.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    byte[] headerValue() {
+        return headerValue;
+    }
+
+    /**
+     * @return the format for a header value, or null if unknown / absent
+     */
+    static WireFormat fromHeader(byte[] value) {
+        if (value == null) {
+            return null;
+        }
+        String contentType = new String(value, StandardCharsets.UTF_8);
+        for (WireFormat format : values()) {
+            if (format.contentType.equals(contentType)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
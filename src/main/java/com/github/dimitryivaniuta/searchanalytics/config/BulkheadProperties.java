@@ -0,0 +1,85 @@
+package com.github.dimitryivaniuta.searchanalytics.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Per-workload execution and connection budgets (app.bulkhead.*), enforced by BulkheadRegistry.
+ *
+ * Keep ingest + query + maintenance max-connections below the pool size
+ * (spring.datasource.hikari.maximum-pool-size), so unscoped callers (Flyway, JPA, schedulers)
+ * and the other workloads always find a free connection.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.bulkhead")
+public class BulkheadProperties {
+
+    /**
+     * false = no permits, no DataSource wrapping; work runs exactly as before.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Kafka listener and the coalesced stats flush.
+     */
+    private Budget ingest = new Budget(16, Duration.ofSeconds(30), 12, Duration.ofSeconds(10), Duration.ofSeconds(10));
+
+    /**
+     * StatsQueryController reads.
+     */
+    private Budget query = new Budget(8, Duration.ofMillis(100), 4, Duration.ofMillis(500), Duration.ofSeconds(5));
+
+    /**
+     * Outbox relay and DLT retries.
+     */
+    private Budget maintenance = new Budget(4, Duration.ofSeconds(10), 3, Duration.ofSeconds(5), Duration.ofSeconds(60));
+
+    @Data
+    public static class Budget {
+
+        /**
+         * Calls running inside the bulkhead at once.
+         */
+        private int maxConcurrent;
+
+        /**
+         * How long a call waits for an execution slot before BulkheadFullException.
+         */
+        private Duration maxWait;
+
+        /**
+         * JDBC connections the workload may hold at once (across all pools).
+         */
+        private int maxConnections;
+
+        /**
+         * How long a checkout waits for a connection slot before SQLTransientConnectionException.
+         */
+        private Duration connectionWait;
+
+        /**
+         * Query timeout applied to every statement created by the workload (whole seconds, 0 = none).
+         * A Spring transaction timeout, when set, still takes precedence.
+         */
+        private Duration statementTimeout;
+
+        /**
+         * Retry-After sent to HTTP callers rejected by this bulkhead.
+         */
+        private Duration retryAfter = Duration.ofSeconds(1);
+
+        public Budget() {
+        }
+
+        public Budget(int maxConcurrent, Duration maxWait, int maxConnections,
+                      Duration connectionWait, Duration statementTimeout) {
+            this.maxConcurrent = maxConcurrent;
+            this.maxWait = maxWait;
+            this.maxConnections = maxConnections;
+            this.connectionWait = connectionWait;
+            this.statementTimeout = statementTimeout;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.github.dimitryivaniuta.searchanalytics.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Connection checkout limits (app.datasource.connection-limit.*),
+ * only applied when spring.threads.virtual.enabled=true.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.datasource.connection-limit")
+public class ConnectionLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Callers allowed to queue for a connection; more are rejected immediately.
+     */
+    private int maxWaiting = 500;
+
+    /**
+     * Max time a queued caller waits for a connection permit.
+     */
+    private Duration acquireTimeout = Duration.ofSeconds(5);
+}
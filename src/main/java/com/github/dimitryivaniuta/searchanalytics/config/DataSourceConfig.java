@@ -0,0 +1,172 @@
+package com.github.dimitryivaniuta.searchanalytics.config;
+
+import com.github.dimitryivaniuta.searchanalytics.bulkhead.BulkheadDataSource;
+import com.github.dimitryivaniuta.searchanalytics.datasource.ConnectionLimitingDataSource;
+import com.github.dimitryivaniuta.searchanalytics.datasource.ReadWriteRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+
+/**
+ * DataSource tweaks for the virtual-thread execution model (spring.threads.virtual.enabled=true).
+ *
+ * Wraps the Hikari pool in a {@link ConnectionLimitingDataSource} with as many permits as the pool
+ * has connections, so a burst of virtual threads queues in a bounded line (max-waiting) and fails
+ * fast beyond it instead of piling up inside Hikari until connectionTimeout.
+ *
+ * In both modes the application DataSource is finally wrapped in a {@link BulkheadDataSource} (app.bulkhead.*).
+ *
+ * With app.datasource.read.enabled=true the single auto-configured pool is replaced by two
+ * (write / read) behind a {@link ReadWriteRoutingDataSource}; see {@link ReadWriteRoutingConfiguration}.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties({ConnectionLimitProperties.class, ReadDataSourceProperties.class})
+public class DataSourceConfig {
+
+    /**
+     * Name of the DataSource everything uses: Boot's pool, or the routing one below.
+     */
+    static final String APPLICATION_DATA_SOURCE = "dataSource";
+
+    @Bean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    @ConditionalOnProperty(prefix = "app.datasource.connection-limit", name = "enabled", matchIfMissing = true)
+    public static BeanPostProcessor connectionLimitingDataSourcePostProcessor(
+            ObjectProvider<ConnectionLimitProperties> properties) {
+        return new ConnectionLimitingPostProcessor(properties);
+    }
+
+    /**
+     * Wraps the application DataSource in {@link BulkheadDataSource} (per-workload connection
+     * budgets and statement timeouts). Runs after the connection limiter, so it is the outermost layer.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.bulkhead", name = "enabled", matchIfMissing = true)
+    public static BeanPostProcessor bulkheadDataSourcePostProcessor() {
+        return new BulkheadPostProcessor();
+    }
+
+    private static final class ConnectionLimitingPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final ObjectProvider<ConnectionLimitProperties> properties;
+
+        private ConnectionLimitingPostProcessor(ObjectProvider<ConnectionLimitProperties> properties) {
+            this.properties = properties;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof HikariDataSource hikari) {
+                ConnectionLimitProperties limits = properties.getObject();
+                log.info("Limiting '{}' to {} concurrent connections, {} waiting, acquire timeout {}",
+                        beanName, hikari.getMaximumPoolSize(), limits.getMaxWaiting(), limits.getAcquireTimeout());
+                return new ConnectionLimitingDataSource(hikari, hikari.getMaximumPoolSize(),
+                        limits.getMaxWaiting(), limits.getAcquireTimeout());
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE - 1;
+        }
+    }
+
+    private static final class BulkheadPostProcessor implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (APPLICATION_DATA_SOURCE.equals(beanName) && bean instanceof DataSource dataSource
+                    && !(bean instanceof BulkheadDataSource)) {
+                return new BulkheadDataSource(dataSource);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+
+    /**
+     * Separate write and read pools (app.datasource.read.enabled=true).
+     *
+     * Flow:
+     *  - writeDataSource: spring.datasource.* + spring.datasource.hikari.*, all ingest traffic.
+     *  - readDataSource: app.datasource.read.*, read-only connections with their own size,
+     *    checkout timeout and statement_timeout, used by reporting queries only.
+     *  - dataSource (@Primary): routes per connection, defaults to the write pool.
+     *
+     * Both pools are HikariDataSource beans, so each gets hikaricp.* metrics tagged pool=name
+     * and, in virtual-thread mode, its own ConnectionLimitingDataSource.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "app.datasource.read", name = "enabled", havingValue = "true")
+    static class ReadWriteRoutingConfiguration {
+
+        @Bean
+        @ConfigurationProperties(prefix = "spring.datasource.hikari")
+        public HikariDataSource writeDataSource(DataSourceProperties dataSourceProperties,
+                                                ReadDataSourceProperties readProperties) {
+            HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .build();
+            dataSource.setPoolName(readProperties.getWritePoolName());
+            return dataSource;
+        }
+
+        @Bean
+        public HikariDataSource readDataSource(DataSourceProperties dataSourceProperties,
+                                               ReadDataSourceProperties readProperties) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName(readProperties.getPoolName());
+            dataSource.setDriverClassName(dataSourceProperties.determineDriverClassName());
+            dataSource.setJdbcUrl(StringUtils.hasText(readProperties.getUrl())
+                    ? readProperties.getUrl() : dataSourceProperties.determineUrl());
+            dataSource.setUsername(StringUtils.hasText(readProperties.getUsername())
+                    ? readProperties.getUsername() : dataSourceProperties.determineUsername());
+            dataSource.setPassword(StringUtils.hasText(readProperties.getPassword())
+                    ? readProperties.getPassword() : dataSourceProperties.determinePassword());
+            dataSource.setMaximumPoolSize(readProperties.getMaximumPoolSize());
+            dataSource.setMinimumIdle(readProperties.getMinimumIdle());
+            dataSource.setConnectionTimeout(readProperties.getConnectionTimeout().toMillis());
+            dataSource.setReadOnly(true);
+            if (!readProperties.getStatementTimeout().isZero()) {
+                dataSource.setConnectionInitSql(
+                        "SET statement_timeout = " + readProperties.getStatementTimeout().toMillis());
+            }
+            log.info("Read pool '{}' -> {} (max {} connections, statement timeout {})",
+                    dataSource.getPoolName(), dataSource.getJdbcUrl(),
+                    dataSource.getMaximumPoolSize(), readProperties.getStatementTimeout());
+            return dataSource;
+        }
+
+        /**
+         * Targets are injected as plain DataSource: in virtual-thread mode the pools arrive
+         * already wrapped in ConnectionLimitingDataSource.
+         */
+        @Bean(APPLICATION_DATA_SOURCE)
+        @Primary
+        public DataSource dataSource(@Qualifier("writeDataSource") DataSource writeDataSource,
+                                     @Qualifier("readDataSource") DataSource readDataSource) {
+            return new ReadWriteRoutingDataSource(writeDataSource, readDataSource);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.dimitryivaniuta.searchanalytics.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * eventId deduplication (app.dedup.*), see EventDeduplicator.
+ *
+ * Duplicates are detected for at least (bloom-generations - 1) * rotate-interval after the first
+ * copy was aggregated; ttl must be at least bloom-generations * rotate-interval, so every id the
+ * Bloom filter may still report is also in processed_event_ids.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.dedup")
+public class DedupProperties {
+
+    private boolean enabled = true;
+
+    private int bloomGenerations = 3;
+
+    private Duration rotateInterval = Duration.ofMinutes(30);
+
+    /**
+     * Expected eventIds per rotate-interval; sizes each generation.
+     */
+    private long expectedInsertions = 1_000_000;
+
+    private double falsePositiveProbability = 0.01;
+
+    /**
+     * How long ids stay in processed_event_ids.
+     */
+    private Duration ttl = Duration.ofHours(2);
+
+    /**
+     * How often newly processed ids are written to processed_event_ids (one batch insert).
+     */
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    private Duration cleanupInterval = Duration.ofMinutes(5);
+
+    private int cleanupBatchSize = 10_000;
+
+    /**
+     * Load ids younger than bloom-generations * rotate-interval into the filter on startup,
+     * so a restart does not open a window in which retried events look new.
+     */
+    private boolean warmUp = true;
+}
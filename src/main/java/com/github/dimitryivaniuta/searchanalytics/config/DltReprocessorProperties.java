@@ -0,0 +1,53 @@
+package com.github.dimitryivaniuta.searchanalytics.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the DLT reprocessor (app.dlt-reprocessor.*).
+ *
+ * Retry delay for attempt n = min(max-backoff, initial-backoff * multiplier^n) +/- jitter.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.dlt-reprocessor")
+public class DltReprocessorProperties {
+
+    /**
+     * Starts the DLT listener container when true.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Separate consumer group so DLT traffic never shares a group with the main listener.
+     */
+    private String groupId = "search-analytics-dlt-reprocessor";
+
+    private int maxAttempts = 5;
+
+    private Duration initialBackoff = Duration.ofSeconds(1);
+
+    private double multiplier = 2.0;
+
+    private Duration maxBackoff = Duration.ofMinutes(5);
+
+    private double jitter = 0.2;
+
+    /**
+     * Threads executing the retries (isolated from the main listener thread).
+     */
+    private int workerThreads = 2;
+
+    /**
+     * Scheduled-but-unfinished retries above which the DLT container is paused.
+     */
+    private int maxInFlight = 1_000;
+
+    /**
+     * Timer wheel resolution.
+     */
+    private Duration tick = Duration.ofMillis(100);
+
+    private int wheelSize = 512;
+}
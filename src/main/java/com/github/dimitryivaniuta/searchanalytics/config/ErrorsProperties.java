@@ -0,0 +1,31 @@
+package com.github.dimitryivaniuta.searchanalytics.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Fingerprinted error rollup (app.errors.*), see ErrorRollup.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.errors")
+public class ErrorsProperties {
+
+    /**
+     * How often new fingerprints and per-minute occurrence counts are written (two batch statements).
+     */
+    private Duration flushInterval = Duration.ofSeconds(5);
+
+    /**
+     * Stack frames (application frames first) that go into a fingerprint.
+     */
+    private int topFrames = 3;
+
+    /**
+     * How long error_occurrences minutes are kept; fingerprints themselves are kept.
+     */
+    private Duration retention = Duration.ofDays(14);
+
+    private Duration cleanupInterval = Duration.ofHours(1);
+}
@@ -0,0 +1,52 @@
+package com.github.dimitryivaniuta.searchanalytics.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Limits for HTTP ingestion endpoints (app.ingest.*), enforced by SearchEventIngestGateway.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.ingest")
+public class IngestProperties {
+
+    /**
+     * Max events accepted by one POST /api/search-events/batch request;
+     * anything after that is not read and the response is marked truncated.
+     */
+    private int batchMaxEvents = 50_000;
+
+    /**
+     * How long a batch request waits for all of its Kafka sends to be acknowledged.
+     */
+    private Duration batchSendTimeout = Duration.ofSeconds(60);
+
+    /**
+     * Max Kafka sends submitted through the HTTP API that may be unacknowledged at once
+     * (per instance). When exhausted, single-event requests get 429 instead of blocking.
+     */
+    private int maxInFlight = 20_000;
+
+    /**
+     * How long a bulk request may wait for an in-flight permit before it stops reading.
+     */
+    private Duration batchPermitWait = Duration.ofSeconds(5);
+
+    /**
+     * Value of the Retry-After header on 429 responses.
+     */
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    /**
+     * ?ack=true only: max time to wait for the broker before answering 504.
+     */
+    private Duration ackTimeout = Duration.ofSeconds(30);
+
+    /**
+     * max.block.ms of the ingest producer (unless set explicitly in spring.kafka.producer.properties):
+     * bounds how long KafkaTemplate.send() can block a request thread.
+     */
+    private Duration producerMaxBlock = Duration.ofSeconds(1);
+}
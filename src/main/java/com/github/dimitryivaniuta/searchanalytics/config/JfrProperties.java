@@ -0,0 +1,40 @@
+package com.github.dimitryivaniuta.searchanalytics.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * On-demand JDK Flight Recorder recordings (app.jfr.*), see JfrRecordingService.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.jfr")
+public class JfrProperties {
+
+    /**
+     * Exposes /api/admin/jfr (off unless enabled explicitly). Keep it behind an internal ingress / auth.
+     */
+    private boolean enabled = false;
+
+    /**
+     * JFR settings file: "default" (~1% overhead) or "profile" (more samples, ~2%).
+     */
+    private String settings = "profile";
+
+    /**
+     * Upper bounds for a requested recording; it stops by itself after max-duration.
+     */
+    private Duration maxDuration = Duration.ofMinutes(10);
+
+    private DataSize maxSize = DataSize.ofMegabytes(256);
+
+    /**
+     * Only app events (searchanalytics.*) longer than this are recorded; 0 = every record / call.
+     */
+    private Duration eventThreshold = Duration.ZERO;
+
+    private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "search-analytics-jfr");
+}
@@ -1,9 +1,20 @@
 package com.github.dimitryivaniuta.searchanalytics.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.searchanalytics.codec.SearchEventDeserializer;
+import com.github.dimitryivaniuta.searchanalytics.codec.SearchEventSerializer;
+import com.github.dimitryivaniuta.searchanalytics.metrics.ConsumerPollMetricsInterceptor;
+import com.github.dimitryivaniuta.searchanalytics.metrics.ListenerMetrics;
+import com.github.dimitryivaniuta.searchanalytics.metrics.TimedDeserializer;
+import io.micrometer.core.instrument.MeterRegistry;
 import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
+import com.github.dimitryivaniuta.searchanalytics.service.PartitionedStatsAggregator;
 import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.CooperativeStickyAssignor;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
 import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
@@ -11,8 +22,6 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
 import org.springframework.kafka.listener.ContainerProperties;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.Map;
 
@@ -20,12 +29,21 @@ import java.util.Map;
  * Central Kafka configuration:
  *  - ConsumerFactory & ListenerContainerFactory for SearchEventPayload
  *  - ProducerFactory & KafkaTemplate for JSON messages
- *  - Uses manual acks and concurrency=1 so one consumer instance gets all partitions.
+ *  - search-events values via SearchEventSerializer / SearchEventDeserializer (JSON or binary)
+ *  - Uses manual acks and concurrency=1 so one consumer instance gets all partitions; with
+ *    app.stats.write-mode=PARTITIONED many instances share them (cooperative-sticky assignor,
+ *    PartitionedStatsAggregator as rebalance listener: flush + commit on revoke).
+ *  - search-events consumers report Kafka client metrics (incl. per-partition records-lag),
+ *    deserialization time and poll sizes to Micrometer.
+ *  - Separate String consumer + container factory for the DLT reprocessor.
  */
 @Configuration
 @EnableConfigurationProperties({
         KafkaProperties.class,
-        KafkaTopicsProperties.class
+        KafkaTopicsProperties.class,
+        DltReprocessorProperties.class,
+        ListenerRetryProperties.class,
+        OutboxRelayProperties.class
 })
 @RequiredArgsConstructor
 public class KafkaConfig {
@@ -34,39 +52,92 @@ public class KafkaConfig {
 
     /**
      * ConsumerFactory for SearchEventPayload.
-     * Uses KafkaProperties to build the base config and then adjusts value deserializer type.
+     * Uses KafkaProperties to build the base config and then sets the value deserializer.
      */
     @Bean
-    public ConsumerFactory<String, SearchEventPayload> searchEventConsumerFactory() {
+    public ConsumerFactory<String, SearchEventPayload> searchEventConsumerFactory(ListenerMetrics listenerMetrics,
+                                                                                 MeterRegistry meterRegistry,
+                                                                                 StatsProperties statsProperties) {
         Map<String, Object> consumerProps = kafkaProperties.buildConsumerProperties();
+        consumerProps.put(ConsumerConfig.INTERCEPTOR_CLASSES_CONFIG, ConsumerPollMetricsInterceptor.class.getName());
+        consumerProps.put(ListenerMetrics.CONSUMER_CONFIG_KEY, listenerMetrics);
+        if (statsProperties.getWriteMode() == StatsProperties.WriteMode.PARTITIONED) {
+            // only partitions that actually move are revoked; the rest keep consuming through a rebalance
+            consumerProps.putIfAbsent(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG,
+                    CooperativeStickyAssignor.class.getName());
+        }
 
-        // Override value deserializer with a strongly-typed JsonDeserializer<SearchEventPayload>
-        JsonDeserializer<SearchEventPayload> valueDeserializer =
-                new JsonDeserializer<>(SearchEventPayload.class);
-        valueDeserializer.addTrustedPackages("com.github.dimitryivaniuta.searchanalytics.model");
-
-        return new DefaultKafkaConsumerFactory<>(
+        // Reads JSON and binary records (negotiated via the content-type header)
+        DefaultKafkaConsumerFactory<String, SearchEventPayload> factory = new DefaultKafkaConsumerFactory<>(
                 consumerProps,
                 new StringDeserializer(),
-                valueDeserializer
+                new TimedDeserializer<>(new SearchEventDeserializer(), listenerMetrics)
         );
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
     }
 
     /**
      * Listener container factory:
-     *  - concurrency = 1   -> exactly one consumer instance per app instance
-     *  - MANUAL ack mode   -> offsets committed only after successful processing
+     *  - Boot's configurer first -> spring.kafka.listener.* (concurrency, poll timeout, ...) and the
+     *    virtual-thread listener executor when spring.threads.virtual.enabled=true
+     *  - concurrency = spring.kafka.listener.concurrency (default 1 -> one consumer gets all partitions)
+     *  - MANUAL ack mode   -> offsets committed only after successful processing (overrides the configurer)
+     *  - rebalance listener -> PartitionedStatsAggregator (no-op unless write-mode=PARTITIONED)
      */
     @Bean
+    @SuppressWarnings({"rawtypes", "unchecked"})
     public ConcurrentKafkaListenerContainerFactory<String, SearchEventPayload> searchEventsKafkaListenerContainerFactory(
-            ConsumerFactory<String, SearchEventPayload> searchEventConsumerFactory
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<String, SearchEventPayload> searchEventConsumerFactory,
+            PartitionedStatsAggregator partitionedStatsAggregator
     ) {
         ConcurrentKafkaListenerContainerFactory<String, SearchEventPayload> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(searchEventConsumerFactory);
+        // the configurer is typed <Object, Object>; it only copies settings, so the raw cast is safe
+        configurer.configure((ConcurrentKafkaListenerContainerFactory) factory, (ConsumerFactory) searchEventConsumerFactory);
+
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        // spring.kafka.listener timer (whole onMessage invocation), tagged by listener id and result
+        factory.getContainerProperties().setMicrometerEnabled(true);
+        factory.getContainerProperties().setConsumerRebalanceListener(partitionedStatsAggregator);
+
+        return factory;
+    }
+
+    /**
+     * ConsumerFactory for the dead-letter topic: values are raw JSON envelopes (String),
+     * parsed by DltReprocessor itself so a malformed envelope never poisons the container.
+     */
+    @Bean
+    public ConsumerFactory<String, String> dltConsumerFactory(DltReprocessorProperties dltProperties) {
+        Map<String, Object> consumerProps = kafkaProperties.buildConsumerProperties();
+        consumerProps.put(ConsumerConfig.GROUP_ID_CONFIG, dltProperties.getGroupId());
+
+        return new DefaultKafkaConsumerFactory<>(
+                consumerProps,
+                new StringDeserializer(),
+                new StringDeserializer()
+        );
+    }
+
+    /**
+     * DLT listener container factory:
+     *  - own consumer group and consumer thread -> isolated from the main topic listener
+     *  - MANUAL + asyncAcks -> retries complete out of order on worker threads; the container
+     *    commits only contiguous acknowledged offsets, so a crash re-delivers pending retries
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> dltKafkaListenerContainerFactory(
+            ConsumerFactory<String, String> dltConsumerFactory
+    ) {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(dltConsumerFactory);
 
         factory.setConcurrency(1);
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setAsyncAcks(true);
 
         return factory;
     }
@@ -90,14 +161,22 @@ public class KafkaConfig {
     }
 
     /**
-     * Optional: KafkaTemplate for publishing SearchEventPayload as JSON.
+     * Optional: KafkaTemplate for publishing SearchEventPayload
+     * as JSON or binary (app.kafka.search-events-wire-format).
+     * Used by the HTTP ingest API, so send() may block for at most app.ingest.producer-max-block
+     * (instead of the 60s default) when the buffer is full or metadata is unavailable.
      */
     @Bean
-    public ProducerFactory<String, SearchEventPayload> searchEventProducerFactory() {
+    public ProducerFactory<String, SearchEventPayload> searchEventProducerFactory(IngestProperties ingestProperties,
+                                                                                   KafkaTopicsProperties topics,
+                                                                                   ObjectMapper objectMapper) {
         Map<String, Object> props = kafkaProperties.buildProducerProperties();
         props.put(org.apache.kafka.clients.producer.ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG,
-                JsonSerializer.class);
-        return new DefaultKafkaProducerFactory<>(props, new StringSerializer(), new JsonSerializer<>());
+                SearchEventSerializer.class);
+        props.putIfAbsent(org.apache.kafka.clients.producer.ProducerConfig.MAX_BLOCK_MS_CONFIG,
+                ingestProperties.getProducerMaxBlock().toMillis());
+        return new DefaultKafkaProducerFactory<>(props, new StringSerializer(),
+                new SearchEventSerializer(topics.getSearchEventsWireFormat(), objectMapper));
     }
 
     @Bean
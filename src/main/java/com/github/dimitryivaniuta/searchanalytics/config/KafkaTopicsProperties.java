@@ -1,5 +1,6 @@
 package com.github.dimitryivaniuta.searchanalytics.config;
 
+import com.github.dimitryivaniuta.searchanalytics.codec.WireFormat;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
@@ -9,6 +10,7 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * app.kafka.search-events-topic       -> "search-events"
  * app.kafka.search-events-dlt-topic   -> "search-events-dlt"
  * app.kafka.outbox-topic              -> "search-events-outbox" (optional, for outbox publisher)
+ * app.kafka.search-events-wire-format -> JSON | BINARY (what this instance produces)
  */
 @Data
 @ConfigurationProperties(prefix = "app.kafka")
@@ -28,4 +30,10 @@ public class KafkaTopicsProperties {
      * Optional topic for publishing aggregated or outbox events.
      */
     private String outboxTopic;
+
+    /**
+     * Encoding used when producing to the search-events topic. Consumers accept both,
+     * so roll out consumers first, then switch producers to BINARY.
+     */
+    private WireFormat searchEventsWireFormat = WireFormat.JSON;
 }
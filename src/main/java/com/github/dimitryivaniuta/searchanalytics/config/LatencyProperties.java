@@ -0,0 +1,30 @@
+package com.github.dimitryivaniuta.searchanalytics.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Event-time latency tracking (app.latency.*), see LatencyTracker.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.latency")
+public class LatencyProperties {
+
+    /**
+     * Percentiles cover the current and the previous window, i.e. the last 1-2 windows.
+     */
+    private Duration window = Duration.ofMinutes(1);
+
+    /**
+     * Negative cross-host deltas down to -skew-tolerance are treated as clock skew and recorded as 0;
+     * anything more negative is counted as rejected and not recorded.
+     */
+    private Duration skewTolerance = Duration.ofSeconds(1);
+
+    /**
+     * Larger latencies are clamped to this value.
+     */
+    private Duration maxTrackable = Duration.ofHours(1);
+}
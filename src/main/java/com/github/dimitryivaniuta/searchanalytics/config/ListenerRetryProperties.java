@@ -0,0 +1,36 @@
+package com.github.dimitryivaniuta.searchanalytics.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * In-place retries of search events that failed with a transient error (app.listener-retry.*),
+ * see TransientRetryPolicy.
+ *
+ * Redelivery delay after failure n = min(max-backoff, initial-backoff * multiplier^(n-1)) +/- jitter.
+ * The consumer is paused for that long, so keep max-backoff well below max.poll.interval.ms.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.listener-retry")
+public class ListenerRetryProperties {
+
+    /**
+     * When false every failure is treated as poison (error row + DLT) right away.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Deliveries of one record (first one included) before a transient failure is treated as poison.
+     */
+    private int maxAttempts = 5;
+
+    private Duration initialBackoff = Duration.ofMillis(500);
+
+    private double multiplier = 2.0;
+
+    private Duration maxBackoff = Duration.ofSeconds(30);
+
+    private double jitter = 0.2;
+}
@@ -0,0 +1,89 @@
+package com.github.dimitryivaniuta.searchanalytics.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the outbox relay (app.outbox-relay.*) that publishes
+ * search_event_outbox rows to app.kafka.outbox-topic.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.outbox-relay")
+public class OutboxRelayProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Concurrent relay workers per instance; each claims its own batch via SKIP LOCKED.
+     * Use 1 if strict per-partition-key ordering across batches matters.
+     */
+    private int workers = 2;
+
+    private int batchSize = 500;
+
+    /**
+     * How long an idle worker waits before polling the table again.
+     */
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    /**
+     * Max time to wait for a whole batch of Kafka sends to be acknowledged.
+     */
+    private Duration sendTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Pause after an unexpected relay error (DB down, etc.).
+     */
+    private Duration errorBackoff = Duration.ofSeconds(5);
+
+    /**
+     * Failed sends before a row is marked FAILED – only for non-retryable errors (e.g. record too
+     * large); broker outages and ack timeouts are retried until they succeed.
+     */
+    private int maxAttempts = 10;
+
+    /**
+     * A failed row is claimed again after min(max-backoff, initial-backoff * multiplier^(attempts - 1))
+     * +/- jitter.
+     */
+    private Duration initialBackoff = Duration.ofSeconds(1);
+
+    private double multiplier = 2.0;
+
+    private Duration maxBackoff = Duration.ofMinutes(5);
+
+    private double jitter = 0.2;
+
+    private Notify notify = new Notify();
+
+    /**
+     * Poll interval actually used by idle workers: the slow safety net when
+     * LISTEN/NOTIFY wake-ups are enabled, the regular poll otherwise.
+     */
+    public Duration effectivePollInterval() {
+        return notify.isEnabled() ? notify.getSafetyPollInterval() : pollInterval;
+    }
+
+    /**
+     * Postgres LISTEN/NOTIFY wake-ups (app.outbox-relay.notify.*).
+     */
+    @Data
+    public static class Notify {
+
+        private boolean enabled = true;
+
+        /**
+         * Fallback poll in case a notification is lost (listener reconnecting, etc.).
+         */
+        private Duration safetyPollInterval = Duration.ofSeconds(30);
+
+        /**
+         * How long one getNotifications() call blocks before re-checking shutdown.
+         */
+        private Duration listenTimeout = Duration.ofMillis(500);
+
+        private Duration reconnectBackoff = Duration.ofSeconds(5);
+    }
+}
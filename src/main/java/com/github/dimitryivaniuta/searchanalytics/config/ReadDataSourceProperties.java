@@ -0,0 +1,51 @@
+package com.github.dimitryivaniuta.searchanalytics.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Read pool for reporting queries (app.datasource.read.*).
+ *
+ * When enabled the application DataSource becomes a routing one: a "write" pool configured by
+ * spring.datasource.* / spring.datasource.hikari.* and a "read" pool configured here.
+ * Blank url / username / password fall back to spring.datasource.*, which is how tests
+ * point both pools at the same local Postgres.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.datasource.read")
+public class ReadDataSourceProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * JDBC url of the read replica.
+     */
+    private String url;
+
+    private String username;
+
+    private String password;
+
+    private String poolName = "read";
+
+    private int maximumPoolSize = 10;
+
+    private int minimumIdle = 2;
+
+    /**
+     * Max time a reporting request waits for a read-pool connection.
+     */
+    private Duration connectionTimeout = Duration.ofSeconds(2);
+
+    /**
+     * Postgres statement_timeout set on every read-pool connection; 0 disables it.
+     */
+    private Duration statementTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Name of the write pool built from spring.datasource.* when routing is enabled.
+     */
+    private String writePoolName = "write";
+}
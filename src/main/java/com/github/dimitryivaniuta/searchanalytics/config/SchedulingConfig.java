@@ -0,0 +1,13 @@
+package com.github.dimitryivaniuta.searchanalytics.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled jobs (stats flush, maintenance). Each app.* properties class is enabled by the
+ * component that owns it.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,50 @@
+package com.github.dimitryivaniuta.searchanalytics.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Postgres-outage spill mode (app.spill.*), see DatabaseHealthMonitor, SpillLog and SpillDrainer.
+ *
+ * While the database is unavailable the listener appends events to a local spill log instead of
+ * dead-lettering them; the drainer replays the log at drain-rate once the database is back.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.spill")
+public class SpillProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Spill segments + drain cursor; must survive restarts (persistent volume), one per instance.
+     */
+    private Path directory = Path.of("data", "spill");
+
+    /**
+     * Disk budget; once the undrained spill reaches it, events take the normal error path (DLT) again.
+     */
+    private DataSize maxSize = DataSize.ofGigabytes(1);
+
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    /**
+     * How often the database is probed (own thread, so an outage never blocks @Scheduled jobs).
+     */
+    private Duration healthCheckInterval = Duration.ofSeconds(1);
+
+    /**
+     * Connection.isValid() timeout of one probe.
+     */
+    private Duration healthCheckTimeout = Duration.ofSeconds(2);
+
+    private Duration drainInterval = Duration.ofSeconds(1);
+
+    /**
+     * Spilled events replayed per second at most, so the catch-up leaves room for live traffic.
+     */
+    private int drainRate = 2000;
+}
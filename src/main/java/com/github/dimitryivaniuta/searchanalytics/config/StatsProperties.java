@@ -0,0 +1,99 @@
+package com.github.dimitryivaniuta.searchanalytics.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings for how daily_query_stats is written (app.stats.*).
+ */
+@Data
+@ConfigurationProperties(prefix = "app.stats")
+public class StatsProperties {
+
+    /**
+     * DIRECT    – one upsert per event (default, original behaviour).
+     * COALESCED – increments are summed per (day, query) in memory and flushed
+     *             every flush-interval as one batch upsert.
+     * PARTITIONED – like COALESCED but per Kafka partition, flushed together with the partition's
+     *             offset and on rebalance; for running many instances (PartitionedStatsAggregator).
+     */
+    private WriteMode writeMode = WriteMode.DIRECT;
+
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    /**
+     * COALESCED only: emit one SEARCH_STATS_UPDATED outbox event per (day, query)
+     * per flush, inserted in the same transaction as the stats upsert.
+     */
+    private boolean emitOutboxEvents = false;
+
+    /**
+     * DIRECT only: spread increments of hot (day, query) keys over stripe rows, see HotKeyDetector.
+     */
+    private Striping striping = new Striping();
+
+    /**
+     * COALESCED only: log every buffered increment to a local write-ahead log, see StatsWal.
+     */
+    private Wal wal = new Wal();
+
+    public enum WriteMode {
+        DIRECT,
+        COALESCED,
+        PARTITIONED
+    }
+
+    @Data
+    public static class Striping {
+
+        private boolean enabled = false;
+
+        /**
+         * Stripe rows per hot key (daily_query_stat_stripes.stripe in [0, stripes)).
+         */
+        private int stripes = 8;
+
+        /**
+         * Increments of one key within one detection-window (per instance) that make it hot.
+         */
+        private long hotThreshold = 200;
+
+        private Duration detectionWindow = Duration.ofSeconds(10);
+
+        /**
+         * A hot key stays striped until it has been below the threshold for this long.
+         */
+        private Duration coolDown = Duration.ofMinutes(5);
+
+        /**
+         * Stripe rows untouched for fold-after are summed back into daily_query_stats.
+         */
+        private Duration foldAfter = Duration.ofMinutes(10);
+
+        private Duration foldInterval = Duration.ofMinutes(1);
+
+        private int foldBatchSize = 1000;
+    }
+
+    @Data
+    public static class Wal {
+
+        private boolean enabled = false;
+
+        /**
+         * Segment files + wal.id; must survive restarts (persistent volume), one per instance.
+         */
+        private Path directory = Path.of("data", "stats-wal");
+
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        /**
+         * msync every record: survives power loss / kernel crash, not only a process crash.
+         */
+        private boolean forceOnAppend = false;
+    }
+}
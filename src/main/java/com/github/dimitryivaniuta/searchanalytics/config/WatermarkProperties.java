@@ -0,0 +1,71 @@
+package com.github.dimitryivaniuta.searchanalytics.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Event-time watermarks and day closing (app.watermark.*), see DayCloser and DayCloseGuard.
+ *
+ * The watermark is the lowest "highest occurredAt" over active partitions minus allowed-lateness;
+ * a UTC day is closed once the watermark passes its end.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.watermark")
+public class WatermarkProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * How far behind the newest event an event may still arrive and count normally.
+     */
+    private Duration allowedLateness = Duration.ofHours(2);
+
+    /**
+     * How far an event's occurredAt may be ahead of the time it is received; later values (device clocks
+     * running ahead) are clamped to receive time + this before they can raise a partition's watermark.
+     */
+    private Duration futureSkewTolerance = Duration.ofMinutes(5);
+
+    /**
+     * Partitions without new events for this long do not hold the watermark back.
+     */
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    /**
+     * How often watermarks are persisted and closable days are closed.
+     */
+    private Duration closeCheckInterval = Duration.ofMinutes(1);
+
+    /**
+     * Only days within this many days before the watermark are closed automatically.
+     */
+    private int lookbackDays = 7;
+
+    /**
+     * What happens to an event whose day is already closed.
+     */
+    private LatePolicy latePolicy = LatePolicy.ADJUST;
+
+    /**
+     * Cache-Control max-age for stats responses that only cover closed days (write-mode DIRECT with
+     * REJECT / ADJUST only; otherwise a closed day can still change, so such responses are private and revalidated).
+     */
+    private Duration closedDayCacheMaxAge = Duration.ofHours(1);
+
+    public enum LatePolicy {
+        /**
+         * Drop the event (raw row SKIPPED); the day's stats stay exactly as closed.
+         */
+        REJECT,
+        /**
+         * Count it in late_stat_adjustments; daily_query_stats stays as closed.
+         */
+        ADJUST,
+        /**
+         * Reopen the day, count it in daily_query_stats, close it again on the next check.
+         */
+        REOPEN
+    }
+}
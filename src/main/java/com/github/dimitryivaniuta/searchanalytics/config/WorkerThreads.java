@@ -0,0 +1,38 @@
+package com.github.dimitryivaniuta.searchanalytics.config;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Thread factory for the app's own worker pools (outbox relay, DLT retries),
+ * following spring.threads.virtual.enabled like Tomcat, @Scheduled and the Kafka containers do.
+ *
+ * Pools stay fixed-size in both modes: the pool size is the concurrency limit,
+ * virtual threads only make each blocked JDBC / Kafka call cheap.
+ */
+@Component
+public class WorkerThreads {
+
+    private final boolean virtual;
+
+    public WorkerThreads(Environment environment) {
+        this.virtual = Threading.VIRTUAL.isActive(environment);
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * @param namePrefix thread names become {@code <namePrefix>-1, -2, ...}
+     */
+    public ThreadFactory newFactory(String namePrefix) {
+        if (virtual) {
+            return Thread.ofVirtual().name(namePrefix + "-", 1).factory();
+        }
+        return Thread.ofPlatform().name(namePrefix + "-", 1).daemon(true).factory();
+    }
+}
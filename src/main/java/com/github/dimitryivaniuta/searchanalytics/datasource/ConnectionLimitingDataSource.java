@@ -0,0 +1,181 @@
+package com.github.dimitryivaniuta.searchanalytics.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps concurrent connection checkouts in front of a pool.
+ *
+ * With virtual threads every request / task gets its own thread, so thousands can call
+ * getConnection() at once. Hikari would park all of them for up to connectionTimeout and then
+ * fail them together. This wrapper:
+ *  - lets at most {@code permits} (= pool size) callers hold a connection,
+ *  - queues at most {@code maxWaiting} more, each for at most {@code acquireTimeout},
+ *  - rejects anything beyond that immediately with {@link SQLTransientConnectionException}.
+ *
+ * The permit is released when the returned connection is closed (once, even if close() is repeated).
+ */
+public class ConnectionLimitingDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final int maxWaiting;
+    private final Duration acquireTimeout;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    public ConnectionLimitingDataSource(DataSource target, int permits, int maxWaiting, Duration acquireTimeout) {
+        super(target);
+        this.permits = new Semaphore(permits, true);
+        this.maxWaiting = maxWaiting;
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return limited(super.getConnection());
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return limited(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int waiting() {
+        return waiting.get();
+    }
+
+    /**
+     * Permits granted so far (with or without waiting).
+     */
+    public long acquisitions() {
+        return acquisitions.sum();
+    }
+
+    /**
+     * Total time granted callers spent queued for a permit.
+     */
+    public double totalWaitNanos() {
+        return totalWaitNanos.sum();
+    }
+
+    public long rejections() {
+        return rejections.sum();
+    }
+
+    private void acquire() throws SQLException {
+        if (permits.tryAcquire()) {
+            acquisitions.increment();
+            return;
+        }
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            rejections.increment();
+            throw new SQLTransientConnectionException(
+                    "Connection limit reached: " + maxWaiting + " callers already waiting");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                rejections.increment();
+                throw new SQLTransientConnectionException(
+                        "No connection permit within " + acquireTimeout.toMillis() + "ms");
+            }
+            acquisitions.increment();
+            totalWaitNanos.add(System.nanoTime() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a connection permit", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    private Connection limited(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new PermitReleasingHandler(connection));
+    }
+
+    private final class PermitReleasingHandler implements InvocationHandler {
+
+        private final Connection target;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private PermitReleasingHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    try {
+                        target.close();
+                    } finally {
+                        if (released.compareAndSet(false, true)) {
+                            permits.release();
+                        }
+                    }
+                    return null;
+                }
+                case "unwrap" -> {
+                    Class<?> iface = (Class<?>) args[0];
+                    return iface.isInstance(proxy) ? proxy : target.unwrap(iface);
+                }
+                case "isWrapperFor" -> {
+                    Class<?> iface = (Class<?>) args[0];
+                    return iface.isInstance(proxy) || target.isWrapperFor(iface);
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Limited[" + target + "]";
+                }
+                default -> {
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getTargetException();
+                    }
+                }
+            }
+        }
+    }
+}
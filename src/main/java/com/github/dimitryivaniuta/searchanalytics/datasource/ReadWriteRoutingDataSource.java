@@ -0,0 +1,66 @@
+package com.github.dimitryivaniuta.searchanalytics.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Sends connections either to the write pool (primary) or to the read pool (replica).
+ *
+ * Routing is explicit: only code running inside {@link #readOnly(Supplier)} gets a read-pool
+ * connection, everything else – ingest upserts, outbox, Flyway, JPA – stays on the primary.
+ * A connection requested while a transaction is active always comes from the write pool,
+ * so a read inside a write transaction still sees that transaction's own changes.
+ *
+ * The scope is a plain ThreadLocal, so it also works with virtual threads; it is a no-op
+ * when the application DataSource is not a routing one (app.datasource.read.enabled=false).
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        WRITE,
+        READ
+    }
+
+    private static final ThreadLocal<Route> CURRENT_ROUTE = new ThreadLocal<>();
+
+    public ReadWriteRoutingDataSource(Object writeDataSource, Object readDataSource) {
+        setTargetDataSources(Map.of(Route.WRITE, writeDataSource, Route.READ, readDataSource));
+        setDefaultTargetDataSource(writeDataSource);
+        setLenientFallback(false);
+    }
+
+    /**
+     * Runs {@code action} with read-pool routing for the current thread. Nested calls are allowed.
+     */
+    public static <T> T readOnly(Supplier<T> action) {
+        Route previous = CURRENT_ROUTE.get();
+        CURRENT_ROUTE.set(Route.READ);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT_ROUTE.remove();
+            } else {
+                CURRENT_ROUTE.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Route a connection requested right now on this thread would take.
+     */
+    public static Route currentRoute() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return Route.WRITE;
+        }
+        return CURRENT_ROUTE.get() == Route.READ ? Route.READ : Route.WRITE;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return currentRoute();
+    }
+}
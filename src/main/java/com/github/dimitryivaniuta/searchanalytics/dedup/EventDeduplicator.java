@@ -0,0 +1,288 @@
+package com.github.dimitryivaniuta.searchanalytics.dedup;
+
+import com.github.dimitryivaniuta.searchanalytics.bulkhead.BulkheadRegistry;
+import com.github.dimitryivaniuta.searchanalytics.config.DedupProperties;
+import com.github.dimitryivaniuta.searchanalytics.repository.ProcessedEventIdRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Drops events whose eventId was already aggregated (producer retries land the same event at a new offset).
+ *
+ * Flow per event:
+ *  - isDuplicate(): Bloom filter says "definitely new" -> done, no DB access (the common case);
+ *    "maybe" -> check ids not yet flushed, then one primary-key lookup in processed_event_ids.
+ *  - markProcessed() after aggregation: put into the Bloom filter + the pending set.
+ *  - flush() every app.dedup.flush-interval: pending ids -> ONE batch insert (ingest bulkhead).
+ *  - cleanup() every app.dedup.cleanup-interval: delete ids older than app.dedup.ttl in small
+ *    batches (maintenance bulkhead).
+ *
+ * Events without an eventId are never treated as duplicates.
+ *
+ * Each instance only knows the ids it processed itself (plus the warm-up on start). Producer retries
+ * keep their key and therefore their partition, so this only matters for ids seen shortly before
+ * a rebalance moved the partition to another instance.
+ */
+@Slf4j
+@EnableConfigurationProperties(DedupProperties.class)
+@Component
+public class EventDeduplicator implements MeterBinder {
+
+    private final ProcessedEventIdRepository repository;
+    private final DedupProperties properties;
+    private final BulkheadRegistry bulkheads;
+    private final Clock clock;
+    private final RotatingBloomFilter bloomFilter;
+
+    /**
+     * Checks take the read lock, the pending -> flushing swap takes the write lock, so an id is
+     * always visible in pending, flushing or the table.
+     */
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private Set<String> pending = ConcurrentHashMap.newKeySet();
+    private volatile Set<String> flushing = Set.of();
+
+    private final LongAdder definitelyNew = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public EventDeduplicator(ProcessedEventIdRepository repository,
+                             DedupProperties properties,
+                             BulkheadRegistry bulkheads) {
+        this(repository, properties, bulkheads, Clock.systemUTC());
+    }
+
+    EventDeduplicator(ProcessedEventIdRepository repository,
+                      DedupProperties properties,
+                      BulkheadRegistry bulkheads,
+                      Clock clock) {
+        this.repository = repository;
+        this.properties = properties;
+        this.bulkheads = bulkheads;
+        this.clock = clock;
+        this.bloomFilter = new RotatingBloomFilter(properties.getBloomGenerations(),
+                properties.getExpectedInsertions(), properties.getFalsePositiveProbability());
+    }
+
+    @PostConstruct
+    public void warmUp() {
+        if (!properties.isEnabled() || !properties.isWarmUp()) {
+            return;
+        }
+        Instant since = clock.instant().minus(properties.getRotateInterval()
+                .multipliedBy(properties.getBloomGenerations()));
+        try {
+            long loaded = repository.forEachSince(since, bloomFilter::put);
+            log.info("Dedup Bloom filter warmed up with {} event ids since {} ({} KiB)",
+                    loaded, since, bloomFilter.sizeInBytes() / 1024);
+        } catch (RuntimeException ex) {
+            log.warn("Dedup Bloom filter warm-up failed, starting empty", ex);
+        }
+    }
+
+    /**
+     * @return true if {@code eventId} was already aggregated and the event must be skipped
+     */
+    public boolean isDuplicate(String eventId) {
+        if (!properties.isEnabled() || eventId == null || eventId.isBlank()) {
+            return false;
+        }
+        if (!bloomFilter.mightContain(eventId)) {
+            definitelyNew.increment();
+            return false;
+        }
+        if (isPending(eventId) || repository.exists(eventId)) {
+            duplicates.increment();
+            return true;
+        }
+        falsePositives.increment();
+        return false;
+    }
+
+    /**
+     * Records {@code eventId} as aggregated; persisted on the next flush.
+     */
+    public void markProcessed(String eventId) {
+        if (!properties.isEnabled() || eventId == null || eventId.isBlank()) {
+            return;
+        }
+        bloomFilter.put(eventId);
+        swapLock.readLock().lock();
+        try {
+            pending.add(eventId);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds ids that were already written to processed_event_ids by the caller (in its own
+     * transaction, see PartitionedStatsAggregator) to the Bloom filter only.
+     */
+    public void markPersisted(Collection<String> eventIds) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        eventIds.forEach(bloomFilter::put);
+    }
+
+    public int pendingIds() {
+        swapLock.readLock().lock();
+        try {
+            return pending.size();
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.dedup.flush-interval:PT1S}")
+    public void scheduledFlush() {
+        try {
+            flush();
+        } catch (Exception ex) {
+            log.error("Dedup id flush failed, ids kept for the next attempt", ex);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        scheduledFlush();
+    }
+
+    /**
+     * Writes all pending ids to processed_event_ids.
+     *
+     * @return number of ids written
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            List<String> ids = drain();
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            try {
+                bulkheads.ingest().run(() -> repository.insertAll(ids));
+            } catch (RuntimeException ex) {
+                swapLock.readLock().lock();
+                try {
+                    pending.addAll(ids);
+                } finally {
+                    swapLock.readLock().unlock();
+                }
+                throw ex;
+            } finally {
+                flushing = Set.of();
+            }
+            return ids.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedRateString = "${app.dedup.rotate-interval:PT30M}",
+            initialDelayString = "${app.dedup.rotate-interval:PT30M}")
+    public void rotate() {
+        bloomFilter.rotate();
+    }
+
+    @Scheduled(fixedDelayString = "${app.dedup.cleanup-interval:PT5M}",
+            initialDelayString = "${app.dedup.cleanup-interval:PT5M}")
+    public void scheduledCleanup() {
+        try {
+            cleanup();
+        } catch (Exception ex) {
+            log.warn("Dedup id cleanup failed, retrying on the next run", ex);
+        }
+    }
+
+    /**
+     * Deletes ids older than app.dedup.ttl.
+     *
+     * @return number of ids deleted
+     */
+    public int cleanup() {
+        if (!properties.isEnabled()) {
+            return 0;
+        }
+        Instant cutoff = clock.instant().minus(properties.getTtl());
+        int batchSize = properties.getCleanupBatchSize();
+        return bulkheads.maintenance().call(() -> {
+            int total = 0;
+            int deleted;
+            do {
+                deleted = repository.deleteOlderThan(cutoff, batchSize);
+                total += deleted;
+            } while (deleted == batchSize);
+            if (total > 0) {
+                log.debug("Deleted {} processed event ids older than {}", total, cutoff);
+            }
+            return total;
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("search.events.dedup", definitelyNew, LongAdder::sum)
+                .description("Dedup checks by result; only possible duplicates hit the database")
+                .tag("result", "new")
+                .register(registry);
+        FunctionCounter.builder("search.events.dedup", duplicates, LongAdder::sum)
+                .description("Dedup checks by result; only possible duplicates hit the database")
+                .tag("result", "duplicate")
+                .register(registry);
+        FunctionCounter.builder("search.events.dedup", falsePositives, LongAdder::sum)
+                .description("Dedup checks by result; only possible duplicates hit the database")
+                .tag("result", "false_positive")
+                .register(registry);
+        Gauge.builder("search.events.dedup.pending", this, EventDeduplicator::pendingIds)
+                .description("Processed event ids waiting for the next flush")
+                .register(registry);
+        Gauge.builder("search.events.dedup.bloom.fill", bloomFilter, RotatingBloomFilter::currentFillRatio)
+                .description("Share of bits set in the newest Bloom filter generation")
+                .register(registry);
+    }
+
+    private boolean isPending(String eventId) {
+        swapLock.readLock().lock();
+        try {
+            return pending.contains(eventId) || flushing.contains(eventId);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private List<String> drain() {
+        swapLock.writeLock().lock();
+        try {
+            if (pending.isEmpty()) {
+                return List.of();
+            }
+            Set<String> drained = pending;
+            flushing = drained;
+            pending = ConcurrentHashMap.newKeySet();
+            return List.copyOf(drained);
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+}
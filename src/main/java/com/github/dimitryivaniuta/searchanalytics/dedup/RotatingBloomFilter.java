@@ -0,0 +1,75 @@
+package com.github.dimitryivaniuta.searchanalytics.dedup;
+
+/**
+ * Time-windowed Bloom filter: a ring of {@code generations} filters.
+ *
+ * put() goes into the newest generation, mightContain() asks all of them, rotate() drops the
+ * oldest and starts an empty one. Called every rotate-interval, an id is remembered for at least
+ * (generations - 1) * rotate-interval, and memory stays bounded however long the process runs.
+ */
+public class RotatingBloomFilter {
+
+    private final long expectedInsertionsPerGeneration;
+    private final double falsePositiveProbability;
+
+    /**
+     * Newest first; replaced as a whole on rotate() so readers never see a half-rotated ring.
+     */
+    private volatile BloomFilter[] generations;
+
+    public RotatingBloomFilter(int generations, long expectedInsertionsPerGeneration, double falsePositiveProbability) {
+        if (generations < 2) {
+            throw new IllegalArgumentException("generations must be >= 2");
+        }
+        this.expectedInsertionsPerGeneration = expectedInsertionsPerGeneration;
+        this.falsePositiveProbability = falsePositiveProbability;
+        BloomFilter[] ring = new BloomFilter[generations];
+        for (int i = 0; i < generations; i++) {
+            ring[i] = newGeneration();
+        }
+        this.generations = ring;
+    }
+
+    public void put(String value) {
+        generations[0].put(value);
+    }
+
+    public boolean mightContain(String value) {
+        for (BloomFilter generation : generations) {
+            if (generation.mightContain(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized void rotate() {
+        BloomFilter[] current = generations;
+        BloomFilter[] rotated = new BloomFilter[current.length];
+        rotated[0] = newGeneration();
+        System.arraycopy(current, 0, rotated, 1, current.length - 1);
+        generations = rotated;
+    }
+
+    /**
+     * Fill ratio of the newest generation (the one receiving puts).
+     */
+    public double currentFillRatio() {
+        return generations[0].fillRatio();
+    }
+
+    /**
+     * Total memory of all generations' bit arrays.
+     */
+    public long sizeInBytes() {
+        long bits = 0;
+        for (BloomFilter generation : generations) {
+            bits += generation.bitCount();
+        }
+        return bits / 8;
+    }
+
+    private BloomFilter newGeneration() {
+        return new BloomFilter(expectedInsertionsPerGeneration, falsePositiveProbability);
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.dimitryivaniuta.searchanalytics.error;
+
+/**
+ * What kind of failure an exception stands for (see {@link ErrorClassifier}).
+ */
+public enum ErrorCategory {
+
+    /**
+     * Postgres unreachable: no connection, connection lost, server shutting down.
+     */
+    CONNECTIVITY(true),
+
+    /**
+     * Database answered but the statement can succeed on a later attempt: deadlock, serialization
+     * failure, lock or statement timeout, pool / bulkhead saturation, retriable Kafka errors.
+     */
+    TRANSIENT(true),
+
+    /**
+     * Integrity constraint violation (SQLSTATE class 23).
+     */
+    CONSTRAINT(false),
+
+    /**
+     * The event itself is bad: SQLSTATE class 22, unparseable JSON, invalid arguments.
+     */
+    DATA(false),
+
+    /**
+     * Anything else; treated as poison.
+     */
+    UNKNOWN(false);
+
+    private final boolean retryable;
+
+    ErrorCategory(boolean retryable) {
+        this.retryable = retryable;
+    }
+
+    /**
+     * @return true if the same record can succeed when simply tried again later
+     */
+    public boolean isRetryable() {
+        return retryable;
+    }
+
+    /**
+     * @return true if the same input fails the same way on every attempt
+     */
+    public boolean isDeterministic() {
+        return this == CONSTRAINT || this == DATA;
+    }
+}
@@ -0,0 +1,137 @@
+package com.github.dimitryivaniuta.searchanalytics.error;
+
+import com.fasterxml.jackson.core.JacksonException;
+import com.github.dimitryivaniuta.searchanalytics.bulkhead.BulkheadFullException;
+import org.apache.kafka.common.errors.RetriableException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.SQLTransientException;
+import java.time.DateTimeException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Maps an exception to an {@link ErrorCategory}, so callers can tell "try again later" from poison.
+ *
+ * The whole cause chain is inspected, most specific evidence first:
+ *  1. SQLSTATE of any SQLException in the chain (what Postgres actually said),
+ *  2. driver / JDK / Kafka / Jackson exception types,
+ *  3. Spring's DataAccessException hierarchy and other generic types.
+ *
+ * So a Spring wrapper never hides the driver's verdict: CannotGetJdbcConnectionException around a
+ * SQLSTATE-less SQLTransientConnectionException (Hikari pool or bulkhead connection budget exhausted)
+ * is TRANSIENT, around a connection refused (SQLSTATE 08001) it is CONNECTIVITY.
+ */
+public final class ErrorClassifier {
+
+    private ErrorClassifier() {
+    }
+
+    public static ErrorCategory classify(Throwable failure) {
+        ErrorCategory category = firstInChain(failure, ErrorClassifier::bySqlState);
+        if (category == null) {
+            category = firstInChain(failure, ErrorClassifier::byDriverType);
+        }
+        if (category == null) {
+            category = firstInChain(failure, ErrorClassifier::byFrameworkType);
+        }
+        return category != null ? category : ErrorCategory.UNKNOWN;
+    }
+
+    /**
+     * Postgres SQLSTATE classes / codes, see https://www.postgresql.org/docs/current/errcodes-appendix.html
+     *
+     * @return null if the state says nothing about retrying
+     */
+    static ErrorCategory forSqlState(String sqlState) {
+        if (sqlState == null || sqlState.length() < 2) {
+            return null;
+        }
+        // 08 connection exception, 57P01..57P05 admin/crash shutdown, cannot connect now, idle timeout
+        if (sqlState.startsWith("08") || sqlState.startsWith("57P0")) {
+            return ErrorCategory.CONNECTIVITY;
+        }
+        // 40 transaction rollback (serialization failure, deadlock), 53 insufficient resources,
+        // 55P03 lock not available, 57014 query canceled (statement timeout)
+        if (sqlState.startsWith("40") || sqlState.startsWith("53")
+                || sqlState.equals("55P03") || sqlState.equals("57014")) {
+            return ErrorCategory.TRANSIENT;
+        }
+        if (sqlState.startsWith("23")) {
+            return ErrorCategory.CONSTRAINT;
+        }
+        if (sqlState.startsWith("22")) {
+            return ErrorCategory.DATA;
+        }
+        return null;
+    }
+
+    private static ErrorCategory bySqlState(Throwable t) {
+        return t instanceof SQLException sql ? forSqlState(sql.getSQLState()) : null;
+    }
+
+    private static ErrorCategory byDriverType(Throwable t) {
+        if (t instanceof SQLNonTransientConnectionException
+                || t instanceof SQLRecoverableException
+                || t instanceof ConnectException
+                || t instanceof NoRouteToHostException
+                || t instanceof UnknownHostException) {
+            return ErrorCategory.CONNECTIVITY;
+        }
+        // without SQLSTATE 08 this is a local pool / bulkhead timeout, not an unreachable server
+        if (t instanceof SQLTransientConnectionException
+                || t instanceof SQLTransientException
+                || t instanceof RetriableException
+                || t instanceof TimeoutException
+                || t instanceof BulkheadFullException) {
+            return ErrorCategory.TRANSIENT;
+        }
+        if (t instanceof SQLIntegrityConstraintViolationException) {
+            return ErrorCategory.CONSTRAINT;
+        }
+        if (t instanceof SQLDataException
+                || t instanceof JacksonException
+                || t instanceof DateTimeException) {
+            return ErrorCategory.DATA;
+        }
+        return null;
+    }
+
+    private static ErrorCategory byFrameworkType(Throwable t) {
+        if (t instanceof DataAccessResourceFailureException) {
+            return ErrorCategory.CONNECTIVITY;
+        }
+        if (t instanceof TransientDataAccessException || t instanceof RecoverableDataAccessException) {
+            return ErrorCategory.TRANSIENT;
+        }
+        if (t instanceof DataIntegrityViolationException) {
+            return ErrorCategory.CONSTRAINT;
+        }
+        if (t instanceof IllegalArgumentException) {
+            return ErrorCategory.DATA;
+        }
+        return null;
+    }
+
+    private static ErrorCategory firstInChain(Throwable failure, Function<Throwable, ErrorCategory> rule) {
+        for (Throwable t = failure; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            ErrorCategory category = rule.apply(t);
+            if (category != null) {
+                return category;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.dimitryivaniuta.searchanalytics.error;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.StringJoiner;
+import java.util.regex.Pattern;
+
+/**
+ * Identity of an error kind, so millions of failing events map to a handful of rows.
+ *
+ * The id is a hash of:
+ *  - the error type (VALIDATION, PROCESSING_ERROR, ...),
+ *  - the exception classes of the cause chain,
+ *  - the top stack frames as class.method – application frames if there are any, line numbers left out
+ *    so a fingerprint survives a redeploy,
+ *  - the message template: the message with UUIDs, numbers, quoted literals and Postgres key details
+ *    masked ("Key (query)=(java) already exists" -> "Key (query)=(?) already exists").
+ *
+ * @param id              16 hex chars (first 64 bits of SHA-256)
+ * @param exceptionType   cause chain, outermost first ("a.B <- c.D"); null for errors without exception
+ */
+public record ErrorFingerprint(String id, String errorType, String exceptionType, String messageTemplate) {
+
+    private static final String APPLICATION_PACKAGE = "com.github.dimitryivaniuta.searchanalytics.";
+    private static final int MAX_TEMPLATE_LENGTH = 500;
+
+    private static final Pattern UUID = Pattern.compile(
+            "\\b[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}\\b");
+    private static final Pattern KEY_DETAIL = Pattern.compile("\\)=\\([^)]*\\)");
+    private static final Pattern SINGLE_QUOTED = Pattern.compile("'[^']*'");
+    private static final Pattern DOUBLE_QUOTED = Pattern.compile("\"[^\"]*\"");
+    private static final Pattern HEX = Pattern.compile("\\b0x[0-9a-fA-F]+\\b");
+    private static final Pattern NUMBER = Pattern.compile("\\b\\d+(\\.\\d+)?\\b");
+
+    public static ErrorFingerprint of(String errorType, String message, Throwable failure, int topFrames) {
+        String template = messageTemplate(message != null ? message : failure != null ? failure.getMessage() : null);
+        String exceptionType = failure != null ? causeChain(failure) : null;
+        String frames = failure != null ? topFrames(failure, topFrames) : "";
+
+        MessageDigest digest = sha256();
+        update(digest, errorType);
+        update(digest, exceptionType);
+        update(digest, frames);
+        update(digest, template);
+        String id = HexFormat.of().formatHex(digest.digest(), 0, 8);
+        return new ErrorFingerprint(id, errorType, exceptionType, template);
+    }
+
+    static String messageTemplate(String message) {
+        if (message == null || message.isBlank()) {
+            return "";
+        }
+        String template = UUID.matcher(message).replaceAll("<uuid>");
+        template = KEY_DETAIL.matcher(template).replaceAll(")=(?)");
+        template = SINGLE_QUOTED.matcher(template).replaceAll("'?'");
+        template = DOUBLE_QUOTED.matcher(template).replaceAll("\"?\"");
+        template = HEX.matcher(template).replaceAll("<hex>");
+        template = NUMBER.matcher(template).replaceAll("<n>");
+        template = template.strip();
+        return template.length() > MAX_TEMPLATE_LENGTH ? template.substring(0, MAX_TEMPLATE_LENGTH) : template;
+    }
+
+    private static String causeChain(Throwable failure) {
+        StringJoiner chain = new StringJoiner(" <- ");
+        for (Throwable t = failure; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            chain.add(t.getClass().getName());
+        }
+        return chain.toString();
+    }
+
+    private static String topFrames(Throwable failure, int count) {
+        StackTraceElement[] frames = failure.getStackTrace();
+        StringJoiner joined = new StringJoiner("|");
+        int taken = 0;
+        for (StackTraceElement frame : frames) {
+            if (taken < count && frame.getClassName().startsWith(APPLICATION_PACKAGE)) {
+                joined.add(frame.getClassName() + "." + frame.getMethodName());
+                taken++;
+            }
+        }
+        if (taken == 0) {
+            for (int i = 0; i < Math.min(count, frames.length); i++) {
+                joined.add(frames[i].getClassName() + "." + frames[i].getMethodName());
+            }
+        }
+        return joined.toString();
+    }
+
+    private static void update(MessageDigest digest, String part) {
+        if (part != null) {
+            digest.update(part.getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.github.dimitryivaniuta.searchanalytics.error;
+
+import com.github.dimitryivaniuta.searchanalytics.bulkhead.BulkheadRegistry;
+import com.github.dimitryivaniuta.searchanalytics.config.ErrorsProperties;
+import com.github.dimitryivaniuta.searchanalytics.model.ErrorSummary;
+import com.github.dimitryivaniuta.searchanalytics.repository.ErrorRollupRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Aggregates processing errors by {@link ErrorFingerprint} in memory and writes them in batches.
+ *
+ * Flow:
+ *  - record(): fingerprint the error and count it for the current minute (no DB access). The stack trace
+ *    is only rendered the first time this instance sees a fingerprint.
+ *  - flush() every app.errors.flush-interval: new fingerprints -> ONE batch insert into error_fingerprints
+ *    (first stack trace wins), then the per-minute counts -> ONE upsert into error_occurrences.
+ *    A failed flush keeps everything for the next attempt.
+ *  - cleanup() every app.errors.cleanup-interval drops occurrence minutes older than app.errors.retention.
+ *  - summary(): GET /api/errors/summary, read from the tables (lags by up to one flush-interval).
+ */
+@Slf4j
+@EnableConfigurationProperties(ErrorsProperties.class)
+@Component
+public class ErrorRollup implements MeterBinder {
+
+    /**
+     * Bounds the "already stored" set if messages defeat the template masking; clearing it only costs
+     * a few redundant ON CONFLICT DO NOTHING inserts.
+     */
+    static final int MAX_KNOWN_FINGERPRINTS = 10_000;
+
+    private final ErrorRollupRepository repository;
+    private final ErrorsProperties properties;
+    private final BulkheadRegistry bulkheads;
+    private final Clock clock;
+
+    /**
+     * record() takes the read lock, the pending -> flushing swap takes the write lock.
+     */
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private Map<Occurrence, LongAdder> pending = new ConcurrentHashMap<>();
+
+    private final Map<String, NewFingerprint> newFingerprints = new ConcurrentHashMap<>();
+    private final Set<String> stored = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder stackTraces = new LongAdder();
+
+    @Autowired
+    public ErrorRollup(ErrorRollupRepository repository, ErrorsProperties properties, BulkheadRegistry bulkheads) {
+        this(repository, properties, bulkheads, Clock.systemUTC());
+    }
+
+    ErrorRollup(ErrorRollupRepository repository, ErrorsProperties properties, BulkheadRegistry bulkheads,
+                Clock clock) {
+        this.repository = repository;
+        this.properties = properties;
+        this.bulkheads = bulkheads;
+        this.clock = clock;
+    }
+
+    /**
+     * Counts one occurrence of an error.
+     *
+     * @param failure the exception, or null for errors without one (e.g. VALIDATION)
+     * @return the error's fingerprint
+     */
+    public ErrorFingerprint record(String errorType, String message, Throwable failure) {
+        ErrorFingerprint fingerprint = ErrorFingerprint.of(errorType, message, failure, properties.getTopFrames());
+        if (!stored.contains(fingerprint.id())) {
+            newFingerprints.computeIfAbsent(fingerprint.id(), id -> {
+                stackTraces.increment();
+                return new NewFingerprint(fingerprint, stackTraceAsString(failure));
+            });
+        }
+        Occurrence occurrence = new Occurrence(fingerprint.id(), clock.instant().truncatedTo(ChronoUnit.MINUTES));
+        swapLock.readLock().lock();
+        try {
+            pending.computeIfAbsent(occurrence, key -> new LongAdder()).increment();
+        } finally {
+            swapLock.readLock().unlock();
+        }
+        recorded.increment();
+        return fingerprint;
+    }
+
+    @Scheduled(fixedDelayString = "${app.errors.flush-interval:PT5S}")
+    public void scheduledFlush() {
+        try {
+            flush();
+        } catch (Exception ex) {
+            log.warn("Error rollup flush failed, counts kept for the next attempt: {}", ex.toString());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        scheduledFlush();
+    }
+
+    /**
+     * Writes new fingerprints and all pending counts.
+     *
+     * @return number of (fingerprint, minute) counters written
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            storeNewFingerprints();
+
+            Map<Occurrence, LongAdder> drained = drain();
+            if (drained.isEmpty()) {
+                return 0;
+            }
+            String[] ids = new String[drained.size()];
+            Instant[] minutes = new Instant[drained.size()];
+            long[] counts = new long[drained.size()];
+            int i = 0;
+            for (Map.Entry<Occurrence, LongAdder> entry : drained.entrySet()) {
+                ids[i] = entry.getKey().fingerprint();
+                minutes[i] = entry.getKey().minute();
+                counts[i] = entry.getValue().sum();
+                i++;
+            }
+            try {
+                bulkheads.maintenance().run(() -> repository.addOccurrences(ids, minutes, counts));
+            } catch (RuntimeException ex) {
+                requeue(drained);
+                throw ex;
+            }
+            return drained.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.errors.cleanup-interval:PT1H}",
+            initialDelayString = "${app.errors.cleanup-interval:PT1H}")
+    public void scheduledCleanup() {
+        try {
+            Instant cutoff = clock.instant().minus(properties.getRetention());
+            int deleted = bulkheads.maintenance().call(() -> repository.deleteOccurrencesBefore(cutoff));
+            if (deleted > 0) {
+                log.debug("Deleted {} error occurrence minutes before {}", deleted, cutoff);
+            }
+        } catch (Exception ex) {
+            log.warn("Error occurrence cleanup failed, retrying on the next run", ex);
+        }
+    }
+
+    /**
+     * Most frequent fingerprints of the last {@code window}.
+     */
+    public List<ErrorSummary> summary(Duration window, int limit) {
+        Instant now = clock.instant();
+        return repository.summarize(now.minus(window).truncatedTo(ChronoUnit.MINUTES),
+                now.plus(1, ChronoUnit.MINUTES), limit);
+    }
+
+    public int pendingCounters() {
+        swapLock.readLock().lock();
+        try {
+            return pending.size();
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("search.events.errors.recorded", recorded, LongAdder::sum)
+                .description("Processing errors counted in the fingerprint rollup")
+                .register(registry);
+        FunctionCounter.builder("search.events.errors.stack.traces", stackTraces, LongAdder::sum)
+                .description("Stack traces rendered (once per new fingerprint and instance)")
+                .register(registry);
+        Gauge.builder("search.events.errors.pending", this, ErrorRollup::pendingCounters)
+                .description("Per-minute error counters waiting for the next flush")
+                .register(registry);
+    }
+
+    private void storeNewFingerprints() {
+        if (newFingerprints.isEmpty()) {
+            return;
+        }
+        List<ErrorFingerprint> fingerprints = new ArrayList<>(newFingerprints.size());
+        Map<String, String> traces = new HashMap<>();
+        for (NewFingerprint candidate : newFingerprints.values()) {
+            fingerprints.add(candidate.fingerprint());
+            traces.put(candidate.fingerprint().id(), candidate.stackTrace());
+        }
+        bulkheads.maintenance().run(() -> repository.saveFingerprints(fingerprints, traces));
+        if (stored.size() + fingerprints.size() > MAX_KNOWN_FINGERPRINTS) {
+            stored.clear();
+        }
+        for (ErrorFingerprint fingerprint : fingerprints) {
+            stored.add(fingerprint.id());
+            newFingerprints.remove(fingerprint.id());
+        }
+    }
+
+    private Map<Occurrence, LongAdder> drain() {
+        swapLock.writeLock().lock();
+        try {
+            if (pending.isEmpty()) {
+                return Map.of();
+            }
+            Map<Occurrence, LongAdder> drained = pending;
+            pending = new ConcurrentHashMap<>();
+            return drained;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    private void requeue(Map<Occurrence, LongAdder> drained) {
+        swapLock.readLock().lock();
+        try {
+            drained.forEach((occurrence, count) ->
+                    pending.computeIfAbsent(occurrence, key -> new LongAdder()).add(count.sum()));
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Full stack trace of {@code t}, stored once per fingerprint in error_fingerprints.stack_trace.
+     */
+    static String stackTraceAsString(Throwable t) {
+        if (t == null) {
+            return null;
+        }
+        StringWriter sw = new StringWriter();
+        t.printStackTrace(new PrintWriter(sw));
+        return sw.toString();
+    }
+
+    private record Occurrence(String fingerprint, Instant minute) {
+    }
+
+    private record NewFingerprint(ErrorFingerprint fingerprint, String stackTrace) {
+    }
+}
@@ -2,9 +2,12 @@ package com.github.dimitryivaniuta.searchanalytics.jpa.entity;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
@@ -21,9 +24,9 @@ import java.time.LocalDate;
  * Table constraints expected (Flyway):
  *  - id BIGSERIAL PK
  *  - day DATE NOT NULL
- *  - query TEXT/VARCHAR NOT NULL
+ *  - query_id INT NOT NULL -> query_dictionary(id)
  *  - count BIGINT NOT NULL
- *  - UNIQUE(day, query)
+ *  - UNIQUE(day, query_id)
  */
 @Getter
 @Setter
@@ -34,7 +37,7 @@ import java.time.LocalDate;
 @Table(
         name = "daily_query_stats",
         uniqueConstraints = {
-                @UniqueConstraint(name = "uq_daily_query_stats_day_query", columnNames = {"day", "query"})
+                @UniqueConstraint(name = "uq_daily_query_stats_day_query", columnNames = {"day", "query_id"})
         }
 )
 public class DailyQueryStatEntity {
@@ -47,14 +50,25 @@ public class DailyQueryStatEntity {
     private LocalDate day;
 
     /**
-     * "query" is a safe identifier in Postgres, but keep explicit column name.
+     * Written through this id (see QueryDictionaryJpaRepository); {@link #dictionary} only reads.
      */
-    @Column(name = "query", nullable = false)
-    private String query;
+    @Column(name = "query_id", nullable = false)
+    private Integer queryId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "query_id", insertable = false, updatable = false)
+    private QueryDictionaryEntity dictionary;
 
     /**
      * Use primitive long to mirror NOT NULL column.
      */
     @Column(name = "count", nullable = false)
     private long count;
+
+    /**
+     * Query text; null until the entity is (re)loaded with its dictionary row.
+     */
+    public String getQuery() {
+        return dictionary != null ? dictionary.getQuery() : null;
+    }
 }
@@ -0,0 +1,44 @@
+package com.github.dimitryivaniuta.searchanalytics.jpa.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * JPA mapping for table query_dictionary.
+ *
+ * Table constraints expected (Flyway):
+ *  - id SERIAL PK
+ *  - query TEXT NOT NULL
+ *  - UNIQUE(query)
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(
+        name = "query_dictionary",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uq_query_dictionary_query", columnNames = {"query"})
+        }
+)
+public class QueryDictionaryEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "query", nullable = false)
+    private String query;
+}
@@ -3,6 +3,8 @@ package com.github.dimitryivaniuta.searchanalytics.jpa.repository;
 import com.github.dimitryivaniuta.searchanalytics.jpa.entity.DailyQueryStatEntity;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -10,13 +12,23 @@ import java.util.Optional;
 
 /**
  * Spring Data JPA repository for daily_query_stats.
+ * Lookups by text go through query_dictionary (UNIQUE(query)), then UNIQUE(day, query_id).
  */
 public interface DailyQueryStatJpaRepository extends JpaRepository<DailyQueryStatEntity, Long> {
 
-    Optional<DailyQueryStatEntity> findByDayAndQuery(LocalDate day, String query);
+    @Query("""
+            select s from DailyQueryStatEntity s join fetch s.dictionary d
+            where s.day = :day and d.query = :query
+            """)
+    Optional<DailyQueryStatEntity> findByDayAndQuery(@Param("day") LocalDate day, @Param("query") String query);
 
     /**
-     * "Top N for a day" using Pageable for limit.
+     * "Top N for a day" using Pageable for limit; ties ordered by query text.
      */
-    List<DailyQueryStatEntity> findByDayOrderByCountDescQueryAsc(LocalDate day, Pageable pageable);
+    @Query("""
+            select s from DailyQueryStatEntity s join fetch s.dictionary d
+            where s.day = :day
+            order by s.count desc, d.query asc
+            """)
+    List<DailyQueryStatEntity> findTopByDay(@Param("day") LocalDate day, Pageable pageable);
 }
@@ -0,0 +1,14 @@
+package com.github.dimitryivaniuta.searchanalytics.jpa.repository;
+
+import com.github.dimitryivaniuta.searchanalytics.jpa.entity.QueryDictionaryEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+/**
+ * Spring Data JPA repository for query_dictionary.
+ */
+public interface QueryDictionaryJpaRepository extends JpaRepository<QueryDictionaryEntity, Integer> {
+
+    Optional<QueryDictionaryEntity> findByQuery(String query);
+}
@@ -3,18 +3,22 @@ package com.github.dimitryivaniuta.searchanalytics.messaging;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.dimitryivaniuta.searchanalytics.config.KafkaTopicsProperties;
+import com.github.dimitryivaniuta.searchanalytics.model.DltEnvelope;
 import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
+import com.github.dimitryivaniuta.searchanalytics.profiling.DltSendEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.time.Instant;
 
 /**
  * Produces messages into the dead-letter topic when processing fails.
- * Value is a JSON containing original payload + basic error context.
+ * Value is a JSON {@link DltEnvelope} containing original payload + basic error context.
+ *
+ * Uses the Spring-managed ObjectMapper so java.time fields of the payload serialize
+ * the same way as everywhere else (and can be parsed back by DltReprocessor).
  */
 @Slf4j
 @Component
@@ -23,30 +27,40 @@ public class DeadLetterProducer {
 
     private final KafkaTemplate<String, String> jsonStringKafkaTemplate;
     private final KafkaTopicsProperties topics;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper objectMapper;
 
     /**
      * Sends an event to DLT. We wrap the original payload and error info into one JSON object.
+     *
+     * @param rawEventId raw_search_events.id (nullable)
+     * @param errorId    search_event_processing_errors.id (nullable) – used by the reprocessor
      */
     public void sendToDlt(String originalKey,
                           SearchEventPayload payload,
                           String kafkaTopic,
                           int kafkaPartition,
                           long kafkaOffset,
+                          Long rawEventId,
+                          Long errorId,
                           Throwable error) {
 
-        Map<String, Object> body = new HashMap<>();
-        body.put("originalKey", originalKey);
-        body.put("originalTopic", kafkaTopic);
-        body.put("originalPartition", kafkaPartition);
-        body.put("originalOffset", kafkaOffset);
-        body.put("errorMessage", error != null ? error.getMessage() : null);
-        body.put("errorType", error != null ? error.getClass().getName() : null);
-        body.put("payload", payload);
+        DltSendEvent sendEvent = new DltSendEvent();
+        sendEvent.begin();
+        DltEnvelope envelope = buildEnvelope(originalKey, payload, kafkaTopic, kafkaPartition, kafkaOffset,
+                rawEventId, errorId, error);
 
         try {
-            String json = objectMapper.writeValueAsString(body);
+            String json = toJson(envelope);
             jsonStringKafkaTemplate.send(topics.getSearchEventsDltTopic(), originalKey, json);
+            sendEvent.end();
+            if (sendEvent.shouldCommit()) {
+                sendEvent.sourceTopic = kafkaTopic;
+                sendEvent.sourcePartition = kafkaPartition;
+                sendEvent.sourceOffset = kafkaOffset;
+                sendEvent.errorType = error != null ? error.getClass().getName() : null;
+                sendEvent.envelopeLength = json.length();
+                sendEvent.commit();
+            }
             log.warn("Sent message to DLT topic='{}', key='{}', offset={}",
                     topics.getSearchEventsDltTopic(), originalKey, kafkaOffset);
         } catch (JsonProcessingException e) {
@@ -54,4 +68,30 @@ public class DeadLetterProducer {
                     kafkaTopic, kafkaPartition, kafkaOffset, e);
         }
     }
+
+    DltEnvelope buildEnvelope(String originalKey,
+                              SearchEventPayload payload,
+                              String kafkaTopic,
+                              int kafkaPartition,
+                              long kafkaOffset,
+                              Long rawEventId,
+                              Long errorId,
+                              Throwable error) {
+        return DltEnvelope.builder()
+                .originalKey(originalKey)
+                .originalTopic(kafkaTopic)
+                .originalPartition(kafkaPartition)
+                .originalOffset(kafkaOffset)
+                .rawEventId(rawEventId)
+                .errorId(errorId)
+                .errorMessage(error != null ? error.getMessage() : null)
+                .errorType(error != null ? error.getClass().getName() : null)
+                .failedAt(Instant.now())
+                .payload(payload)
+                .build();
+    }
+
+    String toJson(DltEnvelope envelope) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(envelope);
+    }
 }
@@ -0,0 +1,276 @@
+package com.github.dimitryivaniuta.searchanalytics.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.searchanalytics.bulkhead.BulkheadFullException;
+import com.github.dimitryivaniuta.searchanalytics.bulkhead.BulkheadRegistry;
+import com.github.dimitryivaniuta.searchanalytics.config.DltReprocessorProperties;
+import com.github.dimitryivaniuta.searchanalytics.config.WorkerThreads;
+import com.github.dimitryivaniuta.searchanalytics.error.ErrorCategory;
+import com.github.dimitryivaniuta.searchanalytics.error.ErrorClassifier;
+import com.github.dimitryivaniuta.searchanalytics.model.DltEnvelope;
+import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
+import com.github.dimitryivaniuta.searchanalytics.model.SearchEventProcessingError;
+import com.github.dimitryivaniuta.searchanalytics.service.EventProcessingErrorService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Consumes the dead-letter topic and retries failed events with exponential backoff.
+ *
+ * Flow per DLT record:
+ *  1. Parse the {@link DltEnvelope} written by DeadLetterProducer.
+ *  2. Look up the search_event_processing_errors row: skip if already RESOLVED/PARKED
+ *     (re-delivery after restart), otherwise continue from its retry_count.
+ *  3. Schedule the retry on a {@link TimerWheel} – no consumer thread ever sleeps.
+ *  4. On fire (worker pool): incrementRetry, re-run {@link SearchEventPipeline}.
+ *      - success          -> RESOLVED, ack
+ *      - failure, retries -> RETRY_SCHEDULED + next_retry_at, schedule again
+ *      - failure, no more -> PARKED, ack
+ *      - constraint / data failure (ErrorClassifier) -> PARKED right away, retrying cannot help
+ *
+ * Isolation: own consumer group + container (dltKafkaListenerContainerFactory), own worker
+ * threads, and the container is paused when too many retries are in flight. Attempts run in the
+ * maintenance bulkhead; an attempt that finds it full is re-scheduled without using up a retry.
+ */
+@Slf4j
+@Component
+public class DltReprocessor {
+
+    public static final String LISTENER_ID = "searchEventsDltReprocessor";
+
+    private final SearchEventPipeline pipeline;
+    private final EventProcessingErrorService errorService;
+    private final ObjectMapper objectMapper;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final DltReprocessorProperties properties;
+    private final BulkheadRegistry bulkheads;
+
+    private final ExponentialBackoff backoff;
+    private final ExecutorService workers;
+    private final TimerWheel timerWheel;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public DltReprocessor(SearchEventPipeline pipeline,
+                          EventProcessingErrorService errorService,
+                          ObjectMapper objectMapper,
+                          KafkaListenerEndpointRegistry listenerRegistry,
+                          DltReprocessorProperties properties,
+                          WorkerThreads workerThreads,
+                          BulkheadRegistry bulkheads) {
+        this.pipeline = pipeline;
+        this.errorService = errorService;
+        this.objectMapper = objectMapper;
+        this.listenerRegistry = listenerRegistry;
+        this.properties = properties;
+        this.bulkheads = bulkheads;
+
+        this.backoff = new ExponentialBackoff(
+                properties.getInitialBackoff(),
+                properties.getMultiplier(),
+                properties.getMaxBackoff(),
+                properties.getJitter()
+        );
+        this.workers = Executors.newFixedThreadPool(properties.getWorkerThreads(),
+                workerThreads.newFactory("dlt-retry"));
+        this.timerWheel = new TimerWheel("dlt-retry-timer",
+                properties.getTick(), properties.getWheelSize(), workers);
+    }
+
+    @KafkaListener(
+            id = LISTENER_ID,
+            topics = "${app.kafka.search-events-dlt-topic}",
+            groupId = "${app.dlt-reprocessor.group-id:search-analytics-dlt-reprocessor}",
+            containerFactory = "dltKafkaListenerContainerFactory",
+            autoStartup = "${app.dlt-reprocessor.enabled:true}"
+    )
+    public void onDeadLetter(ConsumerRecord<String, String> record, Acknowledgment ack) {
+        DltEnvelope envelope = parse(record);
+        if (envelope == null || envelope.getPayload() == null) {
+            // Nothing we can retry – do not block the DLT partition on it.
+            ack.acknowledge();
+            return;
+        }
+
+        int attempt = 0;
+        if (envelope.getErrorId() != null) {
+            Optional<SearchEventProcessingError> error = errorService.findById(envelope.getErrorId());
+            if (error.isPresent() && error.get().isRetryFinished()) {
+                log.debug("DLT record for errorId={} already {}, skipping",
+                        envelope.getErrorId(), error.get().getRetryStatus());
+                ack.acknowledge();
+                return;
+            }
+            attempt = error.map(SearchEventProcessingError::getRetryCount).orElse(0);
+        }
+
+        if (attempt >= properties.getMaxAttempts()) {
+            park(envelope, "retry budget exhausted before reprocessing");
+            ack.acknowledge();
+            return;
+        }
+
+        if (inFlight.incrementAndGet() >= properties.getMaxInFlight()) {
+            pauseContainer();
+        }
+        scheduleRetry(new RetryTask(envelope, attempt, ack));
+    }
+
+    /**
+     * Number of retries scheduled or running.
+     */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Pending retries are simply not acked and will be re-delivered on restart.
+        timerWheel.close();
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void scheduleRetry(RetryTask task) {
+        Duration delay = backoff.delayFor(task.attempt);
+        if (task.envelope.getErrorId() != null) {
+            errorService.markRetryScheduled(task.envelope.getErrorId(), Instant.now().plus(delay));
+        }
+        timerWheel.schedule(task, delay);
+    }
+
+    private DltEnvelope parse(ConsumerRecord<String, String> record) {
+        try {
+            return objectMapper.readValue(record.value(), DltEnvelope.class);
+        } catch (Exception ex) {
+            log.error("Unparseable DLT envelope; topic={}, partition={}, offset={}",
+                    record.topic(), record.partition(), record.offset(), ex);
+            return null;
+        }
+    }
+
+    private void park(DltEnvelope envelope, String reason) {
+        log.error("Parking event after retries; errorId={}, originalTopic={}, partition={}, offset={}, reason={}",
+                envelope.getErrorId(), envelope.getOriginalTopic(),
+                envelope.getOriginalPartition(), envelope.getOriginalOffset(), reason);
+        if (envelope.getErrorId() != null) {
+            errorService.markParked(envelope.getErrorId(), reason);
+        }
+    }
+
+    private void complete(Acknowledgment ack) {
+        ack.acknowledge();
+        if (inFlight.decrementAndGet() <= properties.getMaxInFlight() / 2) {
+            resumeContainer();
+        }
+    }
+
+    private void pauseContainer() {
+        MessageListenerContainer container = listenerRegistry.getListenerContainer(LISTENER_ID);
+        if (container != null && !container.isPauseRequested()) {
+            log.info("Pausing DLT reprocessor: {} retries in flight", inFlight.get());
+            container.pause();
+        }
+    }
+
+    private void resumeContainer() {
+        MessageListenerContainer container = listenerRegistry.getListenerContainer(LISTENER_ID);
+        if (container != null && container.isPauseRequested()) {
+            log.info("Resuming DLT reprocessor: {} retries in flight", inFlight.get());
+            container.resume();
+        }
+    }
+
+    /**
+     * One retry attempt; runs on the worker pool when its timeout fires.
+     */
+    private final class RetryTask implements Runnable {
+
+        private final DltEnvelope envelope;
+        private final int attempt;
+        private final Acknowledgment ack;
+
+        private RetryTask(DltEnvelope envelope, int attempt, Acknowledgment ack) {
+            this.envelope = envelope;
+            this.attempt = attempt;
+            this.ack = ack;
+        }
+
+        @Override
+        public void run() {
+            try {
+                bulkheads.maintenance().run(this::attempt);
+            } catch (BulkheadFullException ex) {
+                log.debug("Maintenance bulkhead full, re-scheduling DLT retry; errorId={}", envelope.getErrorId());
+                try {
+                    scheduleRetry(this);
+                } catch (Exception scheduleEx) {
+                    log.error("Failed to reschedule DLT retry; errorId={}", envelope.getErrorId(), scheduleEx);
+                    inFlight.decrementAndGet();
+                }
+            }
+        }
+
+        private void attempt() {
+            Long errorId = envelope.getErrorId();
+            try {
+                if (errorId != null) {
+                    errorService.incrementRetry(errorId);
+                }
+
+                SearchEventPayload payload = envelope.getPayload();
+                if (!payload.isValidForAggregation()) {
+                    park(envelope, "payload invalid for aggregation");
+                    complete(ack);
+                    return;
+                }
+
+                pipeline.aggregate(envelope.getRawEventId(), payload);
+
+                if (errorId != null) {
+                    errorService.markResolved(errorId);
+                }
+                log.info("DLT retry succeeded; errorId={}, attempt={}", errorId, attempt + 1);
+                complete(ack);
+            } catch (Exception ex) {
+                int next = attempt + 1;
+                ErrorCategory category = ErrorClassifier.classify(ex);
+                if (next >= properties.getMaxAttempts() || category.isDeterministic()) {
+                    // a constraint / data error fails the same way on every attempt
+                    park(envelope, category + ": " + ex.getMessage());
+                    complete(ack);
+                    return;
+                }
+                log.warn("DLT retry failed; errorId={}, attempt={}, rescheduling",
+                        errorId, next, ex);
+                try {
+                    scheduleRetry(new RetryTask(envelope, next, ack));
+                } catch (Exception scheduleEx) {
+                    // Could not even record the schedule – leave un-acked for re-delivery.
+                    log.error("Failed to reschedule DLT retry; errorId={}", errorId, scheduleEx);
+                    inFlight.decrementAndGet();
+                }
+            }
+        }
+    }
+}
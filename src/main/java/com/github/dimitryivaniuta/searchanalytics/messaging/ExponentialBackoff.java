@@ -0,0 +1,46 @@
+package com.github.dimitryivaniuta.searchanalytics.messaging;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with optional +/- jitter.
+ *
+ * delay(attempt) = min(max, initial * multiplier^attempt), then scaled by a random
+ * factor in [1 - jitter, 1 + jitter] (and capped at max again).
+ *
+ * @param initial    delay before the first retry (attempt = 0)
+ * @param multiplier growth factor per attempt (>= 1.0)
+ * @param max        upper bound for any single delay
+ * @param jitter     0.0 = deterministic, 0.2 = +/-20%
+ */
+public record ExponentialBackoff(Duration initial, double multiplier, Duration max, double jitter) {
+
+    public ExponentialBackoff {
+        if (initial == null || initial.isNegative()) {
+            throw new IllegalArgumentException("initial must be >= 0");
+        }
+        if (max == null || max.compareTo(initial) < 0) {
+            throw new IllegalArgumentException("max must be >= initial");
+        }
+        if (multiplier < 1.0) {
+            throw new IllegalArgumentException("multiplier must be >= 1.0");
+        }
+        if (jitter < 0.0 || jitter >= 1.0) {
+            throw new IllegalArgumentException("jitter must be in [0, 1)");
+        }
+    }
+
+    /**
+     * @param attempt zero-based attempt number
+     */
+    public Duration delayFor(int attempt) {
+        double base = initial.toMillis() * Math.pow(multiplier, Math.max(0, attempt));
+        double capped = Math.min(base, max.toMillis());
+        if (jitter > 0.0) {
+            double factor = 1.0 + ThreadLocalRandom.current().nextDouble(-jitter, jitter);
+            capped = Math.min(capped * factor, max.toMillis());
+        }
+        return Duration.ofMillis(Math.round(capped));
+    }
+}
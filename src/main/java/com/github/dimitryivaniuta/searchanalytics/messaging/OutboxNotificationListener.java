@@ -0,0 +1,140 @@
+package com.github.dimitryivaniuta.searchanalytics.messaging;
+
+import com.github.dimitryivaniuta.searchanalytics.config.OutboxRelayProperties;
+import com.github.dimitryivaniuta.searchanalytics.repository.SearchEventOutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Holds one dedicated pgjdbc connection (outside the Hikari pool) that LISTENs on
+ * {@link SearchEventOutboxRepository#NOTIFY_CHANNEL} and wakes {@link OutboxRelay}
+ * as soon as an outbox insert commits.
+ *
+ * The relay keeps a slow safety-net poll (app.outbox-relay.notify.safety-poll-interval),
+ * and is also woken after every (re)connect, so notifications lost while disconnected
+ * only cost latency, never events.
+ */
+@Slf4j
+@Component
+public class OutboxNotificationListener implements SmartLifecycle {
+
+    /**
+     * Opens the LISTEN connection; the DriverManager in production, a stub in tests.
+     */
+    @FunctionalInterface
+    interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    private final OutboxRelay outboxRelay;
+    private final OutboxRelayProperties properties;
+    private final ConnectionFactory connectionFactory;
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    public OutboxNotificationListener(OutboxRelay outboxRelay,
+                                      DataSourceProperties dataSourceProperties,
+                                      OutboxRelayProperties properties) {
+        this(outboxRelay, properties, () -> openConnection(dataSourceProperties));
+    }
+
+    OutboxNotificationListener(OutboxRelay outboxRelay,
+                               OutboxRelayProperties properties,
+                               ConnectionFactory connectionFactory) {
+        this.outboxRelay = outboxRelay;
+        this.properties = properties;
+        this.connectionFactory = connectionFactory;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        listenerThread = new Thread(this::listenLoop, "outbox-listen");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+            try {
+                listenerThread.join(properties.getNotify().getListenTimeout().toMillis() * 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return properties.isEnabled() && properties.getNotify().isEnabled();
+    }
+
+    private void listenLoop() {
+        int timeoutMillis = (int) properties.getNotify().getListenTimeout().toMillis();
+
+        while (running) {
+            try (Connection connection = connectionFactory.open()) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + SearchEventOutboxRepository.NOTIFY_CHANNEL);
+                }
+                log.info("Listening for outbox notifications on channel '{}'",
+                        SearchEventOutboxRepository.NOTIFY_CHANNEL);
+
+                // Anything inserted while we were not listening
+                outboxRelay.wakeUp();
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(timeoutMillis);
+                    if (notifications != null && notifications.length > 0) {
+                        outboxRelay.wakeUp();
+                    }
+                }
+            } catch (SQLException ex) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Outbox LISTEN connection failed, reconnecting in {}",
+                        properties.getNotify().getReconnectBackoff(), ex);
+                sleepQuietly(properties.getNotify().getReconnectBackoff().toMillis());
+            }
+        }
+    }
+
+    private static Connection openConnection(DataSourceProperties dataSourceProperties) throws SQLException {
+        Connection connection = DriverManager.getConnection(
+                dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(),
+                dataSourceProperties.determinePassword()
+        );
+        connection.setAutoCommit(true);
+        return connection;
+    }
+
+    private void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
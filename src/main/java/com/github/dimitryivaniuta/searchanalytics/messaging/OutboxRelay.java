@@ -0,0 +1,323 @@
+package com.github.dimitryivaniuta.searchanalytics.messaging;
+
+import com.github.dimitryivaniuta.searchanalytics.bulkhead.BulkheadRegistry;
+import com.github.dimitryivaniuta.searchanalytics.config.KafkaTopicsProperties;
+import com.github.dimitryivaniuta.searchanalytics.config.OutboxRelayProperties;
+import com.github.dimitryivaniuta.searchanalytics.config.WorkerThreads;
+import com.github.dimitryivaniuta.searchanalytics.error.ErrorClassifier;
+import com.github.dimitryivaniuta.searchanalytics.model.SearchEventOutbox;
+import com.github.dimitryivaniuta.searchanalytics.profiling.OutboxRelayBatchEvent;
+import com.github.dimitryivaniuta.searchanalytics.service.SearchEventOutboxService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Publishes search_event_outbox rows to Kafka.
+ *
+ * Each worker loops:
+ *  1. BEGIN; claim up to batch-size due NEW rows with FOR UPDATE SKIP LOCKED.
+ *  2. Send all of them via jsonStringKafkaTemplate (key = partition_key) without waiting in between.
+ *  3. Wait for the batch's futures (bounded by send-timeout).
+ *  4. One UPDATE ... WHERE id = ANY(?) for the acknowledged rows; COMMIT.
+ *
+ * A row whose send failed or was not acknowledged in time stays NEW: attempts + 1, next_attempt_at
+ * after an exponential backoff. Only a non-retryable failure (ErrorClassifier, e.g. record too large)
+ * on the max-attempts-th attempt makes it FAILED, so a broker outage of any length loses nothing.
+ * A timed-out send the broker accepts later is published again on retry (at-least-once).
+ *
+ * Row locks are held until commit, so any number of workers / instances can run side by side
+ * without publishing a row twice. A crash between send and commit re-publishes the batch
+ * (at-least-once) – consumers can dedupe on the "outboxId" header.
+ *
+ * Batches run in the maintenance bulkhead, so a relay backlog cannot take ingest connections.
+ */
+@Slf4j
+@Component
+public class OutboxRelay implements SmartLifecycle {
+
+    public static final String HEADER_OUTBOX_ID = "outboxId";
+    public static final String HEADER_EVENT_TYPE = "eventType";
+    public static final String HEADER_AGGREGATE_TYPE = "aggregateType";
+
+    private final SearchEventOutboxService outboxService;
+    private final KafkaTemplate<String, String> jsonStringKafkaTemplate;
+    private final KafkaTopicsProperties topics;
+    private final OutboxRelayProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final WorkerThreads workerThreads;
+    private final BulkheadRegistry bulkheads;
+    private final ExponentialBackoff backoff;
+    private final Clock clock;
+
+    private final ReentrantLock signalLock = new ReentrantLock();
+    private final Condition signal = signalLock.newCondition();
+    private boolean signalled;
+
+    private volatile boolean running;
+    private ExecutorService workers;
+
+    public OutboxRelay(SearchEventOutboxService outboxService,
+                       KafkaTemplate<String, String> jsonStringKafkaTemplate,
+                       KafkaTopicsProperties topics,
+                       OutboxRelayProperties properties,
+                       PlatformTransactionManager transactionManager,
+                       WorkerThreads workerThreads,
+                       BulkheadRegistry bulkheads) {
+        this(outboxService, jsonStringKafkaTemplate, topics, properties, transactionManager, workerThreads,
+                bulkheads, Clock.systemUTC());
+    }
+
+    OutboxRelay(SearchEventOutboxService outboxService,
+                KafkaTemplate<String, String> jsonStringKafkaTemplate,
+                KafkaTopicsProperties topics,
+                OutboxRelayProperties properties,
+                PlatformTransactionManager transactionManager,
+                WorkerThreads workerThreads,
+                BulkheadRegistry bulkheads,
+                Clock clock) {
+        this.outboxService = outboxService;
+        this.jsonStringKafkaTemplate = jsonStringKafkaTemplate;
+        this.topics = topics;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workerThreads = workerThreads;
+        this.bulkheads = bulkheads;
+        this.backoff = new ExponentialBackoff(
+                properties.getInitialBackoff(),
+                properties.getMultiplier(),
+                properties.getMaxBackoff(),
+                properties.getJitter()
+        );
+        this.clock = clock;
+        // Locks must not outlive a stuck send by much
+        this.transactionTemplate.setTimeout((int) properties.getSendTimeout().plusSeconds(10).toSeconds());
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        workers = Executors.newFixedThreadPool(properties.getWorkers(), workerThreads.newFactory("outbox-relay"));
+        for (int i = 0; i < properties.getWorkers(); i++) {
+            workers.execute(this::workerLoop);
+        }
+        log.info("Outbox relay started: workers={}, batchSize={}, topic='{}'",
+                properties.getWorkers(), properties.getBatchSize(), topics.getOutboxTopic());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        wakeUp();
+        if (workers != null) {
+            workers.shutdown();
+            try {
+                if (!workers.awaitTermination(properties.getSendTimeout().toSeconds() + 5, TimeUnit.SECONDS)) {
+                    workers.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                workers.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Wakes idle workers immediately (e.g. right after new outbox rows were committed).
+     */
+    public void wakeUp() {
+        signalLock.lock();
+        try {
+            signalled = true;
+            signal.signalAll();
+        } finally {
+            signalLock.unlock();
+        }
+    }
+
+    /**
+     * Claims, publishes and marks one batch.
+     *
+     * @return number of rows claimed (0 = table drained)
+     */
+    public int relayOnce() {
+        return bulkheads.maintenance().call(this::relayBatch);
+    }
+
+    private int relayBatch() {
+        OutboxRelayBatchEvent batchEvent = new OutboxRelayBatchEvent();
+        batchEvent.begin();
+        Integer claimed = transactionTemplate.execute(status -> {
+            List<SearchEventOutbox> batch = outboxService.claimNextBatch(properties.getBatchSize());
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            int published = publishBatch(batch);
+            batchEvent.claimed = batch.size();
+            batchEvent.published = published;
+            batchEvent.failed = batch.size() - published;
+            return batch.size();
+        });
+        batchEvent.end();
+        if (claimed != null && claimed > 0 && batchEvent.shouldCommit()) {
+            batchEvent.commit();
+        }
+        return claimed != null ? claimed : 0;
+    }
+
+    private void workerLoop() {
+        while (running) {
+            try {
+                int claimed = relayOnce();
+                if (claimed < properties.getBatchSize()) {
+                    awaitWakeUp(properties.effectivePollInterval());
+                }
+            } catch (Exception ex) {
+                log.error("Outbox relay iteration failed, backing off {}", properties.getErrorBackoff(), ex);
+                awaitWakeUp(properties.getErrorBackoff());
+            }
+        }
+    }
+
+    private int publishBatch(List<SearchEventOutbox> batch) {
+        List<CompletableFuture<SendResult<String, String>>> futures = new ArrayList<>(batch.size());
+        for (SearchEventOutbox event : batch) {
+            futures.add(send(event));
+        }
+
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                    .get(properties.getSendTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException ex) {
+            // individual outcomes are inspected below
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<Long> published = new ArrayList<>(batch.size());
+        List<SearchEventOutbox> failed = new ArrayList<>();
+        Instant now = clock.instant();
+        for (int i = 0; i < batch.size(); i++) {
+            SearchEventOutbox event = batch.get(i);
+            CompletableFuture<SendResult<String, String>> future = futures.get(i);
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                published.add(event.getId());
+            } else {
+                failed.add(recordFailure(event, future, now));
+            }
+        }
+
+        outboxService.markPublished(published);
+        outboxService.saveFailedAttempts(failed);
+        log.debug("Outbox relay published {}/{} events", published.size(), batch.size());
+        return published.size();
+    }
+
+    private SearchEventOutbox recordFailure(SearchEventOutbox event,
+                                            CompletableFuture<SendResult<String, String>> future,
+                                            Instant now) {
+        Throwable cause = failureCause(future);
+        int attempts = event.getAttempts() + 1;
+        // no ack within send-timeout, or a broker-side condition that goes away (RetriableException)
+        boolean retryable = cause == null || ErrorClassifier.classify(cause).isRetryable();
+        event.setAttempts(attempts);
+        event.setLastError(failureMessage(cause));
+        if (!retryable && attempts >= properties.getMaxAttempts()) {
+            event.setStatus("FAILED");
+            event.setNextAttemptAt(null);
+            log.error("Outbox event id={} failed permanently after {} attempts: {}",
+                    event.getId(), attempts, event.getLastError());
+        } else {
+            Duration delay = backoff.delayFor(attempts - 1);
+            event.setStatus("NEW");
+            event.setNextAttemptAt(now.plus(delay));
+            log.warn("Outbox event id={} not published (attempt {}), retrying in {}: {}",
+                    event.getId(), attempts, delay, event.getLastError());
+        }
+        return event;
+    }
+
+    private CompletableFuture<SendResult<String, String>> send(SearchEventOutbox event) {
+        try {
+            ProducerRecord<String, String> record = new ProducerRecord<>(
+                    topics.getOutboxTopic(), null, event.getPartitionKey(), event.getPayload());
+            record.headers().add(HEADER_OUTBOX_ID, String.valueOf(event.getId()).getBytes(StandardCharsets.UTF_8));
+            record.headers().add(HEADER_EVENT_TYPE, bytes(event.getEventType()));
+            record.headers().add(HEADER_AGGREGATE_TYPE, bytes(event.getAggregateType()));
+            return jsonStringKafkaTemplate.send(record);
+        } catch (Exception ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    private void awaitWakeUp(Duration timeout) {
+        signalLock.lock();
+        try {
+            if (!signalled && running) {
+                signal.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            }
+            signalled = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        } finally {
+            signalLock.unlock();
+        }
+    }
+
+    /**
+     * @return the send's exception, null if it was not acknowledged within send-timeout
+     */
+    private static Throwable failureCause(CompletableFuture<?> future) {
+        if (!future.isDone()) {
+            return null;
+        }
+        try {
+            future.join();
+            return new IllegalStateException("unknown");
+        } catch (Exception ex) {
+            return ex.getCause() != null ? ex.getCause() : ex;
+        }
+    }
+
+    private static String failureMessage(Throwable cause) {
+        if (cause == null) {
+            return "Kafka send not acknowledged within timeout";
+        }
+        return cause.getClass().getSimpleName() + ": " + cause.getMessage();
+    }
+
+    private static byte[] bytes(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.dimitryivaniuta.searchanalytics.messaging;
+
+import com.github.dimitryivaniuta.searchanalytics.dedup.EventDeduplicator;
+import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
+import com.github.dimitryivaniuta.searchanalytics.service.DailyQueryStatService;
+import com.github.dimitryivaniuta.searchanalytics.service.PartitionedStatsAggregator;
+import com.github.dimitryivaniuta.searchanalytics.service.RawSearchEventService;
+import com.github.dimitryivaniuta.searchanalytics.watermark.DayCloseGuard;
+import com.github.dimitryivaniuta.searchanalytics.watermark.DayCloseGuard.Admission;
+import lombok.RequiredArgsConstructor;
+import org.springframework.kafka.support.TopicPartitionOffset;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * The "normal" aggregation pipeline for a single, already raw-logged search event.
+ *
+ * Shared by SearchEventsListener (first attempt) and DltReprocessor (retries),
+ * so a retried event goes through exactly the same steps as a fresh one.
+ *
+ * An eventId that was already aggregated (producer retry at a new offset, re-delivery) is skipped
+ * via {@link EventDeduplicator}; a failed attempt is never recorded, so DLT retries still apply.
+ *
+ * The increment goes through {@link DayCloseGuard}: an event for an already closed day is handled
+ * by app.watermark.late-policy instead of changing the closed day's counts.
+ *
+ * In PARTITIONED stats mode a record from the listener is added to its partition's state
+ * ({@link PartitionedStatsAggregator}), which also persists its eventId on flush.
+ */
+@Component
+@RequiredArgsConstructor
+public class SearchEventPipeline {
+
+    private final DailyQueryStatService dailyQueryStatService;
+    private final RawSearchEventService rawSearchEventService;
+    private final EventDeduplicator deduplicator;
+    private final DayCloseGuard dayCloseGuard;
+    private final PartitionedStatsAggregator partitionedStats;
+
+    public enum Result {
+        AGGREGATED,
+        DUPLICATE,
+        /**
+         * Day already closed; rejected or counted in late_stat_adjustments per the late policy.
+         */
+        LATE
+    }
+
+    /**
+     * Updates daily_query_stats and marks the raw event PROCESSED, or SKIPPED for a duplicate eventId
+     * or a rejected late event. Caller is responsible for validating the payload first.
+     *
+     * @param rawEventId raw_search_events.id (nullable – e.g. duplicate delivery)
+     */
+    public Result aggregate(Long rawEventId, SearchEventPayload payload) {
+        return aggregate(rawEventId, payload, null);
+    }
+
+    /**
+     * Same as {@link #aggregate(Long, SearchEventPayload)} for a record consumed from {@code source}.
+     *
+     * @param source partition + offset the record was consumed from (null – not tied to a partition, e.g. DLT retry)
+     */
+    public Result aggregate(Long rawEventId, SearchEventPayload payload, TopicPartitionOffset source) {
+        boolean partitioned = source != null && partitionedStats.isEnabled();
+        String eventId = payload.getEventId();
+        if (deduplicator.isDuplicate(eventId) || (partitioned && partitionedStats.isPending(source.getTopicPartition(), eventId))) {
+            if (rawEventId != null) {
+                rawSearchEventService.markSkipped(rawEventId, "duplicate eventId " + eventId);
+            }
+            return Result.DUPLICATE;
+        }
+
+        LocalDate day = DailyQueryStatService.eventDay(payload);
+        Admission admission = dayCloseGuard.admit(day, payload.getQuery(), partitioned
+                ? () -> partitionedStats.add(source.getTopicPartition(), day, payload.getQuery(), eventId)
+                : () -> dailyQueryStatService.incrementFromEvent(payload, source));
+        if (admission == Admission.REJECTED) {
+            if (rawEventId != null) {
+                rawSearchEventService.markSkipped(rawEventId, "late event for closed day");
+            }
+            return Result.LATE;
+        }
+        if (!partitioned || admission == Admission.ADJUSTED) {
+            deduplicator.markProcessed(eventId);
+        }
+
+        if (rawEventId != null) {
+            rawSearchEventService.markProcessed(rawEventId);
+        }
+        return admission == Admission.ADJUSTED ? Result.LATE : Result.AGGREGATED;
+    }
+}
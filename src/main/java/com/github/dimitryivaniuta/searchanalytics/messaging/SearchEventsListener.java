@@ -1,27 +1,62 @@
 package com.github.dimitryivaniuta.searchanalytics.messaging;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.searchanalytics.bulkhead.BulkheadFullException;
+import com.github.dimitryivaniuta.searchanalytics.bulkhead.BulkheadRegistry;
+import com.github.dimitryivaniuta.searchanalytics.error.ErrorCategory;
+import com.github.dimitryivaniuta.searchanalytics.error.ErrorClassifier;
+import com.github.dimitryivaniuta.searchanalytics.messaging.SearchEventPipeline.Result;
+import com.github.dimitryivaniuta.searchanalytics.metrics.LatencyTracker;
+import com.github.dimitryivaniuta.searchanalytics.metrics.ListenerMetrics;
+import com.github.dimitryivaniuta.searchanalytics.metrics.ListenerMetrics.Outcome;
+import com.github.dimitryivaniuta.searchanalytics.metrics.ListenerMetrics.Stage;
 import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
-import com.github.dimitryivaniuta.searchanalytics.service.DailyQueryStatService;
+import com.github.dimitryivaniuta.searchanalytics.model.SpilledEvent;
+import com.github.dimitryivaniuta.searchanalytics.profiling.ListenerRecordEvent;
 import com.github.dimitryivaniuta.searchanalytics.service.EventProcessingErrorService;
+import com.github.dimitryivaniuta.searchanalytics.service.PartitionedStatsAggregator;
 import com.github.dimitryivaniuta.searchanalytics.service.RawSearchEventService;
+import com.github.dimitryivaniuta.searchanalytics.spill.DatabaseHealthMonitor;
+import com.github.dimitryivaniuta.searchanalytics.spill.SpillLog;
+import com.github.dimitryivaniuta.searchanalytics.watermark.WatermarkTracker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.TopicPartitionOffset;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Optional;
+
 /**
  * Main Kafka listener for search events.
  *
  * IMPORTANT:
  *  - This listener belongs to a single consumer group (configured via spring.kafka.consumer.group-id).
- *  - Listener container factory has concurrency=1.
- *  - Therefore, ONE consumer instance in the group will get ALL partitions for the topic,
- *    exactly as required.
+ *  - Listener container factory has concurrency=1 by default, so ONE instance gets ALL partitions.
+ *    Running several instances needs app.stats.write-mode=PARTITIONED (see PartitionedStatsAggregator):
+ *    each record's offset is reported right before its ack, so a rebalance resumes exactly after it.
+ *  - Every stage is timed into {@link ListenerMetrics} (search.events.stage{stage=...}) and each
+ *    record ends with one search.events.outcome increment.
+ *  - Event-time latency per hop (occurredAt / sentAt / receive / commit) goes to {@link LatencyTracker}.
+ *  - Each record is a {@link ListenerRecordEvent} in JFR recordings (see JfrRecordingService).
+ *  - Each record runs in the ingest bulkhead (own connection budget and statement timeout); a record that
+ *    gets no slot is redelivered in place after a backoff (nack), never skipped.
+ *  - occurredAt of each valid record advances the partition's event-time watermark ({@link WatermarkTracker}).
+ *  - While Postgres is unreachable ({@link DatabaseHealthMonitor}) records go to the local {@link SpillLog}
+ *    and are acked; SpillDrainer replays them later. Only when the spill budget is used up do they
+ *    fail into the DLT as before.
+ *  - Failures are classified ({@link ErrorClassifier}): transient ones (deadlock, lock / statement timeout,
+ *    pool saturation, ...) are redelivered in place after a jittered backoff ({@link TransientRetryPolicy},
+ *    Acknowledgment.nack() pauses the consumer meanwhile); only poison records and exhausted retries get
+ *    an error row and go to the DLT.
  */
 @Slf4j
 @Component
@@ -29,10 +64,18 @@ import org.springframework.stereotype.Component;
 public class SearchEventsListener {
 
     private final RawSearchEventService rawSearchEventService;
-    private final DailyQueryStatService dailyQueryStatService;
+    private final SearchEventPipeline pipeline;
     private final EventProcessingErrorService errorService;
     private final DeadLetterProducer deadLetterProducer;
     private final ObjectMapper objectMapper;
+    private final ListenerMetrics metrics;
+    private final LatencyTracker latencyTracker;
+    private final BulkheadRegistry bulkheads;
+    private final WatermarkTracker watermarkTracker;
+    private final PartitionedStatsAggregator partitionedStats;
+    private final DatabaseHealthMonitor databaseHealth;
+    private final SpillLog spillLog;
+    private final TransientRetryPolicy retryPolicy;
 
     /**
      * Consumes SearchEventPayload messages from the main topic.
@@ -41,15 +84,17 @@ public class SearchEventsListener {
      *  1. Log the raw event into raw_search_events.
      *  2. If payload valid -> update daily_query_stats.
      *  3. On success -> mark raw event PROCESSED & ack offset.
-     *  4. On any error:
+     *  4. On a transient error: nack -> the same record is redelivered after a backoff
+     *     (at most app.listener-retry.max-attempts deliveries).
+     *  5. On any other error (database reachable, or spill budget used up), or retries used up:
      *      - mark raw event ERROR
      *      - log error into search_event_processing_errors
      *      - send compact message to DLT
      *      - ack offset (so we don't loop forever on poison messages)
      */
     @KafkaListener(
-            topics = "${app.kafka.search-events-topic}"
-//            containerFactory = "searchEventsKafkaListenerContainerFactory"
+            topics = "${app.kafka.search-events-topic}",
+            containerFactory = "searchEventsKafkaListenerContainerFactory"
     )
     public void onMessage(SearchEventPayload payload,
                           @Header(KafkaHeaders.RECEIVED_KEY) String key,
@@ -57,15 +102,59 @@ public class SearchEventsListener {
                           @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
                           @Header(KafkaHeaders.OFFSET) long offset,
                           ConsumerRecord<String, SearchEventPayload> record,
-                          Acknowledgment ack) {
+                          Acknowledgment ack,
+                          Consumer<?, ?> consumer) {
+        // PARTITIONED mode after a fenced flush: records fetched before the seek back are skipped
+        if (!partitionedStats.admit(consumer, topic, partition, offset)) {
+            return;
+        }
+        try {
+            bulkheads.ingest().run(() -> process(payload, key, topic, partition, offset, record, ack));
+        } catch (BulkheadFullException ex) {
+            // no ingest slot (scheduled flushes hold some too): nothing was written yet, so redeliver
+            // in place like any other transient failure; the record is not poison, so retry on after
+            // an exhausted budget as well
+            Duration delay = retryPolicy.nextDelay(topic, partition, offset).orElse(ex.getRetryAfter());
+            log.warn("Ingest bulkhead full, redelivering search event in {}; key={}, topic={}, partition={}, offset={}",
+                    delay, key, topic, partition, offset);
+            metrics.recordOutcome(Outcome.RETRY);
+            ack.nack(delay);
+        }
+    }
 
+    private void process(SearchEventPayload payload,
+                         String key,
+                         String topic,
+                         int partition,
+                         long offset,
+                         ConsumerRecord<String, SearchEventPayload> record,
+                         Acknowledgment ack) {
+        ListenerRecordEvent recordEvent = new ListenerRecordEvent();
+        recordEvent.begin();
+        Outcome outcome = Outcome.ERROR;
+        long receivedNanos = System.nanoTime();
+        long receivedMicros = LatencyTracker.currentTimeMicros();
         Long rawEventId = null;
 
         try {
-            // 1) Store raw event (with original JSON from record.value())
-            // record.value() is already SearchEventPayload; if you want raw JSON, serialize again.
-            String rawJson = safeToJson(record.value());
+            if (payload != null) {
+                latencyTracker.recordReceived(payload, receivedMicros);
+            }
 
+            // 0) Database down -> spill locally instead of failing every record into the DLT
+            if (!databaseHealth.isAvailable() && spill(payload, key, topic, partition, offset, ack)) {
+                outcome = Outcome.SPILLED;
+                metrics.recordOutcome(outcome);
+                return;
+            }
+
+            // 1) Store raw event: record.value() is the deserialized payload (JSON or binary on the wire),
+            // so it is re-serialized to JSON for raw_search_events
+            long stageStart = System.nanoTime();
+            String rawJson = safeToJson(objectMapper, record.value());
+            metrics.recordStage(Stage.RAW_JSON, stageStart);
+
+            stageStart = System.nanoTime();
             rawEventId = rawSearchEventService.logReceivedEvent(
                     key,
                     topic,
@@ -78,6 +167,7 @@ public class SearchEventsListener {
             if (rawEventId != null) {
                 rawSearchEventService.markProcessed(rawEventId);
             }
+            metrics.recordStage(Stage.RAW_INSERT, stageStart);
 
             // 2) Validate payload before aggregation
             if (!payload.isValidForAggregation()) {
@@ -85,6 +175,7 @@ public class SearchEventsListener {
                 log.warn("{}; key={}, topic={}, partition={}, offset={}",
                         msg, key, topic, partition, offset);
 
+                stageStart = System.nanoTime();
                 rawSearchEventService.markError(rawEventId, msg);
                 errorService.logError(
                         rawEventId,
@@ -95,21 +186,57 @@ public class SearchEventsListener {
                         msg,
                         null
                 );
+                metrics.recordStage(Stage.ERROR_LOG, stageStart);
+                outcome = Outcome.VALIDATION;
+                metrics.recordOutcome(outcome);
                 // We still ack to move on.
-                ack.acknowledge();
+                acknowledge(ack, topic, partition, offset);
                 return;
             }
 
-            // 3) Update aggregated statistics table
-            dailyQueryStatService.incrementFromEvent(payload);
+            // 3) Update aggregated statistics table + mark raw event as processed (or skipped duplicate)
+            stageStart = System.nanoTime();
+            Result result = pipeline.aggregate(rawEventId, payload, new TopicPartitionOffset(topic, partition, offset));
+            metrics.recordStage(Stage.STATS_UPDATE, stageStart);
+            watermarkTracker.observe(topic, partition, payload.getOccurredAt());
+            if (result == Result.AGGREGATED) {
+                latencyTracker.recordCommitted(payload, receivedMicros, receivedNanos);
+            }
 
-            // 4) Mark raw event as processed and commit offset
-            rawSearchEventService.markProcessed(rawEventId);
-            ack.acknowledge();
+            // 4) Commit offset
+            acknowledge(ack, topic, partition, offset);
+            outcome = switch (result) {
+                case AGGREGATED -> Outcome.PROCESSED;
+                case DUPLICATE -> Outcome.DUPLICATE;
+                case LATE -> Outcome.LATE;
+            };
+            metrics.recordOutcome(outcome);
         } catch (Exception ex) {
-            log.error("Failed to process search event; key={}, topic={}, partition={}, offset={}",
-                    key, topic, partition, offset, ex);
+            if (databaseHealth.reportFailure(ex) && spill(payload, key, topic, partition, offset, ack)) {
+                log.warn("Database unavailable, spilled search event; key={}, topic={}, partition={}, offset={}: {}",
+                        key, topic, partition, offset, ex.toString());
+                outcome = Outcome.SPILLED;
+                metrics.recordOutcome(outcome);
+                return;
+            }
+            ErrorCategory category = ErrorClassifier.classify(ex);
+            if (category.isRetryable()) {
+                Optional<Duration> delay = retryPolicy.nextDelay(topic, partition, offset);
+                if (delay.isPresent()) {
+                    // no error row, no stack trace: seek back + pause, the same record comes again
+                    log.warn("{} failure, redelivering search event in {}; key={}, topic={}, partition={}, offset={}: {}",
+                            category, delay.get(), key, topic, partition, offset, ex.toString());
+                    outcome = Outcome.RETRY;
+                    metrics.recordOutcome(outcome);
+                    ack.nack(delay.get());
+                    return;
+                }
+            }
+            log.error("Failed to process search event ({}); key={}, topic={}, partition={}, offset={}",
+                    category, key, topic, partition, offset, ex);
+            metrics.recordOutcome(Outcome.ERROR);
 
+            long stageStart = System.nanoTime();
             if (rawEventId != null) {
                 rawSearchEventService.markError(rawEventId, ex.getMessage());
             }
@@ -121,41 +248,77 @@ public class SearchEventsListener {
                     offset,
                     "PROCESSING_ERROR",
                     ex.getMessage(),
-                    stackTraceAsString(ex)
+                    ex
             );
 
+            metrics.recordStage(Stage.ERROR_LOG, stageStart);
             log.warn("Recorded processing error with id={}", errorId);
 
-            // Send a compact version of the failing event to DLT
-            deadLetterProducer.sendToDlt(key, payload, topic, partition, offset, ex);
+            // Send a compact version of the failing event to DLT (DltReprocessor retries it)
+            stageStart = System.nanoTime();
+            deadLetterProducer.sendToDlt(key, payload, topic, partition, offset, rawEventId, errorId, ex);
+            metrics.recordStage(Stage.DLT_SEND, stageStart);
+            outcome = Outcome.DLT;
+            metrics.recordOutcome(outcome);
 
             // Ack even on failure to avoid infinite retries on poison messages.
-            ack.acknowledge();
+            acknowledge(ack, topic, partition, offset);
+        } finally {
+            recordEvent.end();
+            if (recordEvent.shouldCommit()) {
+                recordEvent.topic = topic;
+                recordEvent.partition = partition;
+                recordEvent.offset = offset;
+                recordEvent.outcome = outcome.name().toLowerCase(Locale.ROOT);
+                recordEvent.commit();
+            }
+        }
+    }
+
+    /**
+     * Appends the record to the spill log and acks it.
+     *
+     * @return false if spilling is disabled or the spill budget is used up (nothing was acked)
+     */
+    private boolean spill(SearchEventPayload payload, String key, String topic, int partition, long offset,
+                          Acknowledgment ack) {
+        if (payload == null || !spillLog.isEnabled()) {
+            return false;
+        }
+        long stageStart = System.nanoTime();
+        boolean spilled = spillLog.append(SpilledEvent.builder()
+                .key(key)
+                .topic(topic)
+                .partition(partition)
+                .offset(offset)
+                .spilledAt(Instant.now())
+                .payload(payload)
+                .build());
+        metrics.recordStage(Stage.SPILL, stageStart);
+        if (spilled) {
+            acknowledge(ack, topic, partition, offset);
         }
+        return spilled;
+    }
+
+    private void acknowledge(Acknowledgment ack, String topic, int partition, long offset) {
+        long start = System.nanoTime();
+        partitionedStats.markConsumed(topic, partition, offset);
+        ack.acknowledge();
+        retryPolicy.succeeded(topic, partition);
+        metrics.recordStage(Stage.ACK, start);
     }
 
     /**
      * Helper: serialize payload back to JSON for storing in raw_search_events.
-     * For simplicity we use a very lightweight approach here; in real code you
-     * would inject ObjectMapper as a bean.
+     * Static so ListenerSerializationBenchmark can measure it without a listener instance.
      */
-    private String safeToJson(SearchEventPayload payload) {
+    static String safeToJson(ObjectMapper objectMapper, SearchEventPayload payload) {
         try {
-            // Mini inline mapper
             return objectMapper.writeValueAsString(payload);
         } catch (Exception e) {
             log.warn("Failed to serialize SearchEventPayload to JSON, storing toString() instead", e);
             return String.valueOf(payload);
         }
     }
-
-    private String stackTraceAsString(Throwable t) {
-        if (t == null) {
-            return null;
-        }
-        java.io.StringWriter sw = new java.io.StringWriter();
-        java.io.PrintWriter pw = new java.io.PrintWriter(sw);
-        t.printStackTrace(pw);
-        return sw.toString();
-    }
 }
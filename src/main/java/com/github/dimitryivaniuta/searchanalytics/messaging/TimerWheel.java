@@ -0,0 +1,185 @@
+package com.github.dimitryivaniuta.searchanalytics.messaging;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timing wheel (a la Netty's HashedWheelTimer).
+ *
+ * One ticker thread advances the wheel every {@code tick}; expired timeouts are handed
+ * to the {@code dispatcher} executor, so scheduling thousands of delayed retries costs
+ * O(1) per timeout and never parks a Kafka consumer thread.
+ *
+ * Precision is one tick: a timeout fires no earlier than its delay and at most one tick later.
+ */
+@Slf4j
+public final class TimerWheel implements AutoCloseable {
+
+    private final long tickNanos;
+    private final List<Timeout>[] wheel;
+    private final int mask;
+    private final Executor dispatcher;
+    private final Queue<Timeout> incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Thread ticker;
+    private final long startNanos;
+
+    private volatile boolean running = true;
+
+    /**
+     * Only touched by the ticker thread.
+     */
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public TimerWheel(String name, Duration tick, int wheelSize, Executor dispatcher) {
+        if (tick.isZero() || tick.isNegative()) {
+            throw new IllegalArgumentException("tick must be > 0");
+        }
+        int size = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1; // next power of two
+        this.tickNanos = tick.toNanos();
+        this.wheel = new List[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ArrayList<>();
+        }
+        this.mask = size - 1;
+        this.dispatcher = dispatcher;
+        this.startNanos = System.nanoTime();
+        this.ticker = new Thread(this::run, name);
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    /**
+     * Schedules {@code task} to run on the dispatcher after {@code delay}.
+     */
+    public Timeout schedule(Runnable task, Duration delay) {
+        if (!running) {
+            throw new IllegalStateException("TimerWheel is closed");
+        }
+        long deadline = System.nanoTime() - startNanos + Math.max(0L, delay.toNanos());
+        Timeout timeout = new Timeout(task, deadline);
+        pending.incrementAndGet();
+        incoming.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Number of scheduled timeouts that have not fired or been cancelled yet.
+     */
+    public int pendingCount() {
+        return pending.get();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        ticker.interrupt();
+        try {
+            ticker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            long deadline = (currentTick + 1) * tickNanos;
+            long sleep = deadline - (System.nanoTime() - startNanos);
+            if (sleep > 0) {
+                LockSupport.parkNanos(this, sleep);
+                continue; // re-check deadline; parkNanos may return early
+            }
+            transferIncoming();
+            expire(wheel[(int) (currentTick & mask)]);
+            currentTick++;
+        }
+    }
+
+    private void transferIncoming() {
+        Timeout timeout;
+        while ((timeout = incoming.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            long expiryTick = Math.max(timeout.deadlineNanos / tickNanos, currentTick);
+            timeout.remainingRounds = (expiryTick - currentTick) / wheel.length;
+            wheel[(int) (expiryTick & mask)].add(timeout);
+        }
+    }
+
+    private void expire(List<Timeout> bucket) {
+        Iterator<Timeout> it = bucket.iterator();
+        while (it.hasNext()) {
+            Timeout timeout = it.next();
+            if (timeout.cancelled) {
+                it.remove();
+            } else if (timeout.remainingRounds <= 0) {
+                it.remove();
+                fire(timeout);
+            } else {
+                timeout.remainingRounds--;
+            }
+        }
+    }
+
+    private void fire(Timeout timeout) {
+        if (!timeout.markDone()) {
+            return;
+        }
+        try {
+            dispatcher.execute(timeout.task);
+        } catch (RuntimeException ex) {
+            log.error("TimerWheel dispatcher rejected task", ex);
+        }
+    }
+
+    /**
+     * Handle returned by {@link #schedule(Runnable, Duration)}.
+     */
+    public final class Timeout {
+
+        private final Runnable task;
+        private final long deadlineNanos;
+        private long remainingRounds;
+        private volatile boolean cancelled;
+        private boolean done;
+
+        private Timeout(Runnable task, long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * @return true if the timeout was cancelled before firing
+         */
+        public synchronized boolean cancel() {
+            if (done) {
+                return false;
+            }
+            done = true;
+            cancelled = true;
+            pending.decrementAndGet();
+            return true;
+        }
+
+        private synchronized boolean markDone() {
+            if (done) {
+                return false;
+            }
+            done = true;
+            pending.decrementAndGet();
+            return true;
+        }
+    }
+}
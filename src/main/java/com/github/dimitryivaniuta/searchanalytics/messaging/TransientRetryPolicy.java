@@ -0,0 +1,96 @@
+package com.github.dimitryivaniuta.searchanalytics.messaging;
+
+import com.github.dimitryivaniuta.searchanalytics.config.ListenerRetryProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Budget and backoff for retrying a record in place after a transient failure (see ErrorClassifier).
+ *
+ * Flow:
+ *  - nextDelay(): after a retryable failure the listener asks for a redelivery delay and hands it to
+ *    Acknowledgment.nack(); the container seeks the partition back to the record and pauses the
+ *    consumer for the delay while still polling, so the group membership is kept.
+ *  - failures are counted per partition for the offset at its head; a different offset starts at 1.
+ *  - succeeded(): clears the partition's count once a record was acked.
+ *  - after app.listener-retry.max-attempts deliveries nextDelay() is empty and the record is poison.
+ */
+@Component
+public class TransientRetryPolicy implements MeterBinder {
+
+    private final ListenerRetryProperties properties;
+    private final ExponentialBackoff backoff;
+
+    private final Map<TopicPartition, Failures> failures = new ConcurrentHashMap<>();
+
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    public TransientRetryPolicy(ListenerRetryProperties properties) {
+        this.properties = properties;
+        this.backoff = new ExponentialBackoff(
+                properties.getInitialBackoff(),
+                properties.getMultiplier(),
+                properties.getMaxBackoff(),
+                properties.getJitter()
+        );
+    }
+
+    /**
+     * Records one more failed delivery of the record at {@code offset}.
+     *
+     * @return delay before it is delivered again, or empty when it has used up its attempts
+     */
+    public Optional<Duration> nextDelay(String topic, int partition, long offset) {
+        if (!properties.isEnabled()) {
+            return Optional.empty();
+        }
+        TopicPartition topicPartition = new TopicPartition(topic, partition);
+        Failures current = failures.merge(topicPartition, new Failures(offset, 1),
+                (previous, first) -> previous.offset() == offset ? previous.next() : first);
+        if (current.count() >= properties.getMaxAttempts()) {
+            failures.remove(topicPartition);
+            exhausted.increment();
+            return Optional.empty();
+        }
+        scheduled.increment();
+        return Optional.of(backoff.delayFor(current.count() - 1));
+    }
+
+    /**
+     * Clears the failure count of the partition after a record was acked.
+     */
+    public void succeeded(String topic, int partition) {
+        if (!failures.isEmpty()) {
+            failures.remove(new TopicPartition(topic, partition));
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("search.events.retry", scheduled, LongAdder::sum)
+                .description("Transient failures by result: redelivered in place or retry budget exhausted")
+                .tag("result", "scheduled")
+                .register(registry);
+        FunctionCounter.builder("search.events.retry", exhausted, LongAdder::sum)
+                .description("Transient failures by result: redelivered in place or retry budget exhausted")
+                .tag("result", "exhausted")
+                .register(registry);
+    }
+
+    private record Failures(long offset, int count) {
+
+        Failures next() {
+            return new Failures(offset, count + 1);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.dimitryivaniuta.searchanalytics.metrics;
+
+import org.apache.kafka.clients.consumer.ConsumerInterceptor;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Map;
+
+/**
+ * Kafka consumer interceptor feeding the poll-size distribution ({@value ListenerMetrics#POLL_RECORDS}).
+ *
+ * Instantiated by the Kafka client from interceptor.classes; the {@link ListenerMetrics} instance
+ * is passed through the consumer config under {@link ListenerMetrics#CONSUMER_CONFIG_KEY}.
+ */
+public class ConsumerPollMetricsInterceptor<K, V> implements ConsumerInterceptor<K, V> {
+
+    private ListenerMetrics metrics;
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        Object value = configs.get(ListenerMetrics.CONSUMER_CONFIG_KEY);
+        if (value instanceof ListenerMetrics listenerMetrics) {
+            this.metrics = listenerMetrics;
+        }
+    }
+
+    @Override
+    public ConsumerRecords<K, V> onConsume(ConsumerRecords<K, V> records) {
+        if (metrics != null && !records.isEmpty()) {
+            metrics.recordPoll(records.count());
+        }
+        return records;
+    }
+
+    @Override
+    public void onCommit(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        // nothing to record
+    }
+
+    @Override
+    public void close() {
+        // nothing to release
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.dimitryivaniuta.searchanalytics.metrics;
+
+import com.github.dimitryivaniuta.searchanalytics.datasource.ConnectionLimitingDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wait-time metrics of the virtual-thread {@link ConnectionLimitingDataSource} queue, which sits in
+ * front of Hikari. Pool checkout time itself is Boot's hikaricp.connections.acquire timer.
+ * Registers nothing when the limiter is not active.
+ *
+ * With separate write / read pools each pool has its own limiter; meters are tagged
+ * with the DataSource bean name (pool=writeDataSource, pool=readDataSource, ...).
+ */
+@Component
+public class DataSourceMetrics implements MeterBinder {
+
+    private final Map<String, DataSource> dataSources;
+
+    public DataSourceMetrics(Map<String, DataSource> dataSources) {
+        this.dataSources = dataSources;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        dataSources.forEach((beanName, dataSource) -> {
+            ConnectionLimitingDataSource limiter = findLimiter(dataSource);
+            if (limiter != null) {
+                bindLimiter(registry, limiter, Tags.of("pool", beanName));
+            }
+        });
+    }
+
+    /**
+     * The limiter may sit under other delegating layers (BulkheadDataSource).
+     */
+    private static ConnectionLimitingDataSource findLimiter(DataSource dataSource) {
+        DataSource current = dataSource;
+        while (current != null) {
+            if (current instanceof ConnectionLimitingDataSource limiter) {
+                return limiter;
+            }
+            current = current instanceof DelegatingDataSource delegating ? delegating.getTargetDataSource() : null;
+        }
+        return null;
+    }
+
+    private void bindLimiter(MeterRegistry registry, ConnectionLimitingDataSource limiter, Tags tags) {
+        FunctionTimer.builder("app.datasource.limit.wait", limiter,
+                        ConnectionLimitingDataSource::acquisitions,
+                        ConnectionLimitingDataSource::totalWaitNanos,
+                        TimeUnit.NANOSECONDS)
+                .description("Time callers waited for a connection permit before reaching the pool")
+                .tags(tags)
+                .register(registry);
+        FunctionCounter.builder("app.datasource.limit.rejected", limiter, ConnectionLimitingDataSource::rejections)
+                .description("Connection requests rejected because the wait queue was full or timed out")
+                .tags(tags)
+                .register(registry);
+        Gauge.builder("app.datasource.limit.waiting", limiter, ConnectionLimitingDataSource::waiting)
+                .description("Callers currently queued for a connection permit")
+                .tags(tags)
+                .register(registry);
+    }
+}
@@ -0,0 +1,129 @@
+package com.github.dimitryivaniuta.searchanalytics.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size, lock-free, log-linear latency histogram (HdrHistogram-style bucketing).
+ *
+ * Values are microseconds. Below 2^{@value #SUB_BUCKET_BITS} every value has its own bucket; above,
+ * each power-of-two range is split into 2^({@value #SUB_BUCKET_BITS}-1) linear sub-buckets, so the
+ * relative error of any reported value is below 1/64 (~1.6%). Values above the trackable maximum
+ * are clamped into the last bucket (and still counted).
+ *
+ * record() is a couple of bit operations plus one AtomicLongArray increment: no allocation, no locks,
+ * safe from any number of threads. Snapshots taken while writers are active may be off by in-flight
+ * increments, which is fine for monitoring.
+ */
+public class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT >> 1;
+
+    private final long maxTrackableMicros;
+    private final AtomicLongArray counts;
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public LatencyHistogram(long maxTrackableMicros) {
+        if (maxTrackableMicros < SUB_BUCKET_COUNT) {
+            throw new IllegalArgumentException("maxTrackableMicros must be >= " + SUB_BUCKET_COUNT);
+        }
+        this.maxTrackableMicros = maxTrackableMicros;
+        this.counts = new AtomicLongArray(bucketIndex(maxTrackableMicros) + 1);
+    }
+
+    /**
+     * @param micros latency in microseconds; negative values must be handled by the caller
+     */
+    public void record(long micros) {
+        long value = Math.min(Math.max(micros, 0), maxTrackableMicros);
+        counts.incrementAndGet(bucketIndex(value));
+        totalCount.increment();
+        totalMicros.add(value);
+        if (value > maxMicros.get()) {
+            maxMicros.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    public long count() {
+        return totalCount.sum();
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        totalCount.reset();
+        totalMicros.reset();
+        maxMicros.set(0);
+    }
+
+    /**
+     * Adds this histogram's current counts into {@code target} (same layout), returning the total added.
+     */
+    long copyInto(long[] target) {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            long count = counts.get(i);
+            target[i] += count;
+            total += count;
+        }
+        return total;
+    }
+
+    long sumMicros() {
+        return totalMicros.sum();
+    }
+
+    long maxMicros() {
+        return maxMicros.get();
+    }
+
+    int bucketCount() {
+        return counts.length();
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int shift = msb - SUB_BUCKET_BITS + 1;
+        return shift * SUB_BUCKET_HALF + (int) (value >>> shift);
+    }
+
+    /**
+     * Highest value that maps to {@code index}.
+     */
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_HALF - 1;
+        long top = index % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+        return ((top + 1) << shift) - 1;
+    }
+
+    /**
+     * Value at quantile {@code q} (0..1) of the given bucket counts: the upper bound of the bucket
+     * holding the q-th sample, so the true value is at most ~1.6% lower.
+     */
+    static long valueAtQuantile(long[] buckets, long total, double q) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return highestValueOf(i);
+            }
+        }
+        return highestValueOf(buckets.length - 1);
+    }
+}
@@ -0,0 +1,260 @@
+package com.github.dimitryivaniuta.searchanalytics.metrics;
+
+import com.github.dimitryivaniuta.searchanalytics.config.LatencyProperties;
+import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.Builder;
+import lombok.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Event-time latency per hop of a search event, from the timestamps it carries:
+ *
+ *  - client_to_producer:   sentAt - occurredAt      (client clock vs producer clock)
+ *  - producer_to_consumer: receivedAt - sentAt      (producer clock vs this host)
+ *  - consumer_to_commit:   listener entry -> stats written and offset about to be acked (this host, nanoTime)
+ *  - end_to_end:           commit - occurredAt
+ *
+ * Cross-host deltas can be negative when clocks disagree. Down to -app.latency.skew-tolerance they are
+ * recorded as 0 and counted as "clamped"; beyond that they are counted as "rejected" and not recorded,
+ * so a badly skewed client cannot drag the percentiles. The largest negative delta seen is exposed too.
+ *
+ * Each hop has two {@link LatencyHistogram} windows rotated every app.latency.window; snapshots merge both.
+ * Exposed via GET /api/metrics/latency and as Micrometer gauges search.events.latency{hop,quantile}.
+ */
+@EnableConfigurationProperties(LatencyProperties.class)
+@Component
+public class LatencyTracker implements MeterBinder {
+
+    public static final String LATENCY_GAUGE = "search.events.latency";
+    public static final String SKEW_COUNTER = "search.events.latency.skewed";
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    public enum Hop {
+        CLIENT_TO_PRODUCER, PRODUCER_TO_CONSUMER, CONSUMER_TO_COMMIT, END_TO_END;
+
+        public String tagValue() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Wall clock paired with System.nanoTime(); currentTimeMicros() extrapolates from it, so the per-record
+     * path neither allocates nor reads the wall clock. Re-anchored on every rotate() to follow NTP adjustments.
+     */
+    private static volatile ClockAnchor anchor = ClockAnchor.now();
+
+    private final HopHistograms[] hops;
+    private final long skewToleranceMicros;
+
+    public LatencyTracker(LatencyProperties properties) {
+        this.skewToleranceMicros = TimeUnit.NANOSECONDS.toMicros(properties.getSkewTolerance().toNanos());
+        long maxTrackableMicros = TimeUnit.NANOSECONDS.toMicros(properties.getMaxTrackable().toNanos());
+        Hop[] values = Hop.values();
+        this.hops = new HopHistograms[values.length];
+        for (Hop hop : values) {
+            hops[hop.ordinal()] = new HopHistograms(maxTrackableMicros);
+        }
+    }
+
+    /**
+     * Wall-clock microseconds since the epoch, from the current anchor plus elapsed nanoTime.
+     */
+    public static long currentTimeMicros() {
+        ClockAnchor current = anchor;
+        return current.epochMicros() + (System.nanoTime() - current.nanos()) / 1_000;
+    }
+
+    /**
+     * Hops up to the consumer; call on listener entry.
+     */
+    public void recordReceived(SearchEventPayload payload, long receivedMicros) {
+        Instant occurredAt = payload.getOccurredAt();
+        Instant sentAt = payload.getSentAt();
+        if (occurredAt != null && sentAt != null) {
+            recordCrossHost(Hop.CLIENT_TO_PRODUCER, toMicros(sentAt) - toMicros(occurredAt));
+        }
+        if (sentAt != null) {
+            recordCrossHost(Hop.PRODUCER_TO_CONSUMER, receivedMicros - toMicros(sentAt));
+        }
+    }
+
+    /**
+     * Hops after the consumer; call once the event's DB writes are done.
+     *
+     * @param receivedNanos System.nanoTime() at listener entry
+     */
+    public void recordCommitted(SearchEventPayload payload, long receivedMicros, long receivedNanos) {
+        long processingMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - receivedNanos);
+        hops[Hop.CONSUMER_TO_COMMIT.ordinal()].current().record(processingMicros);
+        if (payload.getOccurredAt() != null) {
+            recordCrossHost(Hop.END_TO_END, receivedMicros + processingMicros - toMicros(payload.getOccurredAt()));
+        }
+    }
+
+    @Scheduled(fixedRateString = "${app.latency.window:PT1M}", initialDelayString = "${app.latency.window:PT1M}")
+    public void rotate() {
+        for (HopHistograms hop : hops) {
+            hop.rotate();
+        }
+        anchor = ClockAnchor.now();
+    }
+
+    public List<HopSnapshot> snapshot() {
+        List<HopSnapshot> result = new ArrayList<>(hops.length);
+        for (Hop hop : Hop.values()) {
+            result.add(snapshot(hop));
+        }
+        return result;
+    }
+
+    public HopSnapshot snapshot(Hop hop) {
+        HopHistograms histograms = hops[hop.ordinal()];
+        long[] buckets = new long[histograms.windows[0].bucketCount()];
+        long total = 0;
+        long sum = 0;
+        long max = 0;
+        for (LatencyHistogram window : histograms.windows) {
+            total += window.copyInto(buckets);
+            sum += window.sumMicros();
+            max = Math.max(max, window.maxMicros());
+        }
+        return HopSnapshot.builder()
+                .hop(hop.tagValue())
+                .count(total)
+                .meanMicros(total > 0 ? (double) sum / total : 0)
+                .p50Micros(LatencyHistogram.valueAtQuantile(buckets, total, 0.5))
+                .p90Micros(LatencyHistogram.valueAtQuantile(buckets, total, 0.9))
+                .p99Micros(LatencyHistogram.valueAtQuantile(buckets, total, 0.99))
+                .p999Micros(LatencyHistogram.valueAtQuantile(buckets, total, 0.999))
+                .maxMicros(max)
+                .clampedNegative(histograms.clampedNegative.sum())
+                .rejectedNegative(histograms.rejectedNegative.sum())
+                .maxNegativeSkewMicros(histograms.maxNegativeSkewMicros.get())
+                .build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Hop hop : Hop.values()) {
+            HopHistograms histograms = hops[hop.ordinal()];
+            for (double quantile : QUANTILES) {
+                Gauge.builder(LATENCY_GAUGE, this, tracker -> valueAtQuantileSeconds(hop, quantile))
+                        .description("Event-time latency per hop over the last 1-2 app.latency windows")
+                        .baseUnit("seconds")
+                        .tag("hop", hop.tagValue())
+                        .tag("quantile", Double.toString(quantile))
+                        .register(registry);
+            }
+            FunctionCounter.builder(SKEW_COUNTER, histograms.clampedNegative, LongAdder::sum)
+                    .description("Negative cross-host deltas (clock skew)")
+                    .tag("hop", hop.tagValue())
+                    .tag("kind", "clamped")
+                    .register(registry);
+            FunctionCounter.builder(SKEW_COUNTER, histograms.rejectedNegative, LongAdder::sum)
+                    .description("Negative cross-host deltas (clock skew)")
+                    .tag("hop", hop.tagValue())
+                    .tag("kind", "rejected")
+                    .register(registry);
+        }
+    }
+
+    private double valueAtQuantileSeconds(Hop hop, double quantile) {
+        HopHistograms histograms = hops[hop.ordinal()];
+        long[] buckets = new long[histograms.windows[0].bucketCount()];
+        long total = 0;
+        for (LatencyHistogram window : histograms.windows) {
+            total += window.copyInto(buckets);
+        }
+        return LatencyHistogram.valueAtQuantile(buckets, total, quantile) / 1e6;
+    }
+
+    private void recordCrossHost(Hop hop, long deltaMicros) {
+        HopHistograms histograms = hops[hop.ordinal()];
+        if (deltaMicros >= 0) {
+            histograms.current().record(deltaMicros);
+            return;
+        }
+        long skew = -deltaMicros;
+        if (skew > histograms.maxNegativeSkewMicros.get()) {
+            histograms.maxNegativeSkewMicros.accumulateAndGet(skew, Math::max);
+        }
+        if (skew <= skewToleranceMicros) {
+            histograms.clampedNegative.increment();
+            histograms.current().record(0);
+        } else {
+            histograms.rejectedNegative.increment();
+        }
+    }
+
+    private static long toMicros(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1_000;
+    }
+
+    private record ClockAnchor(long epochMicros, long nanos) {
+
+        static ClockAnchor now() {
+            return new ClockAnchor(toMicros(Instant.now()), System.nanoTime());
+        }
+    }
+
+    private static final class HopHistograms {
+
+        private final LatencyHistogram[] windows;
+        private final LongAdder clampedNegative = new LongAdder();
+        private final LongAdder rejectedNegative = new LongAdder();
+        private final AtomicLong maxNegativeSkewMicros = new AtomicLong();
+        private volatile int current;
+
+        private HopHistograms(long maxTrackableMicros) {
+            this.windows = new LatencyHistogram[]{
+                    new LatencyHistogram(maxTrackableMicros), new LatencyHistogram(maxTrackableMicros)};
+        }
+
+        private LatencyHistogram current() {
+            return windows[current];
+        }
+
+        /**
+         * The older window is cleared and becomes current; the one just filled stays visible as "previous".
+         */
+        private void rotate() {
+            int next = 1 - current;
+            windows[next].reset();
+            current = next;
+        }
+    }
+
+    /**
+     * Latency distribution of one hop; all values in microseconds.
+     */
+    @Value
+    @Builder
+    public static class HopSnapshot {
+        String hop;
+        long count;
+        double meanMicros;
+        long p50Micros;
+        long p90Micros;
+        long p99Micros;
+        long p999Micros;
+        long maxMicros;
+        long clampedNegative;
+        long rejectedNegative;
+        long maxNegativeSkewMicros;
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.dimitryivaniuta.searchanalytics.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-stage timers and outcome counters of the search-events listener pipeline.
+ *
+ * All meters are registered once at startup and looked up by enum ordinal, so recording on the
+ * hot path is a nanoTime() delta plus a lock-free histogram update – no tag arrays, no map lookups.
+ *
+ * Tags are bounded on purpose (see README "Metrics"): stage and outcome are closed enums.
+ * Never tag with query, user, event id or offset; per-partition lag comes from the Kafka client
+ * gauges (kafka.consumer.fetch.manager.records.lag), bounded by the partition count.
+ */
+@Component
+public class ListenerMetrics {
+
+    public static final String STAGE_TIMER = "search.events.stage";
+    public static final String OUTCOME_COUNTER = "search.events.outcome";
+    public static final String POLL_RECORDS = "search.events.poll.records";
+
+    /**
+     * Key under which this instance is handed to {@link ConsumerPollMetricsInterceptor} via the consumer config.
+     */
+    public static final String CONSUMER_CONFIG_KEY = "search-events.listener-metrics";
+
+    public enum Stage {
+        DESERIALIZE, RAW_JSON, RAW_INSERT, STATS_UPDATE, ERROR_LOG, DLT_SEND, SPILL, ACK
+    }
+
+    public enum Outcome {
+        PROCESSED, VALIDATION, DUPLICATE, LATE, ERROR, DLT, SPILLED, RETRY
+    }
+
+    private final Timer[] stageTimers;
+    private final Counter[] outcomeCounters;
+    private final DistributionSummary pollRecords;
+
+    public ListenerMetrics(MeterRegistry registry) {
+        Stage[] stages = Stage.values();
+        stageTimers = new Timer[stages.length];
+        for (Stage stage : stages) {
+            stageTimers[stage.ordinal()] = Timer.builder(STAGE_TIMER)
+                    .description("Time spent in one stage of SearchEventsListener processing")
+                    .tag("stage", tagValue(stage))
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(500))
+                    .maximumExpectedValue(Duration.ofSeconds(10))
+                    .register(registry);
+        }
+
+        Outcome[] outcomes = Outcome.values();
+        outcomeCounters = new Counter[outcomes.length];
+        for (Outcome outcome : outcomes) {
+            outcomeCounters[outcome.ordinal()] = Counter.builder(OUTCOME_COUNTER)
+                    .description("Search events by processing outcome (DLT counts events also counted as error)")
+                    .tag("outcome", tagValue(outcome))
+                    .register(registry);
+        }
+
+        pollRecords = DistributionSummary.builder(POLL_RECORDS)
+                .description("Records returned by one consumer poll")
+                .baseUnit("records")
+                .serviceLevelObjectives(1, 10, 50, 100, 250, 500, 1000)
+                .register(registry);
+    }
+
+    /**
+     * @param startNanos {@link System#nanoTime()} taken when the stage started
+     */
+    public void recordStage(Stage stage, long startNanos) {
+        stageTimers[stage.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordOutcome(Outcome outcome) {
+        outcomeCounters[outcome.ordinal()].increment();
+    }
+
+    public void recordPoll(int records) {
+        pollRecords.record(records);
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
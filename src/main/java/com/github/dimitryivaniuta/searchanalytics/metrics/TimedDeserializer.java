@@ -0,0 +1,62 @@
+package com.github.dimitryivaniuta.searchanalytics.metrics;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Decorates a value deserializer with the {@link ListenerMetrics.Stage#DESERIALIZE} timer.
+ * Deserialization runs inside poll() on the consumer thread, before the listener is invoked.
+ */
+public class TimedDeserializer<T> implements Deserializer<T> {
+
+    private final Deserializer<T> delegate;
+    private final ListenerMetrics metrics;
+
+    public TimedDeserializer(Deserializer<T> delegate, ListenerMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        delegate.configure(configs, isKey);
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        long start = System.nanoTime();
+        try {
+            return delegate.deserialize(topic, data);
+        } finally {
+            metrics.recordStage(ListenerMetrics.Stage.DESERIALIZE, start);
+        }
+    }
+
+    @Override
+    public T deserialize(String topic, Headers headers, byte[] data) {
+        long start = System.nanoTime();
+        try {
+            return delegate.deserialize(topic, headers, data);
+        } finally {
+            metrics.recordStage(ListenerMetrics.Stage.DESERIALIZE, start);
+        }
+    }
+
+    @Override
+    public T deserialize(String topic, Headers headers, ByteBuffer data) {
+        long start = System.nanoTime();
+        try {
+            return delegate.deserialize(topic, headers, data);
+        } finally {
+            metrics.recordStage(ListenerMetrics.Stage.DESERIALIZE, start);
+        }
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
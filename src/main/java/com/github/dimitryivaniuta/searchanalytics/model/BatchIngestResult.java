@@ -0,0 +1,49 @@
+package com.github.dimitryivaniuta.searchanalytics.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Outcome of one bulk ingestion request: one {@link EventResult} per event read,
+ * in request order.
+ */
+@Value
+@Builder
+public class BatchIngestResult {
+
+    int received;
+    int accepted;
+    int failed;
+
+    /**
+     * True if reading stopped early (max events reached or malformed input);
+     * events after that point were not sent.
+     */
+    boolean truncated;
+
+    /**
+     * Why reading stopped early, if it did.
+     */
+    String truncationReason;
+
+    List<EventResult> results;
+
+    public enum Status {
+        ACCEPTED,
+        FAILED
+    }
+
+    @Value
+    @Builder
+    public static class EventResult {
+
+        int index;
+        String eventId;
+        Status status;
+        Integer partition;
+        Long offset;
+        String error;
+    }
+}
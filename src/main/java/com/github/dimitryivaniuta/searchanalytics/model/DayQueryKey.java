@@ -0,0 +1,9 @@
+package com.github.dimitryivaniuta.searchanalytics.model;
+
+import java.time.LocalDate;
+
+/**
+ * Natural key of a daily_query_stats row.
+ */
+public record DayQueryKey(LocalDate day, String query) {
+}
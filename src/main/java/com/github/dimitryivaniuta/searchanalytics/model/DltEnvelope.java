@@ -0,0 +1,48 @@
+package com.github.dimitryivaniuta.searchanalytics.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * JSON envelope written to the dead-letter topic by DeadLetterProducer
+ * and parsed back by the DLT reprocessor.
+ *
+ * Carries the original payload plus enough Kafka / DB context to correlate
+ * a retry with its raw_search_events and search_event_processing_errors rows.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class DltEnvelope {
+
+    private String originalKey;
+    private String originalTopic;
+    private int originalPartition;
+    private long originalOffset;
+
+    /**
+     * raw_search_events.id of the failed event (may be null if the raw insert itself failed).
+     */
+    private Long rawEventId;
+
+    /**
+     * search_event_processing_errors.id – drives retry bookkeeping.
+     */
+    private Long errorId;
+
+    private String errorMessage;
+    private String errorType;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Instant failedAt;
+
+    private SearchEventPayload payload;
+}
@@ -0,0 +1,33 @@
+package com.github.dimitryivaniuta.searchanalytics.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One error fingerprint with its occurrences in a time range (error_fingerprints + error_occurrences).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ErrorSummary {
+
+    private String fingerprint;
+    private String errorType;
+    private String exceptionType;
+    private String messageTemplate;
+
+    private long occurrences;
+
+    /**
+     * First / last minute with an occurrence inside the range.
+     */
+    private Instant firstMinute;
+    private Instant lastMinute;
+
+    private Instant firstSeenAt;
+}
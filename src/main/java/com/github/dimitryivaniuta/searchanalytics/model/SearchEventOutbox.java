@@ -27,4 +27,14 @@ public class SearchEventOutbox {
     private Instant createdAt;
     private Instant publishedAt;
     private String lastError;
+
+    /**
+     * Failed publish attempts so far.
+     */
+    private int attempts;
+
+    /**
+     * Not claimed before this time (null = immediately).
+     */
+    private Instant nextAttemptAt;
 }
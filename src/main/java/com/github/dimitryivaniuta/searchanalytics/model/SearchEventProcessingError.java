@@ -19,9 +19,28 @@ public class SearchEventProcessingError {
 
     private String errorType;   // VALIDATION, DB_CONSTRAINT, UNKNOWN, etc.
     private String errorMessage;
-    private String stackTrace;
+    private String stackTrace;  // only on rows written before error fingerprints (V12)
+
+    /**
+     * error_fingerprints.fingerprint – error kind with its stack trace.
+     */
+    private String fingerprint;
 
     private int retryCount;
     private Instant lastRetryAt;
     private Instant occurredAt;
+
+    /**
+     * NONE | RETRY_SCHEDULED | RESOLVED | PARKED
+     */
+    private String retryStatus;
+    private Instant nextRetryAt;
+    private Instant resolvedAt;
+
+    /**
+     * True once the DLT reprocessor is done with this error (either way).
+     */
+    public boolean isRetryFinished() {
+        return "RESOLVED".equals(retryStatus) || "PARKED".equals(retryStatus);
+    }
 }
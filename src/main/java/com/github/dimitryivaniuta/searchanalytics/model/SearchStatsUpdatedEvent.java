@@ -0,0 +1,40 @@
+package com.github.dimitryivaniuta.searchanalytics.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Body of a SEARCH_STATS_UPDATED outbox event.
+ *
+ * One event per (day, query) per stats flush: {@code count} is the new absolute value,
+ * {@code delta} how much it grew since the previous event for that key.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SearchStatsUpdatedEvent {
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private LocalDate day;
+
+    private String query;
+
+    private long count;
+
+    /**
+     * Null when the event was not produced by a coalesced flush.
+     */
+    private Long delta;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Instant emittedAt;
+}
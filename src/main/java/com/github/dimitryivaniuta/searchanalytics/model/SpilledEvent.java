@@ -0,0 +1,32 @@
+package com.github.dimitryivaniuta.searchanalytics.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One search event parked in the local spill log (SpillLog) while the database was unavailable,
+ * with the Kafka coordinates it was consumed from; replayed by SpillDrainer.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SpilledEvent {
+
+    private String key;
+    private String topic;
+    private int partition;
+    private long offset;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Instant spilledAt;
+
+    private SearchEventPayload payload;
+}
@@ -0,0 +1,33 @@
+package com.github.dimitryivaniuta.searchanalytics.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Building and handing one failed event to the DLT producer (the Kafka send itself is asynchronous).
+ */
+@Name("searchanalytics.DltSend")
+@Label("DLT Send")
+@Category({"Search Analytics", "Kafka"})
+@Description("Failed search event sent to the dead-letter topic")
+public class DltSendEvent extends Event {
+
+    @Label("Source Topic")
+    public String sourceTopic;
+
+    @Label("Source Partition")
+    public int sourcePartition;
+
+    @Label("Source Offset")
+    public long sourceOffset;
+
+    @Label("Error Type")
+    public String errorType;
+
+    @Label("Envelope Length")
+    @Description("Characters of the DLT JSON envelope")
+    public int envelopeLength;
+}
@@ -0,0 +1,178 @@
+package com.github.dimitryivaniuta.searchanalytics.profiling;
+
+import com.github.dimitryivaniuta.searchanalytics.config.JfrProperties;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Starts / stops one bounded in-process JFR recording at a time and hands out the .jfr file.
+ *
+ * Flow:
+ *  - start(): JVM events from the configured settings (CPU samples, allocation, GC, locks, socket / file IO)
+ *    plus the app's searchanalytics.* events; auto-stops after the requested duration, capped by
+ *    app.jfr.max-duration / max-size.
+ *  - stop(): ends the recording, which writes it to app.jfr.directory.
+ *  - recordingFile(): the finished file, or a snapshot dump while the recording is still running.
+ *
+ * Only the latest recording is kept on disk.
+ */
+@Slf4j
+@EnableConfigurationProperties(JfrProperties.class)
+@Service
+public class JfrRecordingService {
+
+    private static final List<Class<? extends jdk.jfr.Event>> APP_EVENTS = List.of(
+            ListenerRecordEvent.class,
+            RepositoryCallEvent.class,
+            DltSendEvent.class,
+            OutboxRelayBatchEvent.class
+    );
+    private static final DateTimeFormatter FILE_TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+    private final JfrProperties properties;
+
+    private Recording recording;
+    private Path file;
+
+    public JfrRecordingService(JfrProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * @throws IllegalStateException if a recording is already running
+     */
+    public synchronized RecordingStatus start(Duration duration, DataSize maxSize) {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new IllegalStateException("A JFR recording is already running: " + recording.getName());
+        }
+        closeCurrent();
+
+        Duration effectiveDuration = min(duration != null ? duration : properties.getMaxDuration(),
+                properties.getMaxDuration());
+        long effectiveMaxSize = Math.min(maxSize != null ? maxSize.toBytes() : Long.MAX_VALUE,
+                properties.getMaxSize().toBytes());
+        Instant now = Instant.now();
+
+        try {
+            Files.createDirectories(properties.getDirectory());
+            Recording newRecording = new Recording(Configuration.getConfiguration(properties.getSettings()));
+            for (Class<? extends jdk.jfr.Event> eventType : APP_EVENTS) {
+                newRecording.enable(eventType).withThreshold(properties.getEventThreshold());
+            }
+            newRecording.setName("search-analytics-" + FILE_TIMESTAMP.format(now));
+            newRecording.setToDisk(true);
+            newRecording.setDuration(effectiveDuration);
+            newRecording.setMaxSize(effectiveMaxSize);
+            file = properties.getDirectory().resolve(newRecording.getName() + ".jfr");
+            newRecording.setDestination(file);
+            newRecording.start();
+            recording = newRecording;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Can't start JFR recording", ex);
+        } catch (ParseException ex) {
+            throw new IllegalArgumentException("Invalid JFR settings '" + properties.getSettings() + "'", ex);
+        }
+
+        log.info("Started JFR recording '{}' for {} (max {} bytes) -> {}",
+                recording.getName(), effectiveDuration, effectiveMaxSize, file);
+        return status();
+    }
+
+    public synchronized RecordingStatus stop() {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+            log.info("Stopped JFR recording '{}' -> {}", recording.getName(), file);
+        }
+        return status();
+    }
+
+    public synchronized RecordingStatus status() {
+        if (recording == null) {
+            return RecordingStatus.builder().state("NONE").build();
+        }
+        return RecordingStatus.builder()
+                .name(recording.getName())
+                .state(recording.getState().name())
+                .startedAt(recording.getStartTime())
+                .duration(recording.getDuration())
+                .maxSizeBytes(recording.getMaxSize())
+                .file(file != null ? file.toString() : null)
+                .fileSizeBytes(file != null && Files.exists(file) ? sizeOf(file) : 0)
+                .build();
+    }
+
+    /**
+     * @return the finished recording, or a snapshot of the running one; null if there is none
+     */
+    public synchronized Path recordingFile() throws IOException {
+        if (recording == null) {
+            return null;
+        }
+        if (recording.getState() == RecordingState.RUNNING) {
+            Path snapshot = properties.getDirectory().resolve(recording.getName() + "-snapshot.jfr");
+            recording.dump(snapshot);
+            return snapshot;
+        }
+        return file != null && Files.exists(file) ? file : null;
+    }
+
+    private void closeCurrent() {
+        if (recording == null) {
+            return;
+        }
+        recording.close();
+        try {
+            if (file != null) {
+                Files.deleteIfExists(file);
+                Files.deleteIfExists(properties.getDirectory().resolve(recording.getName() + "-snapshot.jfr"));
+            }
+        } catch (IOException ex) {
+            log.warn("Could not delete previous JFR recording {}", file, ex);
+        }
+        recording = null;
+        file = null;
+    }
+
+    private static Duration min(Duration left, Duration right) {
+        return left.compareTo(right) <= 0 ? left : right;
+    }
+
+    private static long sizeOf(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+
+    @Value
+    @Builder
+    public static class RecordingStatus {
+        String name;
+        String state;
+        Instant startedAt;
+        Duration duration;
+        long maxSizeBytes;
+        String file;
+        long fileSizeBytes;
+    }
+}
@@ -0,0 +1,32 @@
+package com.github.dimitryivaniuta.searchanalytics.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One SearchEventsListener.onMessage invocation, from entry to ack.
+ */
+@Name("searchanalytics.ListenerRecord")
+@Label("Listener Record")
+@Category({"Search Analytics", "Kafka"})
+@Description("Handling of one search-events record by SearchEventsListener")
+@StackTrace(false)
+public class ListenerRecordEvent extends Event {
+
+    @Label("Topic")
+    public String topic;
+
+    @Label("Partition")
+    public int partition;
+
+    @Label("Offset")
+    public long offset;
+
+    @Label("Outcome")
+    @Description("processed, validation, error or dlt")
+    public String outcome;
+}
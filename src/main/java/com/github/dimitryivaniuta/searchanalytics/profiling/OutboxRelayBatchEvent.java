@@ -0,0 +1,26 @@
+package com.github.dimitryivaniuta.searchanalytics.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One OutboxRelay claim -> send -> mark transaction.
+ */
+@Name("searchanalytics.OutboxRelayBatch")
+@Label("Outbox Relay Batch")
+@Category({"Search Analytics", "Outbox"})
+@Description("One claimed batch of search_event_outbox rows published to Kafka")
+public class OutboxRelayBatchEvent extends Event {
+
+    @Label("Claimed")
+    public int claimed;
+
+    @Label("Published")
+    public int published;
+
+    @Label("Failed")
+    public int failed;
+}
@@ -0,0 +1,60 @@
+package com.github.dimitryivaniuta.searchanalytics.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One JDBC repository call. Recorded on the success path only; a failing call surfaces as the
+ * enclosing ListenerRecord / OutboxRelayBatch event ending early.
+ *
+ * Usage (allocation is scalar-replaced while the event is disabled):
+ * <pre>
+ *   RepositoryCallEvent event = RepositoryCallEvent.start("raw_search_events", "save", SqlKind.INSERT);
+ *   int rows = jdbcTemplate.update(...);
+ *   event.finish(rows);
+ * </pre>
+ */
+@Name("searchanalytics.RepositoryCall")
+@Label("Repository Call")
+@Category({"Search Analytics", "JDBC"})
+@Description("JDBC statement issued by a repository, with SQL kind and affected / returned rows")
+public class RepositoryCallEvent extends Event {
+
+    public enum SqlKind {
+        SELECT, INSERT, UPSERT, UPDATE, DELETE, NOTIFY
+    }
+
+    @Label("Table")
+    public String table;
+
+    @Label("Operation")
+    @Description("Repository method name")
+    public String operation;
+
+    @Label("SQL Kind")
+    public String sqlKind;
+
+    @Label("Rows")
+    @Description("Rows affected (DML) or returned (SELECT / RETURNING)")
+    public long rows;
+
+    public static RepositoryCallEvent start(String table, String operation, SqlKind kind) {
+        RepositoryCallEvent event = new RepositoryCallEvent();
+        event.table = table;
+        event.operation = operation;
+        event.sqlKind = kind.name();
+        event.begin();
+        return event;
+    }
+
+    public void finish(long rowCount) {
+        end();
+        if (shouldCommit()) {
+            rows = rowCount;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.dimitryivaniuta.searchanalytics.repository;
+
+import com.github.dimitryivaniuta.searchanalytics.profiling.RepositoryCallEvent;
+import com.github.dimitryivaniuta.searchanalytics.profiling.RepositoryCallEvent.SqlKind;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * JDBC-based repository for closed_days.
+ * Every call emits a {@link RepositoryCallEvent} (JFR) when recording is active.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ClosedDayRepository {
+
+    private static final String TABLE = "closed_days";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Days currently CLOSED (REOPENED ones are not included).
+     */
+    public Set<LocalDate> findClosedDays() {
+        String sql = """
+            SELECT day FROM closed_days WHERE status = 'CLOSED'
+            """;
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "findClosedDays", SqlKind.SELECT);
+        List<LocalDate> days = jdbcTemplate.query(sql, (rs, rowNum) -> rs.getObject("day", LocalDate.class));
+        event.finish(days.size());
+        return new HashSet<>(days);
+    }
+
+    public List<LocalDate> findReopenedDays() {
+        String sql = """
+            SELECT day FROM closed_days WHERE status = 'REOPENED' ORDER BY day
+            """;
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "findReopenedDays", SqlKind.SELECT);
+        List<LocalDate> days = jdbcTemplate.query(sql, (rs, rowNum) -> rs.getObject("day", LocalDate.class));
+        event.finish(days.size());
+        return days;
+    }
+
+    /**
+     * Closes {@code days} (new rows, or REOPENED rows closed again) with ONE statement.
+     * Days already CLOSED are left untouched.
+     *
+     * @return days whose status actually changed to CLOSED
+     */
+    public List<LocalDate> close(Collection<LocalDate> days, Instant watermark) {
+        if (days.isEmpty()) {
+            return List.of();
+        }
+        String sql = """
+            INSERT INTO closed_days(day, status, watermark)
+            SELECT d.day, 'CLOSED', ?
+            FROM unnest(?::date[]) AS d(day)
+            ON CONFLICT (day)
+            DO UPDATE SET status = 'CLOSED', watermark = EXCLUDED.watermark, closed_at = NOW()
+            WHERE closed_days.status = 'REOPENED'
+            RETURNING day
+            """;
+        String[] dayArray = days.stream().map(LocalDate::toString).toArray(String[]::new);
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "close", SqlKind.UPSERT);
+        List<LocalDate> closed = jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setTimestamp(1, Timestamp.from(watermark));
+            ps.setArray(2, con.createArrayOf("text", dayArray));
+            return ps;
+        }, (rs, rowNum) -> rs.getObject("day", LocalDate.class));
+        event.finish(closed.size());
+        return closed;
+    }
+
+    /**
+     * Marks a CLOSED day as REOPENED.
+     *
+     * @return false if the day was not CLOSED (already reopened by another instance, or never closed)
+     */
+    public boolean reopen(LocalDate day) {
+        String sql = """
+            UPDATE closed_days
+            SET status = 'REOPENED', reopened_at = NOW(), reopen_count = reopen_count + 1
+            WHERE day = ? AND status = 'CLOSED'
+            """;
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "reopen", SqlKind.UPDATE);
+        int rows = jdbcTemplate.update(sql, day);
+        event.finish(rows);
+        return rows > 0;
+    }
+}
@@ -1,103 +1,303 @@
 package com.github.dimitryivaniuta.searchanalytics.repository;
 
+import com.github.dimitryivaniuta.searchanalytics.datasource.ReadWriteRoutingDataSource;
 import com.github.dimitryivaniuta.searchanalytics.model.DailyQueryStat;
+import com.github.dimitryivaniuta.searchanalytics.model.DayQueryKey;
+import com.github.dimitryivaniuta.searchanalytics.profiling.RepositoryCallEvent;
+import com.github.dimitryivaniuta.searchanalytics.profiling.RepositoryCallEvent.SqlKind;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * JDBC-based repository for daily_query_stats table.
+ * Every call emits a {@link RepositoryCallEvent} (JFR) when recording is active.
+ *
+ * Reporting reads (findTop*) run in {@link ReadWriteRoutingDataSource#readOnly} and go to the
+ * read pool when app.datasource.read.enabled=true; upserts and findByDayAndQuery (used to
+ * verify writes) always use the write pool.
+ *
+ * Hot keys may additionally have rows in daily_query_stat_stripes (see HotKeyDetector); every read
+ * sums them into the key's total, so callers never see the stripes.
+ *
+ * Both tables store the query as an integer query_id ({@link QueryDictionaryRepository}); callers still
+ * pass and get the text. Top-N reads group by query_id and join the text only for the rows that can
+ * make the result.
  */
 @Repository
 @RequiredArgsConstructor
 public class DailyQueryStatRepository {
 
+    private static final String TABLE = "daily_query_stats";
+    private static final String STRIPES_TABLE = "daily_query_stat_stripes";
+
     private final JdbcTemplate jdbcTemplate;
+    private final QueryDictionaryRepository dictionary;
 
     private static final RowMapper<DailyQueryStat> ROW_MAPPER = new DailyQueryStatRowMapper();
 
     /**
      * Inserts a new row or increments count if (day, query) already exists.
-     * Uses the UNIQUE constraint on (day, query).
+     * Uses the UNIQUE constraint on (day, query_id).
      */
     public void incrementCount(LocalDate day, String query) {
         String sql = """
-            INSERT INTO daily_query_stats(day, query, count)
+            INSERT INTO daily_query_stats(day, query_id, count)
             VALUES (?, ?, 1)
-            ON CONFLICT (day, query)
+            ON CONFLICT (day, query_id)
             DO UPDATE SET count = daily_query_stats.count + 1
             """;
-        jdbcTemplate.update(sql, day, query);
+        int queryId = dictionary.idOf(query);
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "incrementCount", SqlKind.UPSERT);
+        int rows = jdbcTemplate.update(sql, day, queryId);
+        event.finish(rows);
+    }
+
+    /**
+     * Increments one stripe row of a hot key; concurrent writers on other stripes never wait for it.
+     */
+    public void incrementStripe(LocalDate day, String query, int stripe) {
+        String sql = """
+            INSERT INTO daily_query_stat_stripes(day, query_id, stripe, count)
+            VALUES (?, ?, ?, 1)
+            ON CONFLICT (day, query_id, stripe)
+            DO UPDATE SET count = daily_query_stat_stripes.count + 1, updated_at = NOW()
+            """;
+        int queryId = dictionary.idOf(query);
+        RepositoryCallEvent event = RepositoryCallEvent.start(STRIPES_TABLE, "incrementStripe", SqlKind.UPSERT);
+        int rows = jdbcTemplate.update(sql, day, queryId, stripe);
+        event.finish(rows);
+    }
+
+    /**
+     * Moves up to {@code limit} stripe rows not updated since {@code cutoff} into daily_query_stats,
+     * in ONE statement (delete + upsert of the per-key sums), so totals never change.
+     * Rows locked by a concurrent increment are skipped and picked up by a later fold.
+     *
+     * @return number of stripe rows folded
+     */
+    public int foldStripes(Instant cutoff, int limit) {
+        String sql = """
+            WITH moved AS (
+                DELETE FROM daily_query_stat_stripes
+                WHERE ctid IN (
+                    SELECT ctid
+                    FROM daily_query_stat_stripes
+                    WHERE updated_at < ?
+                    LIMIT ?
+                    FOR UPDATE SKIP LOCKED
+                )
+                RETURNING day, query_id, count
+            ),
+            upserted AS (
+                INSERT INTO daily_query_stats(day, query_id, count)
+                SELECT day, query_id, SUM(count)
+                FROM moved
+                GROUP BY day, query_id
+                ON CONFLICT (day, query_id)
+                DO UPDATE SET count = daily_query_stats.count + EXCLUDED.count
+            )
+            SELECT COUNT(*) FROM moved
+            """;
+        RepositoryCallEvent event = RepositoryCallEvent.start(STRIPES_TABLE, "foldStripes", SqlKind.DELETE);
+        Integer rows = jdbcTemplate.queryForObject(sql, Integer.class, Timestamp.from(cutoff), limit);
+        int folded = rows != null ? rows : 0;
+        event.finish(folded);
+        return folded;
+    }
+
+    /**
+     * Applies many coalesced increments with ONE statement and returns the resulting rows.
+     *
+     * Keys must be unique (ON CONFLICT cannot touch the same row twice in one statement),
+     * which is guaranteed when {@code deltas} comes from a per-(day, query) map.
+     */
+    public List<DailyQueryStat> incrementCounts(Map<DayQueryKey, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return List.of();
+        }
+        String sql = """
+            INSERT INTO daily_query_stats(day, query_id, count)
+            SELECT d.day, d.query_id, d.delta
+            FROM unnest(?::date[], ?::int[], ?::bigint[]) AS d(day, query_id, delta)
+            ON CONFLICT (day, query_id)
+            DO UPDATE SET count = daily_query_stats.count + EXCLUDED.count
+            RETURNING id, day, query_id, count
+            """;
+
+        Set<String> distinctQueries = new HashSet<>();
+        for (DayQueryKey key : deltas.keySet()) {
+            distinctQueries.add(key.query());
+        }
+        Map<String, Integer> ids = dictionary.idsOf(distinctQueries);
+        Map<Integer, String> queriesById = new HashMap<>(Math.max(16, ids.size() * 2));
+        ids.forEach((query, id) -> queriesById.put(id, query));
+
+        String[] days = new String[deltas.size()];
+        Integer[] queryIds = new Integer[deltas.size()];
+        Long[] counts = new Long[deltas.size()];
+        int i = 0;
+        for (Map.Entry<DayQueryKey, Long> entry : deltas.entrySet()) {
+            days[i] = entry.getKey().day().toString();
+            queryIds[i] = ids.get(entry.getKey().query());
+            counts[i] = entry.getValue();
+            i++;
+        }
+
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "incrementCounts", SqlKind.UPSERT);
+        List<DailyQueryStat> stats = jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, con.createArrayOf("text", days));
+            ps.setArray(2, con.createArrayOf("integer", queryIds));
+            ps.setArray(3, con.createArrayOf("bigint", counts));
+            return ps;
+        }, (rs, rowNum) -> DailyQueryStat.builder()
+                .id(rs.getLong("id"))
+                .day(rs.getObject("day", LocalDate.class))
+                .query(queriesById.get(rs.getInt("query_id")))
+                .count(rs.getLong("count"))
+                .build());
+        event.finish(stats.size());
+        return stats;
     }
 
     /**
      * Finds a single row by day and query, if it exists.
      */
     public Optional<DailyQueryStat> findByDayAndQuery(LocalDate day, String query) {
+        Optional<Integer> queryId = dictionary.findId(query);
+        if (queryId.isEmpty()) {
+            return Optional.empty();
+        }
         String sql = """
-            SELECT id, day, query, count
-            FROM daily_query_stats
-            WHERE day = ? AND query = ?
+            SELECT s.id, s.day,
+                   s.count + COALESCE((SELECT SUM(st.count)
+                                       FROM daily_query_stat_stripes st
+                                       WHERE st.day = s.day AND st.query_id = s.query_id), 0) AS count
+            FROM daily_query_stats s
+            WHERE s.day = ? AND s.query_id = ?
             """;
-        return jdbcTemplate.query(sql, ROW_MAPPER, day, query)
-                .stream()
-                .findFirst();
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "findByDayAndQuery", SqlKind.SELECT);
+        List<DailyQueryStat> stats = jdbcTemplate.query(sql, (rs, rowNum) -> DailyQueryStat.builder()
+                .id(rs.getLong("id"))
+                .day(rs.getObject("day", LocalDate.class))
+                .query(query)
+                .count(rs.getLong("count"))
+                .build(), day, queryId.get());
+        event.finish(stats.size());
+        return stats.stream().findFirst();
     }
 
     /**
      * Returns top queries for a given day ordered by count desc.
+     *
+     * Totals are grouped by query_id; only keys counting at least as much as the limit-th total
+     * (ties included, they are ordered by text) are joined with query_dictionary.
      */
     public List<DailyQueryStat> findTopByDay(LocalDate day, int limit) {
         String sql = """
-            SELECT id, day, query, count
-            FROM daily_query_stats
-            WHERE day = ?
-            ORDER BY count DESC, query ASC
+            WITH totals AS (
+                SELECT MIN(id) AS id, day, query_id, SUM(count) AS count
+                FROM (
+                    SELECT id, day, query_id, count
+                    FROM daily_query_stats
+                    WHERE day = ?
+                    UNION ALL
+                    SELECT NULL, day, query_id, count
+                    FROM daily_query_stat_stripes
+                    WHERE day = ?
+                ) s
+                GROUP BY day, query_id
+            ),
+            cutoff AS (
+                SELECT count FROM totals ORDER BY count DESC OFFSET ? LIMIT 1
+            )
+            SELECT t.id, t.day, d.query, t.count
+            FROM totals t
+            JOIN query_dictionary d ON d.id = t.query_id
+            WHERE t.count >= COALESCE((SELECT count FROM cutoff), 0)
+            ORDER BY t.count DESC, d.query ASC
             LIMIT ?
             """;
-        return jdbcTemplate.query(sql, ROW_MAPPER, day, limit);
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "findTopByDay", SqlKind.SELECT);
+        List<DailyQueryStat> stats = ReadWriteRoutingDataSource.readOnly(
+                () -> jdbcTemplate.query(sql, ROW_MAPPER, day, day, cutoffOffset(limit), limit));
+        event.finish(stats.size());
+        return stats;
     }
 
     /**
      * Aggregates across a day range: sums counts per query.
      * Useful for "top queries this week/month".
+     *
+     * Grouped by query_id; text is joined as in {@link #findTopByDay}.
      */
     public List<DailyQueryStat> findTopInRange(LocalDate from, LocalDate to, int limit) {
         String sql = """
-            SELECT
-                NULL AS id,
-                NULL AS day,
-                query,
-                SUM(count) AS count
-            FROM daily_query_stats
-            WHERE day BETWEEN ? AND ?
-            GROUP BY query
-            ORDER BY SUM(count) DESC, query ASC
+            WITH totals AS (
+                SELECT query_id, SUM(count) AS count
+                FROM (
+                    SELECT query_id, count
+                    FROM daily_query_stats
+                    WHERE day BETWEEN ? AND ?
+                    UNION ALL
+                    SELECT query_id, count
+                    FROM daily_query_stat_stripes
+                    WHERE day BETWEEN ? AND ?
+                ) s
+                GROUP BY query_id
+            ),
+            cutoff AS (
+                SELECT count FROM totals ORDER BY count DESC OFFSET ? LIMIT 1
+            )
+            SELECT d.query, t.count
+            FROM totals t
+            JOIN query_dictionary d ON d.id = t.query_id
+            WHERE t.count >= COALESCE((SELECT count FROM cutoff), 0)
+            ORDER BY t.count DESC, d.query ASC
             LIMIT ?
             """;
-        return jdbcTemplate.query(sql, (rs, rowNum) -> DailyQueryStat.builder()
-                .id(null)
-                .day(null) // aggregated across days
-                .query(rs.getString("query"))
-                .count(rs.getLong("count"))
-                .build(), from, to, limit);
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "findTopInRange", SqlKind.SELECT);
+        List<DailyQueryStat> stats = ReadWriteRoutingDataSource.readOnly(
+                () -> jdbcTemplate.query(sql, (rs, rowNum) -> DailyQueryStat.builder()
+                        .id(null)
+                        .day(null) // aggregated across days
+                        .query(rs.getString("query"))
+                        .count(rs.getLong("count"))
+                        .build(), from, to, from, to, cutoffOffset(limit), limit));
+        event.finish(stats.size());
+        return stats;
+    }
+
+    /**
+     * Row of the limit-th largest total; everything below it cannot make the result.
+     */
+    private static int cutoffOffset(int limit) {
+        return Math.max(0, limit - 1);
     }
 
     /**
-     * Simple mapper for daily_query_stats rows.
+     * Mapper for top-N rows (daily_query_stats joined with query_dictionary).
      */
     private static class DailyQueryStatRowMapper implements RowMapper<DailyQueryStat> {
         @Override
         public DailyQueryStat mapRow(ResultSet rs, int rowNum) throws SQLException {
             return DailyQueryStat.builder()
-                    .id(rs.getLong("id"))
+                    .id(rs.getObject("id", Long.class)) // null for a key that only has stripe rows
                     .day(rs.getObject("day", LocalDate.class))
                     .query(rs.getString("query"))
                     .count(rs.getLong("count"))
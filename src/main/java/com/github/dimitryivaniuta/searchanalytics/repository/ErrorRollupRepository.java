@@ -0,0 +1,144 @@
+package com.github.dimitryivaniuta.searchanalytics.repository;
+
+import com.github.dimitryivaniuta.searchanalytics.datasource.ReadWriteRoutingDataSource;
+import com.github.dimitryivaniuta.searchanalytics.error.ErrorFingerprint;
+import com.github.dimitryivaniuta.searchanalytics.model.ErrorSummary;
+import com.github.dimitryivaniuta.searchanalytics.profiling.RepositoryCallEvent;
+import com.github.dimitryivaniuta.searchanalytics.profiling.RepositoryCallEvent.SqlKind;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC-based repository for error_fingerprints and error_occurrences (ErrorRollup).
+ * Every call emits a {@link RepositoryCallEvent} (JFR) when recording is active.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ErrorRollupRepository {
+
+    private static final String FINGERPRINTS = "error_fingerprints";
+    private static final String OCCURRENCES = "error_occurrences";
+
+    private static final RowMapper<ErrorSummary> SUMMARY_MAPPER = (rs, rowNum) -> ErrorSummary.builder()
+            .fingerprint(rs.getString("fingerprint"))
+            .errorType(rs.getString("error_type"))
+            .exceptionType(rs.getString("exception_type"))
+            .messageTemplate(rs.getString("message_template"))
+            .occurrences(rs.getLong("occurrences"))
+            .firstMinute(rs.getTimestamp("first_minute").toInstant())
+            .lastMinute(rs.getTimestamp("last_minute").toInstant())
+            .firstSeenAt(rs.getTimestamp("first_seen_at").toInstant())
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Stores fingerprints with their stack trace as one JDBC batch; fingerprints already stored
+     * (e.g. by another instance) are left untouched.
+     *
+     * @param stackTraces fingerprint -> full stack trace (may be null)
+     */
+    public void saveFingerprints(List<ErrorFingerprint> fingerprints, Map<String, String> stackTraces) {
+        if (fingerprints.isEmpty()) {
+            return;
+        }
+        String sql = """
+            INSERT INTO error_fingerprints (
+                fingerprint, error_type, exception_type, message_template, stack_trace
+            ) VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (fingerprint) DO NOTHING
+            """;
+        RepositoryCallEvent event = RepositoryCallEvent.start(FINGERPRINTS, "saveFingerprints", SqlKind.INSERT);
+        jdbcTemplate.batchUpdate(sql, fingerprints, fingerprints.size(), (ps, fingerprint) -> {
+            ps.setString(1, fingerprint.id());
+            ps.setString(2, fingerprint.errorType());
+            ps.setString(3, fingerprint.exceptionType());
+            ps.setString(4, fingerprint.messageTemplate());
+            ps.setString(5, stackTraces.get(fingerprint.id()));
+        });
+        event.finish(fingerprints.size());
+    }
+
+    /**
+     * Adds per-minute occurrence counts with ONE statement; the three arrays are parallel,
+     * one entry per (fingerprint, minute).
+     */
+    public int addOccurrences(String[] fingerprints, Instant[] minutes, long[] counts) {
+        if (fingerprints.length == 0) {
+            return 0;
+        }
+        String sql = """
+            INSERT INTO error_occurrences (fingerprint, minute, occurrences)
+            SELECT fingerprint, minute, occurrences
+            FROM unnest(?::text[], ?::timestamptz[], ?::bigint[]) AS o(fingerprint, minute, occurrences)
+            ON CONFLICT (fingerprint, minute)
+            DO UPDATE SET occurrences = error_occurrences.occurrences + EXCLUDED.occurrences
+            """;
+        Timestamp[] timestamps = new Timestamp[minutes.length];
+        Long[] boxedCounts = new Long[counts.length];
+        for (int i = 0; i < minutes.length; i++) {
+            timestamps[i] = Timestamp.from(minutes[i]);
+            boxedCounts[i] = counts[i];
+        }
+        RepositoryCallEvent event = RepositoryCallEvent.start(OCCURRENCES, "addOccurrences", SqlKind.UPSERT);
+        int rows = jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, con.createArrayOf("text", fingerprints));
+            ps.setArray(2, con.createArrayOf("timestamptz", timestamps));
+            ps.setArray(3, con.createArrayOf("bigint", boxedCounts));
+            return ps;
+        });
+        event.finish(rows);
+        return rows;
+    }
+
+    /**
+     * Fingerprints by occurrences in [from, to), most frequent first.
+     */
+    public List<ErrorSummary> summarize(Instant from, Instant to, int limit) {
+        String sql = """
+            SELECT f.fingerprint, f.error_type, f.exception_type, f.message_template, f.first_seen_at,
+                   o.occurrences, o.first_minute, o.last_minute
+            FROM (
+                SELECT fingerprint,
+                       SUM(occurrences) AS occurrences,
+                       MIN(minute)      AS first_minute,
+                       MAX(minute)      AS last_minute
+                FROM error_occurrences
+                WHERE minute >= ? AND minute < ?
+                GROUP BY fingerprint
+                ORDER BY SUM(occurrences) DESC
+                LIMIT ?
+            ) o
+            JOIN error_fingerprints f ON f.fingerprint = o.fingerprint
+            ORDER BY o.occurrences DESC, f.fingerprint
+            """;
+        RepositoryCallEvent event = RepositoryCallEvent.start(OCCURRENCES, "summarize", SqlKind.SELECT);
+        List<ErrorSummary> rows = ReadWriteRoutingDataSource.readOnly(() -> jdbcTemplate.query(sql, SUMMARY_MAPPER,
+                Timestamp.from(from), Timestamp.from(to), limit));
+        event.finish(rows.size());
+        return rows;
+    }
+
+    /**
+     * Deletes occurrence minutes before {@code cutoff}.
+     */
+    public int deleteOccurrencesBefore(Instant cutoff) {
+        String sql = """
+            DELETE FROM error_occurrences
+            WHERE minute < ?
+            """;
+        RepositoryCallEvent event = RepositoryCallEvent.start(OCCURRENCES, "deleteOccurrencesBefore", SqlKind.DELETE);
+        int rows = jdbcTemplate.update(sql, Timestamp.from(cutoff));
+        event.finish(rows);
+        return rows;
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.dimitryivaniuta.searchanalytics.repository;
+
+import com.github.dimitryivaniuta.searchanalytics.profiling.RepositoryCallEvent;
+import com.github.dimitryivaniuta.searchanalytics.profiling.RepositoryCallEvent.SqlKind;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * JDBC-based repository for event_time_watermarks (one row per topic partition).
+ * Every call emits a {@link RepositoryCallEvent} (JFR) when recording is active.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EventTimeWatermarkRepository {
+
+    private static final String TABLE = "event_time_watermarks";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Raises the per-partition max event time (never lowers it, whichever instance writes)
+     * and marks the partitions active now. ONE statement for all partitions.
+     */
+    public int advance(String topic, Map<Integer, Instant> maxEventTimeByPartition) {
+        if (maxEventTimeByPartition.isEmpty()) {
+            return 0;
+        }
+        String sql = """
+            INSERT INTO event_time_watermarks(topic, kafka_partition, max_event_time, updated_at)
+            SELECT ?, w.kafka_partition, w.max_event_time, NOW()
+            FROM unnest(?::int[], ?::timestamptz[]) AS w(kafka_partition, max_event_time)
+            ON CONFLICT (topic, kafka_partition)
+            DO UPDATE SET max_event_time = GREATEST(event_time_watermarks.max_event_time, EXCLUDED.max_event_time),
+                          updated_at = NOW()
+            """;
+        Integer[] partitions = new Integer[maxEventTimeByPartition.size()];
+        Timestamp[] times = new Timestamp[maxEventTimeByPartition.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Instant> entry : maxEventTimeByPartition.entrySet()) {
+            partitions[i] = entry.getKey();
+            times[i] = Timestamp.from(entry.getValue());
+            i++;
+        }
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "advance", SqlKind.UPSERT);
+        int rows = jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setString(1, topic);
+            ps.setArray(2, con.createArrayOf("int4", partitions));
+            ps.setArray(3, con.createArrayOf("timestamptz", times));
+            return ps;
+        });
+        event.finish(rows);
+        return rows;
+    }
+
+    /**
+     * Lowest max event time over partitions of {@code topic} that saw events since {@code activeSince}.
+     */
+    public Optional<Instant> findLowWatermark(String topic, Instant activeSince) {
+        String sql = """
+            SELECT MIN(max_event_time)
+            FROM event_time_watermarks
+            WHERE topic = ? AND updated_at >= ?
+            """;
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "findLowWatermark", SqlKind.SELECT);
+        Timestamp low = jdbcTemplate.queryForObject(sql, Timestamp.class, topic, Timestamp.from(activeSince));
+        event.finish(low != null ? 1 : 0);
+        return Optional.ofNullable(low).map(Timestamp::toInstant);
+    }
+}
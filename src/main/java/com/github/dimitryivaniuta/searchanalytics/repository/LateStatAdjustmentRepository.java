@@ -0,0 +1,40 @@
+package com.github.dimitryivaniuta.searchanalytics.repository;
+
+import com.github.dimitryivaniuta.searchanalytics.profiling.RepositoryCallEvent;
+import com.github.dimitryivaniuta.searchanalytics.profiling.RepositoryCallEvent.SqlKind;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+/**
+ * JDBC-based repository for late_stat_adjustments (late events for closed days).
+ * Every call emits a {@link RepositoryCallEvent} (JFR) when recording is active.
+ * The query is stored as its query_id ({@link QueryDictionaryRepository}).
+ */
+@Repository
+@RequiredArgsConstructor
+public class LateStatAdjustmentRepository {
+
+    private static final String TABLE = "late_stat_adjustments";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final QueryDictionaryRepository dictionary;
+
+    /**
+     * Inserts a new row or increments count if (day, query) already exists.
+     */
+    public void increment(LocalDate day, String query) {
+        String sql = """
+            INSERT INTO late_stat_adjustments(day, query_id, count)
+            VALUES (?, ?, 1)
+            ON CONFLICT (day, query_id)
+            DO UPDATE SET count = late_stat_adjustments.count + 1, last_seen_at = NOW()
+            """;
+        int queryId = dictionary.idOf(query);
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "increment", SqlKind.UPSERT);
+        int rows = jdbcTemplate.update(sql, day, queryId);
+        event.finish(rows);
+    }
+}
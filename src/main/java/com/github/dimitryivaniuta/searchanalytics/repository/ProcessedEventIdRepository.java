@@ -0,0 +1,106 @@
+package com.github.dimitryivaniuta.searchanalytics.repository;
+
+import com.github.dimitryivaniuta.searchanalytics.profiling.RepositoryCallEvent;
+import com.github.dimitryivaniuta.searchanalytics.profiling.RepositoryCallEvent.SqlKind;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * JDBC-based repository for processed_event_ids (eventId deduplication).
+ * Every call emits a {@link RepositoryCallEvent} (JFR) when recording is active.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProcessedEventIdRepository {
+
+    private static final String TABLE = "processed_event_ids";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Primary-key lookup, only done for Bloom filter "maybe" answers.
+     */
+    public boolean exists(String eventId) {
+        String sql = """
+            SELECT EXISTS (SELECT 1 FROM processed_event_ids WHERE event_id = ?)
+            """;
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "exists", SqlKind.SELECT);
+        Boolean exists = jdbcTemplate.queryForObject(sql, Boolean.class, eventId);
+        event.finish(1);
+        return Boolean.TRUE.equals(exists);
+    }
+
+    /**
+     * Records many ids with ONE statement; ids already present are left untouched.
+     *
+     * @return number of newly inserted ids
+     */
+    public int insertAll(Collection<String> eventIds) {
+        if (eventIds.isEmpty()) {
+            return 0;
+        }
+        String sql = """
+            INSERT INTO processed_event_ids(event_id)
+            SELECT unnest(?::text[])
+            ON CONFLICT (event_id) DO NOTHING
+            """;
+        String[] ids = eventIds.toArray(new String[0]);
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "insertAll", SqlKind.INSERT);
+        int rows = jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, con.createArrayOf("text", ids));
+            return ps;
+        });
+        event.finish(rows);
+        return rows;
+    }
+
+    /**
+     * Deletes up to {@code limit} ids processed before {@code cutoff}; call until it returns 0.
+     * Small batches keep each DELETE short so it never holds locks the ingest path waits on.
+     */
+    public int deleteOlderThan(Instant cutoff, int limit) {
+        String sql = """
+            DELETE FROM processed_event_ids
+            WHERE event_id IN (
+                SELECT event_id
+                FROM processed_event_ids
+                WHERE processed_at < ?
+                LIMIT ?
+            )
+            """;
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "deleteOlderThan", SqlKind.DELETE);
+        int rows = jdbcTemplate.update(sql, Timestamp.from(cutoff), limit);
+        event.finish(rows);
+        return rows;
+    }
+
+    /**
+     * Streams ids processed since {@code since} (row by row, fetch-size batches) – Bloom filter warm-up.
+     *
+     * @return number of ids streamed
+     */
+    public long forEachSince(Instant since, Consumer<String> consumer) {
+        String sql = """
+            SELECT event_id
+            FROM processed_event_ids
+            WHERE processed_at >= ?
+            """;
+        long[] count = {0};
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "forEachSince", SqlKind.SELECT);
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+            consumer.accept(rs.getString(1));
+            count[0]++;
+        }, Timestamp.from(since));
+        event.finish(count[0]);
+        return count[0];
+    }
+}
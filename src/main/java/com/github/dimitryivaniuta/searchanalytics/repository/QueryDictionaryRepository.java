@@ -0,0 +1,167 @@
+package com.github.dimitryivaniuta.searchanalytics.repository;
+
+import com.github.dimitryivaniuta.searchanalytics.profiling.RepositoryCallEvent;
+import com.github.dimitryivaniuta.searchanalytics.profiling.RepositoryCallEvent.SqlKind;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JDBC-based repository for query_dictionary (query text <-> integer query_id) with an in-process
+ * query -> id cache. Every call emits a {@link RepositoryCallEvent} (JFR) when recording is active.
+ *
+ * Ids are never changed or deleted, so cached ids stay valid on every instance; a known query costs
+ * no database round-trip. Unknown queries are looked up, the still missing ones inserted (sorted, so
+ * concurrent writers lock them in the same order) and looked up again, which also picks up rows
+ * another transaction inserted in the meantime.
+ *
+ * Inside a transaction, ids are cached only after commit: a rolled-back insert must not leave an id
+ * in the cache that no row has.
+ */
+@Repository
+@RequiredArgsConstructor
+public class QueryDictionaryRepository {
+
+    private static final String TABLE = "query_dictionary";
+
+    /**
+     * Bounds the cache for long-tail traffic; clearing it only costs lookups of the active queries.
+     */
+    static final int MAX_CACHED_QUERIES = 100_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<String, Integer> cache = new ConcurrentHashMap<>();
+
+    /**
+     * @return the id of {@code query}, added to the dictionary if it is new
+     */
+    public int idOf(String query) {
+        Integer id = cache.get(query);
+        if (id != null) {
+            return id;
+        }
+        return idsOf(List.of(query)).get(query);
+    }
+
+    /**
+     * @return query -> id for all {@code queries}, new ones added to the dictionary
+     */
+    public Map<String, Integer> idsOf(Collection<String> queries) {
+        Map<String, Integer> ids = new HashMap<>(Math.max(16, queries.size() * 2));
+        List<String> missing = new ArrayList<>();
+        for (String query : queries) {
+            Integer id = cache.get(query);
+            if (id != null) {
+                ids.put(query, id);
+            } else {
+                missing.add(query);
+            }
+        }
+        if (missing.isEmpty()) {
+            return ids;
+        }
+
+        Map<String, Integer> found = select(missing, "idsOf");
+        if (found.size() < missing.size()) {
+            List<String> toInsert = new ArrayList<>(missing.size() - found.size());
+            for (String query : missing) {
+                if (!found.containsKey(query)) {
+                    toInsert.add(query);
+                }
+            }
+            insert(toInsert);
+            found.putAll(select(toInsert, "idsOf"));
+        }
+        ids.putAll(found);
+        remember(found);
+        return ids;
+    }
+
+    /**
+     * Read-only lookup; never adds the query.
+     */
+    public Optional<Integer> findId(String query) {
+        Integer id = cache.get(query);
+        if (id != null) {
+            return Optional.of(id);
+        }
+        Map<String, Integer> found = select(List.of(query), "findId");
+        remember(found);
+        return Optional.ofNullable(found.get(query));
+    }
+
+    public int cachedQueries() {
+        return cache.size();
+    }
+
+    private Map<String, Integer> select(List<String> queries, String method) {
+        String sql = """
+            SELECT id, query
+            FROM query_dictionary
+            WHERE query = ANY(?::text[])
+            """;
+        Map<String, Integer> ids = new HashMap<>(Math.max(16, queries.size() * 2));
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, method, SqlKind.SELECT);
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, con.createArrayOf("text", queries.toArray()));
+            return ps;
+        }, rs -> {
+            ids.put(rs.getString("query"), rs.getInt("id"));
+        });
+        event.finish(ids.size());
+        return ids;
+    }
+
+    private void insert(List<String> queries) {
+        String sql = """
+            INSERT INTO query_dictionary (query)
+            SELECT q
+            FROM unnest(?::text[]) AS u(q)
+            ORDER BY q
+            ON CONFLICT (query) DO NOTHING
+            """;
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "insert", SqlKind.INSERT);
+        int rows = jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, con.createArrayOf("text", queries.toArray()));
+            return ps;
+        });
+        event.finish(rows);
+    }
+
+    private void remember(Map<String, Integer> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache(ids);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache(ids);
+            }
+        });
+    }
+
+    private void cache(Map<String, Integer> ids) {
+        if (cache.size() + ids.size() > MAX_CACHED_QUERIES) {
+            cache.clear();
+        }
+        cache.putAll(ids);
+    }
+}
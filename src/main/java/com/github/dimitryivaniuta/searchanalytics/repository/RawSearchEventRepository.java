@@ -1,6 +1,8 @@
 package com.github.dimitryivaniuta.searchanalytics.repository;
 
 import com.github.dimitryivaniuta.searchanalytics.model.RawSearchEvent;
+import com.github.dimitryivaniuta.searchanalytics.profiling.RepositoryCallEvent;
+import com.github.dimitryivaniuta.searchanalytics.profiling.RepositoryCallEvent.SqlKind;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
@@ -14,6 +16,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -21,6 +24,8 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class RawSearchEventRepository {
 
+    private static final String TABLE = "raw_search_events";
+
     private final JdbcTemplate jdbcTemplate;
 
     private static final RowMapper<RawSearchEvent> ROW_MAPPER = new RawSearchEventRowMapper();
@@ -56,24 +61,13 @@ public class RawSearchEventRepository {
 
         KeyHolder keyHolder = new GeneratedKeyHolder();
 
+        RepositoryCallEvent callEvent = RepositoryCallEvent.start(TABLE, "save", SqlKind.INSERT);
         int updated = jdbcTemplate.update(con -> {
             PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-            int i = 1;
-            ps.setString(i++, event.getEventKey());
-            ps.setString(i++, event.getUserId());
-            ps.setString(i++, event.getQuery());
-            ps.setString(i++, event.getCountry());
-            ps.setTimestamp(i++, toTimestamp(event.getOccurredAt()));
-            ps.setTimestamp(i++, toTimestamp(event.getReceivedAt()));
-            ps.setString(i++, event.getKafkaTopic());
-            ps.setInt(i++, event.getKafkaPartition());
-            ps.setLong(i++, event.getKafkaOffset());
-            ps.setString(i++, event.getPayload());
-            ps.setString(i++, event.getProcessingStatus());
-            ps.setString(i, event.getErrorMessage());
+            bindInsert(ps, event);
             return ps;
         }, keyHolder);
-
+        callEvent.finish(updated);
 
         // When DO NOTHING is triggered, updated == 0 and keyHolder has no key
         if (updated == 0) {
@@ -119,10 +113,10 @@ public class RawSearchEventRepository {
             WHERE kafka_topic = ? AND kafka_partition = ? AND kafka_offset = ?
             """;
 
-        return jdbcTemplate
-                .query(sql, ROW_MAPPER, topic, partition, offset)
-                .stream()
-                .findFirst();
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "findByKafkaPosition", SqlKind.SELECT);
+        List<RawSearchEvent> events = jdbcTemplate.query(sql, ROW_MAPPER, topic, partition, offset);
+        event.finish(events.size());
+        return events.stream().findFirst();
     }
 
     /**
@@ -134,7 +128,28 @@ public class RawSearchEventRepository {
             SET processing_status = ?, error_message = ?
             WHERE id = ?
             """;
-        jdbcTemplate.update(sql, status, errorMessage, id);
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "updateStatusAndError", SqlKind.UPDATE);
+        int rows = jdbcTemplate.update(sql, status, errorMessage, id);
+        event.finish(rows);
+    }
+
+    /**
+     * Binds the 12 insert parameters of {@link #save} (package-private for benchmarks).
+     */
+    static void bindInsert(PreparedStatement ps, RawSearchEvent event) throws SQLException {
+        int i = 1;
+        ps.setString(i++, event.getEventKey());
+        ps.setString(i++, event.getUserId());
+        ps.setString(i++, event.getQuery());
+        ps.setString(i++, event.getCountry());
+        ps.setTimestamp(i++, toTimestamp(event.getOccurredAt()));
+        ps.setTimestamp(i++, toTimestamp(event.getReceivedAt()));
+        ps.setString(i++, event.getKafkaTopic());
+        ps.setInt(i++, event.getKafkaPartition());
+        ps.setLong(i++, event.getKafkaOffset());
+        ps.setString(i++, event.getPayload());
+        ps.setString(i++, event.getProcessingStatus());
+        ps.setString(i, event.getErrorMessage());
     }
 
     private static Timestamp toTimestamp(Instant instant) {
@@ -1,16 +1,20 @@
 package com.github.dimitryivaniuta.searchanalytics.repository;
 
 import com.github.dimitryivaniuta.searchanalytics.model.SearchEventOutbox;
+import com.github.dimitryivaniuta.searchanalytics.profiling.RepositoryCallEvent;
+import com.github.dimitryivaniuta.searchanalytics.profiling.RepositoryCallEvent.SqlKind;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
 import java.sql.PreparedStatement;
-import java.sql.Statement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -19,7 +23,63 @@ public class SearchEventOutboxRepository {
 
     private final JdbcTemplate jdbcTemplate;
 
+    /**
+     * Postgres NOTIFY channel signalled on every outbox insert.
+     */
+    public static final String NOTIFY_CHANNEL = "search_event_outbox";
+
+    private static final String TABLE = "search_event_outbox";
+
+    private static final RowMapper<SearchEventOutbox> ROW_MAPPER = new SearchEventOutboxRowMapper();
+
+    /**
+     * Inserts an outbox row and emits NOTIFY on {@link #NOTIFY_CHANNEL} in the same round trip.
+     *
+     * The notification is delivered when the surrounding transaction commits (never for a
+     * rolled-back insert), waking OutboxNotificationListener -> OutboxRelay immediately.
+     * Postgres folds identical notifications within one transaction, so N inserts in a
+     * transaction still produce a single wake-up.
+     */
     public Long save(SearchEventOutbox event) {
+        String sql = """
+            WITH ins AS (
+                INSERT INTO search_event_outbox (
+                    aggregate_type, aggregate_id,
+                    event_type, payload, headers, partition_key,
+                    status, created_at, published_at, last_error
+                ) VALUES (?, ?, ?, ?::jsonb, ?::jsonb, ?, ?, ?, ?, ?)
+                RETURNING id
+            )
+            SELECT ins.id, pg_notify('%s', '') AS notified
+            FROM ins
+            """.formatted(NOTIFY_CHANNEL);
+
+        RepositoryCallEvent callEvent = RepositoryCallEvent.start(TABLE, "save", SqlKind.INSERT);
+        List<Long> ids = jdbcTemplate.query(sql,
+                (rs, rowNum) -> rs.getLong("id"),
+                event.getAggregateType(),
+                event.getAggregateId(),
+                event.getEventType(),
+                event.getPayload(),
+                event.getHeaders(),
+                event.getPartitionKey(),
+                event.getStatus(),
+                toTimestamp(event.getCreatedAt()),
+                toTimestamp(event.getPublishedAt()),
+                event.getLastError()
+        );
+        callEvent.finish(ids.size());
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    /**
+     * Inserts many outbox rows as one JDBC batch, then signals the relay once.
+     * Intended to run inside the caller's transaction (e.g. the stats flush).
+     */
+    public void saveAll(List<SearchEventOutbox> events) {
+        if (events.isEmpty()) {
+            return;
+        }
         String sql = """
             INSERT INTO search_event_outbox (
                 aggregate_type, aggregate_id,
@@ -28,10 +88,8 @@ public class SearchEventOutboxRepository {
             ) VALUES (?, ?, ?, ?::jsonb, ?::jsonb, ?, ?, ?, ?, ?)
             """;
 
-        KeyHolder keyHolder = new GeneratedKeyHolder();
-
-        jdbcTemplate.update(con -> {
-            PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+        RepositoryCallEvent callEvent = RepositoryCallEvent.start(TABLE, "saveAll", SqlKind.INSERT);
+        jdbcTemplate.batchUpdate(sql, events, events.size(), (ps, event) -> {
             ps.setString(1, event.getAggregateType());
             ps.setString(2, event.getAggregateId());
             ps.setString(3, event.getEventType());
@@ -42,11 +100,14 @@ public class SearchEventOutboxRepository {
             ps.setTimestamp(8, toTimestamp(event.getCreatedAt()));
             ps.setTimestamp(9, toTimestamp(event.getPublishedAt()));
             ps.setString(10, event.getLastError());
-            return ps;
-        }, keyHolder);
+        });
+        callEvent.finish(events.size());
 
-        Number key = keyHolder.getKey();
-        return key != null ? key.longValue() : null;
+        RepositoryCallEvent notifyEvent = RepositoryCallEvent.start(TABLE, "notify", SqlKind.NOTIFY);
+        jdbcTemplate.query("SELECT pg_notify(?, '')",
+                (ResultSetExtractor<Void>) rs -> null,
+                NOTIFY_CHANNEL);
+        notifyEvent.finish(1);
     }
 
     /**
@@ -56,28 +117,44 @@ public class SearchEventOutboxRepository {
         String sql = """
             SELECT id, aggregate_type, aggregate_id,
                    event_type, payload, headers, partition_key,
-                   status, created_at, published_at, last_error
+                   status, created_at, published_at, last_error,
+                   attempts, next_attempt_at
             FROM search_event_outbox
             WHERE status = 'NEW'
             ORDER BY created_at ASC
             LIMIT ?
             """;
-        return jdbcTemplate.query(sql,
-                (rs, rowNum) -> SearchEventOutbox.builder()
-                        .id(rs.getLong("id"))
-                        .aggregateType(rs.getString("aggregate_type"))
-                        .aggregateId(rs.getString("aggregate_id"))
-                        .eventType(rs.getString("event_type"))
-                        .payload(rs.getString("payload"))
-                        .headers(rs.getString("headers"))
-                        .partitionKey(rs.getString("partition_key"))
-                        .status(rs.getString("status"))
-                        .createdAt(toInstant(rs.getTimestamp("created_at")))
-                        .publishedAt(toInstant(rs.getTimestamp("published_at")))
-                        .lastError(rs.getString("last_error"))
-                        .build(),
-                limit
-        );
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "findNextNewEvents", SqlKind.SELECT);
+        List<SearchEventOutbox> events = jdbcTemplate.query(sql, ROW_MAPPER, limit);
+        event.finish(events.size());
+        return events;
+    }
+
+    /**
+     * Claims up to {@code limit} NEW events that are due (next_attempt_at reached) for the current transaction.
+     *
+     * FOR UPDATE SKIP LOCKED: rows locked by another relay worker / instance are skipped
+     * instead of waited on, so concurrent relays split the backlog without ever
+     * publishing the same row twice. Must run inside a transaction – the locks are
+     * held until it commits (after the batch is marked published).
+     */
+    public List<SearchEventOutbox> claimNextBatch(int limit) {
+        String sql = """
+            SELECT id, aggregate_type, aggregate_id,
+                   event_type, payload, headers, partition_key,
+                   status, created_at, published_at, last_error,
+                   attempts, next_attempt_at
+            FROM search_event_outbox
+            WHERE status = 'NEW'
+              AND (next_attempt_at IS NULL OR next_attempt_at <= NOW())
+            ORDER BY created_at ASC, id ASC
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+            """;
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "claimNextBatch", SqlKind.SELECT);
+        List<SearchEventOutbox> events = jdbcTemplate.query(sql, ROW_MAPPER, limit);
+        event.finish(events.size());
+        return events;
     }
 
     public void markPublished(Long id) {
@@ -88,7 +165,33 @@ public class SearchEventOutboxRepository {
                 last_error = NULL
             WHERE id = ?
             """;
-        jdbcTemplate.update(sql, id);
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "markPublished", SqlKind.UPDATE);
+        int rows = jdbcTemplate.update(sql, id);
+        event.finish(rows);
+    }
+
+    /**
+     * Marks a whole relay batch PUBLISHED with one statement.
+     */
+    public int markPublished(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String sql = """
+            UPDATE search_event_outbox
+            SET status = 'PUBLISHED',
+                published_at = NOW(),
+                last_error = NULL
+            WHERE id = ANY(?)
+            """;
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "markPublishedBatch", SqlKind.UPDATE);
+        int rows = jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, con.createArrayOf("bigint", ids.toArray()));
+            return ps;
+        });
+        event.finish(rows);
+        return rows;
     }
 
     public void markFailed(Long id, String errorMessage) {
@@ -98,7 +201,36 @@ public class SearchEventOutboxRepository {
                 last_error = ?
             WHERE id = ?
             """;
-        jdbcTemplate.update(sql, errorMessage, id);
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "markFailed", SqlKind.UPDATE);
+        int rows = jdbcTemplate.update(sql, errorMessage, id);
+        event.finish(rows);
+    }
+
+    /**
+     * Stores the outcome of failed publish attempts (status, attempts, next_attempt_at, last_error)
+     * as one JDBC batch.
+     */
+    public void saveFailedAttempts(List<SearchEventOutbox> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        String sql = """
+            UPDATE search_event_outbox
+            SET status = ?,
+                attempts = ?,
+                next_attempt_at = ?,
+                last_error = ?
+            WHERE id = ?
+            """;
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "saveFailedAttempts", SqlKind.UPDATE);
+        jdbcTemplate.batchUpdate(sql, events, events.size(), (ps, outbox) -> {
+            ps.setString(1, outbox.getStatus());
+            ps.setInt(2, outbox.getAttempts());
+            ps.setTimestamp(3, toTimestamp(outbox.getNextAttemptAt()));
+            ps.setString(4, outbox.getLastError());
+            ps.setLong(5, outbox.getId());
+        });
+        event.finish(events.size());
     }
 
     private static Timestamp toTimestamp(Instant instant) {
@@ -108,4 +240,25 @@ public class SearchEventOutboxRepository {
     private static Instant toInstant(Timestamp timestamp) {
         return timestamp != null ? timestamp.toInstant() : null;
     }
+
+    private static class SearchEventOutboxRowMapper implements RowMapper<SearchEventOutbox> {
+        @Override
+        public SearchEventOutbox mapRow(ResultSet rs, int rowNum) throws SQLException {
+            return SearchEventOutbox.builder()
+                    .id(rs.getLong("id"))
+                    .aggregateType(rs.getString("aggregate_type"))
+                    .aggregateId(rs.getString("aggregate_id"))
+                    .eventType(rs.getString("event_type"))
+                    .payload(rs.getString("payload"))
+                    .headers(rs.getString("headers"))
+                    .partitionKey(rs.getString("partition_key"))
+                    .status(rs.getString("status"))
+                    .createdAt(toInstant(rs.getTimestamp("created_at")))
+                    .publishedAt(toInstant(rs.getTimestamp("published_at")))
+                    .lastError(rs.getString("last_error"))
+                    .attempts(rs.getInt("attempts"))
+                    .nextAttemptAt(toInstant(rs.getTimestamp("next_attempt_at")))
+                    .build();
+        }
+    }
 }
@@ -1,36 +1,48 @@
 package com.github.dimitryivaniuta.searchanalytics.repository;
 
 import com.github.dimitryivaniuta.searchanalytics.model.SearchEventProcessingError;
+import com.github.dimitryivaniuta.searchanalytics.profiling.RepositoryCallEvent;
+import com.github.dimitryivaniuta.searchanalytics.profiling.RepositoryCallEvent.SqlKind;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 @RequiredArgsConstructor
 public class SearchEventProcessingErrorRepository {
 
+    private static final String TABLE = "search_event_processing_errors";
+
     private final JdbcTemplate jdbcTemplate;
 
+    private static final RowMapper<SearchEventProcessingError> ROW_MAPPER = new ProcessingErrorRowMapper();
+
     public Long save(SearchEventProcessingError error) {
         String sql = """
             INSERT INTO search_event_processing_errors (
                 raw_event_id,
                 kafka_topic, kafka_partition, kafka_offset,
-                error_type, error_message, stack_trace,
+                error_type, error_message, stack_trace, fingerprint,
                 retry_count, last_retry_at, occurred_at
-            ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
             """;
 
         KeyHolder keyHolder = new GeneratedKeyHolder();
 
-        jdbcTemplate.update(con -> {
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "save", SqlKind.INSERT);
+        int rows = jdbcTemplate.update(con -> {
             PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
             if (error.getRawEventId() != null) {
                 ps.setLong(1, error.getRawEventId());
@@ -43,11 +55,13 @@ public class SearchEventProcessingErrorRepository {
             ps.setString(5, error.getErrorType());
             ps.setString(6, error.getErrorMessage());
             ps.setString(7, error.getStackTrace());
-            ps.setInt(8, error.getRetryCount());
-            ps.setTimestamp(9, toTimestamp(error.getLastRetryAt()));
-            ps.setTimestamp(10, toTimestamp(error.getOccurredAt()));
+            ps.setString(8, error.getFingerprint());
+            ps.setInt(9, error.getRetryCount());
+            ps.setTimestamp(10, toTimestamp(error.getLastRetryAt()));
+            ps.setTimestamp(11, toTimestamp(error.getOccurredAt()));
             return ps;
         }, keyHolder);
+        event.finish(rows);
 
         Number key = keyHolder.getKey();
         return key != null ? key.longValue() : null;
@@ -60,10 +74,97 @@ public class SearchEventProcessingErrorRepository {
                 last_retry_at = NOW()
             WHERE id = ?
             """;
-        jdbcTemplate.update(sql, id);
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "incrementRetry", SqlKind.UPDATE);
+        int rows = jdbcTemplate.update(sql, id);
+        event.finish(rows);
+    }
+
+    public Optional<SearchEventProcessingError> findById(Long id) {
+        String sql = """
+            SELECT id, raw_event_id,
+                   kafka_topic, kafka_partition, kafka_offset,
+                   error_type, error_message, stack_trace, fingerprint,
+                   retry_count, last_retry_at, occurred_at,
+                   retry_status, next_retry_at, resolved_at
+            FROM search_event_processing_errors
+            WHERE id = ?
+            """;
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "findById", SqlKind.SELECT);
+        List<SearchEventProcessingError> errors = jdbcTemplate.query(sql, ROW_MAPPER, id);
+        event.finish(errors.size());
+        return errors.stream().findFirst();
+    }
+
+    public void markRetryScheduled(Long id, Instant nextRetryAt) {
+        String sql = """
+            UPDATE search_event_processing_errors
+            SET retry_status = 'RETRY_SCHEDULED',
+                next_retry_at = ?
+            WHERE id = ?
+            """;
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "markRetryScheduled", SqlKind.UPDATE);
+        int rows = jdbcTemplate.update(sql, toTimestamp(nextRetryAt), id);
+        event.finish(rows);
+    }
+
+    public void markResolved(Long id) {
+        String sql = """
+            UPDATE search_event_processing_errors
+            SET retry_status = 'RESOLVED',
+                next_retry_at = NULL,
+                resolved_at = NOW()
+            WHERE id = ?
+            """;
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "markResolved", SqlKind.UPDATE);
+        int rows = jdbcTemplate.update(sql, id);
+        event.finish(rows);
+    }
+
+    /**
+     * Permanently failed: keeps the last error message for manual inspection.
+     */
+    public void markParked(Long id, String lastErrorMessage) {
+        String sql = """
+            UPDATE search_event_processing_errors
+            SET retry_status = 'PARKED',
+                next_retry_at = NULL,
+                error_message = COALESCE(?, error_message)
+            WHERE id = ?
+            """;
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "markParked", SqlKind.UPDATE);
+        int rows = jdbcTemplate.update(sql, lastErrorMessage, id);
+        event.finish(rows);
     }
 
     private static Timestamp toTimestamp(Instant instant) {
         return instant != null ? Timestamp.from(instant) : null;
     }
+
+    private static Instant toInstant(Timestamp ts) {
+        return ts != null ? ts.toInstant() : null;
+    }
+
+    private static class ProcessingErrorRowMapper implements RowMapper<SearchEventProcessingError> {
+        @Override
+        public SearchEventProcessingError mapRow(ResultSet rs, int rowNum) throws SQLException {
+            long rawEventId = rs.getLong("raw_event_id");
+            return SearchEventProcessingError.builder()
+                    .id(rs.getLong("id"))
+                    .rawEventId(rs.wasNull() ? null : rawEventId)
+                    .kafkaTopic(rs.getString("kafka_topic"))
+                    .kafkaPartition(rs.getInt("kafka_partition"))
+                    .kafkaOffset(rs.getLong("kafka_offset"))
+                    .errorType(rs.getString("error_type"))
+                    .errorMessage(rs.getString("error_message"))
+                    .stackTrace(rs.getString("stack_trace"))
+                    .fingerprint(rs.getString("fingerprint"))
+                    .retryCount(rs.getInt("retry_count"))
+                    .lastRetryAt(toInstant(rs.getTimestamp("last_retry_at")))
+                    .occurredAt(toInstant(rs.getTimestamp("occurred_at")))
+                    .retryStatus(rs.getString("retry_status"))
+                    .nextRetryAt(toInstant(rs.getTimestamp("next_retry_at")))
+                    .resolvedAt(toInstant(rs.getTimestamp("resolved_at")))
+                    .build();
+        }
+    }
 }
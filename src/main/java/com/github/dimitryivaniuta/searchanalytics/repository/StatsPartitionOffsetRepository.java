@@ -0,0 +1,81 @@
+package com.github.dimitryivaniuta.searchanalytics.repository;
+
+import com.github.dimitryivaniuta.searchanalytics.profiling.RepositoryCallEvent;
+import com.github.dimitryivaniuta.searchanalytics.profiling.RepositoryCallEvent.SqlKind;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * JDBC-based repository for stats_partition_offsets (PARTITIONED stats mode).
+ * Every call emits a {@link RepositoryCallEvent} (JFR) when recording is active.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StatsPartitionOffsetRepository {
+
+    private static final String TABLE = "stats_partition_offsets";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Stored next offsets of {@code partitions}; partitions never flushed are absent.
+     */
+    public Map<Integer, Long> findOffsets(String consumerGroup, String topic, Collection<Integer> partitions) {
+        Map<Integer, Long> offsets = new HashMap<>();
+        if (partitions.isEmpty()) {
+            return offsets;
+        }
+        String sql = """
+            SELECT kafka_partition, next_offset
+            FROM stats_partition_offsets
+            WHERE consumer_group = ? AND topic = ? AND kafka_partition = ANY (?::int[])
+            """;
+        Integer[] partitionArray = partitions.toArray(new Integer[0]);
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "findOffsets", SqlKind.SELECT);
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setString(1, consumerGroup);
+            ps.setString(2, topic);
+            ps.setArray(3, con.createArrayOf("int4", partitionArray));
+            return ps;
+        }, rs -> {
+            offsets.put(rs.getInt("kafka_partition"), rs.getLong("next_offset"));
+        });
+        event.finish(offsets.size());
+        return offsets;
+    }
+
+    /**
+     * Moves the partition from {@code expectedOffset} (null = no row yet) to {@code nextOffset}.
+     *
+     * @return false if the stored offset is not the expected one – another consumer flushed the
+     *         partition since this one loaded it, so this consumer's state must be discarded
+     */
+    public boolean advance(String consumerGroup, String topic, int partition, Long expectedOffset, long nextOffset) {
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "advance", SqlKind.UPSERT);
+        int rows;
+        if (expectedOffset == null) {
+            String sql = """
+                INSERT INTO stats_partition_offsets(consumer_group, topic, kafka_partition, next_offset)
+                VALUES (?, ?, ?, ?)
+                ON CONFLICT (consumer_group, topic, kafka_partition) DO NOTHING
+                """;
+            rows = jdbcTemplate.update(sql, consumerGroup, topic, partition, nextOffset);
+        } else {
+            String sql = """
+                UPDATE stats_partition_offsets
+                SET next_offset = ?, updated_at = NOW()
+                WHERE consumer_group = ? AND topic = ? AND kafka_partition = ? AND next_offset = ?
+                """;
+            rows = jdbcTemplate.update(sql, nextOffset, consumerGroup, topic, partition, expectedOffset);
+        }
+        event.finish(rows);
+        return rows == 1;
+    }
+}
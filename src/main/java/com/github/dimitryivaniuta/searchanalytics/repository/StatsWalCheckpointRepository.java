@@ -0,0 +1,53 @@
+package com.github.dimitryivaniuta.searchanalytics.repository;
+
+import com.github.dimitryivaniuta.searchanalytics.profiling.RepositoryCallEvent;
+import com.github.dimitryivaniuta.searchanalytics.profiling.RepositoryCallEvent.SqlKind;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * JDBC-based repository for stats_wal_checkpoints (StatsWal).
+ * Every call emits a {@link RepositoryCallEvent} (JFR) when recording is active.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StatsWalCheckpointRepository {
+
+    private static final String TABLE = "stats_wal_checkpoints";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * LSN up to which the WAL's records are in daily_query_stats (0 if it was never flushed).
+     */
+    public long findLsn(String walId) {
+        String sql = """
+            SELECT lsn
+            FROM stats_wal_checkpoints
+            WHERE wal_id = ?
+            """;
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "findLsn", SqlKind.SELECT);
+        List<Long> rows = jdbcTemplate.queryForList(sql, Long.class, walId);
+        event.finish(rows.size());
+        return rows.isEmpty() ? 0L : rows.get(0);
+    }
+
+    /**
+     * Moves the checkpoint forward to {@code lsn}; never moves it back.
+     */
+    public void save(String walId, long lsn) {
+        String sql = """
+            INSERT INTO stats_wal_checkpoints(wal_id, lsn)
+            VALUES (?, ?)
+            ON CONFLICT (wal_id)
+            DO UPDATE SET lsn = GREATEST(stats_wal_checkpoints.lsn, EXCLUDED.lsn),
+                          updated_at = NOW()
+            """;
+        RepositoryCallEvent event = RepositoryCallEvent.start(TABLE, "save", SqlKind.UPSERT);
+        int rows = jdbcTemplate.update(sql, walId, lsn);
+        event.finish(rows);
+    }
+}
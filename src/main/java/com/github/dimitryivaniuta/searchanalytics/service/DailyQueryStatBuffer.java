@@ -0,0 +1,273 @@
+package com.github.dimitryivaniuta.searchanalytics.service;
+
+import com.github.dimitryivaniuta.searchanalytics.bulkhead.BulkheadRegistry;
+import com.github.dimitryivaniuta.searchanalytics.config.StatsProperties;
+import com.github.dimitryivaniuta.searchanalytics.model.DailyQueryStat;
+import com.github.dimitryivaniuta.searchanalytics.model.DayQueryKey;
+import com.github.dimitryivaniuta.searchanalytics.repository.DailyQueryStatRepository;
+import com.github.dimitryivaniuta.searchanalytics.wal.StatsWal;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.support.TopicPartitionOffset;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory coalescing of daily_query_stats increments (app.stats.write-mode=COALESCED).
+ *
+ * Flow:
+ *  - add(): append to the StatsWal (if enabled), add 1 to (day, query) in one of STRIPES
+ *    {@link DayQueryCounterMap}s (picked by the key hash, each behind its own lock) – no DB round-trip
+ *    and no allocation on the consumer thread once the key is known.
+ *  - flush() every app.stats.flush-interval:
+ *      1. swap the current stripes for the (cleared) spare set and note the WAL end (write lock, O(1)),
+ *         then copy the swapped-out counters into the upsert's Map and clear them for the next swap,
+ *      2. BEGIN; one unnest() upsert for all keys RETURNING the new absolute counts,
+ *      3. optionally one batched insert of SEARCH_STATS_UPDATED outbox rows (count + delta),
+ *      4. move the WAL checkpoint to the noted end,
+ *      5. COMMIT, truncate WAL segments before it. On failure the deltas are merged back and
+ *         retried on the next flush (their WAL records stay until a later checkpoint covers them).
+ *    The flush runs in the ingest bulkhead, like the listener it serves.
+ *  - on start-up the WAL records after the checkpoint are replayed into the map.
+ *
+ * Trade-off: without app.stats.wal.enabled, increments buffered since the last flush are lost if
+ * the process dies (the records are already acked).
+ */
+@Slf4j
+@Component
+public class DailyQueryStatBuffer {
+
+    private final DailyQueryStatRepository repository;
+    private final SearchEventOutboxService outboxService;
+    private final StatsProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final BulkheadRegistry bulkheads;
+    private final StatsWal wal;
+
+    /**
+     * Independent counter maps; listener threads only contend when their keys hash to the same one.
+     */
+    private static final int STRIPES = 16;
+    private static final int STRIPE_SHIFT = Integer.SIZE - Integer.numberOfTrailingZeros(STRIPES);
+
+    /**
+     * add() takes the read lock (many concurrent writers), the swap takes the write lock,
+     * so no increment can land in a map that is already being flushed.
+     */
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private Stripe[] pending = newStripes();
+    /**
+     * Stripes swapped out by the previous flush, cleared; guarded by flushLock.
+     */
+    private Stripe[] spare = newStripes();
+
+    private static final class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final DayQueryCounterMap counts = new DayQueryCounterMap();
+    }
+
+    /**
+     * Deltas swapped out of {@code pending} and the WAL end at the time of the swap.
+     */
+    private record Drained(Map<DayQueryKey, Long> deltas, long walLsn) {
+    }
+
+    public DailyQueryStatBuffer(DailyQueryStatRepository repository,
+                                SearchEventOutboxService outboxService,
+                                StatsProperties properties,
+                                PlatformTransactionManager transactionManager,
+                                BulkheadRegistry bulkheads,
+                                StatsWal wal) {
+        this.repository = repository;
+        this.outboxService = outboxService;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bulkheads = bulkheads;
+        this.wal = wal;
+    }
+
+    @PostConstruct
+    public void replayWal() {
+        if (wal.isEnabled()) {
+            wal.replay(this::add);
+        }
+    }
+
+    public void add(LocalDate day, String query) {
+        add(day, query, null);
+    }
+
+    /**
+     * @param source record the increment comes from, logged to the WAL (null – not consumed from Kafka)
+     */
+    public void add(LocalDate day, String query, TopicPartitionOffset source) {
+        swapLock.readLock().lock();
+        try {
+            if (wal.isEnabled()) {
+                wal.append(day, query, 1L, source);
+            }
+            increment(day.toEpochDay(), query, 1L);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of distinct (day, query) keys waiting for the next flush.
+     */
+    public int pendingKeys() {
+        swapLock.readLock().lock();
+        try {
+            int keys = 0;
+            for (Stripe stripe : pending) {
+                stripe.lock.lock();
+                try {
+                    keys += stripe.counts.size();
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+            return keys;
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.stats.flush-interval:PT1S}")
+    public void scheduledFlush() {
+        try {
+            flush();
+        } catch (Exception ex) {
+            log.error("Stats flush failed, deltas kept for the next attempt", ex);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        scheduledFlush();
+    }
+
+    /**
+     * Writes everything buffered so far.
+     *
+     * @return number of (day, query) rows upserted
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            Drained drained = drain();
+            Map<DayQueryKey, Long> deltas = drained.deltas();
+            if (deltas.isEmpty()) {
+                return 0;
+            }
+            try {
+                bulkheads.ingest().run(() -> transactionTemplate.executeWithoutResult(status -> {
+                    List<DailyQueryStat> stats = repository.incrementCounts(deltas);
+                    if (properties.isEmitOutboxEvents()) {
+                        outboxService.createStatsUpdatedEvents(stats, deltas);
+                    }
+                    if (wal.isEnabled()) {
+                        wal.checkpoint(drained.walLsn());
+                    }
+                }));
+            } catch (RuntimeException ex) {
+                deltas.forEach(this::add);
+                throw ex;
+            }
+            if (wal.isEnabled()) {
+                wal.truncate(drained.walLsn());
+            }
+            log.debug("Flushed {} coalesced stats rows", deltas.size());
+            return deltas.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void add(DayQueryKey key, long delta) {
+        swapLock.readLock().lock();
+        try {
+            increment(key.day().toEpochDay(), key.query(), delta);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Caller holds the read lock. The stripe comes from the high hash bits, the map's slot from the low ones.
+     */
+    private void increment(long epochDay, String query, long delta) {
+        Stripe stripe = pending[DayQueryCounterMap.hash(epochDay, query) >>> STRIPE_SHIFT];
+        stripe.lock.lock();
+        try {
+            stripe.counts.add(epochDay, query, delta);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Caller holds flushLock.
+     */
+    private Drained drain() {
+        Stripe[] drained;
+        long walLsn;
+        swapLock.writeLock().lock();
+        try {
+            if (isEmpty(pending)) {
+                return new Drained(Map.of(), 0L);
+            }
+            drained = pending;
+            walLsn = wal.isEnabled() ? wal.endLsn() : 0L;
+            pending = spare;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+
+        // no writer can reach the swapped-out stripes any more: the write lock waited for all of them
+        int keys = 0;
+        for (Stripe stripe : drained) {
+            keys += stripe.counts.size();
+        }
+        Map<DayQueryKey, Long> deltas = new HashMap<>(Math.max(16, keys * 2));
+        for (Stripe stripe : drained) {
+            stripe.counts.forEach((epochDay, query, count) ->
+                    deltas.put(new DayQueryKey(LocalDate.ofEpochDay(epochDay), query), count));
+            stripe.counts.clear();
+        }
+        spare = drained;
+        return new Drained(deltas, walLsn);
+    }
+
+    /**
+     * Caller holds the write lock.
+     */
+    private static boolean isEmpty(Stripe[] stripes) {
+        for (Stripe stripe : stripes) {
+            if (!stripe.counts.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Stripe[] newStripes() {
+        Stripe[] stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        return stripes;
+    }
+}
@@ -1,9 +1,12 @@
 package com.github.dimitryivaniuta.searchanalytics.service;
 
+import com.github.dimitryivaniuta.searchanalytics.config.StatsProperties;
 import com.github.dimitryivaniuta.searchanalytics.model.DailyQueryStat;
 import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
 import com.github.dimitryivaniuta.searchanalytics.repository.DailyQueryStatRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.kafka.support.TopicPartitionOffset;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
@@ -13,21 +16,53 @@ import java.util.List;
 /**
  * Domain service for updating and querying daily search statistics.
  */
+@EnableConfigurationProperties(StatsProperties.class)
 @Service
 @RequiredArgsConstructor
 public class DailyQueryStatService {
 
     private final DailyQueryStatRepository repository;
+    private final DailyQueryStatBuffer buffer;
+    private final StatsProperties properties;
+    private final HotKeyDetector hotKeys;
 
     /**
      * Called from Kafka listener (or another orchestration service) to
      * increment daily stats based on incoming search event.
+     *
+     * DIRECT writes through immediately; COALESCED only buffers the increment
+     * and {@link DailyQueryStatBuffer} upserts it on its next flush.
+     * In DIRECT mode a key {@link HotKeyDetector} reports as hot goes to this thread's stripe row
+     * instead, so concurrent writers of a viral query do not queue on one row lock.
+     * In PARTITIONED mode the listener goes through {@link PartitionedStatsAggregator}; only events
+     * without a partition (DLT retries) get here and are written directly.
      */
     public void incrementFromEvent(SearchEventPayload event) {
-        LocalDate day = event.getOccurredAt()
+        incrementFromEvent(event, null);
+    }
+
+    /**
+     * Same as {@link #incrementFromEvent(SearchEventPayload)} for the record at {@code source}
+     * (null – not consumed from Kafka); COALESCED logs it with the increment to the stats WAL.
+     */
+    public void incrementFromEvent(SearchEventPayload event, TopicPartitionOffset source) {
+        LocalDate day = eventDay(event);
+        if (properties.getWriteMode() == StatsProperties.WriteMode.COALESCED) {
+            buffer.add(day, event.getQuery(), source);
+        } else if (hotKeys.record(day, event.getQuery())) {
+            repository.incrementStripe(day, event.getQuery(), hotKeys.stripe());
+        } else {
+            repository.incrementCount(day, event.getQuery());
+        }
+    }
+
+    /**
+     * UTC day an event is counted under.
+     */
+    public static LocalDate eventDay(SearchEventPayload event) {
+        return event.getOccurredAt()
                 .atZone(ZoneOffset.UTC)
                 .toLocalDate();
-        repository.incrementCount(day, event.getQuery());
     }
 
     public List<DailyQueryStat> getTopForDay(LocalDate day, int limit) {
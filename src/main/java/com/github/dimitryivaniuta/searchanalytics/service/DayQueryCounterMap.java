@@ -0,0 +1,221 @@
+package com.github.dimitryivaniuta.searchanalytics.service;
+
+import com.github.dimitryivaniuta.searchanalytics.model.DayQueryKey;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Open-addressing (day, query) -> long counter map for the in-memory stats combiners
+ * (DailyQueryStatBuffer, PartitionedStatsAggregator).
+ *
+ * Layout:
+ *  - slots: entry index + 1 per slot (0 = free), linear probing, power-of-two capacity, load <= 1/2,
+ *  - entries, dense in insertion order: hash, epoch day, arena offset, length and count in parallel
+ *    primitive arrays,
+ *  - arena: one char[] holding the chars of every query back to back.
+ *
+ * The epoch day is packed into the 64-bit key before mixing, so one query on many days spreads over the
+ * table; a probe compares hash and day (ints) before it looks at any chars. Incrementing an existing key
+ * allocates nothing – no key object, no boxed Long, no encoding (String caches its hashCode). A new key
+ * copies its chars into the arena. Arrays grow by doubling and survive clear(), so a steady flush cycle
+ * only allocates the Map handed to the repository.
+ *
+ * Not thread-safe; callers guard each instance with a lock.
+ */
+public final class DayQueryCounterMap {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final int AVERAGE_QUERY_CHARS = 16;
+
+    private int[] slots;
+    private int mask;
+
+    private int[] hashes;
+    private int[] days;
+    private int[] offsets;
+    private int[] lengths;
+    private long[] counts;
+    private int size;
+
+    private char[] arena;
+    private int arenaSize;
+
+    /**
+     * Receives one entry of {@link #forEach}.
+     */
+    @FunctionalInterface
+    public interface EntryVisitor {
+        void accept(long epochDay, String query, long count);
+    }
+
+    public DayQueryCounterMap() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    public DayQueryCounterMap(int expectedKeys) {
+        int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, expectedKeys * 2) - 1) << 1;
+        slots = new int[capacity];
+        mask = capacity - 1;
+        int entries = capacity / 2;
+        hashes = new int[entries];
+        days = new int[entries];
+        offsets = new int[entries];
+        lengths = new int[entries];
+        counts = new long[entries];
+        arena = new char[entries * AVERAGE_QUERY_CHARS];
+    }
+
+    /**
+     * Key hash: query hash in the high and epoch day in the low 32 bits of one long, then mixed
+     * (MurmurHash3 fmix64). High bits are as good as low bits, so callers may shard on them.
+     */
+    public static int hash(long epochDay, String query) {
+        long key = ((long) query.hashCode() << 32) | (epochDay & 0xFFFF_FFFFL);
+        key ^= key >>> 33;
+        key *= 0xFF51_AFD7_ED55_8CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CE_B9FE_1A85_EC53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    public void add(LocalDate day, String query, long delta) {
+        add(day.toEpochDay(), query, delta);
+    }
+
+    public void add(long epochDay, String query, long delta) {
+        int hash = hash(epochDay, query);
+        int day = (int) epochDay;
+        int slot = hash & mask;
+        while (true) {
+            int entry = slots[slot] - 1;
+            if (entry < 0) {
+                insert(slot, hash, day, query, delta);
+                return;
+            }
+            if (hashes[entry] == hash && days[entry] == day && matches(entry, query)) {
+                counts[entry] += delta;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * @return the key's count, 0 if absent
+     */
+    public long get(long epochDay, String query) {
+        int hash = hash(epochDay, query);
+        int day = (int) epochDay;
+        int slot = hash & mask;
+        while (true) {
+            int entry = slots[slot] - 1;
+            if (entry < 0) {
+                return 0L;
+            }
+            if (hashes[entry] == hash && days[entry] == day && matches(entry, query)) {
+                return counts[entry];
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every key but keeps the arrays for reuse.
+     */
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        Arrays.fill(slots, 0);
+        size = 0;
+        arenaSize = 0;
+    }
+
+    /**
+     * Visits the keys in insertion order; each query is materialized as a new String.
+     */
+    public void forEach(EntryVisitor visitor) {
+        for (int entry = 0; entry < size; entry++) {
+            visitor.accept(days[entry], new String(arena, offsets[entry], lengths[entry]), counts[entry]);
+        }
+    }
+
+    /**
+     * Copy in the shape the repository takes.
+     */
+    public Map<DayQueryKey, Long> toMap() {
+        Map<DayQueryKey, Long> map = new HashMap<>(Math.max(16, size * 2));
+        forEach((epochDay, query, count) -> map.put(new DayQueryKey(LocalDate.ofEpochDay(epochDay), query), count));
+        return map;
+    }
+
+    private boolean matches(int entry, String query) {
+        int length = lengths[entry];
+        if (length != query.length()) {
+            return false;
+        }
+        int offset = offsets[entry];
+        for (int i = 0; i < length; i++) {
+            if (arena[offset + i] != query.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void insert(int slot, int hash, int day, String query, long delta) {
+        if (size == hashes.length) {
+            growEntries();
+        }
+        int length = query.length();
+        if (arenaSize + length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + length));
+        }
+        query.getChars(0, length, arena, arenaSize);
+
+        hashes[size] = hash;
+        days[size] = day;
+        offsets[size] = arenaSize;
+        lengths[size] = length;
+        counts[size] = delta;
+        arenaSize += length;
+        slots[slot] = ++size;
+
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+    }
+
+    private void growEntries() {
+        int capacity = hashes.length * 2;
+        hashes = Arrays.copyOf(hashes, capacity);
+        days = Arrays.copyOf(days, capacity);
+        offsets = Arrays.copyOf(offsets, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        counts = Arrays.copyOf(counts, capacity);
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        mask = capacity - 1;
+        for (int entry = 0; entry < size; entry++) {
+            int slot = hashes[entry] & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = entry + 1;
+        }
+    }
+}
@@ -1,18 +1,30 @@
 package com.github.dimitryivaniuta.searchanalytics.service;
 
+import com.github.dimitryivaniuta.searchanalytics.error.ErrorFingerprint;
+import com.github.dimitryivaniuta.searchanalytics.error.ErrorRollup;
 import com.github.dimitryivaniuta.searchanalytics.model.SearchEventProcessingError;
 import com.github.dimitryivaniuta.searchanalytics.repository.SearchEventProcessingErrorRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class EventProcessingErrorService {
 
     private final SearchEventProcessingErrorRepository repository;
+    private final ErrorRollup rollup;
 
+    /**
+     * Records a failed event: one occurrence in the {@link ErrorRollup} plus one (small)
+     * search_event_processing_errors row, which the DLT reprocessor keeps its retry state on.
+     * The row references the error's fingerprint; the stack trace is stored once per fingerprint
+     * in error_fingerprints.
+     *
+     * @param failure the exception, or null for errors without one (e.g. VALIDATION)
+     */
     public Long logError(
             Long rawEventId,
             String topic,
@@ -20,16 +32,18 @@ public class EventProcessingErrorService {
             long offset,
             String errorType,
             String errorMessage,
-            String stackTrace
+            Throwable failure
     ) {
+        ErrorFingerprint fingerprint = rollup.record(errorType, errorMessage, failure);
+
         SearchEventProcessingError error = SearchEventProcessingError.builder()
                 .rawEventId(rawEventId)
                 .kafkaTopic(topic)
                 .kafkaPartition(partition)
                 .kafkaOffset(offset)
                 .errorType(errorType)
-                .errorMessage(errorMessage)
-                .stackTrace(stackTrace)
+                .errorMessage(errorMessage != null ? errorMessage : String.valueOf(failure))
+                .fingerprint(fingerprint.id())
                 .retryCount(0)
                 .occurredAt(Instant.now())
                 .build();
@@ -40,4 +54,20 @@ public class EventProcessingErrorService {
     public void incrementRetry(Long errorId) {
         repository.incrementRetry(errorId);
     }
+
+    public Optional<SearchEventProcessingError> findById(Long errorId) {
+        return repository.findById(errorId);
+    }
+
+    public void markRetryScheduled(Long errorId, Instant nextRetryAt) {
+        repository.markRetryScheduled(errorId, nextRetryAt);
+    }
+
+    public void markResolved(Long errorId) {
+        repository.markResolved(errorId);
+    }
+
+    public void markParked(Long errorId, String lastErrorMessage) {
+        repository.markParked(errorId, lastErrorMessage);
+    }
 }
@@ -0,0 +1,128 @@
+package com.github.dimitryivaniuta.searchanalytics.service;
+
+import com.github.dimitryivaniuta.searchanalytics.config.StatsProperties;
+import com.github.dimitryivaniuta.searchanalytics.config.StatsProperties.Striping;
+import com.github.dimitryivaniuta.searchanalytics.model.DayQueryKey;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Detects hot (day, query) keys so DIRECT writes can spread them over stripe rows.
+ *
+ * Flow:
+ *  - record() per increment: bump the key's counter in the current detection window; the increment
+ *    that reaches hot-threshold marks the key hot until now + cool-down.
+ *  - rotate() every detection-window: start a new window, keys still above the threshold stay hot
+ *    for another cool-down, expired keys go back to the single daily_query_stats row.
+ *  - stripe(): the stripe row this thread writes – fixed per (instance, thread), so each listener
+ *    thread (i.e. each partition) of each instance has its own row and never waits for another.
+ *
+ * Detection is per instance: with N instances a key is striped once ONE of them sees it hot.
+ */
+@Slf4j
+@Component
+public class HotKeyDetector implements MeterBinder {
+
+    private final Striping properties;
+    private final Clock clock;
+    private final long instanceSalt = ThreadLocalRandom.current().nextLong();
+
+    private volatile ConcurrentHashMap<DayQueryKey, AtomicLong> window = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<DayQueryKey, Long> hotUntil = new ConcurrentHashMap<>();
+    private final LongAdder promotions = new LongAdder();
+
+    @Autowired
+    public HotKeyDetector(StatsProperties properties) {
+        this(properties, Clock.systemUTC());
+    }
+
+    HotKeyDetector(StatsProperties properties, Clock clock) {
+        this.properties = properties.getStriping();
+        this.clock = clock;
+    }
+
+    /**
+     * Counts one increment of (day, query).
+     *
+     * @return true if the key is hot and the increment should go to a stripe row
+     */
+    public boolean record(LocalDate day, String query) {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+        DayQueryKey key = new DayQueryKey(day, query);
+        long count = window.computeIfAbsent(key, k -> new AtomicLong()).incrementAndGet();
+        if (count == properties.getHotThreshold()) {
+            if (hotUntil.put(key, clock.millis() + properties.getCoolDown().toMillis()) == null) {
+                promotions.increment();
+                log.info("Hot stats key {} / '{}' ({} increments in {}), striping over {} rows",
+                        day, query, count, properties.getDetectionWindow(), properties.getStripes());
+            }
+            return true;
+        }
+        Long until = hotUntil.get(key);
+        return until != null && until > clock.millis();
+    }
+
+    /**
+     * Stripe row for increments made by the current thread.
+     */
+    public int stripe() {
+        return (int) Math.floorMod(instanceSalt + Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L,
+                (long) properties.getStripes());
+    }
+
+    @Scheduled(fixedDelayString = "${app.stats.striping.detection-window:PT10S}")
+    public void rotate() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        ConcurrentHashMap<DayQueryKey, AtomicLong> finished = window;
+        window = new ConcurrentHashMap<>();
+        long now = clock.millis();
+        long until = now + properties.getCoolDown().toMillis();
+        finished.forEach((key, count) -> {
+            if (count.get() >= properties.getHotThreshold()) {
+                hotUntil.put(key, until);
+            }
+        });
+        hotUntil.entrySet().removeIf(entry -> {
+            boolean expired = entry.getValue() <= now;
+            if (expired) {
+                log.info("Stats key {} / '{}' cooled down, back to a single row",
+                        entry.getKey().day(), entry.getKey().query());
+            }
+            return expired;
+        });
+    }
+
+    /**
+     * Number of keys currently striped by this instance.
+     */
+    public int hotKeys() {
+        return hotUntil.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("search.stats.hot.keys", this, HotKeyDetector::hotKeys)
+                .description("(day, query) keys currently written to stripe rows")
+                .register(registry);
+        FunctionCounter.builder("search.stats.hot.promotions", promotions, LongAdder::sum)
+                .description("Keys that became hot and started striping")
+                .register(registry);
+    }
+}
@@ -0,0 +1,19 @@
+package com.github.dimitryivaniuta.searchanalytics.service;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Thrown when the ingest in-flight budget is exhausted; mapped to HTTP 429 + Retry-After.
+ */
+@Getter
+public class IngestOverloadedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public IngestOverloadedException(int inFlight, Duration retryAfter) {
+        super("Too many in-flight search events (" + inFlight + "), retry later");
+        this.retryAfter = retryAfter;
+    }
+}
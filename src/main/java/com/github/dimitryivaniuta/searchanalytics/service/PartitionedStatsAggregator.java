@@ -0,0 +1,426 @@
+package com.github.dimitryivaniuta.searchanalytics.service;
+
+import com.github.dimitryivaniuta.searchanalytics.bulkhead.BulkheadRegistry;
+import com.github.dimitryivaniuta.searchanalytics.config.DedupProperties;
+import com.github.dimitryivaniuta.searchanalytics.config.StatsProperties;
+import com.github.dimitryivaniuta.searchanalytics.dedup.EventDeduplicator;
+import com.github.dimitryivaniuta.searchanalytics.model.DailyQueryStat;
+import com.github.dimitryivaniuta.searchanalytics.model.DayQueryKey;
+import com.github.dimitryivaniuta.searchanalytics.repository.DailyQueryStatRepository;
+import com.github.dimitryivaniuta.searchanalytics.repository.ProcessedEventIdRepository;
+import com.github.dimitryivaniuta.searchanalytics.repository.StatsPartitionOffsetRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.support.KafkaUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Partition-affine stats aggregation (app.stats.write-mode=PARTITIONED) for running many instances.
+ *
+ * Each assigned partition has its own in-memory state: summed (day, query) deltas (a
+ * {@link DayQueryCounterMap}, reused across flushes), the eventIds behind them and the next offset
+ * to consume. The partition's row in stats_partition_offsets is the source of truth for
+ * "what has been counted":
+ *
+ *  - onPartitionsAssigned: load the stored offsets, seek there (records after the last flush are
+ *    re-consumed and counted once), register an empty state; maps are allocated on first record.
+ *  - admit() / add() / markConsumed() from the listener thread owning the partition.
+ *  - flush() every app.stats.flush-interval, per partition, ONE transaction:
+ *      deltas upsert + processed_event_ids insert + offset advance from the loaded value.
+ *    If the stored offset moved (another writer advanced the partition), the transaction rolls back,
+ *    the unflushed deltas are dropped and the partition is marked fenced (fencing). Those records were
+ *    already acked, so the next admit() on the listener thread reloads the stored offset and seeks the
+ *    consumer back to it when this consumer is past it: records fetched before the seek are skipped, and
+ *    the dropped range is consumed and counted again. Records below the stored offset are counted
+ *    already and skipped as well.
+ *  - onPartitionsRevokedBeforeCommit: flush the revoked partitions, then commitSync their offsets
+ *    to Kafka. With the cooperative-sticky assignor only partitions that actually move are revoked,
+ *    so the others keep consuming through the rebalance.
+ *  - onPartitionsLost: drop the state without flushing (the partition already has a new owner).
+ *
+ * Events retried from the DLT are not tied to a partition and are counted directly.
+ */
+@Slf4j
+@Component
+public class PartitionedStatsAggregator implements ConsumerAwareRebalanceListener, MeterBinder {
+
+    private final DailyQueryStatRepository statRepository;
+    private final StatsPartitionOffsetRepository offsetRepository;
+    private final ProcessedEventIdRepository processedEventIdRepository;
+    private final SearchEventOutboxService outboxService;
+    private final EventDeduplicator deduplicator;
+    private final StatsProperties properties;
+    private final DedupProperties dedupProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final BulkheadRegistry bulkheads;
+
+    private final ConcurrentHashMap<TopicPartition, PartitionState> states = new ConcurrentHashMap<>();
+    private final LongAdder flushedPartitions = new LongAdder();
+    private final LongAdder fencedPartitions = new LongAdder();
+
+    public PartitionedStatsAggregator(DailyQueryStatRepository statRepository,
+                                      StatsPartitionOffsetRepository offsetRepository,
+                                      ProcessedEventIdRepository processedEventIdRepository,
+                                      SearchEventOutboxService outboxService,
+                                      EventDeduplicator deduplicator,
+                                      StatsProperties properties,
+                                      DedupProperties dedupProperties,
+                                      PlatformTransactionManager transactionManager,
+                                      BulkheadRegistry bulkheads) {
+        this.statRepository = statRepository;
+        this.offsetRepository = offsetRepository;
+        this.processedEventIdRepository = processedEventIdRepository;
+        this.outboxService = outboxService;
+        this.deduplicator = deduplicator;
+        this.properties = properties;
+        this.dedupProperties = dedupProperties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bulkheads = bulkheads;
+    }
+
+    public boolean isEnabled() {
+        return properties.getWriteMode() == StatsProperties.WriteMode.PARTITIONED;
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (!isEnabled() || partitions.isEmpty()) {
+            return;
+        }
+        String group = consumer.groupMetadata().groupId();
+        Map<String, List<TopicPartition>> byTopic = new HashMap<>();
+        partitions.forEach(tp -> byTopic.computeIfAbsent(tp.topic(), t -> new ArrayList<>()).add(tp));
+        byTopic.forEach((topic, topicPartitions) -> {
+            Map<Integer, Long> stored = offsetRepository.findOffsets(group, topic,
+                    topicPartitions.stream().map(TopicPartition::partition).toList());
+            for (TopicPartition tp : topicPartitions) {
+                Long offset = stored.get(tp.partition());
+                if (offset != null) {
+                    consumer.seek(tp, offset);
+                }
+                states.put(tp, new PartitionState(group, offset));
+            }
+        });
+        log.info("Assigned {} partitions for PARTITIONED stats, resuming from stored offsets", partitions.size());
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (!isEnabled() || partitions.isEmpty()) {
+            return;
+        }
+        Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+        for (TopicPartition tp : partitions) {
+            PartitionState state = states.remove(tp);
+            if (state == null) {
+                continue;
+            }
+            try {
+                flush(tp, state);
+                if (state.committedOffset != null) {
+                    commits.put(tp, new OffsetAndMetadata(state.committedOffset));
+                }
+            } catch (RuntimeException ex) {
+                // nothing lost: the next owner resumes from the last stored offset
+                log.warn("Flush of revoked partition {} failed, the next owner re-consumes it", tp, ex);
+            }
+        }
+        if (!commits.isEmpty()) {
+            consumer.commitSync(commits);
+        }
+        log.info("Revoked {} partitions, flushed and committed {}", partitions.size(), commits.keySet());
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        partitions.forEach(states::remove);
+        if (isEnabled() && !partitions.isEmpty()) {
+            log.warn("Lost partitions {}, dropped their unflushed stats (re-consumed by the new owner)", partitions);
+        }
+    }
+
+    /**
+     * True if {@code eventId} is already counted in the partition's unflushed state.
+     */
+    public boolean isPending(TopicPartition partition, String eventId) {
+        if (eventId == null || eventId.isBlank()) {
+            return false;
+        }
+        PartitionState state = states.get(partition);
+        if (state == null) {
+            return false;
+        }
+        state.lock.lock();
+        try {
+            return state.eventIds != null && state.eventIds.contains(eventId);
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    /**
+     * Called by the listener (on the consumer thread) before a record is processed.
+     * After a fenced flush this reloads the partition's stored offset and, if this consumer already
+     * consumed past it, seeks back so the records whose counts were dropped are delivered again.
+     *
+     * @return false if the record must be skipped without processing or acking: it was fetched before
+     * the seek back (it is delivered again), or it is below the stored offset (counted by another writer)
+     */
+    public boolean admit(Consumer<?, ?> consumer, String topic, int partition, long offset) {
+        if (!isEnabled()) {
+            return true;
+        }
+        TopicPartition tp = new TopicPartition(topic, partition);
+        PartitionState state = states.get(tp);
+        if (state == null) {
+            return true;
+        }
+        state.lock.lock();
+        try {
+            if (state.fencedPosition >= 0) {
+                Long stored = offsetRepository.findOffsets(state.group, topic, List.of(partition)).get(partition);
+                state.committedOffset = stored;
+                state.nextOffset = stored != null ? stored : -1L;
+                if (stored != null && stored < state.fencedPosition) {
+                    consumer.seek(tp, stored);
+                    state.rewindBelow = state.fencedPosition;
+                    log.info("Partition {} was fenced, rewinding from {} to stored offset {}",
+                            tp, state.fencedPosition, stored);
+                }
+                state.fencedPosition = -1L;
+            }
+            if (state.rewindBelow >= 0) {
+                if (offset >= state.rewindBelow) {
+                    return false;
+                }
+                state.rewindBelow = -1L;
+            }
+            return state.committedOffset == null || offset >= state.committedOffset;
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    /**
+     * Adds one increment of (day, query) to the partition's state.
+     */
+    public void add(TopicPartition partition, LocalDate day, String query, String eventId) {
+        PartitionState state = state(partition);
+        state.lock.lock();
+        try {
+            if (state.deltas == null) {
+                state.deltas = new DayQueryCounterMap();
+            }
+            if (state.eventIds == null) {
+                state.eventIds = new LinkedHashSet<>();
+            }
+            state.deltas.add(day, query, 1L);
+            if (eventId != null && !eventId.isBlank()) {
+                state.eventIds.add(eventId);
+            }
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    /**
+     * Records that every record up to {@code offset} of the partition has been handled
+     * (counted, skipped or handed to the DLT); called right before the Kafka ack.
+     */
+    public void markConsumed(String topic, int partition, long offset) {
+        if (!isEnabled()) {
+            return;
+        }
+        PartitionState state = state(new TopicPartition(topic, partition));
+        state.lock.lock();
+        try {
+            state.nextOffset = Math.max(state.nextOffset, offset + 1);
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.stats.flush-interval:PT1S}")
+    public void scheduledFlush() {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            flush();
+        } catch (Exception ex) {
+            log.error("Partitioned stats flush failed, state kept for the next attempt", ex);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        scheduledFlush();
+    }
+
+    /**
+     * Flushes every owned partition.
+     *
+     * @return number of partitions whose state was written
+     */
+    public int flush() {
+        int flushed = 0;
+        for (Map.Entry<TopicPartition, PartitionState> entry : states.entrySet()) {
+            if (flush(entry.getKey(), entry.getValue())) {
+                flushed++;
+            }
+        }
+        return flushed;
+    }
+
+    /**
+     * Partitions currently owned by this instance.
+     */
+    public int ownedPartitions() {
+        return states.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("search.stats.partitions.owned", this, PartitionedStatsAggregator::ownedPartitions)
+                .description("Partitions whose stats state lives in this instance (PARTITIONED mode)")
+                .register(registry);
+        FunctionCounter.builder("search.stats.partitions.flushed", flushedPartitions, LongAdder::sum)
+                .description("Per-partition stats flushes (deltas + offset in one transaction)")
+                .register(registry);
+        FunctionCounter.builder("search.stats.partitions.fenced", fencedPartitions, LongAdder::sum)
+                .description("Flushes rejected because another consumer had advanced the partition")
+                .register(registry);
+    }
+
+    private PartitionState state(TopicPartition partition) {
+        PartitionState state = states.get(partition);
+        if (state != null) {
+            return state;
+        }
+        // Container without this rebalance listener: initialize from the stored offset on first use
+        String group = KafkaUtils.getConsumerGroupId();
+        if (group == null) {
+            throw new IllegalStateException("No consumer group for " + partition
+                    + "; PARTITIONED stats need the listener container's rebalance listener");
+        }
+        Long stored = offsetRepository.findOffsets(group, partition.topic(), List.of(partition.partition()))
+                .get(partition.partition());
+        return states.computeIfAbsent(partition, tp -> new PartitionState(group, stored));
+    }
+
+    private boolean flush(TopicPartition partition, PartitionState state) {
+        state.lock.lock();
+        try {
+            boolean hasDeltas = state.deltas != null && !state.deltas.isEmpty();
+            long committed = state.committedOffset != null ? state.committedOffset : -1L;
+            if (!hasDeltas && state.nextOffset <= committed) {
+                return false;
+            }
+            if (state.nextOffset < 0) {
+                // increments without a consumed offset yet cannot be fenced; wait for markConsumed
+                return false;
+            }
+            Map<DayQueryKey, Long> deltas = hasDeltas ? state.deltas.toMap() : Map.of();
+            Set<String> eventIds = state.eventIds != null ? state.eventIds : Set.of();
+            long nextOffset = state.nextOffset;
+
+            Boolean advanced = bulkheads.ingest().call(() -> transactionTemplate.execute(status -> {
+                if (!deltas.isEmpty()) {
+                    List<DailyQueryStat> stats = statRepository.incrementCounts(deltas);
+                    if (properties.isEmitOutboxEvents()) {
+                        outboxService.createStatsUpdatedEvents(stats, deltas);
+                    }
+                }
+                if (dedupProperties.isEnabled()) {
+                    processedEventIdRepository.insertAll(eventIds);
+                }
+                if (!offsetRepository.advance(state.group, partition.topic(), partition.partition(),
+                        state.committedOffset, nextOffset)) {
+                    status.setRollbackOnly();
+                    return false;
+                }
+                return true;
+            }));
+
+            if (!Boolean.TRUE.equals(advanced)) {
+                fencedPartitions.increment();
+                // kept (not removed) so add() cannot rebuild it from the other writer's offset;
+                // the next admit() rewinds the consumer and the dropped records are counted again
+                state.fencedPosition = nextOffset;
+                state.nextOffset = -1L;
+                if (state.deltas != null) {
+                    state.deltas.clear();
+                }
+                state.eventIds = null;
+                log.warn("Partition {} was advanced by another consumer, dropped {} unflushed keys, "
+                        + "re-consuming from the stored offset", partition, deltas.size());
+                return false;
+            }
+            deduplicator.markPersisted(eventIds);
+            state.committedOffset = nextOffset;
+            if (state.deltas != null) {
+                state.deltas.clear();
+            }
+            state.eventIds = null;
+            flushedPartitions.increment();
+            log.debug("Flushed {} stats keys of {} up to offset {}", deltas.size(), partition, nextOffset);
+            return true;
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    /**
+     * Unflushed state of one partition; every field is guarded by {@link #lock}
+     * (listener thread vs. scheduled flush).
+     */
+    private static final class PartitionState {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final String group;
+        /**
+         * Offset stored in stats_partition_offsets by the last successful flush (null = no row yet).
+         */
+        private Long committedOffset;
+        private long nextOffset;
+        private DayQueryCounterMap deltas;
+        private Set<String> eventIds;
+        /**
+         * nextOffset of a fenced flush, until admit() has reloaded the stored offset (-1 = not fenced).
+         */
+        private long fencedPosition = -1L;
+        /**
+         * After a seek back: records at or above this offset were fetched before the seek (-1 = none).
+         */
+        private long rewindBelow = -1L;
+
+        private PartitionState(String group, Long committedOffset) {
+            this.group = group;
+            this.committedOffset = committedOffset;
+            this.nextOffset = committedOffset != null ? committedOffset : -1L;
+        }
+    }
+}
@@ -22,7 +22,21 @@ public class RawSearchEventService {
             SearchEventPayload payload,
             String rawJson
     ) {
-        RawSearchEvent event = RawSearchEvent.builder()
+        return repository.save(receivedEvent(key, topic, partition, offset, payload, rawJson));
+    }
+
+    /**
+     * Builds the RECEIVED raw_search_events row for a record (also used by RawSearchEventRowBenchmark).
+     */
+    public static RawSearchEvent receivedEvent(
+            String key,
+            String topic,
+            int partition,
+            long offset,
+            SearchEventPayload payload,
+            String rawJson
+    ) {
+        return RawSearchEvent.builder()
                 .eventKey(key)
                 .userId(payload.getUserId())
                 .query(payload.getQuery())
@@ -35,13 +49,16 @@ public class RawSearchEventService {
                 .payload(rawJson)
                 .processingStatus("RECEIVED")
                 .build();
-        return repository.save(event);
     }
 
     public void markProcessed(Long id) {
         repository.updateStatusAndError(id, "PROCESSED", null);
     }
 
+    public void markSkipped(Long id, String reason) {
+        repository.updateStatusAndError(id, "SKIPPED", reason);
+    }
+
     public void markError(Long id, String errorMessage) {
         repository.updateStatusAndError(id, "ERROR", errorMessage);
     }
@@ -0,0 +1,152 @@
+package com.github.dimitryivaniuta.searchanalytics.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.searchanalytics.config.IngestProperties;
+import com.github.dimitryivaniuta.searchanalytics.model.BatchIngestResult;
+import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Streams many search events from one request body into Kafka.
+ *
+ * Flow:
+ *  1. Read the body with Jackson's streaming parser – accepts a top-level JSON array
+ *     or NDJSON (whitespace/newline separated objects); only the current event is materialized.
+ *  2. For each event: normalize + send via {@link SearchEventIngestGateway} without waiting
+ *     for the broker, so the producer can batch records per partition. If no in-flight permit
+ *     frees up within app.ingest.batch-permit-wait, reading stops (truncated).
+ *  3. After the last event, wait once for all futures (app.ingest.batch-send-timeout)
+ *     and build a per-event result.
+ *
+ * Malformed JSON stops reading at that point; events already read are still sent and reported.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SearchEventBatchIngestService {
+
+    private final SearchEventIngestGateway ingestGateway;
+    private final ObjectMapper objectMapper;
+    private final IngestProperties properties;
+
+    public BatchIngestResult ingest(InputStream body) throws IOException {
+        List<String> eventIds = new ArrayList<>();
+        List<CompletableFuture<SendResult<String, SearchEventPayload>>> futures = new ArrayList<>();
+        String truncationReason = null;
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+
+            while (token != null && !(array && token == JsonToken.END_ARRAY)) {
+                if (futures.size() >= properties.getBatchMaxEvents()) {
+                    truncationReason = "max events per request reached (" + properties.getBatchMaxEvents() + ")";
+                    break;
+                }
+                SearchEventPayload payload = objectMapper.readValue(parser, SearchEventPayload.class);
+                if (payload == null) {
+                    eventIds.add(null);
+                    futures.add(CompletableFuture.failedFuture(new IllegalArgumentException("null event")));
+                } else {
+                    try {
+                        futures.add(ingestGateway.submit(payload, properties.getBatchPermitWait()));
+                    } catch (IngestOverloadedException ex) {
+                        truncationReason = "in-flight budget exhausted after " + futures.size() + " events";
+                        log.warn("Batch ingest stopped reading: {}", truncationReason);
+                        break;
+                    }
+                    eventIds.add(payload.getEventId());
+                }
+                token = parser.nextToken();
+            }
+        } catch (JsonProcessingException ex) {
+            truncationReason = "malformed JSON after " + futures.size() + " events: " + ex.getOriginalMessage();
+            log.warn("Batch ingest stopped reading: {}", truncationReason);
+        }
+
+        awaitAll(futures);
+        return toResult(eventIds, futures, truncationReason);
+    }
+
+    private void awaitAll(List<? extends CompletableFuture<?>> futures) {
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                    .get(properties.getBatchSendTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException ex) {
+            // individual outcomes are inspected in toResult
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private BatchIngestResult toResult(List<String> eventIds,
+                                       List<CompletableFuture<SendResult<String, SearchEventPayload>>> futures,
+                                       String truncationReason) {
+        List<BatchIngestResult.EventResult> results = new ArrayList<>(futures.size());
+        int accepted = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            CompletableFuture<SendResult<String, SearchEventPayload>> future = futures.get(i);
+            BatchIngestResult.EventResult.EventResultBuilder result = BatchIngestResult.EventResult.builder()
+                    .index(i)
+                    .eventId(eventIds.get(i));
+
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                SendResult<String, SearchEventPayload> sent = future.join();
+                result.status(BatchIngestResult.Status.ACCEPTED);
+                if (sent != null && sent.getRecordMetadata() != null) {
+                    result.partition(sent.getRecordMetadata().partition())
+                            .offset(sent.getRecordMetadata().offset());
+                }
+                accepted++;
+            } else {
+                result.status(BatchIngestResult.Status.FAILED)
+                        .error(failureMessage(future));
+            }
+            results.add(result.build());
+        }
+
+        if (accepted < futures.size()) {
+            log.warn("Batch ingest: {}/{} events failed", futures.size() - accepted, futures.size());
+        }
+
+        return BatchIngestResult.builder()
+                .received(futures.size())
+                .accepted(accepted)
+                .failed(futures.size() - accepted)
+                .truncated(truncationReason != null)
+                .truncationReason(truncationReason)
+                .results(results)
+                .build();
+    }
+
+    private static String failureMessage(CompletableFuture<?> future) {
+        if (!future.isDone()) {
+            return "Kafka send not acknowledged within timeout";
+        }
+        try {
+            future.join();
+            return "unknown";
+        } catch (Exception ex) {
+            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+            return cause.getClass().getSimpleName() + ": " + cause.getMessage();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.dimitryivaniuta.searchanalytics.service;
+
+import com.github.dimitryivaniuta.searchanalytics.config.IngestProperties;
+import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single entry point for HTTP-originated Kafka sends, bounded by a permit pool.
+ *
+ * Flow:
+ *  - take one permit per event (app.ingest.max-in-flight),
+ *  - send via {@link SearchEventProducerService#sendAsync},
+ *  - release the permit when the broker acknowledges or the send fails.
+ *
+ * When no permit is available the caller gets {@link IngestOverloadedException} right away
+ * (or after a bounded wait for bulk requests), so request threads never sit blocked in
+ * KafkaProducer.send() behind a full buffer.
+ */
+@Slf4j
+@EnableConfigurationProperties(IngestProperties.class)
+@Service
+public class SearchEventIngestGateway {
+
+    private final SearchEventProducerService producerService;
+    private final IngestProperties properties;
+    private final Semaphore permits;
+
+    public SearchEventIngestGateway(SearchEventProducerService producerService,
+                                    IngestProperties properties) {
+        this.producerService = producerService;
+        this.properties = properties;
+        this.permits = new Semaphore(properties.getMaxInFlight());
+    }
+
+    /**
+     * Sends one event if the in-flight budget allows it.
+     *
+     * @throws IngestOverloadedException if no permit is free
+     */
+    public CompletableFuture<SendResult<String, SearchEventPayload>> submit(SearchEventPayload payload) {
+        if (!permits.tryAcquire()) {
+            throw overloaded();
+        }
+        return sendWithPermit(payload);
+    }
+
+    /**
+     * Like {@link #submit}, but waits up to {@code maxWait} for a permit (bulk ingestion).
+     */
+    public CompletableFuture<SendResult<String, SearchEventPayload>> submit(SearchEventPayload payload,
+                                                                            Duration maxWait) {
+        try {
+            if (!permits.tryAcquire(maxWait.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw overloaded();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw overloaded();
+        }
+        return sendWithPermit(payload);
+    }
+
+    /**
+     * Sends currently waiting for broker acknowledgement.
+     */
+    public int inFlight() {
+        return properties.getMaxInFlight() - permits.availablePermits();
+    }
+
+    private CompletableFuture<SendResult<String, SearchEventPayload>> sendWithPermit(SearchEventPayload payload) {
+        CompletableFuture<SendResult<String, SearchEventPayload>> future;
+        try {
+            future = producerService.sendAsync(payload);
+        } catch (RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+        future.whenComplete((result, ex) -> permits.release());
+        return future;
+    }
+
+    private IngestOverloadedException overloaded() {
+        int inFlight = inFlight();
+        log.debug("Shedding ingest request: {} sends in flight", inFlight);
+        return new IngestOverloadedException(inFlight, properties.getRetryAfter());
+    }
+}
@@ -1,57 +1,118 @@
 package com.github.dimitryivaniuta.searchanalytics.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.github.dimitryivaniuta.searchanalytics.model.DailyQueryStat;
+import com.github.dimitryivaniuta.searchanalytics.model.DayQueryKey;
 import com.github.dimitryivaniuta.searchanalytics.model.SearchEventOutbox;
+import com.github.dimitryivaniuta.searchanalytics.model.SearchStatsUpdatedEvent;
 import com.github.dimitryivaniuta.searchanalytics.repository.SearchEventOutboxRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class SearchEventOutboxService {
 
+    public static final String AGGREGATE_TYPE = "DailyQueryStat";
+    public static final String EVENT_TYPE_STATS_UPDATED = "SEARCH_STATS_UPDATED";
+
     private final SearchEventOutboxRepository repository;
+    private final ObjectWriter statsUpdatedWriter;
+
+    public SearchEventOutboxService(SearchEventOutboxRepository repository, ObjectMapper objectMapper) {
+        this.repository = repository;
+        // ObjectWriter is immutable and thread-safe; resolving the serializer once saves work per event
+        this.statsUpdatedWriter = objectMapper.writerFor(SearchStatsUpdatedEvent.class);
+    }
 
     /**
-     * Example: create an outbox event when daily stats are updated.
-     * In real code, build a proper JSON payload.
+     * Creates one SEARCH_STATS_UPDATED outbox event for the given stats row.
      */
     public Long createStatsUpdatedEvent(DailyQueryStat stat) {
-        String payloadJson = """
-            {
-              "day": "%s",
-              "query": "%s",
-              "count": %d
-            }
-            """.formatted(stat.getDay(), stat.getQuery(), stat.getCount());
-
-        SearchEventOutbox event = SearchEventOutbox.builder()
-                .aggregateType("DailyQueryStat")
+        return repository.save(toStatsUpdatedEvent(stat, null, Instant.now()));
+    }
+
+    /**
+     * Creates one SEARCH_STATS_UPDATED event per row as a single JDBC batch.
+     * Call inside the transaction that wrote the stats so both commit together.
+     *
+     * @param stats  rows as returned by the upsert (absolute counts)
+     * @param deltas increment applied to each row in this flush
+     */
+    public void createStatsUpdatedEvents(List<DailyQueryStat> stats, Map<DayQueryKey, Long> deltas) {
+        Instant now = Instant.now();
+        List<SearchEventOutbox> events = new ArrayList<>(stats.size());
+        for (DailyQueryStat stat : stats) {
+            Long delta = deltas.get(new DayQueryKey(stat.getDay(), stat.getQuery()));
+            events.add(toStatsUpdatedEvent(stat, delta, now));
+        }
+        repository.saveAll(events);
+    }
+
+    private SearchEventOutbox toStatsUpdatedEvent(DailyQueryStat stat, Long delta, Instant now) {
+        SearchStatsUpdatedEvent payload = SearchStatsUpdatedEvent.builder()
+                .day(stat.getDay())
+                .query(stat.getQuery())
+                .count(stat.getCount())
+                .delta(delta)
+                .emittedAt(now)
+                .build();
+
+        return SearchEventOutbox.builder()
+                .aggregateType(AGGREGATE_TYPE)
                 .aggregateId(String.valueOf(stat.getId()))
-                .eventType("SEARCH_STATS_UPDATED")
-                .payload(payloadJson)
+                .eventType(EVENT_TYPE_STATS_UPDATED)
+                .payload(toJson(payload))
                 .headers(null)
                 .partitionKey(stat.getQuery())
                 .status("NEW")
-                .createdAt(Instant.now())
+                .createdAt(now)
                 .build();
-        return repository.save(event);
+    }
+
+    private String toJson(SearchStatsUpdatedEvent payload) {
+        try {
+            return statsUpdatedWriter.writeValueAsString(payload);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Failed to serialize stats-updated event for query=" + payload.getQuery(), ex);
+        }
     }
 
     public List<SearchEventOutbox> findNextNewEvents(int batchSize) {
         return repository.findNextNewEvents(batchSize);
     }
 
+    /**
+     * Claims a batch with FOR UPDATE SKIP LOCKED – call inside a transaction.
+     */
+    public List<SearchEventOutbox> claimNextBatch(int batchSize) {
+        return repository.claimNextBatch(batchSize);
+    }
+
     public void markPublished(Long id) {
         repository.markPublished(id);
     }
 
+    public int markPublished(Collection<Long> ids) {
+        return repository.markPublished(ids);
+    }
+
     public void markFailed(Long id, String errorMessage) {
         repository.markFailed(id, errorMessage);
     }
+
+    /**
+     * Persists status / attempts / next_attempt_at / last_error of rows whose publish failed.
+     */
+    public void saveFailedAttempts(List<SearchEventOutbox> events) {
+        repository.saveFailedAttempts(events);
+    }
 }
@@ -3,18 +3,18 @@ package com.github.dimitryivaniuta.searchanalytics.service;
 import com.github.dimitryivaniuta.searchanalytics.config.KafkaTopicsProperties;
 import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Sends SearchEventPayload messages to Kafka topic configured as search-events.
- * Used by REST API (Postman) and potentially by other internal callers.
+ * Used by the HTTP ingest API (SearchEventIngestGateway, batch ingest).
  */
-@Slf4j
 @Service
 @RequiredArgsConstructor
 public class SearchEventProducerService {
@@ -23,22 +23,20 @@ public class SearchEventProducerService {
     private final KafkaTopicsProperties topics;
 
     /**
-     * Normalizes payload (eventId, occurredAt, sentAt, key) and sends to Kafka.
+     * Normalizes payload (eventId, occurredAt, sentAt, key) and sends to Kafka without waiting;
+     * the send future is returned so callers can pipeline many sends and wait once.
      *
-     * @param incoming payload from API/client
-     * @return the normalized payload that was actually sent
+     * The payload is enriched in place, so its eventId is available immediately.
+     * Synchronous send failures (e.g. buffer full for max.block.ms) are returned
+     * as a failed future rather than thrown.
      */
-    public SearchEventPayload sendFromApi(SearchEventPayload incoming) {
+    public CompletableFuture<SendResult<String, SearchEventPayload>> sendAsync(SearchEventPayload incoming) {
         SearchEventPayload payload = enrichPayload(incoming);
-
-        String key = resolveKey(payload);
-
-        log.info("Producing search event to topic='{}', key='{}', eventId='{}'",
-                topics.getSearchEventsTopic(), key, payload.getEventId());
-
-        searchEventKafkaTemplate.send(topics.getSearchEventsTopic(), key, payload);
-
-        return payload;
+        try {
+            return searchEventKafkaTemplate.send(topics.getSearchEventsTopic(), resolveKey(payload), payload);
+        } catch (Exception ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
     }
 
     private SearchEventPayload enrichPayload(SearchEventPayload payload) {
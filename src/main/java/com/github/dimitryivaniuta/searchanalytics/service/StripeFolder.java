@@ -0,0 +1,88 @@
+package com.github.dimitryivaniuta.searchanalytics.service;
+
+import com.github.dimitryivaniuta.searchanalytics.bulkhead.BulkheadRegistry;
+import com.github.dimitryivaniuta.searchanalytics.config.StatsProperties;
+import com.github.dimitryivaniuta.searchanalytics.repository.DailyQueryStatRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Folds stripe rows of cooled-down keys back into daily_query_stats.
+ *
+ * Runs every app.stats.striping.fold-interval in the maintenance bulkhead, in batches of
+ * fold-batch-size, for stripes untouched for fold-after. Keeps running when striping is disabled
+ * so stripes written before the switch still end up in the single row.
+ */
+@Slf4j
+@Component
+public class StripeFolder implements MeterBinder {
+
+    private final DailyQueryStatRepository repository;
+    private final StatsProperties.Striping properties;
+    private final BulkheadRegistry bulkheads;
+    private final Clock clock;
+    private final LongAdder folded = new LongAdder();
+
+    @Autowired
+    public StripeFolder(DailyQueryStatRepository repository, StatsProperties properties, BulkheadRegistry bulkheads) {
+        this(repository, properties, bulkheads, Clock.systemUTC());
+    }
+
+    StripeFolder(DailyQueryStatRepository repository, StatsProperties properties, BulkheadRegistry bulkheads,
+                 Clock clock) {
+        this.repository = repository;
+        this.properties = properties.getStriping();
+        this.bulkheads = bulkheads;
+        this.clock = clock;
+    }
+
+    @Scheduled(fixedDelayString = "${app.stats.striping.fold-interval:PT1M}",
+            initialDelayString = "${app.stats.striping.fold-interval:PT1M}")
+    public void scheduledFold() {
+        try {
+            fold();
+        } catch (Exception ex) {
+            log.warn("Stripe fold failed, retrying on the next run", ex);
+        }
+    }
+
+    /**
+     * Folds every stripe row older than fold-after.
+     *
+     * @return number of stripe rows folded
+     */
+    public int fold() {
+        Instant cutoff = clock.instant().minus(properties.getFoldAfter());
+        int batchSize = properties.getFoldBatchSize();
+        int total = bulkheads.maintenance().call(() -> {
+            int sum = 0;
+            int rows;
+            do {
+                rows = repository.foldStripes(cutoff, batchSize);
+                sum += rows;
+            } while (rows >= batchSize);
+            return sum;
+        });
+        if (total > 0) {
+            folded.add(total);
+            log.info("Folded {} stripe rows into daily_query_stats", total);
+        }
+        return total;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("search.stats.stripes.folded", folded, LongAdder::sum)
+                .description("Stripe rows folded back into daily_query_stats")
+                .register(registry);
+    }
+}
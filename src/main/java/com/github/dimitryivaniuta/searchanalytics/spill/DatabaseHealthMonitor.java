@@ -0,0 +1,144 @@
+package com.github.dimitryivaniuta.searchanalytics.spill;
+
+import com.github.dimitryivaniuta.searchanalytics.config.SpillProperties;
+import com.github.dimitryivaniuta.searchanalytics.config.WorkerThreads;
+import com.github.dimitryivaniuta.searchanalytics.error.ErrorCategory;
+import com.github.dimitryivaniuta.searchanalytics.error.ErrorClassifier;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks whether Postgres is reachable, for the spill mode (app.spill.*).
+ *
+ * Flow:
+ *  - reportFailure(): the listener reports every exception; a connectivity failure (ErrorClassifier:
+ *    no connection, connection lost, SQLSTATE class 08) marks the database unavailable immediately.
+ *    A saturated pool or bulkhead connection budget is transient, not an outage.
+ *  - probe() every app.spill.health-check-interval on its own thread: borrow a connection and run
+ *    Connection.isValid(); success marks it available again, an invalid connection or a connectivity
+ *    failure marks it unavailable. Any other failure (e.g. a saturated pool timing out) leaves the state
+ *    unchanged – the database is busy, not gone.
+ *
+ * Only the probe ever marks the database available, so one lucky statement during an outage does not
+ * flip the listener back to the normal path.
+ */
+@Slf4j
+@EnableConfigurationProperties(SpillProperties.class)
+@Component
+public class DatabaseHealthMonitor implements MeterBinder {
+
+    private final DataSource dataSource;
+    private final SpillProperties properties;
+    private final WorkerThreads workerThreads;
+    private final Clock clock;
+
+    private volatile boolean available = true;
+    private volatile Instant unavailableSince;
+    private ScheduledExecutorService prober;
+
+    @Autowired
+    public DatabaseHealthMonitor(DataSource dataSource, SpillProperties properties, WorkerThreads workerThreads) {
+        this(dataSource, properties, workerThreads, Clock.systemUTC());
+    }
+
+    DatabaseHealthMonitor(DataSource dataSource, SpillProperties properties, WorkerThreads workerThreads, Clock clock) {
+        this.dataSource = dataSource;
+        this.properties = properties;
+        this.workerThreads = workerThreads;
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long intervalMillis = properties.getHealthCheckInterval().toMillis();
+        prober = Executors.newSingleThreadScheduledExecutor(workerThreads.newFactory("db-health"));
+        prober.scheduleWithFixedDelay(this::probe, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (prober != null) {
+            prober.shutdownNow();
+        }
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * @return true if {@code failure} means the database is unreachable (it is then marked unavailable)
+     */
+    public boolean reportFailure(Throwable failure) {
+        if (ErrorClassifier.classify(failure) != ErrorCategory.CONNECTIVITY) {
+            return false;
+        }
+        markUnavailable(failure);
+        return true;
+    }
+
+    /**
+     * Checks the database once.
+     *
+     * @return whether it is available (unchanged if the probe failed for a non-connectivity reason)
+     */
+    public boolean probe() {
+        int timeoutSeconds = (int) Math.max(1, properties.getHealthCheckTimeout().toSeconds());
+        try (Connection connection = dataSource.getConnection()) {
+            if (connection.isValid(timeoutSeconds)) {
+                markAvailable();
+                return true;
+            }
+            markUnavailable(null);
+        } catch (SQLException | RuntimeException ex) {
+            if (!reportFailure(ex)) {
+                log.debug("Database health probe failed without a connectivity error, state unchanged: {}", ex.toString());
+                return available;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("app.database.available", this, monitor -> monitor.isAvailable() ? 1 : 0)
+                .description("1 while Postgres is reachable, 0 while events are spilled")
+                .register(registry);
+    }
+
+    private synchronized void markUnavailable(Throwable cause) {
+        if (available) {
+            available = false;
+            unavailableSince = clock.instant();
+            log.warn("Database unavailable, switching to spill mode: {}",
+                    cause != null ? cause.toString() : "connection not valid");
+        }
+    }
+
+    private synchronized void markAvailable() {
+        if (!available) {
+            available = true;
+            log.info("Database available again after {}", Duration.between(unavailableSince, clock.instant()));
+        }
+    }
+}
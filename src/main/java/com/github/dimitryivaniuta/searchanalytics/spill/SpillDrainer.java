@@ -0,0 +1,143 @@
+package com.github.dimitryivaniuta.searchanalytics.spill;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.searchanalytics.bulkhead.BulkheadRegistry;
+import com.github.dimitryivaniuta.searchanalytics.config.SpillProperties;
+import com.github.dimitryivaniuta.searchanalytics.error.ErrorClassifier;
+import com.github.dimitryivaniuta.searchanalytics.messaging.DeadLetterProducer;
+import com.github.dimitryivaniuta.searchanalytics.messaging.SearchEventPipeline;
+import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
+import com.github.dimitryivaniuta.searchanalytics.model.SpilledEvent;
+import com.github.dimitryivaniuta.searchanalytics.service.EventProcessingErrorService;
+import com.github.dimitryivaniuta.searchanalytics.service.RawSearchEventService;
+import com.github.dimitryivaniuta.searchanalytics.spill.SpillLog.Entry;
+import com.github.dimitryivaniuta.searchanalytics.watermark.WatermarkTracker;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Replays the spill log into the normal persistence path once the database is back.
+ *
+ * Flow every app.spill.drain-interval (only while DatabaseHealthMonitor reports the database available):
+ *  1. read at most drain-rate × drain-interval spilled events,
+ *  2. per event, in the ingest bulkhead: raw_search_events insert, validation, SearchEventPipeline
+ *     (no partition – like a DLT retry); an invalid or failing event takes the listener's error path
+ *     (error row + DLT),
+ *  3. commit the spill cursor after the last replayed event.
+ *
+ * A connectivity or other transient failure (ErrorClassifier) stops the batch before that event; it is
+ * replayed on a later run. Events that
+ * were replayed but not committed (crash mid-batch) are replayed again and skipped as duplicates by
+ * eventId (EventDeduplicator).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SpillDrainer implements MeterBinder {
+
+    private final SpillLog spillLog;
+    private final DatabaseHealthMonitor databaseHealth;
+    private final SpillProperties properties;
+    private final RawSearchEventService rawSearchEventService;
+    private final SearchEventPipeline pipeline;
+    private final EventProcessingErrorService errorService;
+    private final DeadLetterProducer deadLetterProducer;
+    private final ObjectMapper objectMapper;
+    private final WatermarkTracker watermarkTracker;
+    private final BulkheadRegistry bulkheads;
+
+    private final LongAdder drained = new LongAdder();
+
+    @Scheduled(fixedDelayString = "${app.spill.drain-interval:PT1S}")
+    public void scheduledDrain() {
+        try {
+            drain();
+        } catch (Exception ex) {
+            log.warn("Spill drain stopped, resuming on the next run", ex);
+        }
+    }
+
+    /**
+     * Replays one batch of spilled events.
+     *
+     * @return number of events replayed
+     */
+    public int drain() {
+        if (!spillLog.isEnabled() || spillLog.pendingBytes() == 0 || !databaseHealth.isAvailable()) {
+            return 0;
+        }
+        long batch = Math.max(1, properties.getDrainRate() * properties.getDrainInterval().toMillis() / 1000);
+        List<Entry> entries = spillLog.read((int) Math.min(batch, Integer.MAX_VALUE));
+        long committed = -1;
+        int count = 0;
+        try {
+            for (Entry entry : entries) {
+                if (entry.event() != null) {
+                    replay(entry.event());
+                }
+                committed = entry.lsn();
+                count++;
+            }
+        } finally {
+            if (committed >= 0) {
+                spillLog.commit(committed);
+            }
+            drained.add(count);
+        }
+        if (count > 0) {
+            log.info("Drained {} spilled events, {} bytes left", count, spillLog.pendingBytes());
+        }
+        return count;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("search.events.spill.drained", drained, LongAdder::sum)
+                .description("Spilled events replayed into the database (rate() = drain rate)")
+                .register(registry);
+    }
+
+    private void replay(SpilledEvent event) {
+        bulkheads.ingest().run(() -> {
+            SearchEventPayload payload = event.getPayload();
+            Long rawEventId = null;
+            try {
+                rawEventId = rawSearchEventService.logReceivedEvent(event.getKey(), event.getTopic(),
+                        event.getPartition(), event.getOffset(), payload, objectMapper.writeValueAsString(payload));
+                if (!payload.isValidForAggregation()) {
+                    String msg = "SearchEventPayload invalid for aggregation (missing query or occurredAt)";
+                    rawSearchEventService.markError(rawEventId, msg);
+                    errorService.logError(rawEventId, event.getTopic(), event.getPartition(), event.getOffset(),
+                            "VALIDATION", msg, null);
+                    return;
+                }
+                pipeline.aggregate(rawEventId, payload);
+                watermarkTracker.observe(event.getTopic(), event.getPartition(), payload.getOccurredAt());
+            } catch (Exception ex) {
+                if (databaseHealth.reportFailure(ex)) {
+                    throw new IllegalStateException("Database unavailable while draining spill", ex);
+                }
+                if (ErrorClassifier.classify(ex).isRetryable()) {
+                    throw new IllegalStateException("Transient failure while draining spill", ex);
+                }
+                log.error("Failed to replay spilled event; key={}, topic={}, partition={}, offset={}",
+                        event.getKey(), event.getTopic(), event.getPartition(), event.getOffset(), ex);
+                if (rawEventId != null) {
+                    rawSearchEventService.markError(rawEventId, ex.getMessage());
+                }
+                Long errorId = errorService.logError(rawEventId, event.getTopic(), event.getPartition(),
+                        event.getOffset(), "PROCESSING_ERROR", ex.getMessage(), ex);
+                deadLetterProducer.sendToDlt(event.getKey(), payload, event.getTopic(), event.getPartition(),
+                        event.getOffset(), rawEventId, errorId, ex);
+            }
+        });
+    }
+}
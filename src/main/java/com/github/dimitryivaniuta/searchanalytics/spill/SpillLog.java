@@ -0,0 +1,186 @@
+package com.github.dimitryivaniuta.searchanalytics.spill;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.searchanalytics.config.SpillProperties;
+import com.github.dimitryivaniuta.searchanalytics.model.SpilledEvent;
+import com.github.dimitryivaniuta.searchanalytics.wal.SegmentedLog;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local, size-bounded log of events consumed while the database was unavailable (app.spill.*).
+ *
+ * Records are JSON {@link SpilledEvent}s in a {@link SegmentedLog}. The drain position lives in a
+ * "cursor" file next to the segments (the database is exactly what may be missing); commit() moves it
+ * forward and deletes fully drained segments.
+ *
+ * A spilled record is acked on Kafka, so the spill directory is the only copy until it is drained.
+ */
+@Slf4j
+@Component
+public class SpillLog implements MeterBinder {
+
+    static final String CURSOR_FILE = "cursor";
+
+    /**
+     * A spilled event (null if it could not be parsed) and the LSN to commit once it has been replayed.
+     */
+    public record Entry(long lsn, SpilledEvent event) {
+    }
+
+    private final SpillProperties properties;
+    private final ObjectMapper objectMapper;
+
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile SegmentedLog segments;
+    private volatile long cursor;
+
+    public SpillLog(SpillProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void open() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Path directory = properties.getDirectory();
+        try {
+            segments = new SegmentedLog(directory, Math.toIntExact(properties.getSegmentSize().toBytes()), false);
+            Path cursorFile = directory.resolve(CURSOR_FILE);
+            cursor = Files.exists(cursorFile)
+                    ? Long.parseLong(Files.readString(cursorFile, StandardCharsets.UTF_8).trim())
+                    : 0L;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open spill log in " + directory.toAbsolutePath(), e);
+        }
+        if (pendingBytes() > 0) {
+            log.warn("Spill log in {} holds {} bytes of undrained events", directory.toAbsolutePath(), pendingBytes());
+        }
+    }
+
+    public boolean isEnabled() {
+        return segments != null;
+    }
+
+    /**
+     * @return false if the disk budget (app.spill.max-size) is used up – the caller must handle the event itself
+     */
+    public boolean append(SpilledEvent event) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(event);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not serialize spilled event", e);
+        }
+        synchronized (this) {
+            if (segments.sizeInBytes() + json.length > properties.getMaxSize().toBytes()) {
+                rejected.increment();
+                return false;
+            }
+            segments.append(json);
+        }
+        spilled.increment();
+        return true;
+    }
+
+    /**
+     * Undrained bytes.
+     */
+    public long pendingBytes() {
+        return isEnabled() ? segments.endLsn() - cursor : 0L;
+    }
+
+    /**
+     * Up to {@code maxRecords} undrained events, oldest first.
+     */
+    public List<Entry> read(int maxRecords) {
+        List<Entry> entries = new ArrayList<>(Math.min(maxRecords, 1024));
+        try {
+            segments.read(cursor, maxRecords, (lsn, payload) -> entries.add(new Entry(lsn, decode(payload))));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read spill log in " + properties.getDirectory(), e);
+        }
+        return entries;
+    }
+
+    /**
+     * Marks everything up to {@code lsn} as drained.
+     */
+    public synchronized void commit(long lsn) {
+        if (lsn <= cursor) {
+            return;
+        }
+        Path directory = properties.getDirectory();
+        Path tmp = directory.resolve(CURSOR_FILE + ".tmp");
+        try {
+            Files.writeString(tmp, Long.toString(lsn), StandardCharsets.UTF_8);
+            Files.move(tmp, directory.resolve(CURSOR_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write spill cursor in " + directory, e);
+        }
+        cursor = lsn;
+        segments.truncateBefore(lsn);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (segments == null) {
+            return;
+        }
+        try {
+            segments.close();
+        } catch (IOException e) {
+            log.warn("Could not close spill log in {}", properties.getDirectory(), e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Gauge.builder("search.events.spill.size", this, SpillLog::pendingBytes)
+                .description("Bytes of spilled events not yet drained")
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("search.events.spill.appended", spilled, LongAdder::sum)
+                .description("Events spilled to the local log while the database was unavailable")
+                .register(registry);
+        FunctionCounter.builder("search.events.spill.rejected", rejected, LongAdder::sum)
+                .description("Events not spilled because app.spill.max-size was reached")
+                .register(registry);
+    }
+
+    private SpilledEvent decode(ByteBuffer payload) {
+        byte[] json = new byte[payload.remaining()];
+        payload.get(json);
+        try {
+            return objectMapper.readValue(json, SpilledEvent.class);
+        } catch (IOException e) {
+            log.error("Dropping unreadable spilled event: {}", new String(json, StandardCharsets.UTF_8), e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.github.dimitryivaniuta.searchanalytics.wal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of CRC-framed records in fixed-size, memory-mapped segment files.
+ *
+ * Layout:
+ *  - segment file {@code <base LSN, 20 digits>.wal}, preallocated to segment-size (zero filled);
+ *  - record frame: int payload length | int CRC32C(payload) | payload. A zero length ends the segment.
+ *  - LSN = base of the segment + position after the record, so it only grows; a record that does
+ *    not fit starts the next segment at base + segment-size.
+ *
+ * Writes go to the page cache through the mapping, so they survive a process crash as soon as
+ * append() returns; forceOnAppend also msyncs each record (survives power loss, much slower).
+ * On open the tail of the last segment is scanned: the first frame with a bad length or CRC
+ * (torn write) and everything after it is zeroed, and appends continue from there.
+ *
+ * append() and truncateBefore() are synchronized; read() / replay() map segments read-only on their own.
+ */
+public final class SegmentedLog implements Closeable {
+
+    static final int HEADER_BYTES = 8;
+    private static final String SUFFIX = ".wal";
+
+    /**
+     * Receives each record with the LSN right after it; the payload buffer is only valid during the call.
+     */
+    @FunctionalInterface
+    public interface RecordHandler {
+        void accept(long endLsn, ByteBuffer payload);
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean forceOnAppend;
+    private final List<Long> segmentBases = new ArrayList<>();
+
+    private FileChannel activeChannel;
+    private MappedByteBuffer active;
+    private long activeBase;
+
+    public SegmentedLog(Path directory, int segmentSize, boolean forceOnAppend) throws IOException {
+        if (segmentSize <= HEADER_BYTES) {
+            throw new IllegalArgumentException("segmentSize must be larger than " + HEADER_BYTES);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.forceOnAppend = forceOnAppend;
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.endsWith(SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SUFFIX.length())))
+                    .sorted()
+                    .forEach(segmentBases::add);
+        }
+        if (segmentBases.isEmpty()) {
+            openSegment(0L);
+        } else {
+            openSegment(segmentBases.get(segmentBases.size() - 1));
+            recoverTail();
+        }
+    }
+
+    /**
+     * Appends one record.
+     *
+     * @return LSN right after the record
+     */
+    public synchronized long append(byte[] payload) {
+        int frame = HEADER_BYTES + payload.length;
+        if (frame > segmentSize) {
+            throw new IllegalArgumentException("Record of " + payload.length + " bytes exceeds segment size " + segmentSize);
+        }
+        if (active.remaining() < frame) {
+            roll();
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        active.putInt(payload.length);
+        active.putInt((int) crc.getValue());
+        active.put(payload);
+        if (forceOnAppend) {
+            active.force();
+        }
+        return activeBase + active.position();
+    }
+
+    /**
+     * LSN after the last appended record (0 for an empty log).
+     */
+    public synchronized long endLsn() {
+        return activeBase + active.position();
+    }
+
+    /**
+     * Calls {@code handler} for every intact record after {@code afterLsn} (0 or an LSN returned by this log), in order.
+     *
+     * @return number of records passed to the handler
+     */
+    public long replay(long afterLsn, RecordHandler handler) throws IOException {
+        return read(afterLsn, Long.MAX_VALUE, handler);
+    }
+
+    /**
+     * Like {@link #replay}, but stops after {@code maxRecords}. Safe while appends run: it stops at the
+     * end of the log as of the call (and at a record still being written, which fails its CRC).
+     *
+     * @return number of records passed to the handler
+     */
+    public long read(long afterLsn, long maxRecords, RecordHandler handler) throws IOException {
+        List<Long> bases;
+        long end;
+        synchronized (this) {
+            bases = List.copyOf(segmentBases);
+            end = endLsn();
+        }
+        long count = 0;
+        for (int i = 0; i < bases.size() && count < maxRecords; i++) {
+            long base = bases.get(i);
+            if (i + 1 < bases.size() && bases.get(i + 1) <= afterLsn) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(segmentPath(base), StandardOpenOption.READ)) {
+                ByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                int limit = (int) Math.min(segment.limit(), end - base);
+                int position = afterLsn > base ? (int) Math.min(afterLsn - base, limit) : 0;
+                int frameEnd;
+                while (count < maxRecords && (frameEnd = frameEnd(segment, position, limit)) >= 0) {
+                    handler.accept(base + frameEnd,
+                            segment.slice(position + HEADER_BYTES, frameEnd - position - HEADER_BYTES));
+                    position = frameEnd;
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Deletes every segment that only holds records up to {@code lsn}; the active segment is kept.
+     *
+     * @return number of segment files deleted
+     */
+    public synchronized int truncateBefore(long lsn) {
+        int deleted = 0;
+        while (segmentBases.size() > 1 && segmentBases.get(1) <= lsn) {
+            long base = segmentBases.remove(0);
+            try {
+                Files.deleteIfExists(segmentPath(base));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            deleted++;
+        }
+        return deleted;
+    }
+
+    /**
+     * Bytes between the start of the oldest segment and the end of the log.
+     */
+    public synchronized long sizeInBytes() {
+        return endLsn() - segmentBases.get(0);
+    }
+
+    public synchronized int segmentCount() {
+        return segmentBases.size();
+    }
+
+    public synchronized void force() {
+        active.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        active.force();
+        activeChannel.close();
+    }
+
+    private void roll() {
+        // the zero-filled rest of the segment reads as "end of segment"
+        active.force();
+        try {
+            activeChannel.close();
+            openSegment(activeBase + segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not roll WAL segment in " + directory, e);
+        }
+    }
+
+    private void openSegment(long base) throws IOException {
+        Path path = segmentPath(base);
+        activeChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        active = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        activeBase = base;
+        if (!segmentBases.contains(base)) {
+            segmentBases.add(base);
+        }
+    }
+
+    private void recoverTail() {
+        int end = scan(active);
+        for (int i = end; i < active.limit(); i++) {
+            if (active.get(i) != 0) {
+                active.put(i, (byte) 0);
+            }
+        }
+        active.position(end);
+    }
+
+    /**
+     * Position after the last intact record of {@code segment}.
+     */
+    private static int scan(ByteBuffer segment) {
+        int position = 0;
+        int frameEnd;
+        while ((frameEnd = frameEnd(segment, position, segment.limit())) >= 0) {
+            position = frameEnd;
+        }
+        return position;
+    }
+
+    /**
+     * End of the record starting at {@code position}, or -1 if there is none (end of segment, torn or unfinished write).
+     */
+    private static int frameEnd(ByteBuffer segment, int position, int limit) {
+        if (position + HEADER_BYTES > limit) {
+            return -1;
+        }
+        int length = segment.getInt(position);
+        if (length <= 0 || length > limit - position - HEADER_BYTES) {
+            return -1;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(segment.slice(position + HEADER_BYTES, length));
+        if ((int) crc.getValue() != segment.getInt(position + 4)) {
+            return -1;
+        }
+        return position + HEADER_BYTES + length;
+    }
+
+    private Path segmentPath(long base) {
+        return directory.resolve(String.format(Locale.ROOT, "%020d", base) + SUFFIX);
+    }
+}
@@ -0,0 +1,198 @@
+package com.github.dimitryivaniuta.searchanalytics.wal;
+
+import com.github.dimitryivaniuta.searchanalytics.config.StatsProperties;
+import com.github.dimitryivaniuta.searchanalytics.model.DayQueryKey;
+import com.github.dimitryivaniuta.searchanalytics.repository.StatsWalCheckpointRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.support.TopicPartitionOffset;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Local write-ahead log of COALESCED stats increments (app.stats.wal.*), on top of {@link SegmentedLog}.
+ *
+ * Flow:
+ *  - append(): DailyQueryStatBuffer logs (day, query, delta, partition, offset) before it buffers
+ *    the increment, i.e. before the listener acks the record.
+ *  - flush: the buffer notes endLsn() when it swaps its map and writes checkpoint(lsn) in the same
+ *    transaction as the upsert; after the commit truncate(lsn) deletes the segments that are done.
+ *  - start-up: replay() hands every record after the stored checkpoint back to the buffer. Replaying
+ *    twice is harmless – the checkpoint only moves together with the counts it covers.
+ *
+ * The directory holds a wal.id file naming this log's row in stats_wal_checkpoints, so several
+ * instances (each with its own directory) can share the database.
+ */
+@Slf4j
+@Component
+public class StatsWal implements MeterBinder {
+
+    static final String ID_FILE = "wal.id";
+
+    /**
+     * epoch day (int) | delta (long) | partition (int) | offset (long) | query (UTF-8, rest)
+     */
+    private static final int FIXED_BYTES = 4 + 8 + 4 + 8;
+
+    private final StatsProperties.Wal properties;
+    private final StatsWalCheckpointRepository checkpoints;
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+
+    private volatile SegmentedLog segments;
+    private volatile String walId;
+
+    public StatsWal(StatsProperties properties, StatsWalCheckpointRepository checkpoints) {
+        this.properties = properties.getWal();
+        this.checkpoints = checkpoints;
+    }
+
+    @PostConstruct
+    public void open() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Path directory = properties.getDirectory();
+        try {
+            Files.createDirectories(directory);
+            Path idFile = directory.resolve(ID_FILE);
+            if (Files.exists(idFile)) {
+                walId = Files.readString(idFile, StandardCharsets.UTF_8).trim();
+            } else {
+                walId = UUID.randomUUID().toString();
+                Files.writeString(idFile, walId, StandardCharsets.UTF_8);
+            }
+            segments = new SegmentedLog(directory, Math.toIntExact(properties.getSegmentSize().toBytes()),
+                    properties.isForceOnAppend());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open stats WAL in " + directory.toAbsolutePath(), e);
+        }
+        log.info("Stats WAL {} opened in {} at lsn {} ({} segment(s))",
+                walId, directory.toAbsolutePath(), segments.endLsn(), segments.segmentCount());
+    }
+
+    public boolean isEnabled() {
+        return segments != null;
+    }
+
+    public String walId() {
+        return walId;
+    }
+
+    /**
+     * Logs one increment.
+     *
+     * @param source record the increment comes from (null – not consumed from Kafka, e.g. DLT retry)
+     * @return LSN right after the record
+     */
+    public long append(LocalDate day, String query, long delta, TopicPartitionOffset source) {
+        byte[] queryBytes = query.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(FIXED_BYTES + queryBytes.length)
+                .putInt(Math.toIntExact(day.toEpochDay()))
+                .putLong(delta)
+                .putInt(source != null ? source.getPartition() : -1)
+                .putLong(source != null && source.getOffset() != null ? source.getOffset() : -1L)
+                .put(queryBytes);
+        long lsn = segments.append(payload.array());
+        appended.increment();
+        return lsn;
+    }
+
+    /**
+     * LSN after the last appended record; everything before it is covered by a flush that drained after this call.
+     */
+    public long endLsn() {
+        return segments.endLsn();
+    }
+
+    /**
+     * Passes the increments of all records after the stored checkpoint to {@code consumer}.
+     *
+     * @return number of records replayed
+     */
+    public long replay(BiConsumer<DayQueryKey, Long> consumer) {
+        long checkpoint = checkpoints.findLsn(walId);
+        try {
+            long count = segments.replay(checkpoint, (lsn, payload) -> {
+                LocalDate day = LocalDate.ofEpochDay(payload.getInt());
+                long delta = payload.getLong();
+                payload.getInt();  // partition
+                payload.getLong(); // offset
+                byte[] queryBytes = new byte[payload.remaining()];
+                payload.get(queryBytes);
+                consumer.accept(new DayQueryKey(day, new String(queryBytes, StandardCharsets.UTF_8)), delta);
+            });
+            replayed.add(count);
+            if (count > 0) {
+                log.info("Replayed {} stats WAL records after lsn {}", count, checkpoint);
+            }
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Stats WAL replay failed in " + properties.getDirectory(), e);
+        }
+    }
+
+    /**
+     * Records that everything up to {@code lsn} is in daily_query_stats; call inside the flush transaction.
+     */
+    public void checkpoint(long lsn) {
+        checkpoints.save(walId, lsn);
+    }
+
+    /**
+     * Deletes segments that only hold records up to {@code lsn}; call after the checkpoint committed.
+     */
+    public void truncate(long lsn) {
+        int deleted = segments.truncateBefore(lsn);
+        if (deleted > 0) {
+            log.debug("Deleted {} stats WAL segment(s) before lsn {}", deleted, lsn);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (segments == null) {
+            return;
+        }
+        try {
+            segments.close();
+        } catch (IOException e) {
+            log.warn("Could not close stats WAL in {}", properties.getDirectory(), e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Gauge.builder("search.stats.wal.size", this, wal -> wal.isEnabled() ? wal.segments.sizeInBytes() : 0)
+                .description("Bytes in stats WAL segments not yet truncated")
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("search.stats.wal.records", appended, LongAdder::sum)
+                .description("Stats WAL records by operation")
+                .tag("operation", "append")
+                .register(registry);
+        FunctionCounter.builder("search.stats.wal.records", replayed, LongAdder::sum)
+                .description("Stats WAL records by operation")
+                .tag("operation", "replay")
+                .register(registry);
+    }
+}
@@ -0,0 +1,201 @@
+package com.github.dimitryivaniuta.searchanalytics.watermark;
+
+import com.github.dimitryivaniuta.searchanalytics.config.WatermarkProperties;
+import com.github.dimitryivaniuta.searchanalytics.config.WatermarkProperties.LatePolicy;
+import com.github.dimitryivaniuta.searchanalytics.repository.ClosedDayRepository;
+import com.github.dimitryivaniuta.searchanalytics.repository.LateStatAdjustmentRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps closed days immutable: every daily_query_stats increment goes through {@link #admit}.
+ *
+ * Flow:
+ *  - open day: run the increment under the read lock (many ingest threads at once).
+ *  - closed day: apply app.watermark.late-policy –
+ *      REJECT (drop), ADJUST (late_stat_adjustments) or REOPEN (mark REOPENED, then increment).
+ *  - close(): under the write lock – no increment can be half-way through a day being closed –
+ *    run the pre-close hook (flush buffered increments), then insert the closed_days rows.
+ *
+ * The closed set is an in-memory copy of closed_days, reloaded by DayCloser on every check,
+ * so days closed or reopened by another instance are picked up within one close-check-interval
+ * (until then that instance still admits increments for them; see DayCloser).
+ */
+@Slf4j
+@Component
+public class DayCloseGuard implements MeterBinder {
+
+    public enum Admission {
+        OPEN, REJECTED, ADJUSTED, REOPENED
+    }
+
+    private final ClosedDayRepository closedDayRepository;
+    private final LateStatAdjustmentRepository lateRepository;
+    private final WatermarkProperties properties;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile Set<LocalDate> closedDays = Set.of();
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder adjusted = new LongAdder();
+    private final LongAdder reopened = new LongAdder();
+
+    public DayCloseGuard(ClosedDayRepository closedDayRepository,
+                         LateStatAdjustmentRepository lateRepository,
+                         WatermarkProperties properties) {
+        this.closedDayRepository = closedDayRepository;
+        this.lateRepository = lateRepository;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void load() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            refresh();
+            log.info("Loaded {} closed days, late policy {}", closedDays.size(), properties.getLatePolicy());
+        } catch (RuntimeException ex) {
+            log.warn("Could not load closed days, treating all days as open until the next check", ex);
+        }
+    }
+
+    /**
+     * Runs {@code increment} if {@code day} is open, otherwise applies the late policy.
+     */
+    public Admission admit(LocalDate day, String query, Runnable increment) {
+        if (!properties.isEnabled()) {
+            increment.run();
+            return Admission.OPEN;
+        }
+        lock.readLock().lock();
+        try {
+            if (!closedDays.contains(day)) {
+                increment.run();
+                return Admission.OPEN;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return admitLate(day, query, increment);
+    }
+
+    public boolean isClosed(LocalDate day) {
+        return properties.isEnabled() && closedDays.contains(day);
+    }
+
+    /**
+     * True if every day in [from, to] is closed.
+     */
+    public boolean isClosed(LocalDate from, LocalDate to) {
+        if (!properties.isEnabled() || to.isBefore(from)) {
+            return false;
+        }
+        Set<LocalDate> closed = closedDays;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            if (!closed.contains(day)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Closes {@code days}; {@code beforeClose} runs first under the same write lock.
+     *
+     * @return days that changed to CLOSED
+     */
+    public List<LocalDate> close(Collection<LocalDate> days, Instant watermark, Runnable beforeClose) {
+        lock.writeLock().lock();
+        try {
+            beforeClose.run();
+            List<LocalDate> closed = closedDayRepository.close(days, watermark);
+            if (!closed.isEmpty()) {
+                Set<LocalDate> updated = new HashSet<>(closedDays);
+                updated.addAll(closed);
+                closedDays = Set.copyOf(updated);
+            }
+            return closed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reloads the closed set from closed_days.
+     */
+    public void refresh() {
+        Set<LocalDate> loaded = closedDayRepository.findClosedDays();
+        lock.writeLock().lock();
+        try {
+            closedDays = Set.copyOf(loaded);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindLateCounter(registry, LatePolicy.REJECT, rejected);
+        bindLateCounter(registry, LatePolicy.ADJUST, adjusted);
+        bindLateCounter(registry, LatePolicy.REOPEN, reopened);
+        Gauge.builder("search.events.closed.days", this, g -> g.closedDays.size())
+                .description("Days currently closed (immutable) in daily_query_stats")
+                .register(registry);
+    }
+
+    private Admission admitLate(LocalDate day, String query, Runnable increment) {
+        switch (properties.getLatePolicy()) {
+            case REJECT -> {
+                rejected.increment();
+                return Admission.REJECTED;
+            }
+            case ADJUST -> {
+                lateRepository.increment(day, query);
+                adjusted.increment();
+                return Admission.ADJUSTED;
+            }
+            default -> {
+                // write lock: DayCloser cannot close the day again before the increment lands
+                lock.writeLock().lock();
+                try {
+                    if (closedDays.contains(day)) {
+                        closedDayRepository.reopen(day);
+                        Set<LocalDate> updated = new HashSet<>(closedDays);
+                        updated.remove(day);
+                        closedDays = Set.copyOf(updated);
+                        log.info("Reopened day {} for a late event", day);
+                    }
+                    increment.run();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                reopened.increment();
+                return Admission.REOPENED;
+            }
+        }
+    }
+
+    private static void bindLateCounter(MeterRegistry registry, LatePolicy policy, LongAdder counter) {
+        FunctionCounter.builder("search.events.late", counter, LongAdder::sum)
+                .description("Events for already closed days, by the late policy applied")
+                .tag("policy", policy.name().toLowerCase(Locale.ROOT))
+                .register(registry);
+    }
+}
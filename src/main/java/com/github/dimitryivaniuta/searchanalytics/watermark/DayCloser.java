@@ -0,0 +1,213 @@
+package com.github.dimitryivaniuta.searchanalytics.watermark;
+
+import com.github.dimitryivaniuta.searchanalytics.bulkhead.BulkheadRegistry;
+import com.github.dimitryivaniuta.searchanalytics.config.KafkaTopicsProperties;
+import com.github.dimitryivaniuta.searchanalytics.config.StatsProperties;
+import com.github.dimitryivaniuta.searchanalytics.config.WatermarkProperties;
+import com.github.dimitryivaniuta.searchanalytics.repository.ClosedDayRepository;
+import com.github.dimitryivaniuta.searchanalytics.repository.EventTimeWatermarkRepository;
+import com.github.dimitryivaniuta.searchanalytics.service.DailyQueryStatBuffer;
+import com.github.dimitryivaniuta.searchanalytics.service.PartitionedStatsAggregator;
+import com.github.dimitryivaniuta.searchanalytics.spill.SpillLog;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * Advances the event-time watermark and closes the days it has passed.
+ *
+ * Flow (every app.watermark.close-check-interval, maintenance bulkhead):
+ *  1. Persist the per-partition max event times seen by this instance (WatermarkTracker).
+ *  2. Low watermark = MIN(max_event_time) over partitions active within idle-timeout,
+ *     minus allowed-lateness. A partition that stopped receiving events does not stall it.
+ *  3. Reload the closed set (DayCloseGuard) – picks up other instances' closes and reopens.
+ *  4. Close every UTC day that ends at or before the watermark (within lookback-days) and every
+ *     REOPENED day the watermark has passed; in COALESCED / PARTITIONED mode buffered stats are
+ *     flushed first, under the guard's write lock, so the closed counts include everything admitted before.
+ *     Nothing is closed while this instance's SpillLog still holds undrained events (they may belong
+ *     to those days).
+ *
+ * Closing is exact for a single instance only: the flush and the SpillLog check cover this instance, and
+ * other instances admit events for a day until their next guard refresh. With several instances
+ * (PARTITIONED) a closed day can still receive their buffered deltas, so StatsQueryController serves
+ * closed days as immutable (public max-age) only in DIRECT mode.
+ */
+@Slf4j
+@Component
+public class DayCloser implements MeterBinder {
+
+    private final WatermarkTracker tracker;
+    private final DayCloseGuard guard;
+    private final EventTimeWatermarkRepository watermarkRepository;
+    private final ClosedDayRepository closedDayRepository;
+    private final DailyQueryStatBuffer buffer;
+    private final PartitionedStatsAggregator partitionedStats;
+    private final SpillLog spillLog;
+    private final StatsProperties statsProperties;
+    private final WatermarkProperties properties;
+    private final KafkaTopicsProperties topics;
+    private final BulkheadRegistry bulkheads;
+    private final Clock clock;
+
+    private volatile Instant watermark;
+
+    @Autowired
+    public DayCloser(WatermarkTracker tracker,
+                     DayCloseGuard guard,
+                     EventTimeWatermarkRepository watermarkRepository,
+                     ClosedDayRepository closedDayRepository,
+                     DailyQueryStatBuffer buffer,
+                     PartitionedStatsAggregator partitionedStats,
+                     SpillLog spillLog,
+                     StatsProperties statsProperties,
+                     WatermarkProperties properties,
+                     KafkaTopicsProperties topics,
+                     BulkheadRegistry bulkheads) {
+        this(tracker, guard, watermarkRepository, closedDayRepository, buffer, partitionedStats, spillLog,
+                statsProperties, properties, topics, bulkheads, Clock.systemUTC());
+    }
+
+    DayCloser(WatermarkTracker tracker,
+              DayCloseGuard guard,
+              EventTimeWatermarkRepository watermarkRepository,
+              ClosedDayRepository closedDayRepository,
+              DailyQueryStatBuffer buffer,
+              PartitionedStatsAggregator partitionedStats,
+              SpillLog spillLog,
+              StatsProperties statsProperties,
+              WatermarkProperties properties,
+              KafkaTopicsProperties topics,
+              BulkheadRegistry bulkheads,
+              Clock clock) {
+        this.tracker = tracker;
+        this.guard = guard;
+        this.watermarkRepository = watermarkRepository;
+        this.closedDayRepository = closedDayRepository;
+        this.buffer = buffer;
+        this.partitionedStats = partitionedStats;
+        this.spillLog = spillLog;
+        this.statsProperties = statsProperties;
+        this.properties = properties;
+        this.topics = topics;
+        this.bulkheads = bulkheads;
+        this.clock = clock;
+    }
+
+    @Scheduled(fixedDelayString = "${app.watermark.close-check-interval:PT1M}")
+    public void scheduledCheck() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            check();
+        } catch (Exception ex) {
+            log.warn("Day close check failed, retrying on the next interval", ex);
+        }
+    }
+
+    /**
+     * One watermark/close round.
+     *
+     * @return days closed by this round
+     */
+    public List<LocalDate> check() {
+        return bulkheads.maintenance().call(() -> {
+            String topic = topics.getSearchEventsTopic();
+            Map<Integer, Instant> observed = tracker.drain(topic);
+            try {
+                watermarkRepository.advance(topic, observed);
+            } catch (RuntimeException ex) {
+                observed.forEach((partition, time) -> tracker.observe(topic, partition, time));
+                throw ex;
+            }
+
+            Instant now = clock.instant();
+            Optional<Instant> low = watermarkRepository.findLowWatermark(topic, now.minus(properties.getIdleTimeout()));
+            guard.refresh();
+            if (low.isEmpty()) {
+                return List.of();
+            }
+            Instant current = low.get().minus(properties.getAllowedLateness());
+            watermark = current;
+
+            List<LocalDate> candidates = closableDays(current);
+            if (candidates.isEmpty()) {
+                return List.of();
+            }
+            if (spillLog.pendingBytes() > 0) {
+                log.info("Not closing {} yet: {} bytes of spilled events still to drain",
+                        candidates, spillLog.pendingBytes());
+                return List.of();
+            }
+            List<LocalDate> closed = guard.close(candidates, current, this::flushBuffered);
+            if (!closed.isEmpty()) {
+                log.info("Closed days {} at watermark {}", closed, current);
+            }
+            return closed;
+        });
+    }
+
+    /**
+     * Current watermark (allowed lateness already subtracted), null before the first successful check.
+     */
+    public Instant watermark() {
+        return watermark;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("search.events.watermark.lag", this, DayCloser::lagSeconds)
+                .description("Wall clock minus the event-time watermark (includes allowed lateness)")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    /**
+     * Days strictly before the watermark's UTC day: not yet closed within lookback-days, plus reopened ones.
+     */
+    private List<LocalDate> closableDays(Instant current) {
+        LocalDate firstOpen = LocalDate.ofInstant(current, ZoneOffset.UTC);
+        TreeSet<LocalDate> days = new TreeSet<>();
+        for (LocalDate day = firstOpen.minusDays(properties.getLookbackDays()); day.isBefore(firstOpen);
+             day = day.plusDays(1)) {
+            if (!guard.isClosed(day)) {
+                days.add(day);
+            }
+        }
+        for (LocalDate day : closedDayRepository.findReopenedDays()) {
+            if (day.isBefore(firstOpen)) {
+                days.add(day);
+            }
+        }
+        return List.copyOf(days);
+    }
+
+    private void flushBuffered() {
+        switch (statsProperties.getWriteMode()) {
+            case COALESCED -> buffer.flush();
+            case PARTITIONED -> partitionedStats.flush();
+            default -> {
+                // DIRECT: nothing buffered
+            }
+        }
+    }
+
+    private double lagSeconds() {
+        Instant current = watermark;
+        return current == null ? Double.NaN : Duration.between(current, clock.instant()).toMillis() / 1000.0;
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.dimitryivaniuta.searchanalytics.watermark;
+
+import com.github.dimitryivaniuta.searchanalytics.config.WatermarkProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Highest event time (occurredAt) aggregated per topic partition since the last drain.
+ *
+ * observe() is called by the listener after each record – one map merge, no DB access.
+ * occurredAt comes from the client, so it is clamped to receive time + app.watermark.future-skew-tolerance:
+ * the persisted watermark never goes down, and one event from a clock running ahead would otherwise
+ * close today early (or keep closing every following day) for good.
+ * {@link DayCloser} drains the values every app.watermark.close-check-interval and persists them,
+ * so the watermark is shared by all instances and survives restarts and rebalances.
+ */
+@EnableConfigurationProperties(WatermarkProperties.class)
+@Component
+public class WatermarkTracker {
+
+    private final ConcurrentHashMap<String, ConcurrentHashMap<Integer, Long>> pending = new ConcurrentHashMap<>();
+    private final Clock clock;
+    private final long futureSkewToleranceMillis;
+
+    @Autowired
+    public WatermarkTracker(WatermarkProperties properties) {
+        this(properties, Clock.systemUTC());
+    }
+
+    WatermarkTracker(WatermarkProperties properties, Clock clock) {
+        this.clock = clock;
+        this.futureSkewToleranceMillis = properties.getFutureSkewTolerance().toMillis();
+    }
+
+    public void observe(String topic, int partition, Instant occurredAt) {
+        if (occurredAt == null) {
+            return;
+        }
+        long eventTime = Math.min(occurredAt.toEpochMilli(), clock.millis() + futureSkewToleranceMillis);
+        pending.computeIfAbsent(topic, t -> new ConcurrentHashMap<>())
+                .merge(partition, eventTime, Math::max);
+    }
+
+    /**
+     * Removes and returns the max event time per partition observed for {@code topic} since the last call.
+     */
+    public Map<Integer, Instant> drain(String topic) {
+        ConcurrentHashMap<Integer, Long> partitions = pending.get(topic);
+        if (partitions == null || partitions.isEmpty()) {
+            return Map.of();
+        }
+        Map<Integer, Instant> drained = new HashMap<>();
+        Iterator<Map.Entry<Integer, Long>> it = partitions.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, Long> entry = it.next();
+            // remove(key, value) keeps a value that was raised concurrently for the next drain
+            if (partitions.remove(entry.getKey(), entry.getValue())) {
+                drained.put(entry.getKey(), Instant.ofEpochMilli(entry.getValue()));
+            }
+        }
+        return drained;
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.dimitryivaniuta.searchanalytics.web;
+
+import com.github.dimitryivaniuta.searchanalytics.bulkhead.BulkheadFullException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+
+/**
+ * Maps a full bulkhead to 503 Service Unavailable with a Retry-After header (seconds).
+ */
+@RestControllerAdvice
+public class BulkheadExceptionHandler {
+
+    @ExceptionHandler(BulkheadFullException.class)
+    public ResponseEntity<Map<String, Object>> handleBulkheadFull(BulkheadFullException ex) {
+        long retryAfterSeconds = Math.max(1, ex.getRetryAfter().toSeconds());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(Map.of(
+                        "status", "REJECTED",
+                        "bulkhead", ex.getWorkload().tag(),
+                        "error", ex.getMessage(),
+                        "timestamp", OffsetDateTime.now()
+                ));
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.dimitryivaniuta.searchanalytics.web;
+
+import com.github.dimitryivaniuta.searchanalytics.bulkhead.BulkheadRegistry;
+import com.github.dimitryivaniuta.searchanalytics.config.ErrorsProperties;
+import com.github.dimitryivaniuta.searchanalytics.error.ErrorRollup;
+import com.github.dimitryivaniuta.searchanalytics.web.dto.ErrorSummaryResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Map;
+
+/**
+ * Most frequent processing errors by fingerprint over a recent window (error_occurrences rollup).
+ * Runs in the query bulkhead like the stats API, against the read pool.
+ * window must be positive and at most app.errors.retention (older minutes are deleted anyway),
+ * limit within 1..MAX_LIMIT; anything else is a 400.
+ */
+@RestController
+@RequestMapping("/api/errors")
+@RequiredArgsConstructor
+public class ErrorSummaryController {
+
+    static final int MAX_LIMIT = 500;
+
+    private final ErrorRollup errorRollup;
+    private final BulkheadRegistry bulkheads;
+    private final ErrorsProperties errorsProperties;
+
+    @GetMapping("/summary")
+    public ResponseEntity<?> getSummary(
+            @RequestParam(value = "window", defaultValue = "PT1H") Duration window,
+            @RequestParam(value = "limit", defaultValue = "20") int limit
+    ) {
+        if (window.isNegative() || window.isZero() || window.compareTo(errorsProperties.getRetention()) > 0) {
+            return badRequest("window must be positive and at most " + errorsProperties.getRetention());
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return badRequest("limit must be between 1 and " + MAX_LIMIT);
+        }
+        return ResponseEntity.ok(bulkheads.query().call(() -> errorRollup.summary(window, limit)
+                .stream()
+                .map(ErrorSummaryResponse::fromModel)
+                .toList()));
+    }
+
+    private static ResponseEntity<Map<String, Object>> badRequest(String message) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                "error", message,
+                "timestamp", OffsetDateTime.now()
+        ));
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.dimitryivaniuta.searchanalytics.web;
+
+import com.github.dimitryivaniuta.searchanalytics.service.IngestOverloadedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+
+/**
+ * Maps ingest load shedding to 429 Too Many Requests with a Retry-After header (seconds).
+ */
+@RestControllerAdvice
+public class IngestExceptionHandler {
+
+    @ExceptionHandler(IngestOverloadedException.class)
+    public ResponseEntity<Map<String, Object>> handleOverloaded(IngestOverloadedException ex) {
+        long retryAfterSeconds = Math.max(1, ex.getRetryAfter().toSeconds());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(Map.of(
+                        "status", "REJECTED",
+                        "error", ex.getMessage(),
+                        "timestamp", OffsetDateTime.now()
+                ));
+    }
+}
@@ -0,0 +1,98 @@
+package com.github.dimitryivaniuta.searchanalytics.web;
+
+import com.github.dimitryivaniuta.searchanalytics.profiling.JfrRecordingService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Map;
+
+/**
+ * On-demand JFR recordings (app.jfr.enabled):
+ *
+ *   POST /api/admin/jfr/start?duration=2m&maxSize=100MB  -> 201, 400 on a malformed value, 409 if one is running
+ *   POST /api/admin/jfr/stop
+ *   GET  /api/admin/jfr                                     -> status
+ *   GET  /api/admin/jfr/recording                           -> .jfr download (snapshot while running)
+ *
+ * Open the file in JDK Mission Control or `jfr print --events searchanalytics.RepositoryCall rec.jfr`.
+ */
+@RestController
+@RequestMapping("/api/admin/jfr")
+@ConditionalOnProperty(prefix = "app.jfr", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class JfrAdminController {
+
+    private final JfrRecordingService recordingService;
+
+    @PostMapping("/start")
+    public ResponseEntity<?> start(@RequestParam(value = "duration", required = false) String duration,
+                                   @RequestParam(value = "maxSize", required = false) String maxSize) {
+        Duration requestedDuration;
+        DataSize requestedMaxSize;
+        try {
+            requestedDuration = duration != null ? DurationStyle.detectAndParse(duration) : null;
+            requestedMaxSize = maxSize != null ? DataSize.parse(maxSize) : null;
+        } catch (IllegalArgumentException ex) {
+            return error(HttpStatus.BAD_REQUEST, "Malformed duration or maxSize: " + ex.getMessage());
+        }
+        if ((requestedDuration != null && (requestedDuration.isNegative() || requestedDuration.isZero()))
+                || (requestedMaxSize != null && requestedMaxSize.toBytes() <= 0)) {
+            return error(HttpStatus.BAD_REQUEST, "duration and maxSize must be positive");
+        }
+
+        try {
+            JfrRecordingService.RecordingStatus status = recordingService.start(requestedDuration, requestedMaxSize);
+            return ResponseEntity.status(HttpStatus.CREATED).body(status);
+        } catch (IllegalStateException ex) {
+            return error(HttpStatus.CONFLICT, ex.getMessage());
+        }
+    }
+
+    @PostMapping("/stop")
+    public JfrRecordingService.RecordingStatus stop() {
+        return recordingService.stop();
+    }
+
+    @GetMapping
+    public JfrRecordingService.RecordingStatus status() {
+        return recordingService.status();
+    }
+
+    @GetMapping("/recording")
+    public ResponseEntity<Resource> download() throws IOException {
+        Path file = recordingService.recordingFile();
+        if (file == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(file.getFileName().toString()).build().toString())
+                .body(new FileSystemResource(file));
+    }
+
+    private static ResponseEntity<Map<String, Object>> error(HttpStatus status, String message) {
+        return ResponseEntity.status(status).body(Map.of(
+                "error", message,
+                "timestamp", OffsetDateTime.now()
+        ));
+    }
+}
@@ -0,0 +1,29 @@
+package com.github.dimitryivaniuta.searchanalytics.web;
+
+import com.github.dimitryivaniuta.searchanalytics.metrics.LatencyTracker;
+import com.github.dimitryivaniuta.searchanalytics.web.dto.HopLatencyResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Event-time latency per hop (client -> producer -> consumer -> DB commit) over the last 1-2 app.latency windows.
+ */
+@RestController
+@RequestMapping("/api/metrics")
+@RequiredArgsConstructor
+public class LatencyMetricsController {
+
+    private final LatencyTracker latencyTracker;
+
+    @GetMapping("/latency")
+    public List<HopLatencyResponse> getLatency() {
+        return latencyTracker.snapshot()
+                .stream()
+                .map(HopLatencyResponse::fromSnapshot)
+                .toList();
+    }
+}
@@ -1,13 +1,25 @@
 package com.github.dimitryivaniuta.searchanalytics.web;
 
+import com.github.dimitryivaniuta.searchanalytics.config.IngestProperties;
 import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
-import com.github.dimitryivaniuta.searchanalytics.service.SearchEventProducerService;
+import com.github.dimitryivaniuta.searchanalytics.service.SearchEventBatchIngestService;
+import com.github.dimitryivaniuta.searchanalytics.service.SearchEventIngestGateway;
+import com.github.dimitryivaniuta.searchanalytics.web.dto.BatchIngestResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * REST API for sending search events into Kafka from Postman / external clients.
@@ -17,7 +29,9 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class SearchEventController {
 
-    private final SearchEventProducerService producerService;
+    private final SearchEventIngestGateway ingestGateway;
+    private final SearchEventBatchIngestService batchIngestService;
+    private final IngestProperties ingestProperties;
 
     /**
      * POST /api/search-events
@@ -25,18 +39,77 @@ public class SearchEventController {
      * Accepts SearchEventPayload JSON, enriches it (eventId, occurredAt, sentAt)
      * and publishes to Kafka topic "search-events".
      *
+     * Fire-and-forget: returns as soon as the send is handed to the producer.
+     * Answers 429 + Retry-After when app.ingest.max-in-flight sends are pending.
+     *
      * Returns basic info so you can see eventId in Postman.
      */
     @PostMapping
     @ResponseStatus(HttpStatus.ACCEPTED)
     public Map<String, Object> publish(@RequestBody SearchEventPayload request) {
-        SearchEventPayload sent = producerService.sendFromApi(request);
+        ingestGateway.submit(request);
         return Map.of(
                 "status", "ACCEPTED",
-                "eventId", sent.getEventId(),
-                "occurredAt", sent.getOccurredAt(),
-                "sentAt", sent.getSentAt(),
+                "eventId", request.getEventId(),
+                "occurredAt", request.getOccurredAt(),
+                "sentAt", request.getSentAt(),
                 "timestamp", OffsetDateTime.now()
         );
     }
+
+    /**
+     * POST /api/search-events?ack=true
+     *
+     * Same as {@link #publish}, but the response is completed asynchronously once Kafka
+     * has acknowledged the record (the request thread is released meanwhile):
+     *  - 201 CONFIRMED with partition/offset,
+     *  - 503 if the send failed, 504 if not acknowledged within app.ingest.ack-timeout.
+     */
+    @PostMapping(params = "ack=true")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> publishConfirmed(
+            @RequestBody SearchEventPayload request) {
+        // the timeout goes on a copy: completing the gateway's own future early would release its
+        // in-flight permit while the send is still pending
+        return ingestGateway.submit(request)
+                .copy()
+                .orTimeout(ingestProperties.getAckTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .handle((result, ex) -> {
+                    Map<String, Object> body = new LinkedHashMap<>();
+                    body.put("eventId", request.getEventId());
+                    body.put("occurredAt", request.getOccurredAt());
+                    body.put("sentAt", request.getSentAt());
+                    body.put("timestamp", OffsetDateTime.now());
+                    if (ex == null) {
+                        body.put("status", "CONFIRMED");
+                        body.put("partition", result.getRecordMetadata().partition());
+                        body.put("offset", result.getRecordMetadata().offset());
+                        return ResponseEntity.status(HttpStatus.CREATED).body(body);
+                    }
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    body.put("status", "FAILED");
+                    body.put("error", cause.getClass().getSimpleName() + ": " + cause.getMessage());
+                    HttpStatus status = cause instanceof TimeoutException
+                            ? HttpStatus.GATEWAY_TIMEOUT
+                            : HttpStatus.SERVICE_UNAVAILABLE;
+                    return ResponseEntity.status(status).body(body);
+                });
+    }
+
+    /**
+     * POST /api/search-events/batch
+     *
+     * Accepts many events in one request, either as NDJSON (application/x-ndjson,
+     * one object per line) or as a JSON array (application/json). The body is
+     * streamed, not buffered, and all events are sent to Kafka pipelined.
+     *
+     * Responds once every send has completed, with one result per event
+     * (ACCEPTED + partition/offset, or FAILED + error) in request order.
+     */
+    @PostMapping(
+            path = "/batch",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE}
+    )
+    public BatchIngestResponse publishBatch(InputStream body) throws IOException {
+        return BatchIngestResponse.fromResult(batchIngestService.ingest(body));
+    }
 }
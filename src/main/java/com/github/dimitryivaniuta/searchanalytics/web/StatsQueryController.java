@@ -1,19 +1,34 @@
 package com.github.dimitryivaniuta.searchanalytics.web;
 
+import com.github.dimitryivaniuta.searchanalytics.bulkhead.BulkheadRegistry;
+import com.github.dimitryivaniuta.searchanalytics.config.StatsProperties;
+import com.github.dimitryivaniuta.searchanalytics.config.WatermarkProperties;
 import com.github.dimitryivaniuta.searchanalytics.service.DailyQueryStatService;
+import com.github.dimitryivaniuta.searchanalytics.watermark.DayCloseGuard;
 import com.github.dimitryivaniuta.searchanalytics.web.dto.DailyQueryStatResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
 import java.util.List;
 
 /**
  * Read-only API for aggregated search statistics.
+ * Runs in the query bulkhead: when it is full callers get 503 + Retry-After instead of queueing.
+ * Responses covering only closed days are immutable only with write-mode=DIRECT and late-policy
+ * REJECT / ADJUST, and then sent with a public Cache-Control max-age (app.watermark.closed-day-cache-max-age).
+ * Otherwise a closed day can still change – REOPEN lets late events in, and in COALESCED / PARTITIONED mode
+ * another instance's buffered deltas may land after the close (DayCloser only flushes its own) – so those
+ * responses are private, no-cache and carry an ETag of the body: clients revalidate every time and get 304
+ * while the day is unchanged. Anything touching an open day is no-cache.
  */
 @RestController
 @RequestMapping("/api/stats")
@@ -21,33 +36,67 @@ import java.util.List;
 public class StatsQueryController {
 
     private final DailyQueryStatService dailyQueryStatService;
+    private final BulkheadRegistry bulkheads;
+    private final DayCloseGuard dayCloseGuard;
+    private final WatermarkProperties watermarkProperties;
+    private final StatsProperties statsProperties;
 
     @GetMapping("/daily")
-    public List<DailyQueryStatResponse> getDailyStats(
+    public ResponseEntity<List<DailyQueryStatResponse>> getDailyStats(
             @RequestParam("day")
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
             LocalDate day,
-            @RequestParam(value = "limit", defaultValue = "10") int limit
+            @RequestParam(value = "limit", defaultValue = "10") int limit,
+            WebRequest request
     ) {
-        return dailyQueryStatService.getTopForDay(day, limit)
+        // closed state checked before the read: a day closed mid-request is simply not cached this time
+        boolean closed = dayCloseGuard.isClosed(day);
+        List<DailyQueryStatResponse> body = bulkheads.query().call(() -> dailyQueryStatService.getTopForDay(day, limit)
                 .stream()
                 .map(DailyQueryStatResponse::fromModel)
-                .toList();
+                .toList());
+        return respond(closed, body, request);
     }
 
     @GetMapping("/range")
-    public List<DailyQueryStatResponse> getRangeStats(
+    public ResponseEntity<List<DailyQueryStatResponse>> getRangeStats(
             @RequestParam("from")
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
             LocalDate from,
             @RequestParam("to")
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
             LocalDate to,
-            @RequestParam(value = "limit", defaultValue = "10") int limit
+            @RequestParam(value = "limit", defaultValue = "10") int limit,
+            WebRequest request
     ) {
-        return dailyQueryStatService.getTopInRange(from, to, limit)
+        boolean closed = dayCloseGuard.isClosed(from, to);
+        List<DailyQueryStatResponse> body = bulkheads.query().call(() -> dailyQueryStatService.getTopInRange(from, to, limit)
                 .stream()
                 .map(DailyQueryStatResponse::fromModel)
-                .toList();
+                .toList());
+        return respond(closed, body, request);
+    }
+
+    private ResponseEntity<List<DailyQueryStatResponse>> respond(boolean closed, List<DailyQueryStatResponse> body,
+                                                                 WebRequest request) {
+        if (!closed) {
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(body);
+        }
+        if (closedDaysImmutable()) {
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.maxAge(watermarkProperties.getClosedDayCacheMaxAge()).cachePublic())
+                    .body(body);
+        }
+        CacheControl revalidate = CacheControl.noCache().cachePrivate();
+        String etag = "\"" + Integer.toHexString(body.hashCode()) + "\"";
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(revalidate).eTag(etag).build();
+        }
+        return ResponseEntity.ok().cacheControl(revalidate).eTag(etag).body(body);
+    }
+
+    private boolean closedDaysImmutable() {
+        return watermarkProperties.getLatePolicy() != WatermarkProperties.LatePolicy.REOPEN
+                && statsProperties.getWriteMode() == StatsProperties.WriteMode.DIRECT;
     }
 }
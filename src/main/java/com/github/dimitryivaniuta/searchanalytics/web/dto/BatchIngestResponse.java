@@ -0,0 +1,38 @@
+package com.github.dimitryivaniuta.searchanalytics.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.github.dimitryivaniuta.searchanalytics.model.BatchIngestResult;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * API DTO returned by POST /api/search-events/batch.
+ */
+@Value
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchIngestResponse {
+
+    int received;
+    int accepted;
+    int failed;
+    boolean truncated;
+    String truncationReason;
+    OffsetDateTime timestamp;
+    List<BatchIngestResult.EventResult> results;
+
+    public static BatchIngestResponse fromResult(BatchIngestResult result) {
+        return BatchIngestResponse.builder()
+                .received(result.getReceived())
+                .accepted(result.getAccepted())
+                .failed(result.getFailed())
+                .truncated(result.isTruncated())
+                .truncationReason(result.getTruncationReason())
+                .timestamp(OffsetDateTime.now())
+                .results(result.getResults())
+                .build();
+    }
+}
@@ -0,0 +1,37 @@
+package com.github.dimitryivaniuta.searchanalytics.web.dto;
+
+import com.github.dimitryivaniuta.searchanalytics.model.ErrorSummary;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * API DTO for one error fingerprint of GET /api/errors/summary.
+ */
+@Value
+@Builder
+public class ErrorSummaryResponse {
+
+    String fingerprint;
+    String errorType;
+    String exceptionType;
+    String messageTemplate;
+    long occurrences;
+    Instant firstMinute;
+    Instant lastMinute;
+    Instant firstSeenAt;
+
+    public static ErrorSummaryResponse fromModel(ErrorSummary summary) {
+        return ErrorSummaryResponse.builder()
+                .fingerprint(summary.getFingerprint())
+                .errorType(summary.getErrorType())
+                .exceptionType(summary.getExceptionType())
+                .messageTemplate(summary.getMessageTemplate())
+                .occurrences(summary.getOccurrences())
+                .firstMinute(summary.getFirstMinute())
+                .lastMinute(summary.getLastMinute())
+                .firstSeenAt(summary.getFirstSeenAt())
+                .build();
+    }
+}
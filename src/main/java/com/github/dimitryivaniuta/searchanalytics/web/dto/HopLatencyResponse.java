@@ -0,0 +1,45 @@
+package com.github.dimitryivaniuta.searchanalytics.web.dto;
+
+import com.github.dimitryivaniuta.searchanalytics.metrics.LatencyTracker;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * API DTO for one hop of GET /api/metrics/latency; latencies in milliseconds.
+ */
+@Value
+@Builder
+public class HopLatencyResponse {
+
+    String hop;
+    long count;
+    double meanMs;
+    double p50Ms;
+    double p90Ms;
+    double p99Ms;
+    double p999Ms;
+    double maxMs;
+    long clampedNegative;
+    long rejectedNegative;
+    double maxNegativeSkewMs;
+
+    public static HopLatencyResponse fromSnapshot(LatencyTracker.HopSnapshot snapshot) {
+        return HopLatencyResponse.builder()
+                .hop(snapshot.getHop())
+                .count(snapshot.getCount())
+                .meanMs(millis(snapshot.getMeanMicros()))
+                .p50Ms(millis(snapshot.getP50Micros()))
+                .p90Ms(millis(snapshot.getP90Micros()))
+                .p99Ms(millis(snapshot.getP99Micros()))
+                .p999Ms(millis(snapshot.getP999Micros()))
+                .maxMs(millis(snapshot.getMaxMicros()))
+                .clampedNegative(snapshot.getClampedNegative())
+                .rejectedNegative(snapshot.getRejectedNegative())
+                .maxNegativeSkewMs(millis(snapshot.getMaxNegativeSkewMicros()))
+                .build();
+    }
+
+    private static double millis(double micros) {
+        return micros / 1_000.0;
+    }
+}
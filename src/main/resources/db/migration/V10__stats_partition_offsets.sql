@@ -0,0 +1,13 @@
+-- V10: Per-partition progress of PARTITIONED stats aggregation (PartitionedStatsAggregator).
+-- next_offset is written in the same transaction as the stats deltas of the records before it,
+-- so a partition that moves to another consumer resumes exactly after what was counted.
+-- It also fences a consumer that lost its partition: its flush expects the offset it loaded.
+
+CREATE TABLE IF NOT EXISTS stats_partition_offsets (
+    consumer_group  VARCHAR(255) NOT NULL,
+    topic           VARCHAR(255) NOT NULL,
+    kafka_partition INT          NOT NULL,
+    next_offset     BIGINT       NOT NULL,
+    updated_at      TIMESTAMPTZ  NOT NULL DEFAULT NOW(),
+    CONSTRAINT pk_stats_partition_offsets PRIMARY KEY (consumer_group, topic, kafka_partition)
+);
@@ -0,0 +1,10 @@
+-- V11: Replay position of each local stats write-ahead log (StatsWal, COALESCED stats mode).
+-- lsn is written in the same transaction as the deltas of all WAL records up to it,
+-- so a restart replays exactly the records whose increments are not in daily_query_stats yet.
+
+CREATE TABLE IF NOT EXISTS stats_wal_checkpoints (
+    wal_id     VARCHAR(64) NOT NULL,
+    lsn        BIGINT      NOT NULL,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    CONSTRAINT pk_stats_wal_checkpoints PRIMARY KEY (wal_id)
+);
@@ -0,0 +1,30 @@
+-- V12: Fingerprinted error storage.
+-- One row per error kind (type + exception chain + top frames + message template) with its stack trace,
+-- plus per-minute occurrence counters. search_event_processing_errors rows reference the fingerprint
+-- instead of carrying a stack trace each.
+
+CREATE TABLE IF NOT EXISTS error_fingerprints (
+    fingerprint      VARCHAR(16)  PRIMARY KEY,
+    error_type       VARCHAR(100) NOT NULL,
+    exception_type   TEXT,
+    message_template TEXT         NOT NULL,
+    stack_trace      TEXT,
+    first_seen_at    TIMESTAMPTZ  NOT NULL DEFAULT NOW()
+);
+
+CREATE TABLE IF NOT EXISTS error_occurrences (
+    fingerprint VARCHAR(16) NOT NULL,
+    minute      TIMESTAMPTZ NOT NULL,
+    occurrences BIGINT      NOT NULL,
+    PRIMARY KEY (fingerprint, minute)
+);
+
+-- GET /api/errors/summary reads a recent time range; retention deletes by minute
+CREATE INDEX IF NOT EXISTS idx_error_occurrences_minute
+    ON error_occurrences (minute);
+
+ALTER TABLE search_event_processing_errors
+    ADD COLUMN IF NOT EXISTS fingerprint VARCHAR(16);
+
+CREATE INDEX IF NOT EXISTS idx_processing_errors_fingerprint
+    ON search_event_processing_errors (fingerprint);
@@ -0,0 +1,53 @@
+-- V13: Query dictionary.
+-- daily_query_stats, daily_query_stat_stripes and late_stat_adjustments reference the query by an
+-- integer query_id instead of repeating its text for every day (and stripe). The text is stored once in
+-- query_dictionary and only joined in for the rows a report returns. Ids are never changed or deleted,
+-- so the application caches query -> id (QueryDictionaryRepository).
+
+CREATE TABLE IF NOT EXISTS query_dictionary (
+    id    SERIAL PRIMARY KEY,
+    query TEXT   NOT NULL,
+    CONSTRAINT uq_query_dictionary_query UNIQUE (query)
+);
+
+-- Backfill every query that has a counter row.
+INSERT INTO query_dictionary (query)
+SELECT query FROM daily_query_stats
+UNION
+SELECT query FROM daily_query_stat_stripes
+UNION
+SELECT query FROM late_stat_adjustments
+ORDER BY 1;
+
+-- daily_query_stats: UNIQUE (day, query_id) also serves the per-day reads, so no separate day index.
+ALTER TABLE daily_query_stats ADD COLUMN query_id INT;
+UPDATE daily_query_stats s SET query_id = d.id FROM query_dictionary d WHERE d.query = s.query;
+ALTER TABLE daily_query_stats
+    ALTER COLUMN query_id SET NOT NULL,
+    ADD CONSTRAINT fk_daily_query_stats_query FOREIGN KEY (query_id) REFERENCES query_dictionary (id),
+    DROP CONSTRAINT uq_daily_query_stats_day_query;
+DROP INDEX IF EXISTS idx_daily_query_stats_query;
+DROP INDEX IF EXISTS idx_daily_query_stats_day;
+ALTER TABLE daily_query_stats DROP COLUMN query;
+ALTER TABLE daily_query_stats ADD CONSTRAINT uq_daily_query_stats_day_query UNIQUE (day, query_id);
+
+-- daily_query_stat_stripes
+ALTER TABLE daily_query_stat_stripes ADD COLUMN query_id INT;
+UPDATE daily_query_stat_stripes s SET query_id = d.id FROM query_dictionary d WHERE d.query = s.query;
+ALTER TABLE daily_query_stat_stripes
+    ALTER COLUMN query_id SET NOT NULL,
+    ADD CONSTRAINT fk_daily_query_stat_stripes_query FOREIGN KEY (query_id) REFERENCES query_dictionary (id),
+    DROP CONSTRAINT pk_daily_query_stat_stripes;
+ALTER TABLE daily_query_stat_stripes DROP COLUMN query;
+ALTER TABLE daily_query_stat_stripes
+    ADD CONSTRAINT pk_daily_query_stat_stripes PRIMARY KEY (day, query_id, stripe);
+
+-- late_stat_adjustments
+ALTER TABLE late_stat_adjustments ADD COLUMN query_id INT;
+UPDATE late_stat_adjustments s SET query_id = d.id FROM query_dictionary d WHERE d.query = s.query;
+ALTER TABLE late_stat_adjustments
+    ALTER COLUMN query_id SET NOT NULL,
+    ADD CONSTRAINT fk_late_stat_adjustments_query FOREIGN KEY (query_id) REFERENCES query_dictionary (id),
+    DROP CONSTRAINT late_stat_adjustments_pkey;
+ALTER TABLE late_stat_adjustments DROP COLUMN query;
+ALTER TABLE late_stat_adjustments ADD CONSTRAINT late_stat_adjustments_pkey PRIMARY KEY (day, query_id);
@@ -0,0 +1,14 @@
+-- V14: Retry state for the outbox relay.
+-- A failed send no longer makes a row terminal: it stays NEW with next_attempt_at pushed out by an
+-- exponential backoff. Only non-retryable failures (e.g. record too large) become FAILED, after
+-- app.outbox-relay.max-attempts; broker outages and ack timeouts are retried until they succeed.
+
+ALTER TABLE search_event_outbox
+    ADD COLUMN IF NOT EXISTS attempts        INT NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS next_attempt_at TIMESTAMPTZ;
+
+-- Rows the previous relay gave up on after one failed send (mostly broker outages) get another chance;
+-- consumers dedupe on the outboxId header.
+UPDATE search_event_outbox
+SET status = 'NEW'
+WHERE status = 'FAILED';
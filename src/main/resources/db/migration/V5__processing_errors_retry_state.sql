@@ -0,0 +1,17 @@
+-- V5: Retry state for DLT reprocessing.
+-- retry_count / last_retry_at already exist (V4); these columns let the
+-- DLT reprocessor record where an error is in its retry lifecycle.
+
+ALTER TABLE search_event_processing_errors
+    ADD COLUMN IF NOT EXISTS retry_status VARCHAR(32) NOT NULL DEFAULT 'NONE';
+-- NONE | RETRY_SCHEDULED | RESOLVED | PARKED
+
+ALTER TABLE search_event_processing_errors
+    ADD COLUMN IF NOT EXISTS next_retry_at TIMESTAMPTZ;
+
+ALTER TABLE search_event_processing_errors
+    ADD COLUMN IF NOT EXISTS resolved_at TIMESTAMPTZ;
+
+-- For operational dashboards: what is still retrying / parked
+CREATE INDEX IF NOT EXISTS idx_processing_errors_retry_status
+    ON search_event_processing_errors (retry_status);
@@ -0,0 +1,7 @@
+-- V6: Partial index for the outbox relay claim query
+--   SELECT ... WHERE status = 'NEW' ORDER BY created_at, id LIMIT n FOR UPDATE SKIP LOCKED
+-- Only NEW rows are indexed, so the index stays tiny once rows are PUBLISHED.
+
+CREATE INDEX IF NOT EXISTS idx_outbox_new_created_at_id
+    ON search_event_outbox (created_at, id)
+    WHERE status = 'NEW';
@@ -0,0 +1,12 @@
+-- V7: eventId-based deduplication (EventDeduplicator).
+-- One narrow row per aggregated eventId; rows older than app.dedup.ttl are deleted in batches.
+-- Only consulted when the in-memory Bloom filter reports a possible duplicate.
+
+CREATE TABLE IF NOT EXISTS processed_event_ids (
+    event_id     VARCHAR(128) PRIMARY KEY,
+    processed_at TIMESTAMPTZ  NOT NULL DEFAULT NOW()
+);
+
+-- TTL cleanup + Bloom filter warm-up scan by age
+CREATE INDEX IF NOT EXISTS idx_processed_event_ids_processed_at
+    ON processed_event_ids (processed_at);
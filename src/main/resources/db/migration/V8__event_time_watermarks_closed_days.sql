@@ -0,0 +1,33 @@
+-- V8: Event-time watermarks, closed days and late adjustments (DayCloser / DayCloseGuard).
+
+-- Highest occurredAt aggregated per Kafka partition; updated_at tells active from idle partitions.
+CREATE TABLE IF NOT EXISTS event_time_watermarks (
+    topic           VARCHAR(255) NOT NULL,
+    kafka_partition INT          NOT NULL,
+    max_event_time  TIMESTAMPTZ  NOT NULL,
+    updated_at      TIMESTAMPTZ  NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (topic, kafka_partition)
+);
+
+-- Days whose daily_query_stats rows no longer change (status CLOSED).
+-- A REOPENED day took a late event under app.watermark.late-policy=REOPEN and is closed again
+-- on the next check; closed_at then moves, which is the signal for readers to drop cached copies.
+CREATE TABLE IF NOT EXISTS closed_days (
+    day          DATE        PRIMARY KEY,
+    status       VARCHAR(16) NOT NULL DEFAULT 'CLOSED',
+    -- CLOSED | REOPENED
+    watermark    TIMESTAMPTZ NOT NULL,
+    closed_at    TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    reopened_at  TIMESTAMPTZ,
+    reopen_count INT         NOT NULL DEFAULT 0
+);
+
+-- Late events for closed days under app.watermark.late-policy=ADJUST, kept apart from daily_query_stats.
+CREATE TABLE IF NOT EXISTS late_stat_adjustments (
+    day           DATE        NOT NULL,
+    query         TEXT        NOT NULL,
+    count         BIGINT      NOT NULL DEFAULT 0,
+    first_seen_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    last_seen_at  TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (day, query)
+);
@@ -0,0 +1,16 @@
+-- V9: Stripe rows for hot (day, query) keys.
+-- While a key is hot each writer increments its own stripe instead of the single
+-- daily_query_stats row; reads sum daily_query_stats + stripes, and stripes untouched
+-- for a while are folded back into daily_query_stats by StripeFolder.
+
+CREATE TABLE IF NOT EXISTS daily_query_stat_stripes (
+    day        DATE        NOT NULL,
+    query      TEXT        NOT NULL,
+    stripe     SMALLINT    NOT NULL,
+    count      BIGINT      NOT NULL DEFAULT 0,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    CONSTRAINT pk_daily_query_stat_stripes PRIMARY KEY (day, query, stripe)
+);
+
+CREATE INDEX IF NOT EXISTS idx_daily_query_stat_stripes_updated_at
+    ON daily_query_stat_stripes (updated_at);
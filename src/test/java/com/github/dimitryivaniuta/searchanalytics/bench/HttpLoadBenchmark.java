@@ -0,0 +1,225 @@
+package com.github.dimitryivaniuta.searchanalytics.bench;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Closed-loop HTTP load generator for comparing the platform- vs virtual-thread execution model.
+ *
+ * Runs each scenario against an already running instance with {@code concurrency} clients
+ * (each sends its next request as soon as the previous one returns) and prints throughput,
+ * p50 / p99 / p99.9 latency and error counts. Run it once per mode and compare:
+ *
+ * <pre>
+ *   VIRTUAL_THREADS_ENABLED=false ./gradlew bootRun   # terminal 1
+ *   ./gradlew httpBenchmark --args="--label=platform --concurrency=400"
+ *
+ *   VIRTUAL_THREADS_ENABLED=true ./gradlew bootRun
+ *   ./gradlew httpBenchmark --args="--label=virtual --concurrency=400"
+ * </pre>
+ *
+ * Options: --url (http://localhost:8080), --concurrency (200), --warmup (10s), --duration (30s, whole seconds/minutes),
+ * --scenarios (stats-daily,stats-range,publish), --label, --out (append one JSON line per scenario).
+ */
+public final class HttpLoadBenchmark {
+
+    private static final String[] QUERIES = {
+            "java streams", "spring kafka", "postgres upsert", "virtual threads", "hikari pool size",
+            "kafka consumer lag", "jdbc batch insert", "flyway migration", "docker compose", "jackson ndjson"
+    };
+
+    private final HttpClient client;
+    private final String baseUrl;
+
+    private HttpLoadBenchmark(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String url = options.getOrDefault("url", "http://localhost:8080");
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "200"));
+        Duration warmup = Duration.parse("PT" + options.getOrDefault("warmup", "10s").toUpperCase(Locale.ROOT));
+        Duration duration = Duration.parse("PT" + options.getOrDefault("duration", "30s").toUpperCase(Locale.ROOT));
+        String label = options.getOrDefault("label", "run");
+        List<String> scenarios = Arrays.asList(
+                options.getOrDefault("scenarios", "stats-daily,stats-range,publish").split(","));
+
+        HttpLoadBenchmark benchmark = new HttpLoadBenchmark(url);
+        System.out.printf("%-10s %-12s %6s %10s %10s %9s %9s %9s %9s %8s %8s%n",
+                "label", "scenario", "conc", "requests", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "errors", "429");
+
+        for (String scenario : scenarios) {
+            Supplier<HttpRequest> requests = benchmark.scenario(scenario.trim());
+            benchmark.run(requests, concurrency, warmup);
+            Result result = benchmark.run(requests, concurrency, duration);
+            System.out.printf(Locale.ROOT, "%-10s %-12s %6d %10d %10.1f %9.2f %9.2f %9.2f %9.2f %8d %8d%n",
+                    label, scenario, concurrency, result.requests(), result.throughput(),
+                    result.percentileMillis(0.50), result.percentileMillis(0.99), result.percentileMillis(0.999),
+                    result.percentileMillis(1.0), result.errors(), result.throttled());
+
+            if (options.containsKey("out")) {
+                Files.writeString(Path.of(options.get("out")), result.toJson(label, scenario, concurrency) + "\n",
+                        StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+        }
+    }
+
+    private Supplier<HttpRequest> scenario(String name) {
+        LocalDate today = LocalDate.now();
+        return switch (name) {
+            case "stats-daily" -> () -> get("/api/stats/daily?day=" + today + "&limit=10");
+            case "stats-range" -> () -> get("/api/stats/range?from=" + today.minusDays(30) + "&to=" + today + "&limit=10");
+            case "publish" -> () -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/search-events"))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(randomEvent()))
+                    .build();
+            default -> throw new IllegalArgumentException("Unknown scenario: " + name);
+        };
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+    }
+
+    private Result run(Supplier<HttpRequest> requests, int concurrency, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        long start = System.nanoTime();
+        List<Future<Worker>> futures = new ArrayList<>(concurrency);
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                futures.add(clients.submit(() -> new Worker().loop(requests, deadline)));
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long[] all = new long[0];
+        long errors = 0;
+        long throttled = 0;
+        for (Future<Worker> future : futures) {
+            Worker worker = future.get();
+            all = concat(all, worker.latencies, worker.count);
+            errors += worker.errors;
+            throttled += worker.throttled;
+        }
+        Arrays.sort(all);
+        return new Result(all, errors, throttled, elapsed);
+    }
+
+    private final class Worker {
+
+        private long[] latencies = new long[4096];
+        private int count;
+        private long errors;
+        private long throttled;
+
+        private Worker loop(Supplier<HttpRequest> requests, long deadline) {
+            while (System.nanoTime() < deadline) {
+                long begin = System.nanoTime();
+                try {
+                    HttpResponse<Void> response = client.send(requests.get(), HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() == 429) {
+                        throttled++;
+                    } else if (response.statusCode() >= 300) {
+                        errors++;
+                    }
+                } catch (IOException ex) {
+                    errors++;
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return this;
+                }
+                record(System.nanoTime() - begin);
+            }
+            return this;
+        }
+
+        private void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+    }
+
+    private record Result(long[] sortedLatencies, long errors, long throttled, long elapsedNanos) {
+
+        long requests() {
+            return sortedLatencies.length;
+        }
+
+        double throughput() {
+            return sortedLatencies.length / (elapsedNanos / 1e9);
+        }
+
+        double percentileMillis(double p) {
+            if (sortedLatencies.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.min(sortedLatencies.length - 1, Math.ceil(p * sortedLatencies.length) - 1);
+            return sortedLatencies[Math.max(0, index)] / 1e6;
+        }
+
+        String toJson(String label, String scenario, int concurrency) {
+            return String.format(Locale.ROOT,
+                    "{\"label\":\"%s\",\"scenario\":\"%s\",\"concurrency\":%d,\"requests\":%d,\"throughput\":%.1f,"
+                            + "\"p50Ms\":%.3f,\"p99Ms\":%.3f,\"p999Ms\":%.3f,\"maxMs\":%.3f,\"errors\":%d,\"throttled\":%d}",
+                    label, scenario, concurrency, requests(), throughput(),
+                    percentileMillis(0.50), percentileMillis(0.99), percentileMillis(0.999), percentileMillis(1.0),
+                    errors, throttled);
+        }
+    }
+
+    private static String randomEvent() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return """
+                {"userId":"bench-%d","query":"%s","country":"PL","deviceType":"desktop","platform":"web","source":"bench"}
+                """.formatted(random.nextInt(10_000), QUERIES[random.nextInt(QUERIES.length)]);
+    }
+
+    private static long[] concat(long[] left, long[] right, int rightCount) {
+        long[] merged = Arrays.copyOf(left, left.length + rightCount);
+        System.arraycopy(right, 0, merged, left.length, rightCount);
+        return merged;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int eq = arg.indexOf('=');
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.dimitryivaniuta.searchanalytics.bulkhead;
+
+import com.github.dimitryivaniuta.searchanalytics.config.BulkheadProperties.Budget;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for Bulkhead + BulkheadDataSource – execution slots, connection budget, statement timeout.
+ */
+class BulkheadTest {
+
+    private static Budget budget(int maxConcurrent, int maxConnections) {
+        return new Budget(maxConcurrent, Duration.ofMillis(50), maxConnections,
+                Duration.ofMillis(50), Duration.ofSeconds(5));
+    }
+
+    @Test
+    void call_rejectsWhenAllSlotsAreTakenBeyondMaxWait() throws Exception {
+        Bulkhead bulkhead = new Bulkhead(Workload.QUERY, budget(1, 1), true);
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> bulkhead.run(() -> {
+                inside.countDown();
+                awaitQuietly(release);
+            }));
+            assertThat(inside.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> bulkhead.call(() -> "late"))
+                    .isInstanceOf(BulkheadFullException.class)
+                    .hasMessageContaining("query");
+            assertThat(bulkhead.rejectedCalls()).isEqualTo(1);
+            assertThat(bulkhead.activeCalls()).isEqualTo(1);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        assertThat(bulkhead.activeCalls()).isZero();
+        assertThat(bulkhead.call(() -> "ok")).isEqualTo("ok");
+    }
+
+    @Test
+    void nestedCallOnSameBulkhead_reusesOuterSlot() {
+        Bulkhead bulkhead = new Bulkhead(Workload.INGEST, budget(1, 1), true);
+
+        String result = bulkhead.call(() -> bulkhead.call(() -> {
+            assertThat(Bulkhead.current()).isSameAs(bulkhead);
+            return "nested";
+        }));
+
+        assertThat(result).isEqualTo("nested");
+        assertThat(Bulkhead.current()).isNull();
+        assertThat(bulkhead.calls()).isEqualTo(1);
+    }
+
+    @Test
+    void disabledBulkhead_runsWithoutScope() {
+        Bulkhead bulkhead = new Bulkhead(Workload.MAINTENANCE, budget(1, 1), false);
+
+        assertThat(bulkhead.call(Bulkhead::current)).isNull();
+        assertThat(bulkhead.calls()).isZero();
+    }
+
+    @Test
+    void dataSource_appliesConnectionBudgetAndStatementTimeout() throws Exception {
+        DataSource target = mock(DataSource.class);
+        Connection first = mock(Connection.class);
+        Connection second = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(target.getConnection()).thenReturn(first, second);
+        when(first.prepareStatement("SELECT 1")).thenReturn(statement);
+
+        BulkheadDataSource dataSource = new BulkheadDataSource(target);
+        Bulkhead bulkhead = new Bulkhead(Workload.QUERY, budget(2, 1), true);
+
+        bulkhead.run(() -> {
+            try (Connection connection = dataSource.getConnection()) {
+                assertThat(bulkhead.activeConnections()).isEqualTo(1);
+                connection.prepareStatement("SELECT 1");
+
+                assertThatThrownBy(dataSource::getConnection)
+                        .isInstanceOf(SQLTransientConnectionException.class);
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+
+        verify(statement).setQueryTimeout(5);
+        verify(first).close();
+        assertThat(bulkhead.activeConnections()).isZero();
+        assertThat(bulkhead.rejectedConnections()).isEqualTo(1);
+    }
+
+    @Test
+    void dataSource_passesThroughOutsideAnyBulkhead() throws Exception {
+        DataSource target = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(target.getConnection()).thenReturn(connection);
+
+        assertThat(new BulkheadDataSource(target).getConnection()).isSameAs(connection);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.dimitryivaniuta.searchanalytics.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.JacksonUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for the binary search-event format and JSON/binary negotiation in the Kafka serdes.
+ */
+class SearchEventBinaryCodecTest {
+
+    private final ObjectMapper objectMapper = JacksonUtils.enhancedObjectMapper();
+
+    @Test
+    void roundTrip_fullEvent_isLosslessAndMuchSmallerThanJson() throws Exception {
+        SearchEventPayload event = fullEvent();
+
+        byte[] binary = SearchEventBinaryCodec.encode(event);
+        byte[] json = objectMapper.writeValueAsBytes(event);
+
+        assertThat(SearchEventBinaryCodec.decode(binary)).isEqualTo(event);
+        assertThat(binary[0]).isEqualTo(SearchEventBinaryCodec.VERSION_1);
+        assertThat(binary.length).isLessThan(json.length / 2);
+    }
+
+    @Test
+    void roundTrip_sparseEventWithValuesOutsideDictionaries() {
+        SearchEventPayload event = SearchEventPayload.builder()
+                .eventId("not-a-uuid")
+                .query("zażółć \"gęślą\" jaźń")
+                .country("XX")
+                .deviceType("smart-tv")
+                .occurredAt(Instant.parse("1969-12-31T23:59:59.999999Z"))
+                .filters(SearchEventPayload.Filters.builder().page(-1).sortDirection("random").build())
+                .build();
+
+        assertThat(SearchEventBinaryCodec.decode(SearchEventBinaryCodec.encode(event))).isEqualTo(event);
+    }
+
+    @Test
+    void decode_rejectsUnknownVersionAndTruncatedInput() {
+        byte[] binary = SearchEventBinaryCodec.encode(fullEvent());
+
+        byte[] future = binary.clone();
+        future[0] = 0x02;
+        assertThatThrownBy(() -> SearchEventBinaryCodec.decode(future))
+                .hasMessageContaining("Unsupported");
+
+        byte[] truncated = java.util.Arrays.copyOf(binary, binary.length - 5);
+        assertThatThrownBy(() -> SearchEventBinaryCodec.decode(truncated))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void serdes_negotiateFormatViaHeaderAndSniffLegacyRecords() throws Exception {
+        SearchEventPayload event = fullEvent();
+        SearchEventDeserializer deserializer = new SearchEventDeserializer();
+
+        SearchEventSerializer binarySerializer = new SearchEventSerializer();
+        binarySerializer.configure(Map.of(SearchEventSerializer.WIRE_FORMAT_CONFIG, "binary"), false);
+        RecordHeaders binaryHeaders = new RecordHeaders();
+        byte[] binary = binarySerializer.serialize("search-events", binaryHeaders, event);
+
+        assertThat(new String(binaryHeaders.lastHeader(WireFormat.HEADER).value(), StandardCharsets.UTF_8))
+                .isEqualTo(WireFormat.BINARY.contentType());
+        assertThat(deserializer.deserialize("search-events", binaryHeaders, binary)).isEqualTo(event);
+
+        RecordHeaders jsonHeaders = new RecordHeaders();
+        byte[] json = new SearchEventSerializer().serialize("search-events", jsonHeaders, event);
+        assertThat(new String(jsonHeaders.lastHeader(WireFormat.HEADER).value(), StandardCharsets.UTF_8))
+                .isEqualTo(WireFormat.JSON.contentType());
+        assertThat(deserializer.deserialize("search-events", jsonHeaders, json)).isEqualTo(event);
+
+        // records from producers that predate the header
+        byte[] legacyJson = objectMapper.writeValueAsBytes(event);
+        assertThat(deserializer.deserialize("search-events", new RecordHeaders(), legacyJson)).isEqualTo(event);
+        assertThat(deserializer.deserialize("search-events", new RecordHeaders(), binary)).isEqualTo(event);
+    }
+
+    private static SearchEventPayload fullEvent() {
+        return SearchEventPayload.builder()
+                .eventId("20f19f19-07b8-4b6c-9bb1-74d3e5fdf9d1")
+                .userId("user-123")
+                .sessionId("sess-42")
+                .query("spring kafka consumer group")
+                .country("PL")
+                .locale("pl-PL")
+                .deviceType("desktop")
+                .platform("web")
+                .source("search-bar")
+                .ipAddress("10.0.0.12")
+                .occurredAt(Instant.parse("2025-12-07T19:30:00.123456Z"))
+                .sentAt(Instant.parse("2025-12-07T19:31:12.345Z"))
+                .filters(SearchEventPayload.Filters.builder()
+                        .category("programming")
+                        .subCategory("java")
+                        .page(0)
+                        .pageSize(20)
+                        .sortBy("relevance")
+                        .sortDirection("desc")
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.dimitryivaniuta.searchanalytics.datasource;
+
+import com.github.dimitryivaniuta.searchanalytics.datasource.ReadWriteRoutingDataSource.Route;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ReadWriteRoutingDataSource – explicit read scope, transaction pinning, nesting.
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private final DataSource writePool = mock(DataSource.class);
+    private final DataSource readPool = mock(DataSource.class);
+    private final Connection writeConnection = mock(Connection.class);
+    private final Connection readConnection = mock(Connection.class);
+
+    private ReadWriteRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(writePool.getConnection()).thenReturn(writeConnection);
+        when(readPool.getConnection()).thenReturn(readConnection);
+        routing = new ReadWriteRoutingDataSource(writePool, readPool);
+        routing.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    void connectionsGoToWritePoolByDefault() throws Exception {
+        assertThat(routing.getConnection()).isSameAs(writeConnection);
+        assertThat(ReadWriteRoutingDataSource.currentRoute()).isEqualTo(Route.WRITE);
+    }
+
+    @Test
+    void readOnlyScope_usesReadPoolAndIsRestoredAfterwards() throws Exception {
+        Connection inScope = ReadWriteRoutingDataSource.readOnly(this::connection);
+
+        assertThat(inScope).isSameAs(readConnection);
+        assertThat(routing.getConnection()).isSameAs(writeConnection);
+    }
+
+    @Test
+    void nestedReadOnlyScope_keepsOuterRoute() {
+        Route afterNested = ReadWriteRoutingDataSource.readOnly(() -> {
+            ReadWriteRoutingDataSource.readOnly(ReadWriteRoutingDataSource::currentRoute);
+            return ReadWriteRoutingDataSource.currentRoute();
+        });
+
+        assertThat(afterNested).isEqualTo(Route.READ);
+        assertThat(ReadWriteRoutingDataSource.currentRoute()).isEqualTo(Route.WRITE);
+    }
+
+    @Test
+    void activeTransaction_pinsReadsToWritePool() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        Connection inScope = ReadWriteRoutingDataSource.readOnly(this::connection);
+
+        assertThat(inScope).isSameAs(writeConnection);
+        verifyNoInteractions(readPool);
+    }
+
+    @Test
+    void readOnlyScope_isRestoredWhenActionThrows() {
+        try {
+            ReadWriteRoutingDataSource.readOnly(() -> {
+                throw new IllegalStateException("boom");
+            });
+        } catch (IllegalStateException expected) {
+            // scope must be cleared anyway
+        }
+
+        assertThat(ReadWriteRoutingDataSource.currentRoute()).isEqualTo(Route.WRITE);
+    }
+
+    private Connection connection() {
+        try {
+            return routing.getConnection();
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
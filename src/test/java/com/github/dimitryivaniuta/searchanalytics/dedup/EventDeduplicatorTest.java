@@ -0,0 +1,99 @@
+package com.github.dimitryivaniuta.searchanalytics.dedup;
+
+import com.github.dimitryivaniuta.searchanalytics.bulkhead.BulkheadRegistry;
+import com.github.dimitryivaniuta.searchanalytics.config.BulkheadProperties;
+import com.github.dimitryivaniuta.searchanalytics.config.DedupProperties;
+import com.github.dimitryivaniuta.searchanalytics.repository.ProcessedEventIdRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for EventDeduplicator – Bloom front, pending ids, DB lookups only for "maybe".
+ */
+class EventDeduplicatorTest {
+
+    private static final Instant NOW = Instant.parse("2025-12-06T10:00:00Z");
+
+    private final ProcessedEventIdRepository repository = mock(ProcessedEventIdRepository.class);
+    private final DedupProperties properties = new DedupProperties();
+    private final EventDeduplicator deduplicator = new EventDeduplicator(repository, properties,
+            new BulkheadRegistry(new BulkheadProperties()), Clock.fixed(NOW, ZoneOffset.UTC));
+
+    @Test
+    void unseenEventId_isNewWithoutDatabaseLookup() {
+        assertThat(deduplicator.isDuplicate("evt-1")).isFalse();
+
+        verify(repository, never()).exists(anyString());
+    }
+
+    @Test
+    void processedEventId_isDuplicateBeforeAndAfterFlush() {
+        deduplicator.markProcessed("evt-1");
+
+        assertThat(deduplicator.isDuplicate("evt-1")).isTrue();
+        verify(repository, never()).exists(anyString());
+
+        assertThat(deduplicator.flush()).isEqualTo(1);
+        verify(repository).insertAll(List.of("evt-1"));
+        assertThat(deduplicator.pendingIds()).isZero();
+
+        when(repository.exists("evt-1")).thenReturn(true);
+        assertThat(deduplicator.isDuplicate("evt-1")).isTrue();
+    }
+
+    @Test
+    void failedFlush_keepsIdsPending() {
+        deduplicator.markProcessed("evt-1");
+        when(repository.insertAll(any())).thenThrow(new IllegalStateException("db down"));
+
+        assertThatThrownBy(deduplicator::flush).isInstanceOf(IllegalStateException.class);
+
+        assertThat(deduplicator.pendingIds()).isEqualTo(1);
+        assertThat(deduplicator.isDuplicate("evt-1")).isTrue();
+    }
+
+    @Test
+    void missingEventId_isNeverDuplicate() {
+        deduplicator.markProcessed(null);
+        deduplicator.markProcessed(" ");
+
+        assertThat(deduplicator.isDuplicate(null)).isFalse();
+        assertThat(deduplicator.isDuplicate(" ")).isFalse();
+        assertThat(deduplicator.pendingIds()).isZero();
+    }
+
+    @Test
+    void warmUp_loadsRecentIdsIntoTheFilter() {
+        when(repository.forEachSince(any(), any())).thenAnswer(invocation -> {
+            Consumer<String> consumer = invocation.getArgument(1);
+            consumer.accept("evt-old");
+            return 1L;
+        });
+        when(repository.exists("evt-old")).thenReturn(true);
+
+        deduplicator.warmUp();
+
+        verify(repository).forEachSince(eq(NOW.minus(90, ChronoUnit.MINUTES)), any());
+        assertThat(deduplicator.isDuplicate("evt-old")).isTrue();
+    }
+
+    @Test
+    void cleanup_deletesInBatchesUntilDrained() {
+        properties.setCleanupBatchSize(2);
+        when(repository.deleteOlderThan(any(), anyInt())).thenReturn(2, 2, 1);
+
+        assertThat(deduplicator.cleanup()).isEqualTo(5);
+
+        verify(repository, times(3)).deleteOlderThan(NOW.minus(properties.getTtl()), 2);
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.dimitryivaniuta.searchanalytics.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for BloomFilter / RotatingBloomFilter – no false negatives, sized FPP, rotation window.
+ */
+class RotatingBloomFilterTest {
+
+    @Test
+    void bloomFilter_hasNoFalseNegativesAndStaysNearConfiguredFpp() {
+        BloomFilter filter = new BloomFilter(50_000, 0.01);
+        for (int i = 0; i < 50_000; i++) {
+            filter.put("evt-" + i);
+        }
+
+        for (int i = 0; i < 50_000; i++) {
+            assertThat(filter.mightContain("evt-" + i)).isTrue();
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 50_000; i++) {
+            if (filter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives / 50_000.0).isLessThan(0.02);
+    }
+
+    @Test
+    void rotatingFilter_remembersIdsForGenerationsMinusOneRotations() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(3, 1_000, 0.01);
+        filter.put("evt-1");
+
+        filter.rotate();
+        assertThat(filter.mightContain("evt-1")).isTrue();
+        filter.rotate();
+        assertThat(filter.mightContain("evt-1")).isTrue();
+        filter.rotate();
+        assertThat(filter.mightContain("evt-1")).isFalse();
+    }
+
+    @Test
+    void rotatingFilter_putsIntoNewestGeneration() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(2, 1_000, 0.01);
+        filter.rotate();
+        filter.put("evt-2");
+
+        filter.rotate();
+        assertThat(filter.mightContain("evt-2")).isTrue();
+        assertThat(filter.currentFillRatio()).isZero();
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.dimitryivaniuta.searchanalytics.error;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.github.dimitryivaniuta.searchanalytics.bulkhead.BulkheadFullException;
+import com.github.dimitryivaniuta.searchanalytics.bulkhead.Workload;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.UncategorizedSQLException;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for ErrorClassifier – SQLSTATE first, then driver types, then Spring wrappers.
+ */
+class ErrorClassifierTest {
+
+    @Test
+    void connectionFailures_areConnectivity() {
+        assertThat(ErrorClassifier.classify(new SQLException("connection refused", "08001")))
+                .isEqualTo(ErrorCategory.CONNECTIVITY);
+        assertThat(ErrorClassifier.classify(new CannotGetJdbcConnectionException("no connection",
+                new SQLTransientConnectionException("pool timeout", "08001"))))
+                .isEqualTo(ErrorCategory.CONNECTIVITY);
+        assertThat(ErrorClassifier.classify(new SQLException("terminating connection", "57P01")))
+                .isEqualTo(ErrorCategory.CONNECTIVITY);
+    }
+
+    @Test
+    void saturatedPoolOrBulkhead_isTransientNotAnOutage() {
+        assertThat(ErrorClassifier.classify(new CannotGetJdbcConnectionException("no connection",
+                new SQLTransientConnectionException("Bulkhead 'ingest' holds 12 connections"))))
+                .isEqualTo(ErrorCategory.TRANSIENT);
+        assertThat(ErrorClassifier.classify(new BulkheadFullException(Workload.INGEST, 16, Duration.ofSeconds(1))))
+                .isEqualTo(ErrorCategory.TRANSIENT);
+    }
+
+    @Test
+    void lockAndTimeoutErrors_areTransient() {
+        assertThat(ErrorClassifier.classify(new UncategorizedSQLException("update", "UPDATE ...",
+                new SQLException("canceling statement due to statement timeout", "57014"))))
+                .isEqualTo(ErrorCategory.TRANSIENT);
+        assertThat(ErrorClassifier.classify(new SQLException("deadlock detected", "40P01")))
+                .isEqualTo(ErrorCategory.TRANSIENT);
+        assertThat(ErrorClassifier.classify(new CannotAcquireLockException("lock not available")))
+                .isEqualTo(ErrorCategory.TRANSIENT);
+    }
+
+    @Test
+    void constraintAndDataErrors_arePoison() {
+        ErrorCategory duplicate = ErrorClassifier.classify(new DuplicateKeyException("duplicate key",
+                new SQLException("duplicate key value violates unique constraint", "23505")));
+        assertThat(duplicate).isEqualTo(ErrorCategory.CONSTRAINT);
+        assertThat(duplicate.isRetryable()).isFalse();
+        assertThat(ErrorClassifier.classify(new DataIntegrityViolationException("not null")))
+                .isEqualTo(ErrorCategory.CONSTRAINT);
+        assertThat(ErrorClassifier.classify(new SQLException("value too long", "22001")))
+                .isEqualTo(ErrorCategory.DATA);
+        assertThat(ErrorClassifier.classify(new JsonParseException(null, "unexpected character")))
+                .isEqualTo(ErrorCategory.DATA);
+        assertThat(ErrorClassifier.classify(new IllegalArgumentException("bad query")).isDeterministic()).isTrue();
+    }
+
+    @Test
+    void anythingElse_isUnknownAndNotRetried() {
+        ErrorCategory category = ErrorClassifier.classify(new IllegalStateException("bug",
+                new SQLException("syntax error", "42601")));
+
+        assertThat(category).isEqualTo(ErrorCategory.UNKNOWN);
+        assertThat(category.isRetryable()).isFalse();
+        assertThat(category.isDeterministic()).isFalse();
+    }
+}
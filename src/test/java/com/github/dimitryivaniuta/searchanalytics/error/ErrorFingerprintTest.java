@@ -0,0 +1,56 @@
+package com.github.dimitryivaniuta.searchanalytics.error;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for ErrorFingerprint – message templates and what makes two errors the same kind.
+ */
+class ErrorFingerprintTest {
+
+    @Test
+    void messageTemplate_masksVariableParts() {
+        assertThat(ErrorFingerprint.messageTemplate(
+                "ERROR: duplicate key value violates unique constraint \"uq_daily\" "
+                        + "Detail: Key (day, query)=(2025-12-06, java streams) already exists."))
+                .isEqualTo("ERROR: duplicate key value violates unique constraint \"?\" "
+                        + "Detail: Key (day, query)=(?) already exists.");
+        assertThat(ErrorFingerprint.messageTemplate(
+                "event 3f2b8c1e-9d4a-4e6f-8a7b-1c2d3e4f5a6b at offset 1042 took 12.5 ms, value 'abc'"))
+                .isEqualTo("event <uuid> at offset <n> took <n> ms, value '?'");
+        assertThat(ErrorFingerprint.messageTemplate(null)).isEmpty();
+    }
+
+    @Test
+    void sameKindOfError_withDifferentValues_sharesFingerprint() {
+        ErrorFingerprint first = fingerprint("Key (query)=(java) already exists");
+        ErrorFingerprint second = fingerprint("Key (query)=(kafka streams) already exists");
+
+        assertThat(first.id()).hasSize(16).isEqualTo(second.id());
+        assertThat(first.exceptionType()).isEqualTo(DuplicateKeyException.class.getName()
+                + " <- " + SQLException.class.getName());
+    }
+
+    @Test
+    void differentTypeOrTemplate_givesDifferentFingerprint() {
+        ErrorFingerprint duplicate = fingerprint("Key (query)=(java) already exists");
+
+        assertThat(ErrorFingerprint.of("PROCESSING_ERROR", "value too long for type character varying(255)",
+                new IllegalArgumentException("value too long"), 3).id()).isNotEqualTo(duplicate.id());
+        assertThat(ErrorFingerprint.of("VALIDATION", "missing query", null, 3).id())
+                .isNotEqualTo(ErrorFingerprint.of("VALIDATION", "missing occurredAt", null, 3).id());
+    }
+
+    private static ErrorFingerprint fingerprint(String detail) {
+        return ErrorFingerprint.of("PROCESSING_ERROR", detail, failAt(detail), 3);
+    }
+
+    private static DuplicateKeyException failAt(String detail) {
+        // created on the same line, so both failures share their stack frames
+        return new DuplicateKeyException(detail, new SQLException(detail, "23505"));
+    }
+}
@@ -0,0 +1,86 @@
+package com.github.dimitryivaniuta.searchanalytics.error;
+
+import com.github.dimitryivaniuta.searchanalytics.bulkhead.BulkheadRegistry;
+import com.github.dimitryivaniuta.searchanalytics.config.BulkheadProperties;
+import com.github.dimitryivaniuta.searchanalytics.config.ErrorsProperties;
+import com.github.dimitryivaniuta.searchanalytics.repository.ErrorRollupRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ErrorRollup – per-minute aggregation, one stack trace per fingerprint, failed flushes.
+ */
+class ErrorRollupTest {
+
+    private static final Instant NOW = Instant.parse("2025-12-06T10:15:42Z");
+
+    private final ErrorRollupRepository repository = mock(ErrorRollupRepository.class);
+    private final ErrorRollup rollup = new ErrorRollup(repository, new ErrorsProperties(),
+            new BulkheadRegistry(new BulkheadProperties()), Clock.fixed(NOW, ZoneOffset.UTC));
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_writesEachFingerprintOnceAndAggregatedCountsPerMinute() {
+        for (int i = 0; i < 1_000; i++) {
+            rollup.record("PROCESSING_ERROR", "deadlock on row " + i, failure(i));
+        }
+        rollup.record("VALIDATION", "missing query", null);
+
+        assertThat(rollup.flush()).isEqualTo(2);
+
+        ArgumentCaptor<List<ErrorFingerprint>> fingerprints = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<Map<String, String>> traces = ArgumentCaptor.forClass(Map.class);
+        verify(repository).saveFingerprints(fingerprints.capture(), traces.capture());
+        assertThat(fingerprints.getValue()).hasSize(2);
+        assertThat(traces.getValue().values()).filteredOn(trace -> trace != null)
+                .singleElement().asString().contains("IllegalStateException");
+
+        ArgumentCaptor<long[]> counts = ArgumentCaptor.forClass(long[].class);
+        ArgumentCaptor<Instant[]> minutes = ArgumentCaptor.forClass(Instant[].class);
+        verify(repository).addOccurrences(any(String[].class), minutes.capture(), counts.capture());
+        assertThat(counts.getValue()).containsExactlyInAnyOrder(1_000L, 1L);
+        assertThat(minutes.getValue()).containsOnly(Instant.parse("2025-12-06T10:15:00Z"));
+
+        // known fingerprints are not stored again
+        rollup.record("VALIDATION", "missing query", null);
+        rollup.flush();
+        verify(repository, times(1)).saveFingerprints(anyList(), anyMap());
+    }
+
+    @Test
+    void failedFlush_keepsCountsForTheNextAttempt() {
+        rollup.record("VALIDATION", "missing query", null);
+        rollup.flush();
+        rollup.record("VALIDATION", "missing query", null);
+        rollup.record("VALIDATION", "missing query", null);
+        when(repository.addOccurrences(any(), any(), any()))
+                .thenThrow(new IllegalStateException("database down"))
+                .thenReturn(1);
+
+        assertThatThrownBy(rollup::flush).hasMessage("database down");
+        assertThat(rollup.pendingCounters()).isEqualTo(1);
+
+        rollup.flush();
+        ArgumentCaptor<long[]> counts = ArgumentCaptor.forClass(long[].class);
+        verify(repository, times(3)).addOccurrences(any(), any(), counts.capture());
+        assertThat(counts.getValue()).containsExactly(2L);
+        assertThat(rollup.pendingCounters()).isZero();
+    }
+
+    private static IllegalStateException failure(int i) {
+        return new IllegalStateException("deadlock on row " + i);
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.dimitryivaniuta.searchanalytics.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip-compressed NDJSON corpus of SearchEventPayloads, so a soak run can be replayed
+ * byte-for-byte against another build. Same format as POST /api/search-events/batch accepts
+ * (after gunzip).
+ */
+public final class EventCorpus {
+
+    private final ObjectWriter writer;
+    private final ObjectReader reader;
+
+    public EventCorpus(ObjectMapper objectMapper) {
+        this.writer = objectMapper.writerFor(SearchEventPayload.class);
+        this.reader = objectMapper.readerFor(SearchEventPayload.class);
+    }
+
+    public void write(Path file, Supplier<SearchEventPayload> events, long count) throws IOException {
+        try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(file), 1 << 16), StandardCharsets.UTF_8))) {
+            for (long i = 0; i < count; i++) {
+                out.write(writer.writeValueAsString(events.get()));
+                out.newLine();
+            }
+        }
+    }
+
+    /**
+     * Streams the corpus; close the returned reader when done.
+     */
+    public Reader open(Path file) throws IOException {
+        return new Reader(new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file), 1 << 16), StandardCharsets.UTF_8)));
+    }
+
+    public final class Reader implements Iterator<SearchEventPayload>, AutoCloseable {
+
+        private final BufferedReader in;
+        private String nextLine;
+
+        private Reader(BufferedReader in) {
+            this.in = in;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextLine != null;
+        }
+
+        @Override
+        public SearchEventPayload next() {
+            if (nextLine == null) {
+                throw new NoSuchElementException();
+            }
+            try {
+                SearchEventPayload event = reader.readValue(nextLine);
+                advance();
+                return event;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        private void advance() {
+            try {
+                do {
+                    nextLine = in.readLine();
+                } while (nextLine != null && nextLine.isBlank());
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.github.dimitryivaniuta.searchanalytics.loadgen;
+
+import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Deterministic (seeded) stream of realistic SearchEventPayloads:
+ *  - queries: Zipf over a synthetic vocabulary (a few head queries, a long tail),
+ *  - users:   Zipf over a user population, ~30% anonymous (anonymousId instead of userId),
+ *  - sessions: each user keeps a session for ~20 searches, then starts a new one,
+ *  - country / device / platform: weighted mixes, platform follows device (mobile -> ios/android),
+ *  - filters on ~40% of searches.
+ *
+ * Not thread-safe; use one generator per producing thread.
+ */
+public final class SearchEventGenerator {
+
+    private static final String[] HEAD_TERMS = {
+            "iphone", "laptop", "java", "kafka", "postgres", "spring boot", "headphones", "running shoes",
+            "coffee machine", "monitor", "docker", "kubernetes", "tv", "gaming chair", "backpack", "watch"
+    };
+    private static final String[] MODIFIERS = {
+            "", "best", "cheap", "2025", "review", "vs", "tutorial", "pro", "mini", "sale", "near me", "used"
+    };
+
+    private static final String[] COUNTRIES = {"US", "DE", "GB", "PL", "FR", "NL", "ES", "IT", "SE", "BR", "IN", "JP", "UA", "CZ"};
+    private static final double[] COUNTRY_WEIGHTS = {30, 14, 12, 10, 8, 4, 4, 4, 2, 3, 4, 2, 1.5, 1.5};
+    private static final String[] LOCALES = {"en-US", "de-DE", "en-GB", "pl-PL", "fr-FR", "nl-NL", "es-ES", "it-IT", "sv-SE", "pt-BR", "en-IN", "ja-JP", "uk-UA", "cs-CZ"};
+
+    private static final String[] DEVICES = {"mobile", "desktop", "tablet"};
+    private static final double[] DEVICE_WEIGHTS = {58, 36, 6};
+
+    private static final String[] SOURCES = {"search-bar", "filters-panel", "homepage"};
+    private static final double[] SOURCE_WEIGHTS = {75, 15, 10};
+
+    private static final String[] CATEGORIES = {"electronics", "books", "fashion", "home", "sports", "programming"};
+
+    private static final int SEARCHES_PER_SESSION = 20;
+
+    private final SplittableRandom random;
+    private final ZipfDistribution queryDistribution;
+    private final ZipfDistribution userDistribution;
+    private final String[] vocabulary;
+    private final long[] sessionCounters;
+    private final Clock clock;
+
+    /**
+     * @param seed            same seed -> same sequence of events (except timestamps)
+     * @param distinctQueries vocabulary size (long tail)
+     * @param zipfExponent    query skew; ~1.0 is typical for search logs
+     * @param users           user population size
+     */
+    public SearchEventGenerator(long seed, int distinctQueries, double zipfExponent, int users, Clock clock) {
+        this.random = new SplittableRandom(seed);
+        this.queryDistribution = new ZipfDistribution(distinctQueries, zipfExponent);
+        this.userDistribution = new ZipfDistribution(users, 0.8);
+        this.vocabulary = buildVocabulary(distinctQueries, new SplittableRandom(seed ^ 0x5DEECE66DL));
+        this.sessionCounters = new long[users];
+        this.clock = clock;
+    }
+
+    public SearchEventPayload next() {
+        int user = userDistribution.sample(random);
+        long searches = sessionCounters[user]++;
+        boolean anonymous = user % 10 < 3;
+        int countryIndex = weighted(COUNTRY_WEIGHTS);
+        String device = DEVICES[weighted(DEVICE_WEIGHTS)];
+        Instant now = clock.instant();
+
+        SearchEventPayload event = SearchEventPayload.builder()
+                .eventId(new UUID(random.nextLong(), random.nextLong()).toString())
+                .userId(anonymous ? null : "user-" + user)
+                .anonymousId(anonymous ? "anon-" + user : null)
+                .sessionId("sess-" + user + "-" + (searches / SEARCHES_PER_SESSION))
+                .query(vocabulary[queryDistribution.sample(random)])
+                .country(COUNTRIES[countryIndex])
+                .locale(LOCALES[countryIndex])
+                .deviceType(device)
+                .platform(platformFor(device))
+                .source(SOURCES[weighted(SOURCE_WEIGHTS)])
+                .occurredAt(now)
+                .sentAt(now)
+                .build();
+
+        if (random.nextInt(100) < 40) {
+            event.setFilters(SearchEventPayload.Filters.builder()
+                    .category(CATEGORIES[random.nextInt(CATEGORIES.length)])
+                    .page(random.nextInt(100) < 85 ? 0 : random.nextInt(1, 10))
+                    .pageSize(random.nextBoolean() ? 20 : 50)
+                    .sortBy(random.nextBoolean() ? "relevance" : "price")
+                    .sortDirection(random.nextBoolean() ? "desc" : "asc")
+                    .build());
+        }
+        return event;
+    }
+
+    private String platformFor(String device) {
+        if (device.equals("desktop")) {
+            return "web";
+        }
+        int roll = random.nextInt(100);
+        if (roll < 35) {
+            return "web";
+        }
+        return roll < 65 ? "ios" : "android";
+    }
+
+    private int weighted(double[] weights) {
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        double roll = random.nextDouble() * total;
+        for (int i = 0; i < weights.length; i++) {
+            roll -= weights[i];
+            if (roll < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    /**
+     * Rank 0.. are head terms (most popular), then modifier combinations, then a synthetic tail.
+     */
+    private static String[] buildVocabulary(int size, SplittableRandom random) {
+        String[] vocabulary = new String[size];
+        int i = 0;
+        for (int m = 0; m < MODIFIERS.length && i < size; m++) {
+            for (int h = 0; h < HEAD_TERMS.length && i < size; h++) {
+                vocabulary[i++] = MODIFIERS[m].isEmpty() ? HEAD_TERMS[h] : HEAD_TERMS[h] + " " + MODIFIERS[m];
+            }
+        }
+        while (i < size) {
+            vocabulary[i] = HEAD_TERMS[random.nextInt(HEAD_TERMS.length)] + " sku-" + Integer.toString(i, 36);
+            i++;
+        }
+        return vocabulary;
+    }
+}
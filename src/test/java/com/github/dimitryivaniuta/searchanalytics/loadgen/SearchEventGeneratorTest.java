@@ -0,0 +1,66 @@
+package com.github.dimitryivaniuta.searchanalytics.loadgen;
+
+import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Unit tests for the soak traffic model: Zipf skew and deterministic, well-formed events.
+ */
+class SearchEventGeneratorTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2025-01-15T10:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    void zipf_headRankMatchesTheoreticalShare() {
+        ZipfDistribution zipf = new ZipfDistribution(1000, 1.0);
+        SplittableRandom random = new SplittableRandom(7);
+        int samples = 200_000;
+        int[] counts = new int[zipf.size()];
+        for (int i = 0; i < samples; i++) {
+            counts[zipf.sample(random)]++;
+        }
+
+        // H(1000) ~ 7.485 -> rank 0 ~ 13.4%, rank 1 half of that
+        assertThat(zipf.probability(0)).isCloseTo(0.1336, within(0.001));
+        assertThat(counts[0] / (double) samples).isCloseTo(zipf.probability(0), within(0.005));
+        assertThat(counts[1] / (double) samples).isCloseTo(zipf.probability(1), within(0.005));
+        assertThat(counts[0]).isGreaterThan(counts[1]).isGreaterThan(counts[10]);
+    }
+
+    @Test
+    void next_isDeterministicPerSeedAndWellFormed() {
+        SearchEventGenerator first = new SearchEventGenerator(42, 5_000, 1.0, 10_000, CLOCK);
+        SearchEventGenerator second = new SearchEventGenerator(42, 5_000, 1.0, 10_000, CLOCK);
+
+        Map<String, Integer> queries = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            SearchEventPayload a = first.next();
+            SearchEventPayload b = second.next();
+            assertThat(a).isEqualTo(b);
+
+            assertThat(a.getQuery()).isNotBlank();
+            assertThat(a.getUserId() == null).isNotEqualTo(a.getAnonymousId() == null);
+            assertThat(a.getSessionId()).startsWith("sess-");
+            assertThat(a.getCountry()).hasSize(2);
+            if ("desktop".equals(a.getDeviceType())) {
+                assertThat(a.getPlatform()).isEqualTo("web");
+            }
+            queries.merge(a.getQuery(), 1, Integer::sum);
+        }
+
+        // skewed: the most frequent query alone is a noticeable share, the tail is long
+        int top = queries.values().stream().mapToInt(Integer::intValue).max().orElseThrow();
+        assertThat(top).isGreaterThan(500);
+        assertThat(queries).hasSizeGreaterThan(1_000);
+    }
+}
@@ -0,0 +1,414 @@
+package com.github.dimitryivaniuta.searchanalytics.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.searchanalytics.SearchAnalyticsApplication;
+import com.github.dimitryivaniuta.searchanalytics.codec.SearchEventSerializer;
+import com.github.dimitryivaniuta.searchanalytics.codec.WireFormat;
+import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * End-to-end soak run of the consume -> persist path.
+ *
+ * Flow:
+ *  - start an in-process KRaft broker (spring-kafka-test) unless --bootstrap points to a real one,
+ *  - boot the real application (listener, services, Flyway) against a local Postgres,
+ *  - produce --events SearchEventPayloads (Zipf queries, see {@link SearchEventGenerator}) or replay a
+ *    --corpus file into a fresh per-run topic, optionally throttled to --rate events/s,
+ *  - sample consumer-group lag once per second until every event has a raw_search_events row,
+ *  - report throughput (produce and consume), max lag and latency percentiles.
+ *
+ * Latency is received_at - sentAt per row, i.e. produce -> broker -> poll -> listener, computed in SQL
+ * over the run's own topic. Throughput is events / (first send .. last row visible in the DB).
+ *
+ * <pre>
+ *   docker compose up -d postgres
+ *   ./gradlew soak --args="--events=500000 --partitions=6 --listener-concurrency=3 --label=baseline"
+ *   ./gradlew soak --args="--write-corpus=build/soak/zipf-1m.ndjson.gz --events=1000000"
+ *   ./gradlew soak --args="--corpus=build/soak/zipf-1m.ndjson.gz --wire-format=BINARY --label=binary"
+ * </pre>
+ *
+ * Options: --events (200000), --rate (0 = unthrottled), --partitions (6), --listener-concurrency (1),
+ * --queries (50000), --zipf (1.0), --users (100000), --seed (42), --wire-format (JSON|BINARY),
+ * --corpus (replay gzip NDJSON), --write-corpus (only write a corpus and exit), --bootstrap (external Kafka; the run topic is created there),
+ * --db-url / --db-user / --db-password (SPRING_DATASOURCE_* env, else the docker-compose defaults),
+ * --timeout (10m), --label, --out (append one JSON line per run).
+ */
+public final class SoakHarness {
+
+    private static final double[] PERCENTILES = {0.50, 0.95, 0.99, 0.999};
+
+    private final Map<String, String> options;
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private SoakHarness(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        SoakHarness harness = new SoakHarness(parse(args));
+        if (harness.options.containsKey("write-corpus")) {
+            harness.writeCorpus();
+        } else {
+            harness.run();
+        }
+        System.exit(0);
+    }
+
+    private void writeCorpus() throws Exception {
+        Path file = Path.of(options.get("write-corpus"));
+        long events = longOption("events", 200_000);
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        SearchEventGenerator generator = generator();
+        long start = System.nanoTime();
+        new EventCorpus(objectMapper).write(file, generator::next, events);
+        System.out.printf(Locale.ROOT, "Wrote %d events to %s (%d KiB) in %.1fs%n",
+                events, file, Files.size(file) / 1024, (System.nanoTime() - start) / 1e9);
+    }
+
+    private void run() throws Exception {
+        String runId = UUID.randomUUID().toString().substring(0, 8);
+        String topic = "soak-search-events-" + runId;
+        int partitions = (int) longOption("partitions", 6);
+        Duration timeout = Duration.parse("PT" + options.getOrDefault("timeout", "10m").toUpperCase(Locale.ROOT));
+
+        EmbeddedKafkaKraftBroker broker = null;
+        String bootstrap = options.get("bootstrap");
+        if (bootstrap == null) {
+            broker = new EmbeddedKafkaKraftBroker(1, partitions, topic);
+            broker.afterPropertiesSet();
+            bootstrap = broker.getBrokersAsString();
+        }
+
+        Admin admin = Admin.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap));
+        if (broker == null) {
+            admin.createTopics(List.of(new NewTopic(topic, partitions, (short) 1))).all().get(30, TimeUnit.SECONDS);
+        }
+
+        String groupId = "soak-cg-" + runId;
+        ConfigurableApplicationContext app = startApplication(bootstrap, topic, groupId);
+        JdbcTemplate jdbc = new JdbcTemplate(new DriverManagerDataSource(dbUrl(), dbUser(), dbPassword()));
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+
+        try (admin) {
+            AtomicLong maxLag = new AtomicLong();
+            sampler.scheduleAtFixedRate(
+                    () -> maxLag.accumulateAndGet(lag(admin, topic, groupId), Math::max), 1, 1, TimeUnit.SECONDS);
+
+            long start = System.nanoTime();
+            long produced = produce(bootstrap, topic);
+            long produceNanos = System.nanoTime() - start;
+
+            long persisted = awaitPersisted(jdbc, topic, produced, timeout);
+            long totalNanos = System.nanoTime() - start;
+            sampler.shutdownNow();
+
+            Report report = report(jdbc, topic, produced, persisted, produceNanos, totalNanos, maxLag.get());
+            print(report);
+            if (options.containsKey("out")) {
+                Files.writeString(Path.of(options.get("out")), report.toJson() + "\n",
+                        StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+        } finally {
+            sampler.shutdownNow();
+            app.close();
+            if (broker != null) {
+                broker.destroy();
+            }
+        }
+    }
+
+    private ConfigurableApplicationContext startApplication(String bootstrap, String topic, String groupId) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.kafka.bootstrap-servers", bootstrap);
+        properties.put("spring.kafka.consumer.group-id", groupId);
+        properties.put("spring.kafka.listener.concurrency", options.getOrDefault("listener-concurrency", "1"));
+        properties.put("spring.datasource.url", dbUrl());
+        properties.put("spring.datasource.username", dbUser());
+        properties.put("spring.datasource.password", dbPassword());
+        properties.put("app.kafka.search-events-topic", topic);
+        properties.put("app.kafka.search-events-dlt-topic", topic + "-dlt");
+        properties.put("app.kafka.outbox-topic", topic + "-outbox");
+        properties.put("spring.main.banner-mode", "off");
+
+        return new SpringApplicationBuilder(SearchAnalyticsApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(properties)
+                .run();
+    }
+
+    /**
+     * Sends every event with a fresh sentAt; blocks until the producer has flushed.
+     *
+     * @return number of events sent
+     */
+    private long produce(String bootstrap, String topic) throws Exception {
+        Properties config = new Properties();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap);
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        config.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, 64 * 1024);
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        WireFormat wireFormat = WireFormat.valueOf(options.getOrDefault("wire-format", "JSON").toUpperCase(Locale.ROOT));
+
+        long rate = longOption("rate", 0);
+        long limit = longOption("events", 200_000);
+        long sent = 0;
+        long start = System.nanoTime();
+        AtomicReference<Exception> sendError = new AtomicReference<>();
+
+        try (KafkaProducer<String, SearchEventPayload> producer = new KafkaProducer<>(config,
+                new StringSerializer(), new SearchEventSerializer(wireFormat, objectMapper));
+             EventSource source = eventSource()) {
+            while (sent < limit && source.hasNext() && sendError.get() == null) {
+                SearchEventPayload event = source.next();
+                event.setSentAt(Instant.now());
+                String key = event.getUserId() != null ? event.getUserId() : event.getAnonymousId();
+                producer.send(new ProducerRecord<>(topic, key, event), (metadata, ex) -> {
+                    if (ex != null) {
+                        sendError.compareAndSet(null, ex);
+                    }
+                });
+                sent++;
+                if (rate > 0) {
+                    long due = start + sent * 1_000_000_000L / rate;
+                    long sleep = due - System.nanoTime();
+                    if (sleep > 0) {
+                        TimeUnit.NANOSECONDS.sleep(sleep);
+                    }
+                }
+            }
+            producer.flush();
+        }
+        if (sendError.get() != null) {
+            throw new IllegalStateException("Soak producer failed after " + sent + " events", sendError.get());
+        }
+        return sent;
+    }
+
+    private long awaitPersisted(JdbcTemplate jdbc, String topic, long expected, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        long persisted = 0;
+        long lastPrint = 0;
+        while (System.nanoTime() < deadline) {
+            persisted = countRows(jdbc, topic);
+            if (persisted >= expected) {
+                return persisted;
+            }
+            if (System.nanoTime() - lastPrint > TimeUnit.SECONDS.toNanos(5)) {
+                System.out.printf("... %d / %d events persisted%n", persisted, expected);
+                lastPrint = System.nanoTime();
+            }
+            Thread.sleep(200);
+        }
+        System.out.printf("Timed out after %s with %d / %d events persisted%n", timeout, persisted, expected);
+        return persisted;
+    }
+
+    private static long countRows(JdbcTemplate jdbc, String topic) {
+        Long count = jdbc.queryForObject(
+                "SELECT count(*) FROM raw_search_events WHERE kafka_topic = ?", Long.class, topic);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Sum over partitions of (log end offset - committed offset) for the listener's group.
+     */
+    private static long lag(Admin admin, String topic, String groupId) {
+        try {
+            Map<TopicPartition, OffsetAndMetadata> committed = admin.listConsumerGroupOffsets(groupId)
+                    .partitionsToOffsetAndMetadata().get(5, TimeUnit.SECONDS);
+            Map<TopicPartition, OffsetSpec> request = new HashMap<>();
+            admin.describeTopics(List.of(topic)).allTopicNames().get(5, TimeUnit.SECONDS)
+                    .get(topic).partitions()
+                    .forEach(p -> request.put(new TopicPartition(topic, p.partition()), OffsetSpec.latest()));
+            Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> ends =
+                    admin.listOffsets(request).all().get(5, TimeUnit.SECONDS);
+
+            long lag = 0;
+            for (Map.Entry<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> end : ends.entrySet()) {
+                OffsetAndMetadata position = committed.get(end.getKey());
+                lag += end.getValue().offset() - (position != null ? position.offset() : 0);
+            }
+            return lag;
+        } catch (Exception ex) {
+            return 0;
+        }
+    }
+
+    private Report report(JdbcTemplate jdbc, String topic, long produced, long persisted,
+                          long produceNanos, long totalNanos, long maxLag) {
+        String sql = """
+            SELECT percentile_cont(?::float8[]) WITHIN GROUP (ORDER BY latency_ms) AS percentiles,
+                   max(latency_ms) AS max_ms,
+                   count(*) FILTER (WHERE processing_status = 'PROCESSED') AS processed,
+                   count(*) FILTER (WHERE processing_status = 'ERROR') AS errors
+            FROM (
+                SELECT processing_status,
+                       EXTRACT(EPOCH FROM received_at - (payload->>'sentAt')::timestamptz) * 1000 AS latency_ms
+                FROM raw_search_events
+                WHERE kafka_topic = ?
+            ) r
+            """;
+        Double[] percentileArgs = new Double[PERCENTILES.length];
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            percentileArgs[i] = PERCENTILES[i];
+        }
+
+        return jdbc.query(con -> {
+            var ps = con.prepareStatement(sql);
+            ps.setArray(1, con.createArrayOf("float8", percentileArgs));
+            ps.setString(2, topic);
+            return ps;
+        }, rs -> {
+            rs.next();
+            Double[] values = (Double[]) rs.getArray("percentiles").getArray();
+            return new Report(options.getOrDefault("label", "run"), options.getOrDefault("wire-format", "JSON"),
+                    produced, persisted, rs.getLong("processed"), rs.getLong("errors"),
+                    produced / (produceNanos / 1e9), persisted / (totalNanos / 1e9), maxLag,
+                    values[0], values[1], values[2], values[3], rs.getDouble("max_ms"));
+        });
+    }
+
+    private static void print(Report r) {
+        System.out.printf("%-10s %-7s %10s %10s %8s %11s %11s %9s %9s %9s %9s %9s %9s%n",
+                "label", "format", "produced", "persisted", "errors", "prod ev/s", "e2e ev/s",
+                "max lag", "p50 ms", "p95 ms", "p99 ms", "p99.9 ms", "max ms");
+        System.out.printf(Locale.ROOT, "%-10s %-7s %10d %10d %8d %11.0f %11.0f %9d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                r.label(), r.format(), r.produced(), r.persisted(), r.errors(), r.produceRate(), r.endToEndRate(),
+                r.maxLag(), r.p50Ms(), r.p95Ms(), r.p99Ms(), r.p999Ms(), r.maxMs());
+    }
+
+    private EventSource eventSource() throws Exception {
+        if (options.containsKey("corpus")) {
+            EventCorpus.Reader reader = new EventCorpus(objectMapper).open(Path.of(options.get("corpus")));
+            return new EventSource(reader, reader);
+        }
+        SearchEventGenerator generator = generator();
+        return new EventSource(new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public SearchEventPayload next() {
+                return generator.next();
+            }
+        }, () -> { });
+    }
+
+    private SearchEventGenerator generator() {
+        return new SearchEventGenerator(
+                longOption("seed", 42),
+                (int) longOption("queries", 50_000),
+                Double.parseDouble(options.getOrDefault("zipf", "1.0")),
+                (int) longOption("users", 100_000),
+                Clock.systemUTC());
+    }
+
+    private String dbUrl() {
+        return options.getOrDefault("db-url", env("SPRING_DATASOURCE_URL", "jdbc:postgresql://localhost:5444/sas"));
+    }
+
+    private String dbUser() {
+        return options.getOrDefault("db-user", env("SPRING_DATASOURCE_USERNAME", "sas"));
+    }
+
+    private String dbPassword() {
+        return options.getOrDefault("db-password", env("SPRING_DATASOURCE_PASSWORD", "sas"));
+    }
+
+    private long longOption(String name, long defaultValue) {
+        return options.containsKey(name) ? Long.parseLong(options.get(name).replace("_", "")) : defaultValue;
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null && !value.isBlank() ? value : defaultValue;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int eq = arg.indexOf('=');
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return options;
+    }
+
+    private record EventSource(Iterator<SearchEventPayload> events, AutoCloseable resource)
+            implements Iterator<SearchEventPayload>, AutoCloseable {
+
+        @Override
+        public boolean hasNext() {
+            return events.hasNext();
+        }
+
+        @Override
+        public SearchEventPayload next() {
+            return events.next();
+        }
+
+        @Override
+        public void close() throws Exception {
+            resource.close();
+        }
+    }
+
+    private record Report(String label, String format, long produced, long persisted, long processed, long errors,
+                          double produceRate, double endToEndRate, long maxLag,
+                          double p50Ms, double p95Ms, double p99Ms, double p999Ms, double maxMs) {
+
+        String toJson() {
+            return String.format(Locale.ROOT,
+                    "{\"label\":\"%s\",\"format\":\"%s\",\"produced\":%d,\"persisted\":%d,\"processed\":%d,"
+                            + "\"errors\":%d,\"produceRate\":%.1f,\"endToEndRate\":%.1f,\"maxLag\":%d,"
+                            + "\"p50Ms\":%.3f,\"p95Ms\":%.3f,\"p99Ms\":%.3f,\"p999Ms\":%.3f,\"maxMs\":%.3f}",
+                    label, format, produced, persisted, processed, errors, produceRate, endToEndRate, maxLag,
+                    p50Ms, p95Ms, p99Ms, p999Ms, maxMs);
+        }
+    }
+}
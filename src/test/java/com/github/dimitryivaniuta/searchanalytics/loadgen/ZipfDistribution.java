@@ -0,0 +1,42 @@
+package com.github.dimitryivaniuta.searchanalytics.loadgen;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Zipf(s) over ranks 0..n-1: P(rank k) ∝ 1 / (k + 1)^s.
+ * Sampling is a binary search over the precomputed CDF (O(log n), no allocation).
+ */
+public final class ZipfDistribution {
+
+    private final double[] cdf;
+
+    public ZipfDistribution(int n, double exponent) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n must be >= 1");
+        }
+        cdf = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1.0 / Math.pow(k + 1, exponent);
+            cdf[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cdf[k] /= sum;
+        }
+        cdf[n - 1] = 1.0;
+    }
+
+    public int sample(RandomGenerator random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        return index >= 0 ? index : -index - 1;
+    }
+
+    public double probability(int rank) {
+        return rank == 0 ? cdf[0] : cdf[rank] - cdf[rank - 1];
+    }
+
+    public int size() {
+        return cdf.length;
+    }
+}
@@ -0,0 +1,98 @@
+package com.github.dimitryivaniuta.searchanalytics.messaging;
+
+import com.github.dimitryivaniuta.searchanalytics.config.OutboxRelayProperties;
+import com.github.dimitryivaniuta.searchanalytics.repository.SearchEventOutboxRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for OutboxNotificationListener – a notification wakes the relay, a dropped LISTEN
+ * connection is reopened (and the relay woken again for anything missed meanwhile).
+ */
+class OutboxNotificationListenerTest {
+
+    private final OutboxRelay outboxRelay = mock(OutboxRelay.class);
+    private final OutboxRelayProperties properties = new OutboxRelayProperties();
+    private final OutboxNotificationListener.ConnectionFactory connectionFactory =
+            mock(OutboxNotificationListener.ConnectionFactory.class);
+
+    private OutboxNotificationListener listener;
+
+    @BeforeEach
+    void setUp() {
+        properties.getNotify().setListenTimeout(Duration.ofMillis(20));
+        properties.getNotify().setReconnectBackoff(Duration.ofMillis(10));
+        listener = new OutboxNotificationListener(outboxRelay, properties, connectionFactory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        listener.stop();
+    }
+
+    @Test
+    void notification_wakesRelay() throws Exception {
+        PGConnection pgConnection = mock(PGConnection.class);
+        Connection connection = connection(pgConnection);
+        when(pgConnection.getNotifications(anyInt()))
+                .thenReturn(new PGNotification[]{mock(PGNotification.class)})
+                .thenAnswer(inv -> idle(inv.getArgument(0)));
+        when(connectionFactory.open()).thenReturn(connection);
+
+        listener.start();
+
+        // once after LISTEN, once for the notification
+        verify(outboxRelay, timeout(2_000).times(2)).wakeUp();
+        verify(connectionFactory, times(1)).open();
+    }
+
+    @Test
+    void droppedConnection_reconnectsAndWakesRelay() throws Exception {
+        PGConnection dropped = mock(PGConnection.class);
+        Connection first = connection(dropped);
+        when(dropped.getNotifications(anyInt())).thenThrow(new SQLException("An I/O error occurred", "08006"));
+        PGConnection healthy = mock(PGConnection.class);
+        Connection second = connection(healthy);
+        when(healthy.getNotifications(anyInt())).thenAnswer(inv -> idle(inv.getArgument(0)));
+        when(connectionFactory.open())
+                .thenReturn(first)
+                .thenThrow(new SQLException("Connection refused", "08001"))
+                .thenReturn(second);
+
+        listener.start();
+
+        verify(connectionFactory, timeout(2_000).times(3)).open();
+        verify(first).close();
+        verify(second, timeout(2_000)).createStatement();
+        verify(outboxRelay, timeout(2_000).times(2)).wakeUp();
+    }
+
+    private static Connection connection(PGConnection pgConnection) throws SQLException {
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.execute("LISTEN " + SearchEventOutboxRepository.NOTIFY_CHANNEL)).thenReturn(true);
+        return connection;
+    }
+
+    private static PGNotification[] idle(int timeoutMillis) {
+        try {
+            Thread.sleep(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return new PGNotification[0];
+    }
+}
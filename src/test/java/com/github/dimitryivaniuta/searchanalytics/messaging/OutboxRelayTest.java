@@ -0,0 +1,152 @@
+package com.github.dimitryivaniuta.searchanalytics.messaging;
+
+import com.github.dimitryivaniuta.searchanalytics.bulkhead.BulkheadRegistry;
+import com.github.dimitryivaniuta.searchanalytics.config.BulkheadProperties;
+import com.github.dimitryivaniuta.searchanalytics.config.KafkaTopicsProperties;
+import com.github.dimitryivaniuta.searchanalytics.config.OutboxRelayProperties;
+import com.github.dimitryivaniuta.searchanalytics.config.WorkerThreads;
+import com.github.dimitryivaniuta.searchanalytics.model.SearchEventOutbox;
+import com.github.dimitryivaniuta.searchanalytics.service.SearchEventOutboxService;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.NotLeaderOrFollowerException;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for OutboxRelay – partial batch failures and ack timeouts are retried with backoff,
+ * only non-retryable failures become FAILED after max-attempts.
+ */
+class OutboxRelayTest {
+
+    private static final Instant NOW = Instant.parse("2025-12-07T10:00:00Z");
+
+    private final SearchEventOutboxService outboxService = mock(SearchEventOutboxService.class);
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, String> kafkaTemplate = mock(KafkaTemplate.class);
+    private final OutboxRelayProperties properties = new OutboxRelayProperties();
+
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        properties.setBatchSize(10);
+        properties.setSendTimeout(Duration.ofMillis(200));
+        properties.setMaxAttempts(3);
+        properties.setInitialBackoff(Duration.ofSeconds(1));
+        properties.setMultiplier(2.0);
+        properties.setMaxBackoff(Duration.ofMinutes(1));
+        properties.setJitter(0.0);
+        KafkaTopicsProperties topics = new KafkaTopicsProperties();
+        topics.setOutboxTopic("search-events-outbox");
+        relay = new OutboxRelay(outboxService, kafkaTemplate, topics, properties,
+                mock(PlatformTransactionManager.class), mock(WorkerThreads.class),
+                new BulkheadRegistry(new BulkheadProperties()), Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void partialBatchFailure_publishesTheRestAndSchedulesRetries() {
+        when(outboxService.claimNextBatch(anyInt())).thenReturn(List.of(row(1, 0), row(2, 0), row(3, 2)));
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(acked())
+                .thenReturn(CompletableFuture.failedFuture(new NotLeaderOrFollowerException("leader moved")))
+                .thenReturn(acked());
+
+        assertThat(relay.relayOnce()).isEqualTo(3);
+
+        assertThat(publishedIds()).containsExactly(1L, 3L);
+        SearchEventOutbox retried = single(failedAttempts());
+        assertThat(retried.getId()).isEqualTo(2L);
+        assertThat(retried.getStatus()).isEqualTo("NEW");
+        assertThat(retried.getAttempts()).isEqualTo(1);
+        assertThat(retried.getNextAttemptAt()).isEqualTo(NOW.plusSeconds(1));
+        assertThat(retried.getLastError()).contains("NotLeaderOrFollowerException");
+    }
+
+    @Test
+    void ackTimeout_keepsRowNewEvenAfterMaxAttempts() {
+        when(outboxService.claimNextBatch(anyInt())).thenReturn(List.of(row(1, 0), row(2, 5)));
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(acked())
+                .thenReturn(new CompletableFuture<>());
+
+        relay.relayOnce();
+
+        assertThat(publishedIds()).containsExactly(1L);
+        SearchEventOutbox retried = single(failedAttempts());
+        assertThat(retried.getStatus()).isEqualTo("NEW");
+        assertThat(retried.getAttempts()).isEqualTo(6);
+        // 1s * 2^5 = 32s
+        assertThat(retried.getNextAttemptAt()).isEqualTo(NOW.plusSeconds(32));
+        assertThat(retried.getLastError()).contains("not acknowledged");
+    }
+
+    @Test
+    void nonRetryableFailure_becomesFailedOnlyAtMaxAttempts() {
+        when(outboxService.claimNextBatch(anyInt())).thenReturn(List.of(row(1, 0), row(2, 2)));
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RecordTooLargeException("too large")))
+                .thenReturn(CompletableFuture.failedFuture(new RecordTooLargeException("too large")));
+
+        relay.relayOnce();
+
+        List<SearchEventOutbox> failed = failedAttempts();
+        assertThat(failed).extracting(SearchEventOutbox::getStatus).containsExactly("NEW", "FAILED");
+        assertThat(failed.get(1).getAttempts()).isEqualTo(3);
+        assertThat(failed.get(1).getNextAttemptAt()).isNull();
+        assertThat(publishedIds()).isEmpty();
+    }
+
+    private static SearchEventOutbox row(long id, int attempts) {
+        return SearchEventOutbox.builder()
+                .id(id)
+                .aggregateType("DailyQueryStat")
+                .aggregateId(String.valueOf(id))
+                .eventType("SEARCH_STATS_UPDATED")
+                .payload("{}")
+                .partitionKey("q" + id)
+                .status("NEW")
+                .attempts(attempts)
+                .build();
+    }
+
+    private static CompletableFuture<SendResult<String, String>> acked() {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collection<Long> publishedIds() {
+        ArgumentCaptor<Collection<Long>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(outboxService).markPublished(captor.capture());
+        return captor.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<SearchEventOutbox> failedAttempts() {
+        ArgumentCaptor<List<SearchEventOutbox>> captor = ArgumentCaptor.forClass(List.class);
+        verify(outboxService).saveFailedAttempts(captor.capture());
+        return captor.getValue();
+    }
+
+    private static SearchEventOutbox single(List<SearchEventOutbox> events) {
+        assertThat(events).hasSize(1);
+        return events.get(0);
+    }
+}
@@ -0,0 +1,152 @@
+package com.github.dimitryivaniuta.searchanalytics.messaging;
+
+import com.github.dimitryivaniuta.searchanalytics.infra.BaseIntegrationTest;
+import com.github.dimitryivaniuta.searchanalytics.model.DailyQueryStat;
+import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
+import com.github.dimitryivaniuta.searchanalytics.repository.DailyQueryStatRepository;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.AcknowledgingConsumerAwareMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * PARTITIONED stats mode across rebalances:
+ *  - a 6-partition topic consumed by two containers of one group (two "instances"),
+ *  - the second joins mid-stream, then the first leaves mid-stream,
+ *  - every event is counted exactly once and stats_partition_offsets ends at the topic's end offsets.
+ */
+@TestPropertySource(properties = "app.stats.write-mode=PARTITIONED")
+class PartitionedStatsRebalanceIT extends BaseIntegrationTest {
+
+    private static final String TOPIC = "search-events-rebalance-it";
+    private static final String GROUP = "search-analytics-rebalance-it";
+    private static final int PARTITIONS = 6;
+    private static final int BATCH = 300;
+
+    @Autowired
+    private ConcurrentKafkaListenerContainerFactory<String, SearchEventPayload> searchEventsKafkaListenerContainerFactory;
+
+    @Autowired
+    private SearchEventsListener listener;
+
+    @Autowired
+    private KafkaTemplate<String, SearchEventPayload> searchEventKafkaTemplate;
+
+    @Autowired
+    private DailyQueryStatRepository dailyQueryStatRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Test
+    void rebalancesMidStream_countEveryEventExactlyOnce() throws Exception {
+        try (Admin admin = Admin.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers))) {
+            admin.createTopics(List.of(new NewTopic(TOPIC, PARTITIONS, (short) 1))).all().get(30, TimeUnit.SECONDS);
+        }
+        String query = "rebalance " + UUID.randomUUID();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+        ConcurrentMessageListenerContainer<String, SearchEventPayload> first = container("instance-a");
+        ConcurrentMessageListenerContainer<String, SearchEventPayload> second = container("instance-b");
+        try {
+            first.start();
+            send(query, 0);
+            awaitAtLeast(() -> rawCount(query), BATCH / 3);
+
+            // second instance joins while the first is still consuming -> cooperative rebalance
+            second.start();
+            send(query, BATCH);
+            awaitAtLeast(() -> rawCount(query), BATCH + BATCH / 3);
+
+            // first instance leaves mid-stream -> its partitions are flushed, committed and moved
+            first.stop();
+            send(query, 2 * BATCH);
+
+            long total = 3L * BATCH;
+            awaitAtLeast(() -> statsCount(query, today), total);
+            awaitAtLeast(this::storedOffsetSum, total);
+
+            // a few more flush rounds must not change anything
+            Thread.sleep(3000);
+            assertThat(statsCount(query, today)).isEqualTo(total);
+            assertThat(storedOffsetSum()).isEqualTo(total);
+        } finally {
+            first.stop();
+            second.stop();
+        }
+    }
+
+    private ConcurrentMessageListenerContainer<String, SearchEventPayload> container(String name) {
+        ConcurrentMessageListenerContainer<String, SearchEventPayload> container =
+                searchEventsKafkaListenerContainerFactory.createContainer(TOPIC);
+        container.setBeanName(name);
+        container.setConcurrency(2);
+        container.getContainerProperties().setGroupId(GROUP);
+        container.getContainerProperties().setMessageListener(
+                (AcknowledgingConsumerAwareMessageListener<String, SearchEventPayload>) (record, ack, consumer) ->
+                        listener.onMessage(record.value(), record.key(), record.topic(), record.partition(),
+                                record.offset(), record, ack, consumer));
+        return container;
+    }
+
+    private void send(String query, int from) throws Exception {
+        for (int i = from; i < from + BATCH; i++) {
+            SearchEventPayload payload = SearchEventPayload.builder()
+                    .eventId("rebalance-" + query + "-" + i)
+                    .userId("user-" + i)
+                    .query(query)
+                    .country("PL")
+                    .occurredAt(Instant.now())
+                    .build();
+            searchEventKafkaTemplate.send(TOPIC, "user-" + i, payload);
+        }
+        searchEventKafkaTemplate.flush();
+    }
+
+    private long rawCount(String query) {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM raw_search_events WHERE query = ?", Long.class, query);
+        return count != null ? count : 0;
+    }
+
+    private long statsCount(String query, LocalDate day) {
+        return dailyQueryStatRepository.findByDayAndQuery(day, query).map(DailyQueryStat::getCount).orElse(0L);
+    }
+
+    private long storedOffsetSum() {
+        Long sum = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(next_offset), 0) FROM stats_partition_offsets WHERE consumer_group = ? AND topic = ?",
+                Long.class, GROUP, TOPIC);
+        return sum != null ? sum : 0;
+    }
+
+    private static void awaitAtLeast(LongSupplier value, long expected) throws InterruptedException {
+        // simple polling loop instead of extra dependency like Awaitility
+        for (int i = 0; i < 600 && value.getAsLong() < expected; i++) {
+            Thread.sleep(100);
+        }
+        assertThat(value.getAsLong()).isGreaterThanOrEqualTo(expected);
+    }
+}
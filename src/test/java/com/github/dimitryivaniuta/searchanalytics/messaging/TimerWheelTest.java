@@ -0,0 +1,64 @@
+package com.github.dimitryivaniuta.searchanalytics.messaging;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for TimerWheel ordering / cancellation and ExponentialBackoff growth.
+ */
+class TimerWheelTest {
+
+    @Test
+    void schedule_firesInDeadlineOrderAndNotEarly() throws Exception {
+        List<Integer> fired = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(3);
+        long start = System.nanoTime();
+
+        try (TimerWheel wheel = new TimerWheel("test-wheel", Duration.ofMillis(5), 8, Runnable::run)) {
+            wheel.schedule(() -> { fired.add(120); latch.countDown(); }, Duration.ofMillis(120));
+            wheel.schedule(() -> { fired.add(10); latch.countDown(); }, Duration.ofMillis(10));
+            wheel.schedule(() -> { fired.add(60); latch.countDown(); }, Duration.ofMillis(60));
+
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(wheel.pendingCount()).isZero();
+        }
+
+        // 120ms > 8 buckets * 5ms -> also exercises remainingRounds
+        assertThat(fired).containsExactly(10, 60, 120);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(120);
+    }
+
+    @Test
+    void cancel_preventsExecution() throws Exception {
+        List<String> fired = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(1);
+
+        try (TimerWheel wheel = new TimerWheel("test-wheel", Duration.ofMillis(5), 16, Runnable::run)) {
+            TimerWheel.Timeout cancelled = wheel.schedule(() -> fired.add("cancelled"), Duration.ofMillis(20));
+            wheel.schedule(() -> { fired.add("kept"); latch.countDown(); }, Duration.ofMillis(40));
+
+            assertThat(cancelled.cancel()).isTrue();
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        assertThat(fired).containsExactly("kept");
+    }
+
+    @Test
+    void exponentialBackoff_growsAndCaps() {
+        ExponentialBackoff backoff = new ExponentialBackoff(
+                Duration.ofSeconds(1), 2.0, Duration.ofSeconds(10), 0.0);
+
+        assertThat(backoff.delayFor(0)).isEqualTo(Duration.ofSeconds(1));
+        assertThat(backoff.delayFor(1)).isEqualTo(Duration.ofSeconds(2));
+        assertThat(backoff.delayFor(3)).isEqualTo(Duration.ofSeconds(8));
+        assertThat(backoff.delayFor(10)).isEqualTo(Duration.ofSeconds(10));
+    }
+}
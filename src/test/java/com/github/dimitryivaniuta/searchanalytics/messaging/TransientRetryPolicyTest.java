@@ -0,0 +1,55 @@
+package com.github.dimitryivaniuta.searchanalytics.messaging;
+
+import com.github.dimitryivaniuta.searchanalytics.config.ListenerRetryProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for TransientRetryPolicy – per-offset attempt budget and backoff.
+ */
+class TransientRetryPolicyTest {
+
+    private static ListenerRetryProperties properties(int maxAttempts) {
+        ListenerRetryProperties properties = new ListenerRetryProperties();
+        properties.setMaxAttempts(maxAttempts);
+        properties.setInitialBackoff(Duration.ofMillis(100));
+        properties.setMaxBackoff(Duration.ofSeconds(1));
+        properties.setJitter(0.0);
+        return properties;
+    }
+
+    @Test
+    void nextDelay_backsOffUntilAttemptsAreUsedUp() {
+        TransientRetryPolicy policy = new TransientRetryPolicy(properties(3));
+
+        assertThat(policy.nextDelay("search-events", 0, 42)).contains(Duration.ofMillis(100));
+        assertThat(policy.nextDelay("search-events", 0, 42)).contains(Duration.ofMillis(200));
+        assertThat(policy.nextDelay("search-events", 0, 42)).isEmpty();
+        // budget starts over for the next failure of the same record (e.g. after a redelivery from the DLT)
+        assertThat(policy.nextDelay("search-events", 0, 42)).contains(Duration.ofMillis(100));
+    }
+
+    @Test
+    void attempts_areCountedPerPartitionAndOffset() {
+        TransientRetryPolicy policy = new TransientRetryPolicy(properties(5));
+
+        policy.nextDelay("search-events", 0, 42);
+        assertThat(policy.nextDelay("search-events", 1, 42)).contains(Duration.ofMillis(100));
+        assertThat(policy.nextDelay("search-events", 0, 43)).contains(Duration.ofMillis(100));
+
+        policy.nextDelay("search-events", 1, 42);
+        policy.succeeded("search-events", 1);
+        assertThat(policy.nextDelay("search-events", 1, 42)).contains(Duration.ofMillis(100));
+    }
+
+    @Test
+    void disabled_neverRetries() {
+        ListenerRetryProperties properties = properties(5);
+        properties.setEnabled(false);
+
+        assertThat(new TransientRetryPolicy(properties).nextDelay("search-events", 0, 42)).isEmpty();
+    }
+}
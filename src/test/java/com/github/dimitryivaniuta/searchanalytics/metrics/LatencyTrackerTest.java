@@ -0,0 +1,99 @@
+package com.github.dimitryivaniuta.searchanalytics.metrics;
+
+import com.github.dimitryivaniuta.searchanalytics.config.LatencyProperties;
+import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Unit tests for LatencyHistogram accuracy and LatencyTracker hop / clock-skew handling.
+ */
+class LatencyTrackerTest {
+
+    @Test
+    void histogram_bucketsAreContiguousAndPercentilesWithinRelativeError() {
+        for (int i = 0; i < 2_000; i++) {
+            long high = LatencyHistogram.highestValueOf(i);
+            assertThat(LatencyHistogram.bucketIndex(high)).isEqualTo(i);
+            assertThat(LatencyHistogram.bucketIndex(high + 1)).isEqualTo(i + 1);
+        }
+
+        LatencyHistogram histogram = new LatencyHistogram(Duration.ofHours(1).toNanos() / 1_000);
+        for (long micros = 1; micros <= 100_000; micros++) {
+            histogram.record(micros);
+        }
+        long[] buckets = new long[histogram.bucketCount()];
+        long total = histogram.copyInto(buckets);
+
+        assertThat(total).isEqualTo(100_000);
+        assertThat((double) LatencyHistogram.valueAtQuantile(buckets, total, 0.5)).isCloseTo(50_000, within(800.0));
+        assertThat((double) LatencyHistogram.valueAtQuantile(buckets, total, 0.99)).isCloseTo(99_000, within(1_600.0));
+        assertThat(histogram.maxMicros()).isEqualTo(100_000);
+    }
+
+    @Test
+    void tracker_recordsHopsAndSeparatesClockSkew() {
+        LatencyProperties properties = new LatencyProperties();
+        properties.setSkewTolerance(Duration.ofMillis(100));
+        LatencyTracker tracker = new LatencyTracker(properties);
+
+        Instant received = Instant.parse("2025-01-15T10:00:00Z");
+        long receivedMicros = received.getEpochSecond() * 1_000_000L;
+
+        // client -> producer 20ms, producer -> consumer 5ms
+        tracker.recordReceived(event(received.minusMillis(25), received.minusMillis(5)), receivedMicros);
+        // client -> producer 10ms, producer clock 50ms ahead of ours -> clamped to 0
+        tracker.recordReceived(event(received.plusMillis(40), received.plusMillis(50)), receivedMicros);
+        // client clock 1s ahead of the producer, producer 10s ahead of us -> both rejected
+        tracker.recordReceived(event(received.plusSeconds(11), received.plusSeconds(10)), receivedMicros);
+
+        LatencyTracker.HopSnapshot clientToProducer = tracker.snapshot(LatencyTracker.Hop.CLIENT_TO_PRODUCER);
+        assertThat(clientToProducer.getCount()).isEqualTo(2);
+        assertThat(clientToProducer.getP50Micros()).isBetween(10_000L, 10_200L);
+        assertThat(clientToProducer.getMaxMicros()).isEqualTo(20_000L);
+        assertThat(clientToProducer.getRejectedNegative()).isEqualTo(1);
+
+        LatencyTracker.HopSnapshot producerToConsumer = tracker.snapshot(LatencyTracker.Hop.PRODUCER_TO_CONSUMER);
+        assertThat(producerToConsumer.getCount()).isEqualTo(2);
+        assertThat(producerToConsumer.getClampedNegative()).isEqualTo(1);
+        assertThat(producerToConsumer.getRejectedNegative()).isEqualTo(1);
+        assertThat(producerToConsumer.getMaxNegativeSkewMicros()).isEqualTo(10_000_000L);
+        assertThat(producerToConsumer.getMaxMicros()).isEqualTo(5_000L);
+    }
+
+    @Test
+    void currentTimeMicros_tracksWallClockAcrossRotate() {
+        LatencyTracker tracker = new LatencyTracker(new LatencyProperties());
+        long wallMicros = Instant.now().toEpochMilli() * 1_000;
+
+        assertThat(LatencyTracker.currentTimeMicros()).isCloseTo(wallMicros, within(50_000L));
+        tracker.rotate();
+        assertThat(LatencyTracker.currentTimeMicros()).isCloseTo(wallMicros, within(50_000L));
+    }
+
+    @Test
+    void rotate_keepsPreviousWindowAndDropsOlder() {
+        LatencyTracker tracker = new LatencyTracker(new LatencyProperties());
+        SearchEventPayload payload = event(Instant.now(), Instant.now());
+
+        tracker.recordCommitted(payload, LatencyTracker.currentTimeMicros(), System.nanoTime());
+        tracker.rotate();
+        assertThat(tracker.snapshot(LatencyTracker.Hop.CONSUMER_TO_COMMIT).getCount()).isEqualTo(1);
+
+        tracker.rotate();
+        assertThat(tracker.snapshot(LatencyTracker.Hop.CONSUMER_TO_COMMIT).getCount()).isZero();
+    }
+
+    private static SearchEventPayload event(Instant occurredAt, Instant sentAt) {
+        return SearchEventPayload.builder()
+                .query("java")
+                .occurredAt(occurredAt)
+                .sentAt(sentAt)
+                .build();
+    }
+}
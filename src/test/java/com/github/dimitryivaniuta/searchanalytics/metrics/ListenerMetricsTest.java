@@ -0,0 +1,62 @@
+package com.github.dimitryivaniuta.searchanalytics.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for ListenerMetrics meters, the timed deserializer and the poll-size interceptor.
+ */
+class ListenerMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ListenerMetrics metrics = new ListenerMetrics(registry);
+
+    @Test
+    void stagesAndOutcomes_areRecordedUnderBoundedTags() {
+        metrics.recordStage(ListenerMetrics.Stage.RAW_INSERT, System.nanoTime() - 1_000_000);
+        metrics.recordOutcome(ListenerMetrics.Outcome.PROCESSED);
+        metrics.recordOutcome(ListenerMetrics.Outcome.PROCESSED);
+        metrics.recordOutcome(ListenerMetrics.Outcome.DLT);
+
+        assertThat(registry.get(ListenerMetrics.STAGE_TIMER).tag("stage", "raw_insert").timer().count()).isEqualTo(1);
+        assertThat(registry.get(ListenerMetrics.OUTCOME_COUNTER).tag("outcome", "processed").counter().count()).isEqualTo(2);
+        assertThat(registry.get(ListenerMetrics.OUTCOME_COUNTER).tag("outcome", "dlt").counter().count()).isEqualTo(1);
+
+        // one timer per stage, one counter per outcome – nothing else
+        assertThat(registry.find(ListenerMetrics.STAGE_TIMER).timers()).hasSize(ListenerMetrics.Stage.values().length);
+        assertThat(registry.find(ListenerMetrics.OUTCOME_COUNTER).counters()).hasSize(ListenerMetrics.Outcome.values().length);
+    }
+
+    @Test
+    void timedDeserializer_recordsDeserializeStage() {
+        TimedDeserializer<String> deserializer = new TimedDeserializer<>(new StringDeserializer(), metrics);
+
+        assertThat(deserializer.deserialize("t", "hello".getBytes())).isEqualTo("hello");
+        assertThat(registry.get(ListenerMetrics.STAGE_TIMER).tag("stage", "deserialize").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void pollInterceptor_recordsNonEmptyPolls() {
+        ConsumerPollMetricsInterceptor<String, String> interceptor = new ConsumerPollMetricsInterceptor<>();
+        interceptor.configure(Map.of(ListenerMetrics.CONSUMER_CONFIG_KEY, metrics));
+
+        TopicPartition partition = new TopicPartition("t", 0);
+        interceptor.onConsume(new ConsumerRecords<>(Map.of(partition, List.of(
+                new ConsumerRecord<>("t", 0, 0L, "k", "a"),
+                new ConsumerRecord<>("t", 0, 1L, "k", "b")))));
+        interceptor.onConsume(ConsumerRecords.empty());
+
+        var summary = registry.get(ListenerMetrics.POLL_RECORDS).summary();
+        assertThat(summary.count()).isEqualTo(1);
+        assertThat(summary.totalAmount()).isEqualTo(2.0);
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.dimitryivaniuta.searchanalytics.profiling;
+
+import com.github.dimitryivaniuta.searchanalytics.config.JfrProperties;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Records app JFR events through JfrRecordingService and reads them back from the .jfr file.
+ */
+class JfrRecordingServiceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void startStop_writesAppEventsWithinBounds() throws Exception {
+        JfrProperties properties = new JfrProperties();
+        properties.setDirectory(directory);
+        properties.setSettings("default");
+        properties.setMaxDuration(Duration.ofMinutes(1));
+        JfrRecordingService service = new JfrRecordingService(properties);
+
+        JfrRecordingService.RecordingStatus started = service.start(Duration.ofHours(1), DataSize.ofGigabytes(10));
+        assertThat(started.getState()).isEqualTo("RUNNING");
+        assertThat(started.getDuration()).isEqualTo(Duration.ofMinutes(1));
+        assertThat(started.getMaxSizeBytes()).isEqualTo(properties.getMaxSize().toBytes());
+        assertThatThrownBy(() -> service.start(null, null)).isInstanceOf(IllegalStateException.class);
+
+        RepositoryCallEvent call = RepositoryCallEvent.start("daily_query_stats", "incrementCounts",
+                RepositoryCallEvent.SqlKind.UPSERT);
+        call.finish(42);
+
+        JfrRecordingService.RecordingStatus stopped = service.stop();
+        assertThat(stopped.getState()).isEqualTo("STOPPED");
+
+        Path file = service.recordingFile();
+        assertThat(file).exists();
+        List<RecordedEvent> calls = RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getEventType().getName().equals("searchanalytics.RepositoryCall"))
+                .toList();
+        assertThat(calls).singleElement().satisfies(e -> {
+            assertThat(e.getString("table")).isEqualTo("daily_query_stats");
+            assertThat(e.getString("sqlKind")).isEqualTo("UPSERT");
+            assertThat(e.getLong("rows")).isEqualTo(42);
+        });
+    }
+}
@@ -16,7 +16,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 /**
  * Verifies that daily_query_stats DDL + repository logic work end-to-end.
  */
-@Import(DailyQueryStatRepository.class)
+@Import({DailyQueryStatRepository.class, QueryDictionaryRepository.class})
 class DailyQueryStatJdbcRepositoryIT extends BaseJdbcIntegrationTest {
 
     @Autowired
@@ -2,9 +2,12 @@ package com.github.dimitryivaniuta.searchanalytics.repository;
 
 import com.github.dimitryivaniuta.searchanalytics.infra.BaseJpaIntegrationTest;
 import com.github.dimitryivaniuta.searchanalytics.jpa.entity.DailyQueryStatEntity;
+import com.github.dimitryivaniuta.searchanalytics.jpa.entity.QueryDictionaryEntity;
 import com.github.dimitryivaniuta.searchanalytics.jpa.repository.DailyQueryStatJpaRepository;
+import com.github.dimitryivaniuta.searchanalytics.jpa.repository.QueryDictionaryJpaRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 
@@ -18,36 +21,46 @@ class DailyQueryStatJpaRepositoryIT extends BaseJpaIntegrationTest {
     @Autowired
     private DailyQueryStatJpaRepository repository;
 
+    @Autowired
+    private QueryDictionaryJpaRepository dictionary;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     void saveAndFindByDayAndQuery() {
         LocalDate day = LocalDate.of(2025, 12, 7);
 
         DailyQueryStatEntity saved = repository.saveAndFlush(DailyQueryStatEntity.builder()
                 .day(day)
-                .query("spring kafka")
+                .queryId(queryId("spring kafka"))
                 .count(5)
                 .build());
+        entityManager.clear();
 
         assertThat(saved.getId()).isNotNull();
 
         DailyQueryStatEntity found = repository.findByDayAndQuery(day, "spring kafka").orElseThrow();
         assertThat(found.getCount()).isEqualTo(5);
+        assertThat(found.getQuery()).isEqualTo("spring kafka");
+        assertThat(repository.findByDayAndQuery(day, "spring boot")).isEmpty();
     }
 
     @Test
     void uniqueConstraint_dayAndQuery_isEnforced() {
         LocalDate day = LocalDate.of(2025, 12, 7);
+        Integer java = queryId("java");
 
         repository.saveAndFlush(DailyQueryStatEntity.builder()
                 .day(day)
-                .query("java")
+                .queryId(java)
                 .count(1)
                 .build());
 
-        // same (day, query) should violate UNIQUE(day, query)
+        // same (day, query_id) should violate UNIQUE(day, query_id)
         assertThatThrownBy(() -> repository.saveAndFlush(DailyQueryStatEntity.builder()
                 .day(day)
-                .query("java")
+                .queryId(java)
                 .count(2)
                 .build()))
                 .isInstanceOf(DataIntegrityViolationException.class);
@@ -58,18 +71,24 @@ class DailyQueryStatJpaRepositoryIT extends BaseJpaIntegrationTest {
         LocalDate day = LocalDate.of(2025, 12, 7);
 
         repository.saveAll(List.of(
-                DailyQueryStatEntity.builder().day(day).query("b").count(5).build(),
-                DailyQueryStatEntity.builder().day(day).query("a").count(5).build(),
-                DailyQueryStatEntity.builder().day(day).query("c").count(2).build()
+                DailyQueryStatEntity.builder().day(day).queryId(queryId("b")).count(5).build(),
+                DailyQueryStatEntity.builder().day(day).queryId(queryId("a")).count(5).build(),
+                DailyQueryStatEntity.builder().day(day).queryId(queryId("c")).count(2).build()
         ));
         repository.flush();
+        entityManager.clear();
 
-        List<DailyQueryStatEntity> top2 =
-                repository.findByDayOrderByCountDescQueryAsc(day, PageRequest.of(0, 2));
+        List<DailyQueryStatEntity> top2 = repository.findTopByDay(day, PageRequest.of(0, 2));
 
         assertThat(top2).hasSize(2);
         // count desc, then query asc -> a then b (both count=5)
         assertThat(top2.get(0).getQuery()).isEqualTo("a");
         assertThat(top2.get(1).getQuery()).isEqualTo("b");
     }
+
+    private Integer queryId(String query) {
+        return dictionary.findByQuery(query)
+                .orElseGet(() -> dictionary.saveAndFlush(QueryDictionaryEntity.builder().query(query).build()))
+                .getId();
+    }
 }
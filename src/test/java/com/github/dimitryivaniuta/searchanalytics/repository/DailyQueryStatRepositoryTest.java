@@ -2,21 +2,25 @@ package com.github.dimitryivaniuta.searchanalytics.repository;
 
 import com.github.dimitryivaniuta.searchanalytics.infra.BaseJdbcIntegrationTest;
 import com.github.dimitryivaniuta.searchanalytics.model.DailyQueryStat;
+import com.github.dimitryivaniuta.searchanalytics.model.DayQueryKey;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Import;
 import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 /**
  * JDBC integration test (real Postgres via Testcontainers) for DailyQueryStatRepository.
  */
-@Import(DailyQueryStatRepository.class)
+@Import({DailyQueryStatRepository.class, QueryDictionaryRepository.class})
 class DailyQueryStatRepositoryTest extends BaseJdbcIntegrationTest {
 
     @Autowired
@@ -28,7 +32,7 @@ class DailyQueryStatRepositoryTest extends BaseJdbcIntegrationTest {
     @BeforeEach
     void cleanDb() {
         // isolate tests (same container DB for all tests in this class)
-        jdbcTemplate.execute("TRUNCATE TABLE daily_query_stats RESTART IDENTITY");
+        jdbcTemplate.execute("TRUNCATE TABLE daily_query_stats, daily_query_stat_stripes RESTART IDENTITY");
     }
 
     @Test
@@ -83,4 +87,61 @@ class DailyQueryStatRepositoryTest extends BaseJdbcIntegrationTest {
         assertThat(agg.get(0).getId()).isNull();
         assertThat(agg.get(0).getDay()).isNull();
     }
+
+    @Test
+    void findTop_ordersTiesAtTheLimitByQueryText() {
+        LocalDate day = LocalDate.of(2025, 12, 7);
+        // inserted in reverse text order, so query_id order differs from text order
+        for (String query : List.of("zeta", "delta", "beta", "alpha")) {
+            repository.incrementCount(day, query);
+        }
+        repository.incrementCount(day, "zeta");
+        repository.incrementCount(day, "zeta");
+
+        assertThat(repository.findTopByDay(day, 2)).extracting(DailyQueryStat::getQuery)
+                .containsExactly("zeta", "alpha");
+        assertThat(repository.findTopInRange(day, day, 3)).extracting(DailyQueryStat::getQuery)
+                .containsExactly("zeta", "alpha", "beta");
+        assertThat(repository.findTopByDay(day, 10)).hasSize(4);
+    }
+
+    @Test
+    void incrementCounts_returnsRowsWithQueryText() {
+        LocalDate day = LocalDate.of(2025, 12, 7);
+        repository.incrementCount(day, "java");
+
+        List<DailyQueryStat> stats = repository.incrementCounts(Map.of(
+                new DayQueryKey(day, "java"), 4L,
+                new DayQueryKey(day, "kotlin"), 2L));
+
+        assertThat(stats).extracting(DailyQueryStat::getQuery, DailyQueryStat::getCount)
+                .containsExactlyInAnyOrder(tuple("java", 5L), tuple("kotlin", 2L));
+        assertThat(repository.findByDayAndQuery(day, "kotlin").orElseThrow().getCount()).isEqualTo(2);
+        assertThat(repository.findByDayAndQuery(day, "scala")).isEmpty();
+    }
+
+    @Test
+    void stripes_areSummedByReadsAndFoldedBackIntoSingleRow() {
+        LocalDate day = LocalDate.of(2025, 12, 7);
+
+        repository.incrementCount(day, "viral");
+        repository.incrementStripe(day, "viral", 0);
+        repository.incrementStripe(day, "viral", 0);
+        repository.incrementStripe(day, "viral", 5);
+        repository.incrementCount(day, "java");
+        repository.incrementCount(day, "java");
+
+        assertThat(repository.findByDayAndQuery(day, "viral").orElseThrow().getCount()).isEqualTo(4);
+        List<DailyQueryStat> top = repository.findTopByDay(day, 10);
+        assertThat(top).extracting(DailyQueryStat::getQuery).containsExactly("viral", "java");
+        assertThat(top.get(0).getCount()).isEqualTo(4);
+        assertThat(top.get(0).getId()).isNotNull();
+        assertThat(repository.findTopInRange(day, day, 10).get(0).getCount()).isEqualTo(4);
+
+        assertThat(repository.foldStripes(Instant.now().plusSeconds(60), 100)).isEqualTo(2);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM daily_query_stat_stripes", Integer.class))
+                .isZero();
+        assertThat(repository.findByDayAndQuery(day, "viral").orElseThrow().getCount()).isEqualTo(4);
+    }
 }
@@ -0,0 +1,58 @@
+package com.github.dimitryivaniuta.searchanalytics.repository;
+
+import com.github.dimitryivaniuta.searchanalytics.infra.BaseJdbcIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * JDBC integration test (real Postgres via Testcontainers) for QueryDictionaryRepository.
+ */
+@Import(QueryDictionaryRepository.class)
+class QueryDictionaryRepositoryTest extends BaseJdbcIntegrationTest {
+
+    @Autowired
+    private QueryDictionaryRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void idsOf_addsNewQueriesOnceAndReturnsStableIds() {
+        Map<String, Integer> first = repository.idsOf(List.of("dict-java", "dict-kafka"));
+        Map<String, Integer> second = repository.idsOf(List.of("dict-kafka", "dict-spring"));
+
+        assertThat(first).containsOnlyKeys("dict-java", "dict-kafka");
+        assertThat(second.get("dict-kafka")).isEqualTo(first.get("dict-kafka"));
+        assertThat(second.get("dict-spring")).isNotIn(first.values());
+        assertThat(repository.idOf("dict-java")).isEqualTo(first.get("dict-java"));
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT query FROM query_dictionary WHERE id = ?", String.class, first.get("dict-java")))
+                .isEqualTo("dict-java");
+    }
+
+    @Test
+    void findId_neverAddsQueries() {
+        assertThat(repository.findId("dict-unknown")).isEmpty();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM query_dictionary WHERE query = 'dict-unknown'", Integer.class))
+                .isZero();
+
+        int id = repository.idOf("dict-unknown");
+        assertThat(repository.findId("dict-unknown")).contains(id);
+    }
+
+    @Test
+    void idsAreOnlyCachedAfterCommit() {
+        // @JdbcTest rolls every test back, so nothing from the test transaction may stay cached
+        repository.idsOf(List.of("dict-rolled-back"));
+
+        assertThat(repository.cachedQueries()).isZero();
+    }
+}
@@ -1,5 +1,6 @@
 package com.github.dimitryivaniuta.searchanalytics.service;
 
+import com.github.dimitryivaniuta.searchanalytics.config.StatsProperties;
 import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
 import com.github.dimitryivaniuta.searchanalytics.repository.DailyQueryStatRepository;
 import org.junit.jupiter.api.Test;
@@ -18,7 +19,10 @@ import static org.mockito.Mockito.*;
 class DailyQueryStatServiceTest {
 
     private final DailyQueryStatRepository repository = mock(DailyQueryStatRepository.class);
-    private final DailyQueryStatService service = new DailyQueryStatService(repository);
+    private final DailyQueryStatBuffer buffer = mock(DailyQueryStatBuffer.class);
+    private final StatsProperties properties = new StatsProperties();
+    private final HotKeyDetector hotKeys = new HotKeyDetector(properties);
+    private final DailyQueryStatService service = new DailyQueryStatService(repository, buffer, properties, hotKeys);
 
     @Test
     void incrementFromEvent_convertsOccurredAtToUtcDay() {
@@ -37,5 +41,43 @@ class DailyQueryStatServiceTest {
 
         assertThat(dayCaptor.getValue()).isEqualTo(occurredAt.atZone(ZoneOffset.UTC).toLocalDate());
         assertThat(queryCaptor.getValue()).isEqualTo("java streams");
+        verifyNoInteractions(buffer);
+    }
+
+    @Test
+    void incrementFromEvent_coalescedModeBuffersInsteadOfWriting() {
+        properties.setWriteMode(StatsProperties.WriteMode.COALESCED);
+        Instant occurredAt = Instant.parse("2025-12-06T23:59:59Z");
+        SearchEventPayload payload = SearchEventPayload.builder()
+                .query("java streams")
+                .occurredAt(occurredAt)
+                .build();
+
+        service.incrementFromEvent(payload);
+
+        verify(buffer).add(LocalDate.of(2025, 12, 6), "java streams", null);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void incrementFromEvent_hotKeyGoesToStripeRowOnceThresholdIsReached() {
+        properties.getStriping().setEnabled(true);
+        properties.getStriping().setHotThreshold(3);
+        LocalDate day = LocalDate.of(2025, 12, 6);
+        SearchEventPayload viral = SearchEventPayload.builder()
+                .query("viral")
+                .occurredAt(Instant.parse("2025-12-06T10:00:00Z"))
+                .build();
+
+        for (int i = 0; i < 5; i++) {
+            service.incrementFromEvent(viral);
+        }
+
+        verify(repository, times(2)).incrementCount(day, "viral");
+        verify(repository, times(3)).incrementStripe(day, "viral", hotKeys.stripe());
+        assertThat(hotKeys.hotKeys()).isEqualTo(1);
+
+        hotKeys.rotate();
+        assertThat(hotKeys.hotKeys()).isEqualTo(1); // still within cool-down
     }
 }
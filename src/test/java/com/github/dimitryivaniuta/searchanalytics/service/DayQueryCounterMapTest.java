@@ -0,0 +1,99 @@
+package com.github.dimitryivaniuta.searchanalytics.service;
+
+import com.github.dimitryivaniuta.searchanalytics.model.DayQueryKey;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for DayQueryCounterMap – counting per (day, query), growth, clear + reuse, conversion.
+ */
+class DayQueryCounterMapTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 12, 7);
+
+    @Test
+    void add_sumsDeltasPerDayAndQuery() {
+        DayQueryCounterMap map = new DayQueryCounterMap();
+
+        map.add(DAY, "iphone", 1L);
+        map.add(DAY, "iphone", 2L);
+        map.add(DAY.minusDays(1), "iphone", 5L);
+        map.add(DAY, "pixel", 1L);
+
+        assertThat(map.size()).isEqualTo(3);
+        assertThat(map.get(DAY.toEpochDay(), "iphone")).isEqualTo(3L);
+        assertThat(map.get(DAY.minusDays(1).toEpochDay(), "iphone")).isEqualTo(5L);
+        assertThat(map.get(DAY.toEpochDay(), "pixel")).isEqualTo(1L);
+        assertThat(map.get(DAY.toEpochDay(), "galaxy")).isZero();
+    }
+
+    @Test
+    void add_distinguishesQueriesWithEqualHashCodes() {
+        // "Aa" and "BB" share String.hashCode()
+        DayQueryCounterMap map = new DayQueryCounterMap();
+
+        map.add(DAY, "Aa", 1L);
+        map.add(DAY, "BB", 2L);
+        map.add(DAY, "", 3L);
+
+        assertThat(map.get(DAY.toEpochDay(), "Aa")).isEqualTo(1L);
+        assertThat(map.get(DAY.toEpochDay(), "BB")).isEqualTo(2L);
+        assertThat(map.get(DAY.toEpochDay(), "")).isEqualTo(3L);
+    }
+
+    @Test
+    void add_growsAndMatchesHashMapReference() {
+        DayQueryCounterMap map = new DayQueryCounterMap(4);
+        Map<DayQueryKey, Long> reference = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 200_000; i++) {
+            LocalDate day = DAY.minusDays(random.nextInt(3));
+            String query = "query " + random.nextInt(20_000);
+            map.add(day, query, 1L);
+            reference.merge(new DayQueryKey(day, query), 1L, Long::sum);
+        }
+
+        assertThat(map.size()).isEqualTo(reference.size());
+        assertThat(map.toMap()).isEqualTo(reference);
+    }
+
+    @Test
+    void clear_removesAllKeysAndMapIsReusable() {
+        DayQueryCounterMap map = new DayQueryCounterMap();
+        for (int i = 0; i < 1_000; i++) {
+            map.add(DAY, "query " + i, 1L);
+        }
+
+        map.clear();
+
+        assertThat(map.isEmpty()).isTrue();
+        assertThat(map.get(DAY.toEpochDay(), "query 1")).isZero();
+        assertThat(map.toMap()).isEmpty();
+
+        map.add(DAY, "other", 4L);
+        assertThat(map.toMap()).containsExactly(Map.entry(new DayQueryKey(DAY, "other"), 4L));
+    }
+
+    @Test
+    void forEach_visitsKeysInInsertionOrder() {
+        DayQueryCounterMap map = new DayQueryCounterMap();
+        map.add(DAY, "b", 1L);
+        map.add(DAY, "a", 2L);
+        map.add(DAY, "b", 1L);
+
+        List<String> visited = new ArrayList<>();
+        map.forEach((epochDay, query, count) ->
+                visited.add(LocalDate.ofEpochDay(epochDay) + " " + query + "=" + count));
+
+        assertThat(visited).containsExactly("2025-12-07 b=2", "2025-12-07 a=2");
+    }
+}
@@ -1,8 +1,11 @@
 package com.github.dimitryivaniuta.searchanalytics.service;
 
+import com.github.dimitryivaniuta.searchanalytics.error.ErrorFingerprint;
+import com.github.dimitryivaniuta.searchanalytics.error.ErrorRollup;
 import com.github.dimitryivaniuta.searchanalytics.model.SearchEventProcessingError;
 import com.github.dimitryivaniuta.searchanalytics.repository.SearchEventProcessingErrorRepository;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -16,11 +19,17 @@ class EventProcessingErrorServiceTest {
     private final SearchEventProcessingErrorRepository repository =
             mock(SearchEventProcessingErrorRepository.class);
 
+    private final ErrorRollup rollup = mock(ErrorRollup.class);
+
     private final EventProcessingErrorService service =
-            new EventProcessingErrorService(repository);
+            new EventProcessingErrorService(repository, rollup);
 
     @Test
     void logError_persistsModelWithExpectedFields() {
+        IllegalStateException failure = new IllegalStateException("boom");
+        when(rollup.record("PROCESSING_ERROR", "boom", failure))
+                .thenReturn(new ErrorFingerprint("0123456789abcdef", "PROCESSING_ERROR",
+                        IllegalStateException.class.getName(), "boom"));
         when(repository.save(any(SearchEventProcessingError.class))).thenReturn(42L);
 
         Long id = service.logError(
@@ -30,10 +39,14 @@ class EventProcessingErrorServiceTest {
                 10L,
                 "PROCESSING_ERROR",
                 "boom",
-                "stack"
+                failure
         );
 
         assertThat(id).isEqualTo(42L);
-        verify(repository, times(1)).save(any(SearchEventProcessingError.class));
+        ArgumentCaptor<SearchEventProcessingError> saved = ArgumentCaptor.forClass(SearchEventProcessingError.class);
+        verify(repository, times(1)).save(saved.capture());
+        assertThat(saved.getValue().getFingerprint()).isEqualTo("0123456789abcdef");
+        assertThat(saved.getValue().getStackTrace()).isNull();
+        assertThat(saved.getValue().getErrorMessage()).isEqualTo("boom");
     }
 }
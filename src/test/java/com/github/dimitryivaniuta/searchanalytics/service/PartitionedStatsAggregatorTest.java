@@ -0,0 +1,181 @@
+package com.github.dimitryivaniuta.searchanalytics.service;
+
+import com.github.dimitryivaniuta.searchanalytics.bulkhead.BulkheadRegistry;
+import com.github.dimitryivaniuta.searchanalytics.config.BulkheadProperties;
+import com.github.dimitryivaniuta.searchanalytics.config.DedupProperties;
+import com.github.dimitryivaniuta.searchanalytics.config.StatsProperties;
+import com.github.dimitryivaniuta.searchanalytics.dedup.EventDeduplicator;
+import com.github.dimitryivaniuta.searchanalytics.model.DayQueryKey;
+import com.github.dimitryivaniuta.searchanalytics.repository.DailyQueryStatRepository;
+import com.github.dimitryivaniuta.searchanalytics.repository.ProcessedEventIdRepository;
+import com.github.dimitryivaniuta.searchanalytics.repository.StatsPartitionOffsetRepository;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for PartitionedStatsAggregator – per-partition state, offset fencing, flush on revoke.
+ */
+class PartitionedStatsAggregatorTest {
+
+    private static final String GROUP = "search-analytics-cg";
+    private static final TopicPartition P0 = new TopicPartition("search-events", 0);
+    private static final TopicPartition P1 = new TopicPartition("search-events", 1);
+    private static final LocalDate DAY = LocalDate.of(2025, 12, 7);
+
+    private final DailyQueryStatRepository statRepository = mock(DailyQueryStatRepository.class);
+    private final StatsPartitionOffsetRepository offsetRepository = mock(StatsPartitionOffsetRepository.class);
+    private final ProcessedEventIdRepository processedEventIdRepository = mock(ProcessedEventIdRepository.class);
+    private final EventDeduplicator deduplicator = mock(EventDeduplicator.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final StatsProperties properties = new StatsProperties();
+    private final PartitionedStatsAggregator aggregator = new PartitionedStatsAggregator(statRepository,
+            offsetRepository, processedEventIdRepository, mock(SearchEventOutboxService.class), deduplicator,
+            properties, new DedupProperties(), transactionManager, new BulkheadRegistry(new BulkheadProperties()));
+
+    @SuppressWarnings("unchecked")
+    private final Consumer<String, String> consumer = mock(Consumer.class);
+
+    @BeforeEach
+    void setUp() {
+        properties.setWriteMode(StatsProperties.WriteMode.PARTITIONED);
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> new SimpleTransactionStatus());
+        when(consumer.groupMetadata()).thenReturn(new ConsumerGroupMetadata(GROUP));
+        when(offsetRepository.findOffsets(eq(GROUP), eq("search-events"), any())).thenReturn(Map.of(0, 100L));
+        when(offsetRepository.advance(any(), any(), anyInt(), any(), anyLong())).thenReturn(true);
+    }
+
+    @Test
+    void assignment_seeksToStoredOffsets() {
+        aggregator.onPartitionsAssigned(consumer, List.of(P0, P1));
+
+        verify(consumer).seek(P0, 100L);
+        verify(consumer, never()).seek(eq(P1), anyLong());
+        assertThat(aggregator.ownedPartitions()).isEqualTo(2);
+    }
+
+    @Test
+    void flush_writesDeltasIdsAndOffsetTogether() {
+        aggregator.onPartitionsAssigned(consumer, List.of(P0));
+        aggregator.add(P0, DAY, "java", "evt-1");
+        aggregator.markConsumed("search-events", 0, 100);
+        aggregator.add(P0, DAY, "java", "evt-2");
+        aggregator.markConsumed("search-events", 0, 101);
+
+        assertThat(aggregator.isPending(P0, "evt-1")).isTrue();
+        assertThat(aggregator.flush()).isEqualTo(1);
+
+        verify(statRepository).incrementCounts(Map.of(new DayQueryKey(DAY, "java"), 2L));
+        verify(processedEventIdRepository).insertAll(Set.of("evt-1", "evt-2"));
+        verify(offsetRepository).advance(GROUP, "search-events", 0, 100L, 102L);
+        verify(deduplicator).markPersisted(Set.of("evt-1", "evt-2"));
+        assertThat(aggregator.isPending(P0, "evt-1")).isFalse();
+
+        // nothing new -> no second write
+        assertThat(aggregator.flush()).isZero();
+    }
+
+    @Test
+    void flush_fencedByAnotherConsumer_dropsUnflushedState() {
+        when(offsetRepository.advance(any(), any(), anyInt(), any(), anyLong())).thenReturn(false);
+        aggregator.onPartitionsAssigned(consumer, List.of(P0));
+        aggregator.add(P0, DAY, "java", "evt-1");
+        aggregator.markConsumed("search-events", 0, 100);
+
+        assertThat(aggregator.flush()).isZero();
+
+        assertThat(aggregator.isPending(P0, "evt-1")).isFalse();
+        verify(deduplicator, never()).markPersisted(any());
+        // fenced state is not flushed again until the listener re-admits records
+        assertThat(aggregator.flush()).isZero();
+        verify(offsetRepository, times(1)).advance(any(), any(), anyInt(), any(), anyLong());
+    }
+
+    @Test
+    void fencedFlush_seeksBackToStoredOffsetAndRecountsDroppedRecords() {
+        when(offsetRepository.advance(any(), any(), anyInt(), any(), anyLong())).thenReturn(false, true);
+        aggregator.onPartitionsAssigned(consumer, List.of(P0));
+        consume(100, "java");
+        consume(101, "kafka");
+        assertThat(aggregator.flush()).isZero();
+
+        // the other writer counted offset 100 only
+        when(offsetRepository.findOffsets(GROUP, "search-events", List.of(0))).thenReturn(Map.of(0, 101L));
+
+        // rest of the batch fetched before the seek: skipped, delivered again after it
+        assertThat(aggregator.admit(consumer, "search-events", 0, 102)).isFalse();
+        verify(consumer).seek(P0, 101L);
+        assertThat(aggregator.admit(consumer, "search-events", 0, 103)).isFalse();
+
+        consume(101, "kafka");
+        consume(102, "kafka");
+        assertThat(aggregator.flush()).isEqualTo(1);
+
+        verify(statRepository).incrementCounts(Map.of(new DayQueryKey(DAY, "kafka"), 2L));
+        verify(offsetRepository).advance(GROUP, "search-events", 0, 101L, 103L);
+    }
+
+    @Test
+    void fencedFlush_skipsRecordsAlreadyCountedByTheOtherWriter() {
+        when(offsetRepository.advance(any(), any(), anyInt(), any(), anyLong())).thenReturn(false, true);
+        aggregator.onPartitionsAssigned(consumer, List.of(P0));
+        consume(100, "java");
+        assertThat(aggregator.flush()).isZero();
+        when(offsetRepository.findOffsets(GROUP, "search-events", List.of(0))).thenReturn(Map.of(0, 105L));
+
+        assertThat(aggregator.admit(consumer, "search-events", 0, 101)).isFalse();
+        consume(105, "kafka");
+        assertThat(aggregator.flush()).isEqualTo(1);
+
+        // only the seek of the assignment, none for the fence
+        verify(consumer, times(1)).seek(eq(P0), anyLong());
+        verify(statRepository).incrementCounts(Map.of(new DayQueryKey(DAY, "kafka"), 1L));
+        verify(offsetRepository).advance(GROUP, "search-events", 0, 105L, 106L);
+    }
+
+    @Test
+    void revoke_flushesAndCommitsOnlyRevokedPartitions() {
+        aggregator.onPartitionsAssigned(consumer, List.of(P0, P1));
+        aggregator.add(P0, DAY, "java", "evt-1");
+        aggregator.markConsumed("search-events", 0, 100);
+        aggregator.add(P1, DAY, "kafka", "evt-2");
+        aggregator.markConsumed("search-events", 1, 7);
+
+        aggregator.onPartitionsRevokedBeforeCommit(consumer, List.of(P0));
+
+        verify(statRepository).incrementCounts(Map.of(new DayQueryKey(DAY, "java"), 1L));
+        verify(consumer).commitSync(Map.of(P0, new OffsetAndMetadata(101L)));
+        assertThat(aggregator.ownedPartitions()).isEqualTo(1);
+        assertThat(aggregator.isPending(P1, "evt-2")).isTrue();
+    }
+
+    private void consume(long offset, String query) {
+        assertThat(aggregator.admit(consumer, "search-events", 0, offset)).isTrue();
+        aggregator.add(P0, DAY, query, "evt-" + offset);
+        aggregator.markConsumed("search-events", 0, offset);
+    }
+
+    @Test
+    void otherWriteModes_ignoreRebalances() {
+        properties.setWriteMode(StatsProperties.WriteMode.DIRECT);
+
+        aggregator.onPartitionsAssigned(consumer, List.of(P0));
+        aggregator.markConsumed("search-events", 0, 5);
+
+        assertThat(aggregator.ownedPartitions()).isZero();
+        verifyNoInteractions(offsetRepository);
+    }
+}
@@ -0,0 +1,131 @@
+package com.github.dimitryivaniuta.searchanalytics.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.searchanalytics.config.IngestProperties;
+import com.github.dimitryivaniuta.searchanalytics.model.BatchIngestResult;
+import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.SendResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for SearchEventBatchIngestService – NDJSON / array parsing and per-event results.
+ */
+class SearchEventBatchIngestServiceTest {
+
+    private final SearchEventIngestGateway ingestGateway = mock(SearchEventIngestGateway.class);
+    private final IngestProperties properties = new IngestProperties();
+    private final SearchEventBatchIngestService service = new SearchEventBatchIngestService(
+            ingestGateway, new ObjectMapper().findAndRegisterModules(), properties);
+
+    private final AtomicLong offsets = new AtomicLong();
+
+    @Test
+    void ingest_ndjson_sendsEveryLineAndReportsOffsets() throws Exception {
+        acceptAll();
+        String body = """
+                {"eventId":"e1","query":"java"}
+                {"eventId":"e2","query":"say \\"hi\\""}
+
+                {"eventId":"e3","query":"kafka","occurredAt":"2025-12-06T10:15:30Z"}
+                """;
+
+        BatchIngestResult result = service.ingest(stream(body));
+
+        assertThat(result.getReceived()).isEqualTo(3);
+        assertThat(result.getAccepted()).isEqualTo(3);
+        assertThat(result.isTruncated()).isFalse();
+        assertThat(result.getResults())
+                .extracting(BatchIngestResult.EventResult::getEventId)
+                .containsExactly("e1", "e2", "e3");
+        assertThat(result.getResults())
+                .extracting(BatchIngestResult.EventResult::getOffset)
+                .containsExactly(0L, 1L, 2L);
+        verify(ingestGateway, times(3)).submit(any(), any());
+    }
+
+    @Test
+    void ingest_jsonArray_reportsFailedSendsIndividually() throws Exception {
+        when(ingestGateway.submit(any(), any())).thenAnswer(inv -> {
+            SearchEventPayload payload = inv.getArgument(0);
+            if ("boom".equals(payload.getQuery())) {
+                return CompletableFuture.failedFuture(new IllegalStateException("broker down"));
+            }
+            return sent(payload);
+        });
+
+        BatchIngestResult result = service.ingest(stream("""
+                [{"eventId":"a","query":"ok"}, {"eventId":"b","query":"boom"}]
+                """));
+
+        assertThat(result.getReceived()).isEqualTo(2);
+        assertThat(result.getAccepted()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getResults().get(1).getStatus()).isEqualTo(BatchIngestResult.Status.FAILED);
+        assertThat(result.getResults().get(1).getError()).contains("broker down");
+    }
+
+    @Test
+    void ingest_stopsAtMalformedJsonAndAtMaxEvents() throws Exception {
+        acceptAll();
+
+        BatchIngestResult malformed = service.ingest(stream("""
+                {"eventId":"ok","query":"java"}
+                {"eventId":"broken","query":
+                """));
+        assertThat(malformed.getReceived()).isEqualTo(1);
+        assertThat(malformed.isTruncated()).isTrue();
+        assertThat(malformed.getTruncationReason()).contains("malformed JSON after 1 events");
+
+        properties.setBatchMaxEvents(2);
+        BatchIngestResult capped = service.ingest(stream("""
+                {"query":"a"}
+                {"query":"b"}
+                {"query":"c"}
+                """));
+        assertThat(capped.getReceived()).isEqualTo(2);
+        assertThat(capped.isTruncated()).isTrue();
+    }
+
+    @Test
+    void ingest_stopsReadingWhenInFlightBudgetIsExhausted() throws Exception {
+        when(ingestGateway.submit(any(), any()))
+                .thenAnswer(inv -> sent(inv.getArgument(0)))
+                .thenThrow(new IngestOverloadedException(20_000, Duration.ofSeconds(1)));
+
+        BatchIngestResult result = service.ingest(stream("""
+                {"query":"a"}
+                {"query":"b"}
+                {"query":"c"}
+                """));
+
+        assertThat(result.getReceived()).isEqualTo(1);
+        assertThat(result.getAccepted()).isEqualTo(1);
+        assertThat(result.getTruncationReason()).contains("in-flight budget exhausted");
+    }
+
+    private void acceptAll() {
+        when(ingestGateway.submit(any(), any())).thenAnswer(inv -> sent(inv.getArgument(0)));
+    }
+
+    private CompletableFuture<SendResult<String, SearchEventPayload>> sent(SearchEventPayload payload) {
+        RecordMetadata metadata = new RecordMetadata(
+                new TopicPartition("search-events", 0), offsets.getAndIncrement(), 0, 0L, 0, 0);
+        return CompletableFuture.completedFuture(new SendResult<>(null, metadata));
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.dimitryivaniuta.searchanalytics.service;
+
+import com.github.dimitryivaniuta.searchanalytics.config.IngestProperties;
+import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.SendResult;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for SearchEventIngestGateway – permits are held until the send completes.
+ */
+class SearchEventIngestGatewayTest {
+
+    private final SearchEventProducerService producerService = mock(SearchEventProducerService.class);
+
+    @Test
+    void submit_shedsWhenBudgetExhaustedAndRecoversOnCompletion() {
+        IngestProperties properties = new IngestProperties();
+        properties.setMaxInFlight(2);
+        properties.setRetryAfter(Duration.ofSeconds(3));
+        SearchEventIngestGateway gateway = new SearchEventIngestGateway(producerService, properties);
+
+        CompletableFuture<SendResult<String, SearchEventPayload>> first = new CompletableFuture<>();
+        CompletableFuture<SendResult<String, SearchEventPayload>> second = new CompletableFuture<>();
+        when(producerService.sendAsync(any())).thenReturn(first, second);
+
+        gateway.submit(new SearchEventPayload());
+        gateway.submit(new SearchEventPayload());
+        assertThat(gateway.inFlight()).isEqualTo(2);
+
+        assertThatThrownBy(() -> gateway.submit(new SearchEventPayload()))
+                .isInstanceOf(IngestOverloadedException.class)
+                .extracting(ex -> ((IngestOverloadedException) ex).getRetryAfter())
+                .isEqualTo(Duration.ofSeconds(3));
+
+        // failures release the permit too
+        first.completeExceptionally(new IllegalStateException("broker down"));
+        assertThat(gateway.inFlight()).isEqualTo(1);
+
+        when(producerService.sendAsync(any())).thenReturn(new CompletableFuture<>());
+        gateway.submit(new SearchEventPayload(), Duration.ofMillis(10));
+        assertThat(gateway.inFlight()).isEqualTo(2);
+        verify(producerService, times(3)).sendAsync(any());
+    }
+}
@@ -0,0 +1,46 @@
+package com.github.dimitryivaniuta.searchanalytics.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.searchanalytics.model.DailyQueryStat;
+import com.github.dimitryivaniuta.searchanalytics.model.DayQueryKey;
+import com.github.dimitryivaniuta.searchanalytics.model.SearchEventOutbox;
+import com.github.dimitryivaniuta.searchanalytics.repository.SearchEventOutboxRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Regression test: outbox payloads stay valid JSON for queries containing quotes and backslashes.
+ */
+class SearchEventOutboxServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final SearchEventOutboxRepository repository = mock(SearchEventOutboxRepository.class);
+    private final SearchEventOutboxService service = new SearchEventOutboxService(repository, objectMapper);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createStatsUpdatedEvents_escapesQuotesAndBackslashes() throws Exception {
+        LocalDate day = LocalDate.of(2025, 12, 7);
+        String query = "say \"hi\" C:\\temp\\ \\\"";
+        DailyQueryStat stat = DailyQueryStat.builder().id(7L).day(day).query(query).count(12).build();
+
+        service.createStatsUpdatedEvents(List.of(stat), Map.of(new DayQueryKey(day, query), 3L));
+
+        ArgumentCaptor<List<SearchEventOutbox>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository).saveAll(captor.capture());
+        SearchEventOutbox event = captor.getValue().get(0);
+        JsonNode payload = objectMapper.readTree(event.getPayload());
+        assertThat(payload.get("query").asText()).isEqualTo(query);
+        assertThat(payload.get("count").asLong()).isEqualTo(12);
+        assertThat(payload.get("delta").asLong()).isEqualTo(3);
+        assertThat(event.getPartitionKey()).isEqualTo(query);
+    }
+}
@@ -0,0 +1,155 @@
+package com.github.dimitryivaniuta.searchanalytics.spill;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.searchanalytics.bulkhead.BulkheadRegistry;
+import com.github.dimitryivaniuta.searchanalytics.config.BulkheadProperties;
+import com.github.dimitryivaniuta.searchanalytics.config.SpillProperties;
+import com.github.dimitryivaniuta.searchanalytics.config.WatermarkProperties;
+import com.github.dimitryivaniuta.searchanalytics.config.WorkerThreads;
+import com.github.dimitryivaniuta.searchanalytics.messaging.DeadLetterProducer;
+import com.github.dimitryivaniuta.searchanalytics.messaging.SearchEventPipeline;
+import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
+import com.github.dimitryivaniuta.searchanalytics.model.SpilledEvent;
+import com.github.dimitryivaniuta.searchanalytics.service.EventProcessingErrorService;
+import com.github.dimitryivaniuta.searchanalytics.service.RawSearchEventService;
+import com.github.dimitryivaniuta.searchanalytics.watermark.WatermarkTracker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.util.unit.DataSize;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for SpillDrainer + DatabaseHealthMonitor – rate-limited replay, stop on outage, poison events.
+ */
+class SpillDrainerTest {
+
+    @TempDir
+    Path directory;
+
+    private final SpillProperties properties = new SpillProperties();
+    private final DataSource dataSource = mock(DataSource.class);
+    private final RawSearchEventService rawSearchEventService = mock(RawSearchEventService.class);
+    private final SearchEventPipeline pipeline = mock(SearchEventPipeline.class);
+    private final EventProcessingErrorService errorService = mock(EventProcessingErrorService.class);
+    private final DeadLetterProducer deadLetterProducer = mock(DeadLetterProducer.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private SpillLog spillLog;
+    private DatabaseHealthMonitor databaseHealth;
+    private SpillDrainer drainer;
+
+    @BeforeEach
+    void setUp() {
+        properties.setDirectory(directory);
+        properties.setSegmentSize(DataSize.ofKilobytes(4));
+        properties.setDrainRate(2);
+        properties.setDrainInterval(Duration.ofSeconds(1));
+        spillLog = new SpillLog(properties, objectMapper);
+        spillLog.open();
+        databaseHealth = new DatabaseHealthMonitor(dataSource, properties, mock(WorkerThreads.class));
+        drainer = new SpillDrainer(spillLog, databaseHealth, properties, rawSearchEventService, pipeline,
+                errorService, deadLetterProducer, objectMapper, new WatermarkTracker(new WatermarkProperties()),
+                new BulkheadRegistry(new BulkheadProperties()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        spillLog.close();
+    }
+
+    @Test
+    void drain_replaysAtMostDrainRatePerIntervalThroughPipeline() {
+        spill(1, 2, 3);
+
+        assertThat(drainer.drain()).isEqualTo(2);
+        assertThat(drainer.drain()).isEqualTo(1);
+        assertThat(drainer.drain()).isZero();
+
+        verify(rawSearchEventService, times(3)).logReceivedEvent(eq("user-1"), eq("search-events"), eq(0),
+                anyLong(), any(), anyString());
+        verify(pipeline, times(3)).aggregate(any(), any(SearchEventPayload.class));
+        assertThat(spillLog.pendingBytes()).isZero();
+    }
+
+    @Test
+    void drain_stopsAtConnectivityFailureAndResumesAfterSuccessfulProbe() throws Exception {
+        spill(1, 2);
+        when(pipeline.aggregate(any(), any(SearchEventPayload.class)))
+                .thenThrow(new CannotGetJdbcConnectionException("connection refused"))
+                .thenReturn(SearchEventPipeline.Result.AGGREGATED);
+
+        assertThatThrownBy(drainer::drain).hasRootCauseInstanceOf(CannotGetJdbcConnectionException.class);
+        assertThat(databaseHealth.isAvailable()).isFalse();
+        assertThat(drainer.drain()).isZero();
+        verifyNoInteractions(deadLetterProducer);
+
+        Connection connection = mock(Connection.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.isValid(anyInt())).thenReturn(true);
+        assertThat(databaseHealth.probe()).isTrue();
+
+        assertThat(drainer.drain()).isEqualTo(2);
+        assertThat(spillLog.pendingBytes()).isZero();
+    }
+
+    @Test
+    void probe_marksUnavailableOnlyForConnectivityFailures() throws Exception {
+        when(dataSource.getConnection())
+                .thenThrow(new SQLTransientConnectionException("pool-1 - Connection is not available, request timed out after 30000ms"))
+                .thenThrow(new SQLException("Connection to localhost:5432 refused", "08001"));
+
+        assertThat(databaseHealth.probe()).isTrue();
+        assertThat(databaseHealth.isAvailable()).isTrue();
+
+        assertThat(databaseHealth.probe()).isFalse();
+        assertThat(databaseHealth.isAvailable()).isFalse();
+    }
+
+    @Test
+    void drain_sendsPoisonEventToDltAndMovesOn() {
+        spill(1, 2);
+        when(pipeline.aggregate(any(), any(SearchEventPayload.class)))
+                .thenThrow(new IllegalArgumentException("bad query"))
+                .thenReturn(SearchEventPipeline.Result.AGGREGATED);
+
+        assertThat(drainer.drain()).isEqualTo(2);
+
+        verify(errorService).logError(any(), eq("search-events"), eq(0), eq(1L), eq("PROCESSING_ERROR"),
+                eq("bad query"), any(IllegalArgumentException.class));
+        verify(deadLetterProducer).sendToDlt(eq("user-1"), any(), eq("search-events"), eq(0), eq(1L), any(), any(),
+                any(IllegalArgumentException.class));
+        assertThat(databaseHealth.isAvailable()).isTrue();
+    }
+
+    private void spill(long... offsets) {
+        for (long offset : offsets) {
+            spillLog.append(SpilledEvent.builder()
+                    .key("user-1")
+                    .topic("search-events")
+                    .partition(0)
+                    .offset(offset)
+                    .spilledAt(Instant.parse("2025-12-06T10:00:00Z"))
+                    .payload(SearchEventPayload.builder()
+                            .eventId("e-" + offset)
+                            .query("java")
+                            .occurredAt(Instant.parse("2025-12-06T09:59:59Z"))
+                            .build())
+                    .build());
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.dimitryivaniuta.searchanalytics.spill;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.searchanalytics.config.SpillProperties;
+import com.github.dimitryivaniuta.searchanalytics.model.SearchEventPayload;
+import com.github.dimitryivaniuta.searchanalytics.model.SpilledEvent;
+import com.github.dimitryivaniuta.searchanalytics.spill.SpillLog.Entry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for SpillLog – round trip, drain cursor across restarts and the disk budget.
+ */
+class SpillLogTest {
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final SpillProperties properties = new SpillProperties();
+
+    @Test
+    void read_returnsSpilledEventsInOrderUntilCommitted() {
+        SpillLog spillLog = open();
+        spillLog.append(event(1, "java"));
+        spillLog.append(event(2, "kafka"));
+        spillLog.append(event(3, "postgres"));
+
+        List<Entry> first = spillLog.read(2);
+        assertThat(first).extracting(e -> e.event().getPayload().getQuery()).containsExactly("java", "kafka");
+        assertThat(spillLog.read(10)).hasSize(3);
+
+        spillLog.commit(first.get(1).lsn());
+
+        assertThat(spillLog.read(10)).extracting(e -> e.event().getOffset()).containsExactly(3L);
+        assertThat(spillLog.pendingBytes()).isPositive();
+        spillLog.close();
+    }
+
+    @Test
+    void cursor_survivesRestart() {
+        SpillLog spillLog = open();
+        spillLog.append(event(1, "java"));
+        spillLog.append(event(2, "kafka"));
+        spillLog.commit(spillLog.read(1).get(0).lsn());
+        spillLog.close();
+
+        SpillLog reopened = open();
+        assertThat(reopened.read(10)).extracting(e -> e.event().getOffset()).containsExactly(2L);
+
+        reopened.commit(reopened.read(10).get(0).lsn());
+        assertThat(reopened.pendingBytes()).isZero();
+        reopened.close();
+    }
+
+    @Test
+    void append_refusesEventsBeyondDiskBudget() {
+        properties.setMaxSize(DataSize.ofBytes(400));
+        SpillLog spillLog = open();
+
+        int accepted = 0;
+        while (spillLog.append(event(accepted, "java")) && accepted < 100) {
+            accepted++;
+        }
+
+        assertThat(accepted).isBetween(1, 99);
+        assertThat(spillLog.read(1000)).hasSize(accepted);
+        spillLog.close();
+    }
+
+    private SpillLog open() {
+        properties.setDirectory(directory);
+        properties.setSegmentSize(DataSize.ofKilobytes(4));
+        SpillLog spillLog = new SpillLog(properties, objectMapper);
+        spillLog.open();
+        return spillLog;
+    }
+
+    private static SpilledEvent event(long offset, String query) {
+        return SpilledEvent.builder()
+                .key("user-1")
+                .topic("search-events")
+                .partition(0)
+                .offset(offset)
+                .spilledAt(Instant.parse("2025-12-06T10:00:00Z"))
+                .payload(SearchEventPayload.builder()
+                        .eventId("e-" + offset)
+                        .query(query)
+                        .occurredAt(Instant.parse("2025-12-06T09:59:59Z"))
+                        .build())
+                .build();
+    }
+}
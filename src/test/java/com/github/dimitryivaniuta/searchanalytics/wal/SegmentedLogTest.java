@@ -0,0 +1,127 @@
+package com.github.dimitryivaniuta.searchanalytics.wal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for SegmentedLog – framing, segment roll-over, truncation and torn-tail recovery.
+ */
+class SegmentedLogTest {
+
+    private static final int SEGMENT_SIZE = 64;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replay_returnsRecordsAfterLsnAcrossSegments() throws IOException {
+        List<Long> lsns = new ArrayList<>();
+        try (SegmentedLog log = new SegmentedLog(directory, SEGMENT_SIZE, false)) {
+            for (int i = 0; i < 10; i++) {
+                lsns.add(log.append(bytes("rec-" + i)));
+            }
+            assertThat(log.segmentCount()).isEqualTo(3);
+            assertThat(lsns).isSorted();
+
+            assertThat(replay(log, lsns.get(3)))
+                    .containsExactly("rec-4", "rec-5", "rec-6", "rec-7", "rec-8", "rec-9");
+            assertThat(replay(log, log.endLsn())).isEmpty();
+        }
+    }
+
+    @Test
+    void reopen_continuesAfterLastRecord() throws IOException {
+        long lsn;
+        try (SegmentedLog log = new SegmentedLog(directory, SEGMENT_SIZE, false)) {
+            log.append(bytes("a"));
+            lsn = log.append(bytes("b"));
+        }
+
+        try (SegmentedLog log = new SegmentedLog(directory, SEGMENT_SIZE, false)) {
+            assertThat(log.endLsn()).isEqualTo(lsn);
+            log.append(bytes("c"));
+            assertThat(replay(log, 0)).containsExactly("a", "b", "c");
+        }
+    }
+
+    @Test
+    void truncateBefore_deletesOnlyFullyCoveredSegments() throws IOException {
+        List<Long> lsns = new ArrayList<>();
+        try (SegmentedLog log = new SegmentedLog(directory, SEGMENT_SIZE, false)) {
+            for (int i = 0; i < 10; i++) {
+                lsns.add(log.append(bytes("rec-" + i)));
+            }
+
+            assertThat(log.truncateBefore(lsns.get(5))).isEqualTo(1);
+            assertThat(log.segmentCount()).isEqualTo(2);
+            assertThat(segmentFiles()).hasSize(2);
+            assertThat(replay(log, lsns.get(5))).containsExactly("rec-6", "rec-7", "rec-8", "rec-9");
+
+            // the active segment is never deleted
+            assertThat(log.truncateBefore(log.endLsn())).isEqualTo(1);
+            assertThat(log.segmentCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void tornTailRecord_isDroppedOnReopen() throws IOException {
+        long intact;
+        long torn;
+        try (SegmentedLog log = new SegmentedLog(directory, SEGMENT_SIZE, false)) {
+            log.append(bytes("first"));
+            intact = log.append(bytes("second"));
+            torn = log.append(bytes("third"));
+        }
+        // flip the last payload byte of "third" -> CRC mismatch
+        try (FileChannel channel = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), torn - 1);
+        }
+
+        try (SegmentedLog log = new SegmentedLog(directory, SEGMENT_SIZE, false)) {
+            assertThat(log.endLsn()).isEqualTo(intact);
+            assertThat(replay(log, 0)).containsExactly("first", "second");
+
+            log.append(bytes("fourth"));
+            assertThat(replay(log, 0)).containsExactly("first", "second", "fourth");
+        }
+    }
+
+    @Test
+    void append_rejectsRecordLargerThanSegment() throws IOException {
+        try (SegmentedLog log = new SegmentedLog(directory, SEGMENT_SIZE, false)) {
+            assertThatThrownBy(() -> log.append(new byte[SEGMENT_SIZE]))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThat(log.endLsn()).isZero();
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> replay(SegmentedLog log, long afterLsn) throws IOException {
+        List<String> records = new ArrayList<>();
+        log.replay(afterLsn, (lsn, payload) -> records.add(StandardCharsets.UTF_8.decode(payload).toString()));
+        return records;
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.toString().endsWith(".wal")).sorted().toList();
+        }
+    }
+}
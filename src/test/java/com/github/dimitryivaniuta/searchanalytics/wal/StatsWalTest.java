@@ -0,0 +1,87 @@
+package com.github.dimitryivaniuta.searchanalytics.wal;
+
+import com.github.dimitryivaniuta.searchanalytics.config.StatsProperties;
+import com.github.dimitryivaniuta.searchanalytics.model.DayQueryKey;
+import com.github.dimitryivaniuta.searchanalytics.repository.StatsWalCheckpointRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.support.TopicPartitionOffset;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for StatsWal – record encoding, checkpointed replay and the stable wal id.
+ */
+class StatsWalTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 12, 6);
+
+    @TempDir
+    Path directory;
+
+    private final StatsWalCheckpointRepository checkpoints = mock(StatsWalCheckpointRepository.class);
+
+    @Test
+    void replay_returnsIncrementsAfterStoredCheckpoint() throws Exception {
+        StatsWal wal = open();
+        wal.append(DAY, "java", 1L, new TopicPartitionOffset("search-events", 0, 10L));
+        long checkpoint = wal.append(DAY, "kafka", 1L, new TopicPartitionOffset("search-events", 1, 11L));
+        wal.append(DAY, "java", 1L, new TopicPartitionOffset("search-events", 0, 12L));
+        wal.append(DAY.plusDays(1), "zürich", 2L, null);
+        wal.close();
+
+        StatsWal reopened = open();
+        when(checkpoints.findLsn(reopened.walId())).thenReturn(checkpoint);
+        Map<DayQueryKey, Long> deltas = new LinkedHashMap<>();
+        long replayed = reopened.replay((key, delta) -> deltas.merge(key, delta, Long::sum));
+
+        assertThat(replayed).isEqualTo(2);
+        assertThat(deltas).containsExactly(
+                Map.entry(new DayQueryKey(DAY, "java"), 1L),
+                Map.entry(new DayQueryKey(DAY.plusDays(1), "zürich"), 2L));
+        reopened.close();
+    }
+
+    @Test
+    void walId_isKeptAcrossRestartsAndUsedForCheckpoints() throws Exception {
+        StatsWal wal = open();
+        String walId = wal.walId();
+        wal.checkpoint(42L);
+        wal.close();
+
+        StatsWal reopened = open();
+        assertThat(reopened.walId()).isEqualTo(walId);
+        assertThat(Files.readString(directory.resolve(StatsWal.ID_FILE))).isEqualTo(walId);
+        verify(checkpoints).save(walId, 42L);
+        reopened.close();
+    }
+
+    @Test
+    void disabled_opensNothing() throws Exception {
+        StatsProperties properties = new StatsProperties();
+        properties.getWal().setDirectory(directory.resolve("off"));
+        StatsWal wal = new StatsWal(properties, checkpoints);
+        wal.open();
+
+        assertThat(wal.isEnabled()).isFalse();
+        assertThat(directory.resolve("off")).doesNotExist();
+    }
+
+    private StatsWal open() throws Exception {
+        StatsProperties properties = new StatsProperties();
+        properties.getWal().setEnabled(true);
+        properties.getWal().setDirectory(directory);
+        properties.getWal().setSegmentSize(DataSize.ofKilobytes(4));
+        StatsWal wal = new StatsWal(properties, checkpoints);
+        wal.open();
+        return wal;
+    }
+}
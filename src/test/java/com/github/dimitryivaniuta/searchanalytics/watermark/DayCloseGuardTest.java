@@ -0,0 +1,98 @@
+package com.github.dimitryivaniuta.searchanalytics.watermark;
+
+import com.github.dimitryivaniuta.searchanalytics.config.WatermarkProperties;
+import com.github.dimitryivaniuta.searchanalytics.config.WatermarkProperties.LatePolicy;
+import com.github.dimitryivaniuta.searchanalytics.repository.ClosedDayRepository;
+import com.github.dimitryivaniuta.searchanalytics.repository.LateStatAdjustmentRepository;
+import com.github.dimitryivaniuta.searchanalytics.watermark.DayCloseGuard.Admission;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for DayCloseGuard – open days count normally, closed days follow the late policy.
+ */
+class DayCloseGuardTest {
+
+    private static final LocalDate CLOSED = LocalDate.parse("2025-12-05");
+    private static final LocalDate OPEN = LocalDate.parse("2025-12-06");
+
+    private final ClosedDayRepository closedDayRepository = mock(ClosedDayRepository.class);
+    private final LateStatAdjustmentRepository lateRepository = mock(LateStatAdjustmentRepository.class);
+    private final WatermarkProperties properties = new WatermarkProperties();
+    private final DayCloseGuard guard = new DayCloseGuard(closedDayRepository, lateRepository, properties);
+    private final AtomicInteger increments = new AtomicInteger();
+
+    private DayCloseGuard withClosedDay(LatePolicy policy) {
+        properties.setLatePolicy(policy);
+        when(closedDayRepository.findClosedDays()).thenReturn(Set.of(CLOSED));
+        guard.refresh();
+        return guard;
+    }
+
+    @Test
+    void openDay_runsIncrement() {
+        withClosedDay(LatePolicy.REJECT);
+
+        assertThat(guard.admit(OPEN, "java", increments::incrementAndGet)).isEqualTo(Admission.OPEN);
+        assertThat(increments).hasValue(1);
+    }
+
+    @Test
+    void closedDay_reject_dropsEvent() {
+        withClosedDay(LatePolicy.REJECT);
+
+        assertThat(guard.admit(CLOSED, "java", increments::incrementAndGet)).isEqualTo(Admission.REJECTED);
+        assertThat(increments).hasValue(0);
+        verifyNoInteractions(lateRepository);
+    }
+
+    @Test
+    void closedDay_adjust_countsInLateTable() {
+        withClosedDay(LatePolicy.ADJUST);
+
+        assertThat(guard.admit(CLOSED, "java", increments::incrementAndGet)).isEqualTo(Admission.ADJUSTED);
+        assertThat(increments).hasValue(0);
+        verify(lateRepository).increment(CLOSED, "java");
+    }
+
+    @Test
+    void closedDay_reopen_reopensOnceAndIncrements() {
+        withClosedDay(LatePolicy.REOPEN);
+
+        assertThat(guard.admit(CLOSED, "java", increments::incrementAndGet)).isEqualTo(Admission.REOPENED);
+        assertThat(guard.admit(CLOSED, "java", increments::incrementAndGet)).isEqualTo(Admission.OPEN);
+
+        assertThat(increments).hasValue(2);
+        assertThat(guard.isClosed(CLOSED)).isFalse();
+        verify(closedDayRepository, times(1)).reopen(CLOSED);
+    }
+
+    @Test
+    void close_runsHookBeforeInsertAndMarksDaysClosed() {
+        when(closedDayRepository.close(List.of(OPEN), Instant.EPOCH)).thenReturn(List.of(OPEN));
+
+        List<LocalDate> closed = guard.close(List.of(OPEN), Instant.EPOCH, increments::incrementAndGet);
+
+        assertThat(closed).containsExactly(OPEN);
+        assertThat(increments).hasValue(1);
+        assertThat(guard.isClosed(OPEN)).isTrue();
+        assertThat(guard.isClosed(OPEN, OPEN.plusDays(1))).isFalse();
+    }
+
+    @Test
+    void disabled_treatsEveryDayAsOpen() {
+        withClosedDay(LatePolicy.REJECT);
+        properties.setEnabled(false);
+
+        assertThat(guard.admit(CLOSED, "java", increments::incrementAndGet)).isEqualTo(Admission.OPEN);
+        assertThat(guard.isClosed(CLOSED)).isFalse();
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.dimitryivaniuta.searchanalytics.watermark;
+
+import com.github.dimitryivaniuta.searchanalytics.bulkhead.BulkheadRegistry;
+import com.github.dimitryivaniuta.searchanalytics.config.BulkheadProperties;
+import com.github.dimitryivaniuta.searchanalytics.config.KafkaTopicsProperties;
+import com.github.dimitryivaniuta.searchanalytics.config.StatsProperties;
+import com.github.dimitryivaniuta.searchanalytics.config.WatermarkProperties;
+import com.github.dimitryivaniuta.searchanalytics.repository.ClosedDayRepository;
+import com.github.dimitryivaniuta.searchanalytics.repository.EventTimeWatermarkRepository;
+import com.github.dimitryivaniuta.searchanalytics.repository.LateStatAdjustmentRepository;
+import com.github.dimitryivaniuta.searchanalytics.service.DailyQueryStatBuffer;
+import com.github.dimitryivaniuta.searchanalytics.service.PartitionedStatsAggregator;
+import com.github.dimitryivaniuta.searchanalytics.spill.SpillLog;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for DayCloser – watermark persistence, low watermark minus lateness, which days get closed.
+ */
+class DayCloserTest {
+
+    private static final String TOPIC = "search-events";
+    private static final Instant NOW = Instant.parse("2025-12-07T12:00:00Z");
+
+    private final EventTimeWatermarkRepository watermarkRepository = mock(EventTimeWatermarkRepository.class);
+    private final ClosedDayRepository closedDayRepository = mock(ClosedDayRepository.class);
+    private final DailyQueryStatBuffer buffer = mock(DailyQueryStatBuffer.class);
+    private final PartitionedStatsAggregator partitionedStats = mock(PartitionedStatsAggregator.class);
+    private final SpillLog spillLog = mock(SpillLog.class);
+    private final StatsProperties statsProperties = new StatsProperties();
+    private final WatermarkProperties properties = new WatermarkProperties();
+    private final WatermarkTracker tracker = new WatermarkTracker(properties, Clock.fixed(NOW, ZoneOffset.UTC));
+    private final DayCloseGuard guard = new DayCloseGuard(closedDayRepository,
+            mock(LateStatAdjustmentRepository.class), properties);
+    private final DayCloser closer;
+
+    DayCloserTest() {
+        KafkaTopicsProperties topics = new KafkaTopicsProperties();
+        topics.setSearchEventsTopic(TOPIC);
+        properties.setLookbackDays(2);
+        when(closedDayRepository.findClosedDays()).thenReturn(Set.of());
+        when(closedDayRepository.findReopenedDays()).thenReturn(List.of());
+        when(closedDayRepository.close(anyCollection(), any())).thenAnswer(inv -> List.copyOf(inv.<Collection<LocalDate>>getArgument(0)));
+        closer = new DayCloser(tracker, guard, watermarkRepository, closedDayRepository, buffer, partitionedStats, spillLog,
+                statsProperties, properties, topics, new BulkheadRegistry(new BulkheadProperties()), Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void check_persistsPerPartitionMaxEventTime() {
+        tracker.observe(TOPIC, 0, Instant.parse("2025-12-07T10:00:00Z"));
+        tracker.observe(TOPIC, 0, Instant.parse("2025-12-07T09:00:00Z"));
+        tracker.observe(TOPIC, 1, Instant.parse("2025-12-07T08:00:00Z"));
+        when(watermarkRepository.findLowWatermark(eq(TOPIC), any())).thenReturn(Optional.empty());
+
+        assertThat(closer.check()).isEmpty();
+
+        verify(watermarkRepository).advance(TOPIC, Map.of(
+                0, Instant.parse("2025-12-07T10:00:00Z"),
+                1, Instant.parse("2025-12-07T08:00:00Z")));
+        verify(watermarkRepository).findLowWatermark(TOPIC, NOW.minus(properties.getIdleTimeout()));
+        assertThat(tracker.drain(TOPIC)).isEmpty();
+    }
+
+    @Test
+    void check_clampsEventTimesAheadOfReceiveTime() {
+        tracker.observe(TOPIC, 0, Instant.parse("2025-12-07T12:03:00Z"));
+        tracker.observe(TOPIC, 1, Instant.parse("2030-01-01T00:00:00Z"));
+        when(watermarkRepository.findLowWatermark(eq(TOPIC), any())).thenReturn(Optional.empty());
+
+        closer.check();
+
+        verify(watermarkRepository).advance(TOPIC, Map.of(
+                0, Instant.parse("2025-12-07T12:03:00Z"),
+                1, NOW.plus(properties.getFutureSkewTolerance())));
+    }
+
+    @Test
+    void check_closesDaysBeforeWatermarkWithinLookback() {
+        // 01:00 minus 2h allowed lateness -> watermark 2025-12-06T23:00, so only days up to 12-05 close
+        when(watermarkRepository.findLowWatermark(eq(TOPIC), any()))
+                .thenReturn(Optional.of(Instant.parse("2025-12-07T01:00:00Z")));
+
+        List<LocalDate> closed = closer.check();
+
+        assertThat(closed).containsExactly(LocalDate.parse("2025-12-04"), LocalDate.parse("2025-12-05"));
+        assertThat(closer.watermark()).isEqualTo(Instant.parse("2025-12-06T23:00:00Z"));
+        assertThat(guard.isClosed(LocalDate.parse("2025-12-04"), LocalDate.parse("2025-12-05"))).isTrue();
+        verifyNoInteractions(buffer);
+    }
+
+    @Test
+    void check_flushesCoalescedBufferAndClosesReopenedDays() {
+        statsProperties.setWriteMode(StatsProperties.WriteMode.COALESCED);
+        properties.setLookbackDays(0);
+        when(closedDayRepository.findReopenedDays()).thenReturn(List.of(LocalDate.parse("2025-11-30")));
+        when(watermarkRepository.findLowWatermark(eq(TOPIC), any()))
+                .thenReturn(Optional.of(Instant.parse("2025-12-07T06:00:00Z")));
+
+        assertThat(closer.check()).containsExactly(LocalDate.parse("2025-11-30"));
+
+        verify(buffer).flush();
+    }
+
+    @Test
+    void check_keepsDaysOpenWhileSpillIsUndrained() {
+        when(spillLog.pendingBytes()).thenReturn(4096L);
+        when(watermarkRepository.findLowWatermark(eq(TOPIC), any()))
+                .thenReturn(Optional.of(Instant.parse("2025-12-07T01:00:00Z")));
+
+        assertThat(closer.check()).isEmpty();
+
+        assertThat(guard.isClosed(LocalDate.parse("2025-12-05"))).isFalse();
+        verify(closedDayRepository, never()).close(any(), any());
+    }
+}